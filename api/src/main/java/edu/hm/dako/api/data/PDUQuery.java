@@ -0,0 +1,144 @@
+package edu.hm.dako.api.data;
+
+/**
+ * filter and page of a PDU list request
+ *
+ * @author Lerngruppe
+ */
+public class PDUQuery {
+    /**
+     * default page size if only after is given
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * max page size
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * only PDUs with a greater id, 0 for the first page
+     */
+    private int after;
+
+    /**
+     * max number of PDUs, 0 for no limit
+     */
+    private int limit;
+
+    /**
+     * only PDUs with audit time greater or equal (epoch millis)
+     */
+    private long from = Long.MIN_VALUE;
+
+    /**
+     * only PDUs with audit time less than (epoch millis)
+     */
+    private long to = Long.MAX_VALUE;
+
+    /**
+     * only PDUs of this user, null for all users
+     */
+    private String username;
+
+    /**
+     * constructor
+     */
+    public PDUQuery() {
+    }
+
+    /**
+     * a paged query returns PDUs ordered by id (oldest first), the id of the last PDU is the next after-value;
+     * an unpaged query returns all matching PDUs with the newest first
+     *
+     * @return true if after or limit is set
+     */
+    public boolean isPaged() {
+        return after > 0 || limit > 0;
+    }
+
+    /**
+     * getter
+     *
+     * @return after
+     */
+    public int getAfter() {
+        return after;
+    }
+    /**
+     * setter
+     *
+     * @param after after
+     */
+    public void setAfter(int after) {
+        this.after = after;
+    }
+
+    /**
+     * getter
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+    /**
+     * setter
+     *
+     * @param limit limit
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * getter
+     *
+     * @return from
+     */
+    public long getFrom() {
+        return from;
+    }
+    /**
+     * setter
+     *
+     * @param from from
+     */
+    public void setFrom(long from) {
+        this.from = from;
+    }
+
+    /**
+     * getter
+     *
+     * @return to
+     */
+    public long getTo() {
+        return to;
+    }
+    /**
+     * setter
+     *
+     * @param to to
+     */
+    public void setTo(long to) {
+        this.to = to;
+    }
+
+    /**
+     * getter
+     *
+     * @return username
+     */
+    public String getUsername() {
+        return username;
+    }
+    /**
+     * setter
+     *
+     * @param username username
+     */
+    public void setUsername(String username) {
+        this.username = username;
+    }
+}
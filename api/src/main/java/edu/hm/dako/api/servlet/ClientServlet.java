@@ -1,6 +1,6 @@
 package edu.hm.dako.api.servlet;
 
-import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.data.PDUQuery;
 import edu.hm.dako.api.store.DataBaseController;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,7 +27,10 @@ public class ClientServlet extends HttpServlet {
 
     /**
      * GET localhost:8080/api/pdus/clients<br/>
-     * params: username
+     * params: username, after, limit, from, to (list of pdus as in GET localhost:8080/api/pdus)<br/>
+     * response can be http200 (ok), http400 (bad request) if username is missing or a parameter is not a number,
+     * http500 (server error) if the database can't be read, http503 (service unavailable) if all database
+     * connections are busy; if a database error occurs after parts of the list were sent, the response is aborted
      *
      * @param request an {@link HttpServletRequest} object that contains the request the client has made of the servlet
      * @param response an {@link HttpServletResponse} object that contains the response the servlet sends to the client
@@ -36,31 +39,27 @@ public class ClientServlet extends HttpServlet {
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Headers.setHeaders(response);
         String username = request.getParameter("username");
-        int chatMessages = controller.selectClientChatMessagesCount(username);
-
-        PDU[] pdus = controller.selectPDU(username);
-
-        String lastLogin = "";
-        for (PDU pdu : pdus) {
-            if (pdu.getPduType().equals("Login")) {
-                lastLogin = pdu.getAuditTime();
-                break;
-            }
+        if (username == null || username.isBlank()) {
+            response.getOutputStream().println("parameter username required");
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
+        PDUQuery query = QueryParameters.getQuery(request, response);
+        if (query == null) return;
+        query.setUsername(username);
 
-        String lastLogout = "";
-        for (PDU pdu : pdus) {
-            if (pdu.getPduType().equals("Logout")) {
-                lastLogout = pdu.getAuditTime();
-                break;
-            }
-        }
+        int chatMessages = controller.selectClientChatMessagesCount(username);
+        String lastLogin = controller.selectLastLogin(username);
+        String lastLogout = controller.selectLastLogout(username);
 
-        response.getOutputStream().println(new JSONObject()
-                .put("username", username)
-                .put("chatMessages", chatMessages)
-                .put("lastLogin", lastLogin)
-                .put("lastLogout", lastLogout)
-                .put("pdus", pdus).toString());
+        PDUJsonWriter writer = new PDUJsonWriter(response);
+        writer.write("{\"username\":" + JSONObject.quote(username) +
+                ",\"chatMessages\":" + chatMessages +
+                ",\"lastLogin\":" + JSONObject.quote(lastLogin) +
+                ",\"lastLogout\":" + JSONObject.quote(lastLogout) +
+                ",\"pdus\":");
+        if (!writer.writeList(controller, query)) return;
+        writer.write("}");
+        writer.flush();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package edu.hm.dako.api.servlet;
+
+import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.store.DataBaseController;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * REST endpoint to store many PDUs of the audit log server with one request
+ *
+ * @author Lerngruppe
+ */
+public class PDUBatchServlet extends HttpServlet {
+    /**
+     * max number of PDUs accepted in one request
+     */
+    static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * controller for database actions
+     */
+    DataBaseController controller;
+
+    @Override
+    public void init() {
+        controller = DataBaseController.getInstance();
+        controller.init();
+    }
+
+    /**
+     * POST localhost:8080/api/pdus/batch<br/>
+     * body: JSON-list of objects (pduType, username, clientThread, serverThread, auditTime, content)<br/>
+     * all PDUs are inserted in one transaction, either all or none are stored<br/>
+     * response can be http200 (ok) with the number of inserted PDUs, http400 (bad request) if the body is no valid
+     * JSON-list or a parameter is missing, too long or auditTime not a number, http413 (too large) if more than
+     * 10000 PDUs are sent, http500 (server error)
+     *
+     * @param request an {@link HttpServletRequest} object that contains the request the client has made of the servlet
+     * @param response an {@link HttpServletResponse} object that contains the response the servlet sends to the client
+     */
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Headers.setHeaders(response);
+        JSONArray input;
+        try {
+            input = new JSONArray(new JSONTokener(request.getReader()));
+        } catch (JSONException e) {
+            response.getOutputStream().println("wrong body format: JSON-list expected");
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        if (input.length() > MAX_BATCH_SIZE) {
+            response.getOutputStream().println("max batch size of " + MAX_BATCH_SIZE + " PDUs exceeded");
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        List<PDU> pdus = new ArrayList<>(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            PDU pdu = getPDU(input.optJSONObject(i));
+            if (pdu == null) {
+                response.getOutputStream().println("invalid PDU at index " + i + ": all parameters required, " +
+                        "max parameter size of 100 chars, auditTime in epoch milliseconds");
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            pdus.add(pdu);
+        }
+
+        if (!controller.insertPDUs(pdus)) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        response.getOutputStream().println(new JSONObject().put("inserted", pdus.size()).toString());
+    }
+
+    /**
+     * creates a PDU from a JSON-object, null if wrong parameters
+     *
+     * @param json JSON-object with all pdu parameters
+     * @return parsed PDU
+     */
+    private PDU getPDU(JSONObject json) {
+        if (json == null) return null;
+
+        String[] input = new String[6];
+        String[] keys = {"pduType", "username", "clientThread", "serverThread", "auditTime", "content"};
+        for (int i = 0; i < keys.length; i++) {
+            Object value = json.opt(keys[i]);
+            if (value == null) return null;
+            input[i] = String.valueOf(value);
+            if (input[i].length() > 100) return null;
+        }
+        if (!input[4].matches("-?[0-9]{1,18}")) return null;
+
+        return new PDU(0, input[0], input[1], input[2], input[3], input[4], input[5]);
+    }
+}
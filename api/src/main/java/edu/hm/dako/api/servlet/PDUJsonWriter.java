@@ -0,0 +1,136 @@
+package edu.hm.dako.api.servlet;
+
+import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.data.PDUQuery;
+import edu.hm.dako.api.store.DataBaseBusyException;
+import edu.hm.dako.api.store.DataBaseController;
+import edu.hm.dako.api.store.PDUConsumer;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+
+/**
+ * writes a JSON-list of PDUs incrementally to a response, one PDU at a time
+ *
+ * @author Lerngruppe
+ */
+class PDUJsonWriter implements PDUConsumer {
+    /**
+     * response the PDUs are written to
+     */
+    private final HttpServletResponse response;
+
+    /**
+     * buffered writer on the response output stream
+     */
+    private final BufferedWriter out;
+
+    /**
+     * true until the first PDU was written
+     */
+    private boolean first = true;
+
+    /**
+     * constructor
+     *
+     * @param response response to write to
+     * @throws IOException if the response output stream can't be opened
+     */
+    PDUJsonWriter(HttpServletResponse response) throws IOException {
+        this.response = response;
+        this.out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * writes raw JSON, e.g. the attributes of an enclosing object
+     *
+     * @param json JSON to write
+     * @throws IOException if the response can't be written
+     */
+    void write(String json) throws IOException {
+        out.write(json);
+    }
+
+    /**
+     * opens the JSON-list
+     *
+     * @throws IOException if the response can't be written
+     */
+    void beginList() throws IOException {
+        out.write('[');
+        first = true;
+    }
+
+    @Override
+    public void accept(PDU pdu) throws IOException {
+        if (!first) out.write(',');
+        first = false;
+        out.write(new JSONObject(pdu).toString());
+    }
+
+    /**
+     * closes the JSON-list
+     *
+     * @throws IOException if the response can't be written
+     */
+    void endList() throws IOException {
+        out.write(']');
+    }
+
+    /**
+     * streams the selected PDUs as JSON-list, on a database error the response becomes http500, if no database
+     * connection is free http503 (service unavailable)
+     *
+     * @param controller database controller
+     * @param query filter and page
+     * @return true if the list was written completely, false if the response was answered with an error status
+     * @throws IOException if the response can't be written or was aborted
+     */
+    boolean writeList(DataBaseController controller, PDUQuery query) throws IOException {
+        beginList();
+        boolean complete;
+        try {
+            complete = controller.selectPDU(query, this);
+        } catch (DataBaseBusyException e) {
+            fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            return false;
+        }
+        if (!complete) {
+            fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return false;
+        }
+        endList();
+        return true;
+    }
+
+    /**
+     * answers with an error status instead of the JSON written so far, must not be followed by {@link #flush()}<br/>
+     * if parts of the JSON were already sent, the status can't be changed anymore: the response is aborted with an
+     * exception, so the client gets a broken connection instead of a truncated list with http200
+     *
+     * @param status http status, e.g. 500 (server error)
+     * @throws IOException if the response was already committed
+     */
+    void fail(int status) throws IOException {
+        if (response.isCommitted()) {
+            throw new IOException("response aborted after " + status + ", PDUs were already sent");
+        }
+        // discards the JSON buffered in the container, the JSON still in out is never flushed
+        response.resetBuffer();
+        response.setStatus(status);
+    }
+
+    /**
+     * flushes everything written so far to the response
+     *
+     * @throws IOException if the response can't be written
+     */
+    void flush() throws IOException {
+        out.write('\n');
+        out.flush();
+    }
+}
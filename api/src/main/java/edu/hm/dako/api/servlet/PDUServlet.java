@@ -1,6 +1,7 @@
 package edu.hm.dako.api.servlet;
 
 import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.data.PDUQuery;
 import edu.hm.dako.api.store.DataBaseController;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,10 +27,15 @@ public class PDUServlet extends HttpServlet {
     }
 
     /**
-     * GET localhost:8080/api/pdus or localhost:8080/api/pdus?id=3<br/>
-     * parameter: id<br/>
+     * GET localhost:8080/api/pdus or localhost:8080/api/pdus?id=3 or localhost:8080/api/pdus?after=100&amp;limit=50<br/>
+     * parameter: id, after, limit, from, to<br/>
      * no id or id=0 is a list-request, a specific id >= 1 is a single-item-request<br/>
-     * response can be http200 (ok) with value or http404 (not found), http400 (bad request) if id not a number
+     * a list-request is streamed from the database, without after and limit it contains all PDUs with the newest
+     * first, with after or limit it is a page ordered by id, the id of the last PDU is the after of the next page;
+     * from and to filter by audit time (from inclusive, to exclusive)<br/>
+     * response can be http200 (ok) with value or http404 (not found), http400 (bad request) if a parameter is not
+     * a number, http500 (server error) if the database can't be read, http503 (service unavailable) if all database
+     * connections are busy; if a database error occurs after parts of the list were sent, the response is aborted
      *
      * @param request an {@link HttpServletRequest} object that contains the request the client has made of the servlet
      * @param response an {@link HttpServletResponse} object that contains the response the servlet sends to the client
@@ -39,10 +45,13 @@ public class PDUServlet extends HttpServlet {
         Headers.setHeaders(response);
         int id = evaluateId(request, response);
 
-        if (id == 0) {//get all (id starts from 1)
-            PDU[] pdus = controller.selectAllPDU();
+        if (id == 0) {//get all (id starts from 1), written row by row
+            PDUQuery query = QueryParameters.getQuery(request, response);
+            if (query == null) return;
 
-            response.getOutputStream().println(JSONObject.wrap(pdus).toString());
+            PDUJsonWriter writer = new PDUJsonWriter(response);
+            if (!writer.writeList(controller, query)) return;
+            writer.flush();
         } else {//get one
             PDU pdu = controller.selectPDU(id);
 
@@ -58,7 +67,8 @@ public class PDUServlet extends HttpServlet {
     /**
      * POST localhost:8080/api/pdus<br/>
      * parameter: pduType, username, clientThread, serverThread, auditTime, content<br/>
-     * response can be http200 (ok), http400 (bad request) if a parameter is too long, http500 (server error)
+     * response can be http200 (ok), http400 (bad request) if a parameter is too long or auditTime not a number,
+     * http500 (server error)
      *
      * @param request an {@link HttpServletRequest} object that contains the request the client has made of the servlet
      * @param response an {@link HttpServletResponse} object that contains the response the servlet sends to the client
@@ -77,7 +87,7 @@ public class PDUServlet extends HttpServlet {
     /**
      * PUT localhost:8080/api/pdus<br/>
      * parameter: id, pduType, username, clientThread, serverThread, auditTime, content<br/>
-     * response can be http200 (ok), http400 (bad request) if a parameter is too long or id not a number,
+     * response can be http200 (ok), http400 (bad request) if a parameter is too long, id or auditTime not a number,
      * http404 (not found) if id doesn't exist, http500 (server error)
      *
      * @param request the {@link HttpServletRequest} object that contains the request the client made of the servlet
@@ -163,6 +173,12 @@ public class PDUServlet extends HttpServlet {
             return null;
         }
 
+        if (!auditTime.matches("-?[0-9]{1,18}")) {
+            response.getOutputStream().println("wrong auditTime format: epoch milliseconds expected");
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+
         return new String[] {pduType, username, clientThread, serverThread, auditTime, content};
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package edu.hm.dako.api.servlet;
+
+import edu.hm.dako.api.data.PDUQuery;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * parses the page and filter parameters of list requests: after, limit, from, to
+ *
+ * @author Lerngruppe
+ */
+class QueryParameters {
+    /**
+     * constructor
+     */
+    private QueryParameters() {
+    }
+
+    /**
+     * creates a query from the request parameters, bad request if a parameter is not a number or out of range
+     *
+     * @param request object that contains the request the client made of the servlet
+     * @param response object that contains the response the servlet returns to the client
+     * @return parsed query or null if the request was answered with bad request
+     */
+    static PDUQuery getQuery(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PDUQuery query = new PDUQuery();
+        try {
+            String after = request.getParameter("after");
+            String limit = request.getParameter("limit");
+            String from = request.getParameter("from");
+            String to = request.getParameter("to");
+
+            if (after != null) {
+                query.setAfter(Integer.parseInt(after));
+                query.setLimit(PDUQuery.DEFAULT_LIMIT);
+            }
+            if (limit != null) query.setLimit(Integer.parseInt(limit));
+            if (from != null) query.setFrom(Long.parseLong(from));
+            if (to != null) query.setTo(Long.parseLong(to));
+        } catch (NumberFormatException e) {
+            response.getOutputStream().println("wrong parameter format: integer expected for after, limit, from, to");
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+
+        if ((query.getAfter() < 0) || (request.getParameter("limit") != null &&
+                ((query.getLimit() < 1) || (query.getLimit() > PDUQuery.MAX_LIMIT)))) {
+            response.getOutputStream().println("after must be >= 0, limit between 1 and " + PDUQuery.MAX_LIMIT);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+        return query;
+    }
+}
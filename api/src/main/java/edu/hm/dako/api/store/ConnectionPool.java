@@ -0,0 +1,136 @@
+package edu.hm.dako.api.store;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JDBC connection pool for SQlite in WAL mode: one writer connection and several read-only connections,
+ * so reads don't wait for writes and writes are serialized like SQlite requires anyway
+ *
+ * @author Lerngruppe
+ */
+class ConnectionPool implements AutoCloseable {
+    /**
+     * max. time to wait for a free read-only connection, streaming queries hold theirs while the response is written
+     */
+    static final long READER_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * the only connection allowed to write
+     */
+    private final PooledConnection writer;
+
+    /**
+     * lock of the writer connection
+     */
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    /**
+     * idle read-only connections
+     */
+    private final BlockingQueue<PooledConnection> readers;
+
+    /**
+     * all read-only connections, to close them
+     */
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+
+    /**
+     * constructor, opens all connections
+     *
+     * @param url JDBC url of the database
+     * @param numberOfReaders number of read-only connections
+     * @throws SQLException if a connection can't be opened
+     */
+    ConnectionPool(String url, int numberOfReaders) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement pragma = connection.createStatement()) {
+            // write-ahead-log: readers don't block the writer, commits don't need a full fsync of the database
+            pragma.execute("PRAGMA journal_mode=WAL;");
+            pragma.execute("PRAGMA synchronous=NORMAL;");
+            pragma.execute("PRAGMA busy_timeout=5000;");
+        }
+        writer = new PooledConnection(connection, this);
+
+        readers = new ArrayBlockingQueue<>(numberOfReaders);
+        for (int i = 0; i < numberOfReaders; i++) {
+            connection = DriverManager.getConnection(url);
+            try (Statement pragma = connection.createStatement()) {
+                pragma.execute("PRAGMA query_only=ON;");
+                pragma.execute("PRAGMA busy_timeout=5000;");
+            }
+            PooledConnection reader = new PooledConnection(connection, this);
+            allReaders.add(reader);
+            readers.add(reader);
+        }
+    }
+
+    /**
+     * borrows the writer connection, blocks while another thread writes
+     *
+     * @return writer connection, close it to give it back
+     */
+    PooledConnection writer() {
+        writerLock.lock();
+        return writer;
+    }
+
+    /**
+     * borrows a read-only connection, waits up to {@link #READER_TIMEOUT_MILLIS} while all are in use
+     *
+     * @return read-only connection, close it to give it back
+     * @throws SQLTransientConnectionException if no connection became free in time
+     * @throws SQLException if interrupted while waiting
+     */
+    PooledConnection reader() throws SQLException {
+        try {
+            PooledConnection reader = readers.poll(READER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (reader == null) {
+                throw new SQLTransientConnectionException("no database connection free within "
+                        + READER_TIMEOUT_MILLIS + " ms");
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * gives a borrowed connection back
+     *
+     * @param connection borrowed connection
+     */
+    void release(PooledConnection connection) {
+        if (connection == writer) {
+            writerLock.unlock();
+        } else {
+            readers.offer(connection);
+        }
+    }
+
+    /**
+     * closes all connections
+     */
+    @Override
+    public void close() {
+        for (PooledConnection reader : allReaders) {
+            reader.closeConnection();
+        }
+        writerLock.lock();
+        try {
+            writer.closeConnection();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+}
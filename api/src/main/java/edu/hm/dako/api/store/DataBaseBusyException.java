@@ -0,0 +1,19 @@
+package edu.hm.dako.api.store;
+
+import java.io.IOException;
+
+/**
+ * no read-only connection became free in time, the request can be repeated later
+ *
+ * @author Lerngruppe
+ */
+public class DataBaseBusyException extends IOException {
+    /**
+     * constructor
+     *
+     * @param cause timeout of the connection pool
+     */
+    public DataBaseBusyException(Throwable cause) {
+        super(cause.getMessage(), cause);
+    }
+}
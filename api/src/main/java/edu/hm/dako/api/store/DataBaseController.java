@@ -1,25 +1,63 @@
 package edu.hm.dako.api.store;
 
 import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.data.PDUQuery;
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
 import java.sql.Statement;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * connection to a local SQlite data base
+ * connection to a local SQlite data base<br/>
+ * all threads share a {@link ConnectionPool}: reads run in parallel on read-only connections,
+ * writes are serialized on the single writer connection
  *
  * @author Linus Englert
  */
 public class DataBaseController {
     private static final DataBaseController instance = new DataBaseController();
-    private static Connection connection;
+    private static ConnectionPool pool;
     private static final String DB_PATH = "database.sqlite";
 
+    /**
+     * number of read-only connections
+     */
+    private static final int READ_CONNECTIONS = 4;
+
+    /**
+     * columns of a PDU with the pdu type resolved to its name
+     */
+    private static final String SELECT_PDU = "SELECT p.id, COALESCE(t.name, 'Undefined') AS pdutype, p.username, " +
+            "p.clientthread, p.serverthread, p.audittime, p.content FROM pdu p LEFT JOIN pdutype t ON t.id = p.pdutype ";
+
+    /**
+     * insert statement, prepared once per writer connection and reused for single and batch inserts
+     */
+    private static final String INSERT_PDU = "INSERT INTO pdu (pdutype, username," +
+            "clientthread, serverthread, audittime, content) VALUES (?, ?, ?, ?, ?, ?);";
+
+    /**
+     * ids of the pdu types as stored in table pdutype
+     */
+    private static final int TYPE_UNDEFINED = 0, TYPE_LOGIN = 1, TYPE_LOGOUT = 2, TYPE_CHAT = 3, TYPE_FINISH = 4;
+
+    /**
+     * max number of rows in table pdutype, further unknown types are stored as Undefined
+     */
+    static final int MAX_PDU_TYPES = 32;
+
+    /**
+     * cache of table pdutype: name to id, only contains committed types
+     */
+    private static final Map<String, Integer> pduTypes = new ConcurrentHashMap<>();
+
     /**
      * this class is a singleton and should not be instantiated directly!
      *
@@ -45,39 +83,31 @@ public class DataBaseController {
     }
 
     /**
-     * initializes a database connection and creates the table on first call
+     * initializes the database connections and creates or upgrades the schema on first call
      */
-    public void init() {
+    public synchronized void init() {
+        if (pool != null) return;
+        System.out.println("Creating Connections to Database...");
         try {
-            if (connection != null) return;
-            System.out.println("Creating Connection to Database...");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + DB_PATH);
-            if (!connection.isClosed()) System.out.println("...Connection established");
+            pool = new ConnectionPool("jdbc:sqlite:" + DB_PATH, READ_CONNECTIONS);
+            System.out.println("...Connections established");
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try {
-                if (!connection.isClosed() && connection != null) {
-                    connection.close();
-                    if (connection.isClosed()) System.out.println("Connection to Database closed");
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            pool.close();
+            System.out.println("Connections to Database closed");
         }));
 
-        try {
-            Statement stmt = connection.createStatement();
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS pdu(" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "pdutype VARCHAR(100)," +
-                    "username VARCHAR(100)," +
-                    "clientthread VARCHAR(100)," +
-                    "serverthread VARCHAR(100)," +
-                    "audittime VARCHAR(100)," +
-                    "content VARCHAR(100));");
+        try (PooledConnection writer = pool.writer()) {
+            DataBaseMigration.migrate(writer.getConnection());
+
+            try (ResultSet rs = writer.prepare("SELECT id, name FROM pdutype;").executeQuery()) {
+                while (rs.next()) {
+                    pduTypes.put(rs.getString("name"), rs.getInt("id"));
+                }
+            }
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
@@ -87,31 +117,45 @@ public class DataBaseController {
     //-----PDU----------------------------------------------------------------
 
     /**
-     * selects all PDUs from database
+     * selects PDUs from database and hands them to the consumer one by one, so memory stays constant
+     * regardless of the number of rows
      *
-     * @return PDU[] with the newest first
+     * @param query filter and page, see {@link PDUQuery#isPaged()} for the order
+     * @param consumer receives every selected PDU
+     * @return true if all PDUs were read, false if a database error occurred
+     * @throws DataBaseBusyException if all read-only connections stayed in use, nothing was handed to the consumer
+     * @throws IOException if the consumer failed
      */
-    public PDU[] selectAllPDU() {
-        List<PDU> lst = new ArrayList<>();
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM pdu ORDER BY audittime DESC;");
-            while (rs.next()) {
-                lst.add(new PDU(rs.getInt("id"),
-                        rs.getString("pdutype"),
-                        rs.getString("username"),
-                        rs.getString("clientthread"),
-                        rs.getString("serverthread"),
-                        rs.getString("audittime"),
-                        rs.getString("content"))
-                );
+    public boolean selectPDU(PDUQuery query, PDUConsumer consumer) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_PDU)
+                .append("WHERE p.id > ? AND p.audittime >= ? AND p.audittime < ? ");
+        if (query.getUsername() != null) sql.append("AND p.username = ? ");
+        sql.append(query.isPaged() ? "ORDER BY p.id " : "ORDER BY p.audittime DESC ");
+        if (query.getLimit() > 0) sql.append("LIMIT ?");
+        sql.append(";");
+
+        try (PooledConnection reader = pool.reader()) {
+            PreparedStatement pstmt = reader.prepare(sql.toString());
+            int i = 1;
+            pstmt.setInt(i++, query.getAfter());
+            pstmt.setLong(i++, query.getFrom());
+            pstmt.setLong(i++, query.getTo());
+            if (query.getUsername() != null) pstmt.setString(i++, query.getUsername());
+            if (query.getLimit() > 0) pstmt.setInt(i, query.getLimit());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(readPDU(rs));
+                }
             }
-            rs.close();
+            return true;
+        } catch (SQLTransientConnectionException e) {
+            throw new DataBaseBusyException(e);
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
         }
-        return lst.toArray(PDU[]::new);
+        return false;
     }
 
     /**
@@ -121,20 +165,14 @@ public class DataBaseController {
      * @return specified PDU
      */
     public PDU selectPDU(int id) {
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("SELECT * FROM pdu WHERE id=?;");
+        try (PooledConnection reader = pool.reader()) {
+            PreparedStatement pstmt = reader.prepare(SELECT_PDU + "WHERE p.id=?;");
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new PDU(rs.getInt("id"),
-                        rs.getString("pdutype"),
-                        rs.getString("username"),
-                        rs.getString("clientthread"),
-                        rs.getString("serverthread"),
-                        rs.getString("audittime"),
-                        rs.getString("content"));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readPDU(rs);
+                }
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
@@ -149,16 +187,12 @@ public class DataBaseController {
      * @return true if inserted successfully
      */
     public boolean insertPDU(PDU pdu) {
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("INSERT INTO pdu (pdutype, username," +
-                    "clientthread, serverthread, audittime, content) VALUES (?, ?, ?, ?, ?, ?);");
-            pstmt.setString(1, pdu.getPduType());
-            pstmt.setString(2, pdu.getUsername());
-            pstmt.setString(3, pdu.getClientThread());
-            pstmt.setString(4, pdu.getServerThread());
-            pstmt.setString(5, pdu.getAuditTime());
-            pstmt.setString(6, pdu.getContent());
+        try (PooledConnection writer = pool.writer()) {
+            PreparedStatement pstmt = writer.prepare(INSERT_PDU);
+            Map<String, Integer> newTypes = new HashMap<>();
+            bindInsert(writer, pstmt, pdu, newTypes);
             pstmt.executeUpdate();
+            pduTypes.putAll(newTypes);
             return true;
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
@@ -167,6 +201,62 @@ public class DataBaseController {
         return false;
     }
 
+    /**
+     * inserts many PDUs into database within a single transaction
+     *
+     * @param pdus PDUs to insert
+     * @return true if all PDUs were inserted, false if the whole batch was rolled back
+     */
+    public boolean insertPDUs(List<PDU> pdus) {
+        if (pdus.isEmpty()) return true;
+        try (PooledConnection writer = pool.writer()) {
+            Connection connection = writer.getConnection();
+            PreparedStatement pstmt = writer.prepare(INSERT_PDU);
+            connection.setAutoCommit(false);
+            // types added in this transaction, cached only after commit
+            Map<String, Integer> newTypes = new HashMap<>();
+            try {
+                for (PDU pdu : pdus) {
+                    bindInsert(writer, pstmt, pdu, newTypes);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                connection.commit();
+                pduTypes.putAll(newTypes);
+                return true;
+            } catch (SQLException e) {
+                pstmt.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Couldn't handle DB-Query");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * sets the parameters of the insert statement
+     *
+     * @param writer borrowed writer connection
+     * @param pstmt insert statement of the writer connection
+     * @param pdu PDU to insert
+     * @param newTypes pdu types added to table pdutype by the current statement or transaction
+     * @throws SQLException if a parameter can't be set
+     */
+    private void bindInsert(PooledConnection writer, PreparedStatement pstmt, PDU pdu, Map<String, Integer> newTypes)
+            throws SQLException {
+        pstmt.setInt(1, getPduTypeId(writer, pdu.getPduType(), newTypes));
+        pstmt.setString(2, pdu.getUsername());
+        pstmt.setString(3, pdu.getClientThread());
+        pstmt.setString(4, pdu.getServerThread());
+        pstmt.setLong(5, parseAuditTime(pdu.getAuditTime()));
+        pstmt.setString(6, pdu.getContent());
+    }
+
     /**
      * updates a PDU in database
      *
@@ -175,17 +265,20 @@ public class DataBaseController {
      * @return true if successfully updated
      */
     public boolean updatePDU(int id, PDU pdu) {
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("UPDATE pdu SET pdutype=?, username=?, " +
+        try (PooledConnection writer = pool.writer()) {
+            Map<String, Integer> newTypes = new HashMap<>();
+            int pduType = getPduTypeId(writer, pdu.getPduType(), newTypes);
+            PreparedStatement pstmt = writer.prepare("UPDATE pdu SET pdutype=?, username=?, " +
                     "clientthread=?, serverthread=?, audittime=?, content=? WHERE id=?;");
-            pstmt.setString(1, pdu.getPduType());
+            pstmt.setInt(1, pduType);
             pstmt.setString(2, pdu.getUsername());
             pstmt.setString(3, pdu.getClientThread());
             pstmt.setString(4, pdu.getServerThread());
-            pstmt.setString(5, pdu.getAuditTime());
+            pstmt.setLong(5, parseAuditTime(pdu.getAuditTime()));
             pstmt.setString(6, pdu.getContent());
             pstmt.setInt(7, id);
             pstmt.executeUpdate();
+            pduTypes.putAll(newTypes);
             return true;
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
@@ -201,8 +294,8 @@ public class DataBaseController {
      * @return true if successfully deleted
      */
     public boolean deletePDU(int id) {
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("DELETE FROM pdu WHERE id=?;");
+        try (PooledConnection writer = pool.writer()) {
+            PreparedStatement pstmt = writer.prepare("DELETE FROM pdu WHERE id=?;");
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
             return true;
@@ -213,56 +306,96 @@ public class DataBaseController {
         return false;
     }
 
+    /**
+     * deletes all PDUs and their statistics from database within a single transaction, the pdu types are kept
+     *
+     * @return true if successfully deleted
+     */
+    public boolean deleteAllPDUs() {
+        try (PooledConnection writer = pool.writer()) {
+            Connection connection = writer.getConnection();
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM pdu;");
+                stmt.executeUpdate("DELETE FROM pdutype_count;");
+                stmt.executeUpdate("DELETE FROM client_chat_count;");
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Couldn't handle DB-Query");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
     //-----CLIENT----------------------------------------------------------------------------------------
 
     /**
-     * selects all PDUs from a specific user from database
+     * selects the audit time of the last login of a specific user
      *
      * @param username specific user
-     * @return PDU[] with the newest first
+     * @return audit time or empty string if the user never logged in
      */
-    public PDU[] selectPDU(String username) {
-        List<PDU> lst = new ArrayList<>();
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("SELECT * FROM pdu WHERE username=? " +
-                    "ORDER BY audittime DESC;");
+    public String selectLastLogin(String username) {
+        return selectLastAuditTime(username, TYPE_LOGIN);
+    }
+
+    /**
+     * selects the audit time of the last logout of a specific user
+     *
+     * @param username specific user
+     * @return audit time or empty string if the user never logged out
+     */
+    public String selectLastLogout(String username) {
+        return selectLastAuditTime(username, TYPE_LOGOUT);
+    }
+
+    /**
+     * selects the newest audit time of a pdu type of a specific user
+     *
+     * @param username specific user
+     * @param pduType id of the pdu type
+     * @return audit time or empty string if there is no such PDU
+     */
+    private String selectLastAuditTime(String username, int pduType) {
+        try (PooledConnection reader = pool.reader()) {
+            PreparedStatement pstmt = reader.prepare("SELECT audittime FROM pdu WHERE username=? " +
+                    "AND pdutype=? ORDER BY audittime DESC LIMIT 1;");
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                lst.add(new PDU(rs.getInt("id"),
-                        rs.getString("pdutype"),
-                        rs.getString("username"),
-                        rs.getString("clientthread"),
-                        rs.getString("serverthread"),
-                        rs.getString("audittime"),
-                        rs.getString("content"))
-                );
+            pstmt.setInt(2, pduType);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return String.valueOf(rs.getLong(1));
+                }
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
         }
-        return lst.toArray(PDU[]::new);
+        return "";
     }
 
     /**
-     * counts the number of chat messages a single client has sent
+     * counts the number of chat messages a single client has sent, maintained by trigger on every write
      *
      * @param username the specific client
      * @return number of chat messages
      */
     public int selectClientChatMessagesCount(String username) {
-        try {
-            PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(*) FROM pdu WHERE username=? " +
-                    "AND pdutype=?;");
+        try (PooledConnection reader = pool.reader()) {
+            PreparedStatement pstmt = reader.prepare("SELECT count FROM client_chat_count WHERE username=?;");
             pstmt.setString(1, username);
-            pstmt.setString(2, "Chat");
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
@@ -273,30 +406,103 @@ public class DataBaseController {
     //-----STATISTICS-----------------------------------------------------------------------------------
 
     /**
-     * counts the occurrence of specific pdu types:
+     * counts the occurrence of specific pdu types, maintained by trigger on every write:
      * 0 Undefined, 1 Login, 2 Logout, 3 Chat, 4 Finish
      *
      * @return array that contains all counters with content as defined above
      */
     public int[] selectPDUTypeCount() {
         int[] result = new int[] {0, 0, 0, 0, 0};
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT pdutype, COUNT(*) AS count FROM pdu GROUP BY pdutype;");
-            while (rs.next()) {
-                switch (rs.getString("pdutype")) {
-                    case "Login" -> result[1] = rs.getInt("count");
-                    case "Logout" -> result[2] = rs.getInt("count");
-                    case "Chat" -> result[3] = rs.getInt("count");
-                    case "Finish" -> result[4] = rs.getInt("count");
-                    default -> result[0] += rs.getInt("count");
+        try (PooledConnection reader = pool.reader()) {
+            try (ResultSet rs = reader.prepare("SELECT pdutype, count FROM pdutype_count;").executeQuery()) {
+                while (rs.next()) {
+                    switch (rs.getInt("pdutype")) {
+                        case TYPE_LOGIN -> result[1] = rs.getInt("count");
+                        case TYPE_LOGOUT -> result[2] = rs.getInt("count");
+                        case TYPE_CHAT -> result[3] = rs.getInt("count");
+                        case TYPE_FINISH -> result[4] = rs.getInt("count");
+                        default -> result[0] += rs.getInt("count");
+                    }
                 }
             }
-            rs.close();
         } catch (SQLException e) {
             System.err.println("Couldn't handle DB-Query");
             e.printStackTrace();
         }
         return result;
     }
+
+    //-----HELPER---------------------------------------------------------------------------------------
+
+    /**
+     * creates a PDU from the current row of a result set
+     *
+     * @param rs result set of a query starting with {@link #SELECT_PDU}
+     * @return PDU of the current row
+     * @throws SQLException if a column can't be read
+     */
+    private PDU readPDU(ResultSet rs) throws SQLException {
+        return new PDU(rs.getInt("id"),
+                rs.getString("pdutype"),
+                rs.getString("username"),
+                rs.getString("clientthread"),
+                rs.getString("serverthread"),
+                String.valueOf(rs.getLong("audittime")),
+                rs.getString("content"));
+    }
+
+    /**
+     * looks up the id of a pdu type, unknown types are added to table pdutype until it holds
+     * {@link #MAX_PDU_TYPES} types, further unknown types are stored as Undefined. New ids are only collected in
+     * newTypes, the caller adds them to the cache after the write was committed, so a rollback can't leave ids of
+     * removed types in the cache.
+     *
+     * @param writer borrowed writer connection
+     * @param name name of the pdu type
+     * @param newTypes pdu types added by the current statement or transaction
+     * @return id of the pdu type
+     * @throws SQLException if a new pdu type can't be stored
+     */
+    private int getPduTypeId(PooledConnection writer, String name, Map<String, Integer> newTypes)
+            throws SQLException {
+        if (name == null) return TYPE_UNDEFINED;
+        name = name.trim();
+        Integer id = pduTypes.get(name);
+        if (id == null) id = newTypes.get(name);
+        if (id != null) return id;
+
+        PreparedStatement pstmt = writer.prepare("SELECT id FROM pdutype WHERE name=?;");
+        pstmt.setString(1, name);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) id = rs.getInt(1);
+        }
+        if (id == null) {
+            try (ResultSet rs = writer.prepare("SELECT COUNT(*) FROM pdutype;").executeQuery()) {
+                if (rs.next() && rs.getInt(1) >= MAX_PDU_TYPES) return TYPE_UNDEFINED;
+            }
+            pstmt = writer.prepare("INSERT INTO pdutype (name) VALUES (?);");
+            pstmt.setString(1, name);
+            pstmt.executeUpdate();
+            try (ResultSet rs = writer.prepare("SELECT last_insert_rowid();").executeQuery()) {
+                id = rs.next() ? rs.getInt(1) : TYPE_UNDEFINED;
+            }
+        }
+
+        newTypes.put(name, id);
+        return id;
+    }
+
+    /**
+     * converts the audit time to epoch millis
+     *
+     * @param auditTime audit time as string
+     * @return audit time as number, 0 if not a number
+     */
+    private static long parseAuditTime(String auditTime) {
+        try {
+            return Long.parseLong(auditTime.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,147 @@
+package edu.hm.dako.api.store;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * versioned schema migrations of the SQlite data base<br/>
+ * the current version is kept in PRAGMA user_version, every migration runs in its own transaction
+ * so an existing database.sqlite is upgraded in place
+ *
+ * @author Lerngruppe
+ */
+class DataBaseMigration {
+    /**
+     * trigger statements counting a new or updated row (chat messages have pdu type 3)
+     */
+    private static final String COUNT_NEW =
+            "INSERT INTO pdutype_count (pdutype, count) VALUES (NEW.pdutype, 1) " +
+                    "ON CONFLICT(pdutype) DO UPDATE SET count = count + 1; " +
+            "INSERT INTO client_chat_count (username, count) " +
+                    "SELECT NEW.username, 1 WHERE NEW.pdutype = 3 AND NEW.username IS NOT NULL " +
+                    "ON CONFLICT(username) DO UPDATE SET count = count + 1; ";
+
+    /**
+     * trigger statements uncounting a deleted or updated row
+     */
+    private static final String COUNT_OLD =
+            "UPDATE pdutype_count SET count = count - 1 WHERE pdutype = OLD.pdutype; " +
+            "UPDATE client_chat_count SET count = count - 1 " +
+                    "WHERE OLD.pdutype = 3 AND username = OLD.username; ";
+
+    /**
+     * migration steps, index i upgrades the schema from version i to version i + 1
+     */
+    private static final String[][] MIGRATIONS = {
+            // version 1: initial schema, every column as text
+            {
+                    "CREATE TABLE IF NOT EXISTS pdu(" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "pdutype VARCHAR(100)," +
+                            "username VARCHAR(100)," +
+                            "clientthread VARCHAR(100)," +
+                            "serverthread VARCHAR(100)," +
+                            "audittime VARCHAR(100)," +
+                            "content VARCHAR(100));"
+            },
+            // version 2: lookup table for pdu types, audit time as epoch millis, indexes for the queries
+            {
+                    "CREATE TABLE pdutype(" +
+                            "id INTEGER PRIMARY KEY," +
+                            "name VARCHAR(100) NOT NULL UNIQUE);",
+                    "INSERT INTO pdutype (id, name) VALUES " +
+                            "(0, 'Undefined'), (1, 'Login'), (2, 'Logout'), (3, 'Chat'), (4, 'Finish');",
+                    "INSERT OR IGNORE INTO pdutype (name) " +
+                            "SELECT DISTINCT TRIM(pdutype) FROM pdu WHERE pdutype IS NOT NULL;",
+                    "CREATE TABLE pdu_v2(" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "pdutype INTEGER NOT NULL DEFAULT 0 REFERENCES pdutype(id)," +
+                            "username VARCHAR(100)," +
+                            "clientthread VARCHAR(100)," +
+                            "serverthread VARCHAR(100)," +
+                            "audittime INTEGER NOT NULL DEFAULT 0," +
+                            "content VARCHAR(100));",
+                    "INSERT INTO pdu_v2 (id, pdutype, username, clientthread, serverthread, audittime, content) " +
+                            "SELECT p.id, COALESCE((SELECT t.id FROM pdutype t WHERE t.name = TRIM(p.pdutype)), 0), " +
+                            "p.username, p.clientthread, p.serverthread, CAST(p.audittime AS INTEGER), p.content " +
+                            "FROM pdu p;",
+                    "DROP TABLE pdu;",
+                    "ALTER TABLE pdu_v2 RENAME TO pdu;",
+                    "CREATE INDEX idx_pdu_username_audittime ON pdu(username, audittime);",
+                    "CREATE INDEX idx_pdu_pdutype ON pdu(pdutype);",
+                    "CREATE INDEX idx_pdu_audittime ON pdu(audittime);"
+            },
+            // version 3: statistics maintained by triggers within the writing transaction, reads are O(1)
+            {
+                    "CREATE TABLE pdutype_count(" +
+                            "pdutype INTEGER PRIMARY KEY," +
+                            "count INTEGER NOT NULL);",
+                    "CREATE TABLE client_chat_count(" +
+                            "username VARCHAR(100) PRIMARY KEY," +
+                            "count INTEGER NOT NULL);",
+                    "INSERT INTO pdutype_count (pdutype, count) " +
+                            "SELECT pdutype, COUNT(*) FROM pdu GROUP BY pdutype;",
+                    "INSERT INTO client_chat_count (username, count) " +
+                            "SELECT username, COUNT(*) FROM pdu WHERE pdutype = 3 AND username IS NOT NULL " +
+                            "GROUP BY username;",
+                    "CREATE TRIGGER trg_pdu_count_insert AFTER INSERT ON pdu BEGIN " +
+                            COUNT_NEW +
+                            "END;",
+                    "CREATE TRIGGER trg_pdu_count_delete AFTER DELETE ON pdu BEGIN " +
+                            COUNT_OLD +
+                            "END;",
+                    "CREATE TRIGGER trg_pdu_count_update AFTER UPDATE OF pdutype, username ON pdu BEGIN " +
+                            COUNT_OLD +
+                            COUNT_NEW +
+                            "END;"
+            }
+    };
+
+    /**
+     * constructor
+     */
+    private DataBaseMigration() {
+    }
+
+    /**
+     * upgrades the schema to the latest version
+     *
+     * @param connection connection to the database, must be in autocommit mode
+     * @throws SQLException if a migration failed, the failed migration is rolled back
+     */
+    static void migrate(Connection connection) throws SQLException {
+        int version = getVersion(connection);
+        for (int i = version; i < MIGRATIONS.length; i++) {
+            System.out.println("Migrating Database to version " + (i + 1) + "...");
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : MIGRATIONS[i]) {
+                    stmt.executeUpdate(sql);
+                }
+                stmt.executeUpdate("PRAGMA user_version = " + (i + 1) + ";");
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * reads the schema version of the database
+     *
+     * @param connection connection to the database
+     * @return schema version, 0 for databases created before migrations were introduced
+     * @throws SQLException if the version can't be read
+     */
+    private static int getVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version;")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
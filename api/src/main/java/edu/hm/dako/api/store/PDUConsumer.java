@@ -0,0 +1,20 @@
+package edu.hm.dako.api.store;
+
+import edu.hm.dako.api.data.PDU;
+import java.io.IOException;
+
+/**
+ * receives PDUs row by row while a query is read from the database
+ *
+ * @author Lerngruppe
+ */
+@FunctionalInterface
+public interface PDUConsumer {
+    /**
+     * handles one PDU
+     *
+     * @param pdu PDU of the current row
+     * @throws IOException if the PDU can't be written
+     */
+    void accept(PDU pdu) throws IOException;
+}
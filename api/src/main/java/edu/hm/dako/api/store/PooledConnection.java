@@ -0,0 +1,91 @@
+package edu.hm.dako.api.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * connection of the {@link ConnectionPool} with its own cache of prepared statements<br/>
+ * closing it returns the connection to the pool, the JDBC connection stays open
+ *
+ * @author Lerngruppe
+ */
+class PooledConnection implements AutoCloseable {
+    /**
+     * JDBC connection
+     */
+    private final Connection connection;
+
+    /**
+     * prepared statements of this connection by sql
+     */
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    /**
+     * pool to return to on close
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * constructor
+     *
+     * @param connection JDBC connection
+     * @param pool pool to return to on close
+     */
+    PooledConnection(Connection connection, ConnectionPool pool) {
+        this.connection = connection;
+        this.pool = pool;
+    }
+
+    /**
+     * returns the cached statement for sql or prepares it on first use
+     *
+     * @param sql sql statement
+     * @return prepared statement without parameters set
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+        }
+        return pstmt;
+    }
+
+    /**
+     * getter
+     *
+     * @return JDBC connection, e.g. for transactions
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * returns the connection to the pool
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    /**
+     * closes all cached statements and the JDBC connection
+     */
+    void closeConnection() {
+        try {
+            for (PreparedStatement pstmt : statements.values()) {
+                pstmt.close();
+            }
+            statements.clear();
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package edu.hm.dako.api.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+
+public class DataBaseMigrationTest {
+    @Test
+    public void migrateVersion1ToLatest() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = connection.createStatement()) {
+            // Datenbank im Stand von Version 1: alle Spalten als Text
+            stmt.executeUpdate("CREATE TABLE pdu(" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "pdutype VARCHAR(100)," +
+                    "username VARCHAR(100)," +
+                    "clientthread VARCHAR(100)," +
+                    "serverthread VARCHAR(100)," +
+                    "audittime VARCHAR(100)," +
+                    "content VARCHAR(100));");
+            stmt.executeUpdate("INSERT INTO pdu (pdutype, username, clientthread, serverthread, audittime, content) " +
+                    "VALUES (' Login', 'a', 'c1', 's1', '1000', ''), " +
+                    "('Chat', 'a', 'c1', 's1', '2000', 'hallo'), " +
+                    "('Chat ', 'a', 'c1', 's1', '3000', 'welt'), " +
+                    "('Logout', 'a', 'c1', 's1', '4000', ''), " +
+                    "('Custom', 'b', 'c2', 's2', '5000', 'x');");
+            stmt.executeUpdate("PRAGMA user_version = 1;");
+
+            DataBaseMigration.migrate(connection);
+
+            assertEquals(3, queryInt(stmt, "PRAGMA user_version;"));
+            assertEquals(5, queryInt(stmt, "SELECT COUNT(*) FROM pdu;"));
+
+            // Typen auf die Lookup-Tabelle abgebildet, Zeitstempel als Zahl
+            assertEquals(1, queryInt(stmt, "SELECT pdutype FROM pdu WHERE audittime = 1000;"));
+            assertEquals(2, queryInt(stmt, "SELECT COUNT(*) FROM pdu WHERE pdutype = 3;"));
+            assertEquals(2, queryInt(stmt, "SELECT pdutype FROM pdu WHERE audittime = 4000;"));
+            assertEquals(5, queryInt(stmt, "SELECT COUNT(*) FROM pdu WHERE typeof(audittime) = 'integer';"));
+            assertEquals(1, queryInt(stmt, "SELECT COUNT(*) FROM pdu p JOIN pdutype t ON t.id = p.pdutype " +
+                    "WHERE t.name = 'Custom' AND t.id > 4;"));
+
+            // Statistik-Tabellen aus dem Bestand gefüllt und per Trigger fortgeschrieben
+            assertEquals(2, queryInt(stmt, "SELECT count FROM pdutype_count WHERE pdutype = 3;"));
+            assertEquals(2, queryInt(stmt, "SELECT count FROM client_chat_count WHERE username = 'a';"));
+            stmt.executeUpdate("INSERT INTO pdu (pdutype, username, audittime) VALUES (3, 'a', 6000);");
+            assertEquals(3, queryInt(stmt, "SELECT count FROM pdutype_count WHERE pdutype = 3;"));
+            assertEquals(3, queryInt(stmt, "SELECT count FROM client_chat_count WHERE username = 'a';"));
+        }
+    }
+
+    @Test
+    public void migrateIsIdempotent() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = connection.createStatement()) {
+            DataBaseMigration.migrate(connection);
+            DataBaseMigration.migrate(connection);
+            assertEquals(3, queryInt(stmt, "PRAGMA user_version;"));
+            assertEquals(5, queryInt(stmt, "SELECT COUNT(*) FROM pdutype;"));
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
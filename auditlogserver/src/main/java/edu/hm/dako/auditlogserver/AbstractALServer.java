@@ -1,6 +1,16 @@
 package edu.hm.dako.auditlogserver;
 
 import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
+import edu.hm.dako.auditlogserver.persistence.IngestPipeline;
+import edu.hm.dako.auditlogserver.persistence.Storage;
+import edu.hm.dako.auditlogserver.persistence.StorageManager;
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.metrics.MetricsRegistry;
+import edu.hm.dako.connection.Connection;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * shared attributes for all implementations
@@ -8,6 +18,11 @@ import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
  * @author Gabriel Bartolome
  */
 public abstract class AbstractALServer implements ALServerInterface {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(AbstractALServer.class);
+
     /**
      * Konstruktor
      */
@@ -24,4 +39,153 @@ public abstract class AbstractALServer implements ALServerInterface {
      * referencing server GUI to register events
      */
     protected ALServerGUIInterface alServerGUIInterface;
-}
\ No newline at end of file
+
+    /**
+     * created once when the server starts: shards that persist the received records
+     */
+    protected volatile StorageManager storage;
+
+    /**
+     * number of storage shards
+     */
+    private int numberOfShards = StorageManager.DEFAULT_SHARDS;
+
+    /**
+     * max. time to wait for each storage shard when stopping
+     */
+    private static final long STORAGE_CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * setter, only effective before the server is started
+     *
+     * @param numberOfShards number of storage shards
+     */
+    void setNumberOfShards(int numberOfShards) {
+        this.numberOfShards = numberOfShards;
+    }
+
+    /**
+     * creates the storage manager, called once when the server starts
+     */
+    protected void startStorage() {
+        clients = SharedChatServerList.getInstance();
+        storage = new StorageManager(numberOfShards, alServerGUIInterface);
+    }
+
+    /**
+     * persists all waiting records and stops the storage manager
+     *
+     * @throws InterruptedException interrupted while waiting for the shards
+     */
+    protected void stopStorage() throws InterruptedException {
+        if (storage != null) storage.close(STORAGE_CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * registers a chat server in the server list and maps it to a storage shard, if it isn't registered yet
+     *
+     * @param remoteEndpoint address:port of the chat server, null if unknown
+     * @param con            connection to the chat server, null for RMI
+     * @return entry of the chat server
+     */
+    protected ServerListEntry registerChatServer(String remoteEndpoint, Connection con) {
+        String endpoint = (remoteEndpoint != null) ? remoteEndpoint : "unbekannt:" + System.identityHashCode(con);
+        ServerListEntry server = clients.getServer(endpoint);
+        if (server != null) return server;
+
+        int separator = endpoint.lastIndexOf(':');
+        String address = endpoint.substring(0, Math.max(separator, 0));
+        String port = endpoint.substring(separator + 1);
+        return clients.createServerIfAbsent(address, port, () -> {
+            int shard = storage.assignShard();
+            LOG.info("Chat-Server " + endpoint + " angemeldet, Storage-Shard " + shard);
+            return new ServerListEntry(address, port, con, shard, storage.getShard(shard));
+        });
+    }
+
+    /**
+     * removes a chat server from the server list and releases its storage shard
+     *
+     * @param server entry of the chat server
+     */
+    protected void deregisterChatServer(ServerListEntry server) {
+        if (!clients.deleteServer(server)) return;
+        storage.releaseShard(server.getShard());
+        LOG.info("Chat-Server abgemeldet: " + server.getStatistics());
+    }
+
+    /**
+     * counts the records of a chat server and hands them to its storage shard, waits only if the shard is full
+     *
+     * @param server entry of the chat server
+     * @param pdus   received records
+     */
+    protected void ingest(ServerListEntry server, List<AuditLogPDU> pdus) {
+        long now = System.currentTimeMillis();
+        for (AuditLogPDU pdu : pdus) {
+            server.countReceived(pdu, now);
+        }
+
+        IngestPipeline shard = server.getIngest();
+        if (!shard.offer(pdus)) {
+            server.ingestBlocked();
+            try {
+                shard.auditBatch(pdus);
+            } finally {
+                server.ingestUnblocked();
+            }
+        }
+    }
+
+    /**
+     * logs the ingest statistics of all registered chat servers
+     */
+    protected void logChatServerStatistics() {
+        if (clients == null) return;
+        for (ServerListEntry.Statistics statistics : clients.getStatistics()) {
+            LOG.info(statistics);
+        }
+    }
+
+    @Override
+    public void registerMetrics(MetricsRegistry metrics) {
+        SharedChatServerList serverList = SharedChatServerList.getInstance();
+        metrics.gauge("audit_chat_servers", "connected chat servers", serverList::size);
+        metrics.counter("audit_records", "received audit log records", Storage::getNumberOfRecords);
+        metrics.counter("audit_logins", "received login records", Storage::getNumberOfLogins);
+        metrics.counter("audit_logouts", "received logout records", Storage::getNumberOfLogouts);
+        metrics.gauge("audit_logged_in_clients", "chat clients logged in according to the audit log",
+                () -> Storage.getNumberOfLogins() - Storage.getNumberOfLogouts());
+        metrics.gauge("audit_ingest_queue_size", "calls waiting in all storage shards",
+                () -> (storage == null) ? 0 : storage.getQueueSize());
+        metrics.counter("audit_ingest_writes", "writes of all storage shards",
+                () -> (storage == null) ? 0 : storage.getNumberOfWrites());
+        metrics.labelled("audit_ingest_shard_queue_size", "calls waiting in a storage shard",
+                MetricsRegistry.Type.GAUGE, "shard",
+                () -> (storage == null) ? Map.of() : storage.getQueueSizeByShard());
+        metrics.labelled("audit_ingest_shard_records", "records written by a storage shard",
+                MetricsRegistry.Type.COUNTER, "shard",
+                () -> (storage == null) ? Map.of() : storage.getWrittenRecordsByShard());
+        metrics.labelled("audit_server_records", "records received from a chat server",
+                MetricsRegistry.Type.COUNTER, "server",
+                () -> serverList.getValueByServer(ServerListEntry::getNumberOfRecords));
+        metrics.labelled("audit_server_bytes", "estimated payload bytes received from a chat server",
+                MetricsRegistry.Type.COUNTER, "server",
+                () -> serverList.getValueByServer(ServerListEntry::getNumberOfBytes));
+        metrics.labelled("audit_server_lag_milliseconds", "delay of the last record of a chat server to its audit time",
+                MetricsRegistry.Type.GAUGE, "server", () -> serverList.getValueByServer(ServerListEntry::getLagMillis));
+        metrics.labelled("audit_server_idle_milliseconds", "time since the last record of a chat server",
+                MetricsRegistry.Type.GAUGE, "server",
+                () -> serverList.getValueByServer(s -> System.currentTimeMillis() - s.getLastSeen()));
+        metrics.labelled("audit_server_backpressure", "backpressure of a chat server: 0 none, 1 high, 2 blocked",
+                MetricsRegistry.Type.GAUGE, "server",
+                () -> serverList.getValueByServer(s -> s.getBackpressure().ordinal()));
+        metrics.labelled("audit_server_blocked_writes", "records of a chat server that waited for a storage shard",
+                MetricsRegistry.Type.COUNTER, "server",
+                () -> serverList.getValueByServer(ServerListEntry::getNumberOfBlockedWrites));
+        metrics.gauge("audit_storage_api_active", "1 if the records are persisted via API, 0 if in files",
+                () -> (storage != null && storage.isApiActive()) ? 1 : 0);
+        metrics.counter("audit_storage_backend_switches", "switches between API and file storage",
+                () -> (storage == null) ? 0 : storage.getNumberOfBackendSwitches());
+    }
+}
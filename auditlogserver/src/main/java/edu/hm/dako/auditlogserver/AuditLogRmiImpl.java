@@ -1,14 +1,19 @@
 package edu.hm.dako.auditlogserver;
 
 import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
-import edu.hm.dako.auditlogserver.persistence.FileStorage;
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import edu.hm.dako.common.AuditLogRMIInterface;
 import edu.hm.dako.common.ExceptionHandler;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.ExportException;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,6 +35,11 @@ public class AuditLogRmiImpl extends AbstractALServer {
      */
     private int port;
 
+    /**
+     * exported object that receives the RMI calls
+     */
+    private final Receiver receiver = new Receiver();
+
     /**
      * constructor
      *
@@ -46,12 +56,12 @@ public class AuditLogRmiImpl extends AbstractALServer {
 
     @Override
     public void start() {
-        // create the FileStorage object
-        FileStorage storage = new FileStorage("ChatAuditLog.dat", alServerGUIInterface);
+        // RMI calls are persisted by the same storage shards as TCP and UDP records
+        startStorage();
         try {
             // start the RMI registry
             startRmiRegistry(port);
-            exportObject(storage, port, RMI_KEY);
+            exportObject(receiver, port, RMI_KEY);
         } catch (RemoteException e) {
             LOG.error("RMI Export ist fehlgeschlagen", e);
             ExceptionHandler.logExceptionAndTerminate(e);
@@ -61,7 +71,11 @@ public class AuditLogRmiImpl extends AbstractALServer {
 
     @Override
     public void stop() throws Exception {
+        logChatServerStatistics();
         LocateRegistry.getRegistry(port).unbind(RMI_KEY);
+        UnicastRemoteObject.unexportObject(receiver, true);
+        clients.clear();
+        stopStorage();
 
         LOG.info("AuditLog beendet");
     }
@@ -81,4 +95,43 @@ public class AuditLogRmiImpl extends AbstractALServer {
         // bind the object to the registry
         registry.rebind(name, remote_Stub);
     }
-}
\ No newline at end of file
+
+    /**
+     * receives the RMI calls and hands the records to the storage shard of the calling chat server, which is
+     * identified by its host (chat servers on the same host share one entry)
+     */
+    private class Receiver implements AuditLogRMIInterface {
+        @Override
+        public void audit(AuditLogPDU pdu) {
+            auditBatch(List.of(pdu));
+        }
+
+        @Override
+        public void auditBatch(List<AuditLogPDU> pdus) {
+            String host;
+            try {
+                host = RemoteServer.getClientHost();
+            } catch (ServerNotActiveException e) {
+                host = "unbekannt";
+            }
+            ServerListEntry chatServer = registerChatServer(host + ":rmi", null);
+            ingest(chatServer, pdus);
+
+            // ChatServer beendet seine AuditLog-Verbindung, der Satz kann an beliebiger Stelle im Batch stehen
+            if (containsFinish(pdus)) deregisterChatServer(chatServer);
+        }
+
+        /**
+         * prüft, ob ein Batch das Ende der AuditLog-Verbindung enthält
+         *
+         * @param pdus Sätze eines Aufrufs
+         * @return true, wenn ein Satz vom Typ FINISH_AUDIT_REQUEST enthalten ist
+         */
+        private boolean containsFinish(List<AuditLogPDU> pdus) {
+            for (AuditLogPDU pdu : pdus) {
+                if (pdu.getPduType() == AuditLogPDUType.FINISH_AUDIT_REQUEST) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -47,6 +47,7 @@ public class AuditLogTcpImpl extends AbstractALServer {
 
     @Override
     public void start() {
+        startStorage();
         Thread thread = new Thread(() -> {
             // ClientListe erzeugen
             clients = SharedChatServerList.getInstance();
@@ -59,7 +60,7 @@ public class AuditLogTcpImpl extends AbstractALServer {
                     LOG.debug("Neuer Verbindungsaufbauwunsch empfangen");
 
                     // Neuen WorkerThread starten ohne AuditLog-Verbindung
-                    executorService.submit(new AuditlogWorkerThread(connection, alServerGUIInterface));
+                    executorService.submit(new AuditlogWorkerThread(connection, this));
                 } catch (Exception e) {
                     if (socket.isClosed()) {
                         LOG.debug("Socket wurde geschlossen");
@@ -76,6 +77,8 @@ public class AuditLogTcpImpl extends AbstractALServer {
 
     @Override
     public void stop() throws Exception {
+        logChatServerStatistics();
+
         // Alle Verbindungen zu aktiven Servern abbauen
         Vector<String> sendList = clients.getServerSocketList();
         for (String s : new Vector<>(sendList)) {
@@ -105,6 +108,9 @@ public class AuditLogTcpImpl extends AbstractALServer {
         executorService.shutdown();
         LOG.debug("ThreadPool freigegeben");
 
+        // wartende AuditLog-Sätze schreiben
+        stopStorage();
+
         System.out.println("AuditLogServer beendet sich");
     }
 }
\ No newline at end of file
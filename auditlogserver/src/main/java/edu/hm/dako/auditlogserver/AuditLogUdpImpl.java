@@ -47,6 +47,7 @@ public class AuditLogUdpImpl extends AbstractALServer {
 
     @Override
     public void start() {
+        startStorage();
         Thread thread = new Thread(() -> {
             // ClientListe erzeugen
             clients = SharedChatServerList.getInstance();
@@ -56,7 +57,7 @@ public class AuditLogUdpImpl extends AbstractALServer {
                     Connection connection = socket.accept();
 
                     // Neuen WorkerThread starten
-                    executorService.submit(new AuditlogWorkerThread(connection, alServerGUIInterface));
+                    executorService.submit(new AuditlogWorkerThread(connection, this));
                 } catch (Exception e) {
                     if (socket.isClosed()) {
                         LOG.debug("Socket wurde geschlossen");
@@ -72,6 +73,8 @@ public class AuditLogUdpImpl extends AbstractALServer {
 
     @Override
     public void stop() throws Exception {
+        logChatServerStatistics();
+
         // Alle Verbindungen zu aktiven Servern abbauen
         Vector<String> sendList = clients.getServerSocketList();
         for (String s : new Vector<>(sendList)) {
@@ -101,6 +104,9 @@ public class AuditLogUdpImpl extends AbstractALServer {
         executorService.shutdown();
         LOG.debug("ThreadPool freigegeben");
 
+        // wartende AuditLog-Sätze schreiben
+        stopStorage();
+
         System.out.println("AuditLogServer beendet sich");
     }
 }
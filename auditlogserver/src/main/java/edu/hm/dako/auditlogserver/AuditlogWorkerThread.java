@@ -1,18 +1,17 @@
 package edu.hm.dako.auditlogserver;
 
-import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
-import edu.hm.dako.auditlogserver.persistence.Storage;
-import edu.hm.dako.auditlogserver.persistence.StorageInterface;
 import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
 import edu.hm.dako.common.ExceptionHandler;
 import edu.hm.dako.connection.Connection;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /***
- * Pro verwalteten Client (ChatServer) wird ein WorkerThread erzeugt
+ * Pro verwalteten Client (ChatServer) wird ein WorkerThread erzeugt. Bei UDP empfängt ein WorkerThread die Sätze aller
+ * ChatServer, der Absender wird daher pro Satz bestimmt.
  *
  * @author Oskar Gruß
  */
@@ -22,23 +21,26 @@ public class AuditlogWorkerThread extends Thread {
 
     Connection con;
 
-    StorageInterface speicher;
+    /**
+     * audit log server, registers the chat servers and provides their storage shards
+     */
+    private final AbstractALServer server;
 
-    ALServerGUIInterface counter;
+    /**
+     * chat server of the last received record and its address:port
+     */
+    private ServerListEntry chatServer;
+    private String chatServerEndpoint;
 
     /**
      * constructor
      *
-     * @param conn server connection
+     * @param conn   server connection
+     * @param server audit log server
      */
-    public AuditlogWorkerThread(Connection conn, ALServerGUIInterface serverGuiInterface) {
+    public AuditlogWorkerThread(Connection conn, AbstractALServer server) {
         con = conn;
-        String dateString = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss")
-                .format(Calendar.getInstance().getTime());
-        String hash = ((Integer)conn.hashCode()).toString();
-        String fileName = dateString + hash;
-        speicher = new Storage(fileName, serverGuiInterface);
-        counter = serverGuiInterface;
+        this.server = server;
     }
 
     @Override
@@ -80,11 +82,23 @@ public class AuditlogWorkerThread extends Thread {
      * @param receivedPdu received audit log pdu that should be logged
      */
     protected void handleIncomingRequest(AuditLogPDU receivedPdu) {
-        speicher.audit(receivedPdu);
+        String endpoint = con.getRemoteEndpoint();
+        if (chatServer == null || !Objects.equals(endpoint, chatServerEndpoint)) {
+            chatServer = server.registerChatServer(endpoint, con);
+            chatServerEndpoint = endpoint;
+        }
+        server.ingest(chatServer, List.of(receivedPdu));
+
+        // ChatServer beendet seine AuditLog-Verbindung
+        if (receivedPdu.getPduType() == AuditLogPDUType.FINISH_AUDIT_REQUEST) {
+            server.deregisterChatServer(chatServer);
+            chatServer = null;
+        }
     }
 
     private void closeConnection() {
         LOG.debug("Schliessen der AuditLogConnection " );
+        if (chatServer != null) server.deregisterChatServer(chatServer);
 
         try {
             con.close();
@@ -58,6 +58,11 @@ public class ConnectionLogger implements Connection {
         return pdu;
     }
 
+    @Override
+    public String getRemoteEndpoint() {
+        return wrappedConnection.getRemoteEndpoint();
+    }
+
     @Override
     public void close() throws Exception {
         log.debug("Schliesse Connection...");
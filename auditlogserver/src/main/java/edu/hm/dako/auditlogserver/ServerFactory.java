@@ -1,6 +1,7 @@
 package edu.hm.dako.auditlogserver;
 
 import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
+import edu.hm.dako.auditlogserver.persistence.StorageManager;
 import edu.hm.dako.common.AuditLogImplementationType;
 import edu.hm.dako.connection.Connection;
 import edu.hm.dako.connection.ServerSocketInterface;
@@ -41,6 +42,34 @@ public class ServerFactory {
     public static ALServerInterface getServer(AuditLogImplementationType implType, int serverPort,
             int sendBufferSize, int receiveBufferSize,
             ALServerGUIInterface serverGuiInterface) throws Exception {
+        return getServer(implType, serverPort, sendBufferSize, receiveBufferSize, StorageManager.DEFAULT_SHARDS,
+                serverGuiInterface);
+    }
+
+    /**
+     * Erzeugt einen Chat-Server
+     *
+     * @param implType           Implementierungstyp des Servers
+     * @param serverPort         Listenport
+     * @param sendBufferSize     Größe des Sendepuffers in Byte
+     * @param receiveBufferSize  Größe des Empfangspuffers in Byte
+     * @param numberOfShards     Anzahl der Storage-Shards (parallele Schreib-Threads)
+     * @param serverGuiInterface Referenz auf GUI für Callback
+     * @return Referenz auf ChatServer-Interface
+     * @throws Exception Fehler beim Erzeugen eines Sockets
+     */
+    public static ALServerInterface getServer(AuditLogImplementationType implType, int serverPort,
+            int sendBufferSize, int receiveBufferSize, int numberOfShards,
+            ALServerGUIInterface serverGuiInterface) throws Exception {
+        AbstractALServer server = createServer(implType, serverPort, sendBufferSize, receiveBufferSize,
+                serverGuiInterface);
+        server.setNumberOfShards(numberOfShards);
+        return server;
+    }
+
+    private static AbstractALServer createServer(AuditLogImplementationType implType, int serverPort,
+            int sendBufferSize, int receiveBufferSize,
+            ALServerGUIInterface serverGuiInterface) throws Exception {
         LOG.debug("ChatServer (" + implType.toString() + ") wird gestartet, Serverport: "
                 + serverPort + ", Sendepuffer: " + sendBufferSize + ", Empfangspuffer: "
                 + receiveBufferSize);
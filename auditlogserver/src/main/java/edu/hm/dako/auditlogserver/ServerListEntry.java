@@ -1,14 +1,25 @@
 package edu.hm.dako.auditlogserver;
 
+import edu.hm.dako.auditlogserver.persistence.IngestPipeline;
+import edu.hm.dako.common.AuditLogPDU;
 import edu.hm.dako.connection.Connection;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Eintrag in der serverseitigen Server-Liste zur Verwaltung der angemeldeten Chat-Server.
  * Der Eintrag enthält auch eine Warteliste für Server, die auf eine Confirm-Nachricht für ein vorher gesendetes
  * Event warten. Diese Liste wird nur im AdvancedChat benötigt.
+ * <p>
+ * Der Eintrag führt außerdem die Ingest-Statistik des Servers (Sätze, Bytes, zuletzt gesehen, Verzögerung gegenüber
+ * der auditTime, Rückstau). Sie wird ohne Sperren mit LongAdder und volatile-Feldern gepflegt und kann jederzeit
+ * abgefragt werden.
  *
  * @author Linus Englert
  */
@@ -21,53 +32,127 @@ public class ServerListEntry {
     /**
      * Kennzeichen zum Beenden des Worker-Threads
      */
-    boolean finished;
+    volatile boolean finished;
 
     /**
      * Adresse des Servers
      */
-    private String serverAddress;
+    private volatile String serverAddress;
 
     /**
      * Port des Servers
      */
-    private String serverPort;
+    private volatile String serverPort;
 
     /**
      * Verbindung-Handle für Transportverbindung zum Server
      */
-    private Connection con;
+    private volatile Connection con;
 
     /**
      * Anzahl der verarbeiteten Chat-Nachrichten des Clients (Sequenznummer)
      */
-    private long numberOfReceivedChatMessages;
+    private final AtomicLong numberOfReceivedChatMessages = new AtomicLong();
 
     /**
      * Anzahl gesendeter Events (ChatMessageEvents, LoginEvents, LogoutEvents), die der Server für den Client sendet
      */
-    private long numberOfSentEvents;
+    private final AtomicLong numberOfSentEvents = new AtomicLong();
 
     /**
      * Anzahl aller empfangenen Confirms (ChatMessageConfirm, LoginConfirm, LogoutConfirm) für den Client
      */
-    private long numberOfReceivedEventConfirms;
+    private final AtomicLong numberOfReceivedEventConfirms = new AtomicLong();
 
     /**
      * Anzahl nicht erhaltener Bestätigungen (derzeit nicht genutzt)
      */
-    private long numberOfLostEventConfirms;
+    private final AtomicLong numberOfLostEventConfirms = new AtomicLong();
 
     /**
      * Anzahl an Nachrichtenwiederholungen (derzeit nicht genutzt)
      */
-    private long numberOfRetries;
+    private final AtomicLong numberOfRetries = new AtomicLong();
 
     /**
      * Liste, die auf alle Server verweist, die noch kein Event-Confirm für einen konkret laufenden Request gesendet
      * haben (nur für Advanced Chat notwendig)
      */
-    private Vector<String> waitList;
+    private volatile Vector<String> waitList;
+
+    /**
+     * Storage-Shard, in den die AuditLog-Sätze des Servers geschrieben werden, und dessen Ingest-Pipeline
+     */
+    private final int shard;
+    private final IngestPipeline ingest;
+
+    /**
+     * Ab diesem Füllstand der Ingest-Pipeline (in Prozent) gilt der Rückstau als hoch
+     */
+    static final int HIGH_BACKPRESSURE_PERCENT = 75;
+
+    /**
+     * Mindestabstand zweier Messungen der Rate
+     */
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+
+    /**
+     * Rückstau des Servers
+     */
+    public enum Backpressure {
+        /**
+         * Sätze werden ohne Wartezeit übernommen
+         */
+        NONE,
+
+        /**
+         * Ingest-Pipeline des Shards ist zu mindestens 75 % gefüllt
+         */
+        HIGH,
+
+        /**
+         * Worker-Thread bzw. RMI-Aufruf wartet gerade auf Platz in der Ingest-Pipeline
+         */
+        BLOCKED
+    }
+
+    /**
+     * Momentaufnahme der Ingest-Statistik eines Servers
+     *
+     * @param server           Adresse:Port des Servers
+     * @param shard            Storage-Shard
+     * @param records          empfangene Sätze
+     * @param recordsPerSecond Sätze pro Sekunde seit der vorherigen Messung
+     * @param bytes            geschätzte Nutzdaten der Sätze in Byte
+     * @param lastSeen         Zeitpunkt des letzten Satzes in ms, 0 falls noch keiner empfangen wurde
+     * @param lagMillis        Verzögerung des letzten Satzes gegenüber seiner auditTime in ms
+     * @param maxLagMillis     maximale Verzögerung in ms
+     * @param backpressure     aktueller Rückstau
+     * @param blockedWrites    Anzahl der Übergaben, die auf Platz in der Ingest-Pipeline warten mussten
+     */
+    public record Statistics(String server, int shard, long records, double recordsPerSecond, long bytes,
+                             long lastSeen, long lagMillis, long maxLagMillis, Backpressure backpressure,
+                             long blockedWrites) {
+    }
+
+    /**
+     * Anzahl der Sätze zum Zeitpunkt einer Messung der Rate
+     */
+    private record RateSample(long time, long records, double rate) {
+    }
+
+    /**
+     * Ingest-Statistik
+     */
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private volatile long lastSeen;
+    private volatile long lagMillis;
+    private final LongAccumulator maxLagMillis = new LongAccumulator(Math::max, 0);
+    private final LongAdder blockedWrites = new LongAdder();
+    private final AtomicInteger blockedProducers = new AtomicInteger();
+    private final AtomicReference<RateSample> rateSample =
+            new AtomicReference<>(new RateSample(System.nanoTime(), 0, 0));
 
     /**
      * Konstruktor
@@ -77,15 +162,25 @@ public class ServerListEntry {
      * @param con connection to server
      */
     public ServerListEntry(String serverAddress, String serverPort, Connection con) {
+        this(serverAddress, serverPort, con, 0, null);
+    }
+
+    /**
+     * Konstruktor
+     *
+     * @param serverAddress address of the server
+     * @param serverPort port of the server
+     * @param con connection to server, null for RMI
+     * @param shard storage shard of the server
+     * @param ingest ingest pipeline of the shard
+     */
+    public ServerListEntry(String serverAddress, String serverPort, Connection con, int shard, IngestPipeline ingest) {
+        this.shard = shard;
+        this.ingest = ingest;
         this.serverAddress = serverAddress;
         this.serverPort = serverPort;
         this.con = con;
         this.finished = false;
-        this.numberOfReceivedChatMessages = 0;
-        this.numberOfSentEvents = 0;
-        this.numberOfReceivedEventConfirms = 0;
-        this.numberOfLostEventConfirms = 0;
-        this.numberOfRetries = 0;
         this.waitList = new Vector<>();
     }
 
@@ -106,7 +201,7 @@ public class ServerListEntry {
      *
      * @return serveAddress: address of the server
      */
-    public synchronized String getServerAddress() {
+    public String getServerAddress() {
         return serverAddress;
     }
 
@@ -115,7 +210,7 @@ public class ServerListEntry {
      *
      * @param serverAddress address of the server
      */
-    public synchronized void setServerAddress(String serverAddress) {
+    public void setServerAddress(String serverAddress) {
         this.serverAddress = serverAddress;
     }
 
@@ -124,7 +219,7 @@ public class ServerListEntry {
      *
      * @return servePort: port of the server
      */
-    public synchronized String getServerPort() {
+    public String getServerPort() {
         return serverPort;
     }
 
@@ -133,7 +228,7 @@ public class ServerListEntry {
      *
      * @param serverPort port of the server
      */
-    public synchronized void setServerPort(String serverPort) {
+    public void setServerPort(String serverPort) {
         this.serverPort = serverPort;
     }
 
@@ -142,7 +237,7 @@ public class ServerListEntry {
      *
      * @return con: connection to client
      */
-    public synchronized Connection getConnection() {
+    public Connection getConnection() {
         return (con);
     }
 
@@ -151,7 +246,7 @@ public class ServerListEntry {
      *
      * @param con connection to client
      */
-    public synchronized void setConnection(Connection con) {
+    public void setConnection(Connection con) {
         this.con = con;
     }
 
@@ -160,7 +255,7 @@ public class ServerListEntry {
      *
      * @param time login time of a client
      */
-    public synchronized void setLoginTime(long time) {
+    public void setLoginTime(long time) {
     }
 
     /**
@@ -168,8 +263,8 @@ public class ServerListEntry {
      *
      * @return numberOfReceivedChatMessages: received messages
      */
-    public synchronized long getNumberOfReceivedChatMessages() {
-        return (numberOfReceivedChatMessages);
+    public long getNumberOfReceivedChatMessages() {
+        return numberOfReceivedChatMessages.get();
     }
 
     /**
@@ -177,8 +272,8 @@ public class ServerListEntry {
      *
      * @param nr number of received chat messages
      */
-    public synchronized void setNumberOfReceivedChatMessages(long nr) {
-        this.numberOfReceivedChatMessages = nr;
+    public void setNumberOfReceivedChatMessages(long nr) {
+        numberOfReceivedChatMessages.set(nr);
     }
 
     /**
@@ -186,8 +281,8 @@ public class ServerListEntry {
      *
      * @return numberOfSentEvents: sent events
      */
-    public synchronized long getNumberOfSentEvents() {
-        return (numberOfSentEvents);
+    public long getNumberOfSentEvents() {
+        return numberOfSentEvents.get();
     }
 
     /**
@@ -195,8 +290,8 @@ public class ServerListEntry {
      *
      * @param nr numberOfSentEvents
      */
-    public synchronized void setNumberOfSentEvents(long nr) {
-        this.numberOfSentEvents = nr;
+    public void setNumberOfSentEvents(long nr) {
+        numberOfSentEvents.set(nr);
     }
 
     /**
@@ -204,8 +299,8 @@ public class ServerListEntry {
      *
      * @return numberOfReceivedEventConfirms
      */
-    public synchronized long getNumberOfReceivedEventConfirms() {
-        return (numberOfReceivedEventConfirms);
+    public long getNumberOfReceivedEventConfirms() {
+        return numberOfReceivedEventConfirms.get();
     }
 
     /**
@@ -213,8 +308,8 @@ public class ServerListEntry {
      *
      * @param nr numberOfReceivedEventConfirms
      */
-    public synchronized void setNumberOfReceivedEventConfirms(long nr) {
-        this.numberOfReceivedEventConfirms = nr;
+    public void setNumberOfReceivedEventConfirms(long nr) {
+        numberOfReceivedEventConfirms.set(nr);
     }
 
     /**
@@ -222,8 +317,8 @@ public class ServerListEntry {
      *
      * @return numberOfLostEventConfirms
      */
-    public synchronized long getNumberOfLostEventConfirms() {
-        return (numberOfLostEventConfirms);
+    public long getNumberOfLostEventConfirms() {
+        return numberOfLostEventConfirms.get();
     }
 
     /**
@@ -231,8 +326,8 @@ public class ServerListEntry {
      *
      * @param nr numberOfLostEventConfirms
      */
-    public synchronized void setNumberOfLostEventConfirms(long nr) {
-        this.numberOfLostEventConfirms = nr;
+    public void setNumberOfLostEventConfirms(long nr) {
+        numberOfLostEventConfirms.set(nr);
     }
 
     /**
@@ -240,8 +335,8 @@ public class ServerListEntry {
      *
      * @return numberOfRetries
      */
-    public synchronized long getNumberOfRetries() {
-        return (numberOfRetries);
+    public long getNumberOfRetries() {
+        return numberOfRetries.get();
     }
 
     /**
@@ -249,8 +344,158 @@ public class ServerListEntry {
      *
      * @param nr numberOfRetries
      */
-    public synchronized void setNumberOfRetries(long nr) {
-        this.numberOfRetries = nr;
+    public void setNumberOfRetries(long nr) {
+        numberOfRetries.set(nr);
+    }
+
+    /**
+     * getter
+     *
+     * @return storage shard of the server
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * getter
+     *
+     * @return ingest pipeline of the storage shard
+     */
+    public IngestPipeline getIngest() {
+        return ingest;
+    }
+
+    /**
+     * zählt einen empfangenen Satz, ohne Sperren
+     *
+     * @param pdu empfangener Satz
+     * @param now aktuelle Zeit in ms
+     */
+    public void countReceived(AuditLogPDU pdu, long now) {
+        records.increment();
+        bytes.add(estimateSize(pdu));
+        if (pdu.getAuditTime() > 0) {
+            long lag = Math.max(0, now - pdu.getAuditTime());
+            lagMillis = lag;
+            maxLagMillis.accumulate(lag);
+        }
+        lastSeen = now;
+    }
+
+    /**
+     * markiert, dass ein Worker-Thread bzw. RMI-Aufruf auf Platz in der Ingest-Pipeline wartet
+     */
+    public void ingestBlocked() {
+        blockedWrites.increment();
+        blockedProducers.incrementAndGet();
+    }
+
+    /**
+     * markiert das Ende einer Wartezeit aus {@link #ingestBlocked()}
+     */
+    public void ingestUnblocked() {
+        blockedProducers.decrementAndGet();
+    }
+
+    /**
+     * getter
+     *
+     * @return aktueller Rückstau
+     */
+    public Backpressure getBackpressure() {
+        if (blockedProducers.get() > 0) return Backpressure.BLOCKED;
+        if (ingest != null
+                && ingest.getQueueSize() * 100L >= ingest.getQueueCapacity() * (long) HIGH_BACKPRESSURE_PERCENT) {
+            return Backpressure.HIGH;
+        }
+        return Backpressure.NONE;
+    }
+
+    /**
+     * getter
+     *
+     * @return empfangene Sätze
+     */
+    public long getNumberOfRecords() {
+        return records.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return geschätzte Nutzdaten der empfangenen Sätze in Byte
+     */
+    public long getNumberOfBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Zeitpunkt des letzten Satzes in ms, 0 falls noch keiner empfangen wurde
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * getter
+     *
+     * @return Verzögerung des letzten Satzes gegenüber seiner auditTime in ms
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl der Übergaben, die auf Platz in der Ingest-Pipeline warten mussten
+     */
+    public long getNumberOfBlockedWrites() {
+        return blockedWrites.sum();
+    }
+
+    /**
+     * Sätze pro Sekunde seit der vorherigen Messung, die Messung wird höchstens einmal pro Sekunde erneuert
+     *
+     * @return Sätze pro Sekunde
+     */
+    public double getRecordsPerSecond() {
+        RateSample last = rateSample.get();
+        long now = System.nanoTime();
+        if (now - last.time() < RATE_INTERVAL_NANOS) return last.rate();
+
+        long count = records.sum();
+        RateSample next = new RateSample(now, count, (count - last.records()) * 1e9 / (now - last.time()));
+        return rateSample.compareAndSet(last, next) ? next.rate() : rateSample.get().rate();
+    }
+
+    /**
+     * getter
+     *
+     * @return Momentaufnahme der Ingest-Statistik
+     */
+    public Statistics getStatistics() {
+        return new Statistics(serverAddress + ":" + serverPort, shard, getNumberOfRecords(), getRecordsPerSecond(),
+                getNumberOfBytes(), lastSeen, lagMillis, maxLagMillis.get(), getBackpressure(),
+                getNumberOfBlockedWrites());
+    }
+
+    /**
+     * schätzt die Nutzdaten eines Satzes: Zeichen der Textfelder plus 12 Byte für Typ und auditTime
+     *
+     * @param pdu Satz
+     * @return geschätzte Größe in Byte
+     */
+    static long estimateSize(AuditLogPDU pdu) {
+        return 12L + length(pdu.getUserName()) + length(pdu.getClientThreadName())
+                + length(pdu.getServerThreadName()) + length(pdu.getMessage());
+    }
+
+    private static int length(String s) {
+        return (s == null) ? 0 : s.length();
     }
 
     /**
@@ -258,7 +503,7 @@ public class ServerListEntry {
      *
      * @return finished
      */
-    public synchronized boolean isFinished() {
+    public boolean isFinished() {
         return finished;
     }
 
@@ -267,43 +512,43 @@ public class ServerListEntry {
      *
      * @param finished finished
      */
-    public synchronized void setFinished(boolean finished) {
+    public void setFinished(boolean finished) {
         this.finished = finished;
     }
 
     /**
      * increases numberOfSentEvents
      */
-    public synchronized void increaseNumberOfSentEvents() {
-        this.numberOfSentEvents++;
+    public void increaseNumberOfSentEvents() {
+        numberOfSentEvents.incrementAndGet();
     }
 
     /**
      * increase numberOfReceivedEventConfirms
      */
-    public synchronized void increaseNumberOfReceivedEventConfirms() {
-        this.numberOfReceivedEventConfirms++;
+    public void increaseNumberOfReceivedEventConfirms() {
+        numberOfReceivedEventConfirms.incrementAndGet();
     }
 
     /**
      * increase numberOfLostEventConfirms
      */
-    public synchronized void increaseNumberOfLostEventConfirms() {
-        this.numberOfLostEventConfirms++;
+    public void increaseNumberOfLostEventConfirms() {
+        numberOfLostEventConfirms.incrementAndGet();
     }
 
     /**
      * increase numberOfReceivedChatMessages
      */
-    public synchronized void increaseNumberOfReceivedChatMessages() {
-        this.numberOfReceivedChatMessages++;
+    public void increaseNumberOfReceivedChatMessages() {
+        numberOfReceivedChatMessages.incrementAndGet();
     }
 
     /**
      * increase numberOfRetries
      */
-    public synchronized void increaseNumberOfRetries() {
-        this.numberOfRetries++;
+    public void increaseNumberOfRetries() {
+        numberOfRetries.incrementAndGet();
     }
 
     /**
@@ -312,7 +557,7 @@ public class ServerListEntry {
      * @param serverAddress address of the server
      * @param serverPort port of the server
      */
-    public synchronized void addWaitListEntry(String serverAddress, String serverPort) {
+    public void addWaitListEntry(String serverAddress, String serverPort) {
         this.waitList.add(serverAddress + ":" + serverPort);
         LOG.debug("Warteliste von " + this.serverAddress + ":" + this.serverPort + " ergänzt um " +
                 serverAddress + ":" + serverPort);
@@ -323,7 +568,7 @@ public class ServerListEntry {
      *
      * @return waitList
      */
-    public synchronized Vector<String> getWaitList() {
+    public Vector<String> getWaitList() {
         return waitList;
     }
 
@@ -332,7 +577,7 @@ public class ServerListEntry {
      *
      * @param list wait list
      */
-    public synchronized void setWaitList(Vector<String> list) {
+    public void setWaitList(Vector<String> list) {
         this.waitList = list;
         LOG.debug("Warteliste von " + this.serverAddress + ":" + this.serverPort + ": " + waitList);
     }
@@ -340,7 +585,7 @@ public class ServerListEntry {
     /**
      * clears the wait list
      */
-    public synchronized void clearWaitList() {
+    public void clearWaitList() {
         waitList.clear();
     }
 }
\ No newline at end of file
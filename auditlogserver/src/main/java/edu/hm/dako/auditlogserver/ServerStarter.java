@@ -1,10 +1,14 @@
 package edu.hm.dako.auditlogserver;
 
 import edu.hm.dako.auditlogserver.gui.AuditLogFxGUI;
+import edu.hm.dako.auditlogserver.persistence.StorageManager;
 import edu.hm.dako.common.AuditLogImplementationType;
 import edu.hm.dako.common.ExceptionHandler;
 import edu.hm.dako.common.SystemConstants;
 import edu.hm.dako.common.Tupel;
+import edu.hm.dako.common.metrics.JvmMetrics;
+import edu.hm.dako.common.metrics.MetricsRegistry;
+import edu.hm.dako.common.metrics.MetricsServer;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
@@ -29,6 +33,11 @@ public class ServerStarter {
      */
     private ALServerInterface auditLogServer;
 
+    /**
+     * HTTP endpoint for metrics, null if disabled
+     */
+    private MetricsServer metricsServer;
+
     /**
      * Flag, das angibt, ob der Server gestartet werden kann (alle
      * Plausibilitätsprüfungen erfüllt)
@@ -50,6 +59,8 @@ public class ServerStarter {
      *             --port=40001 (default)
      *             --send-buffer=300000 (default)
      *             --receive-buffer=300000 (default)
+     *             --metrics-port=9101 enables the metrics endpoint, only with --nogui (default disabled)
+     *             --storage-shards=4 (default) number of storage shards writing in parallel
      */
     public static void main(String[] args) {
         // Log4j2-Logging aus Datei konfigurieren
@@ -88,12 +99,16 @@ public class ServerStarter {
      *             --port=40001 (default)
      *             --send-buffer=300000 (default)
      *             --receive-buffer=300000 (default)
+     *             --metrics-port=9101 enables the metrics endpoint, only with --nogui (default disabled)
+     *             --storage-shards=4 (default) number of storage shards writing in parallel
      */
     public ServerStarter(String[] args) {
         String implType = SystemConstants.AUDIT_LOG_SERVER_TCP_IMPL;
         int port = 40001;
         int sendBuffer = 300000;
         int receiveBuffer = 300000;
+        int metricsPort = 0;
+        int storageShards = StorageManager.DEFAULT_SHARDS;
 
         for (String s : args) {
             String[] values = s.split("=");
@@ -121,6 +136,16 @@ public class ServerStarter {
                     receiveBuffer = result.getX();
                     startable = result.getY();
                 }
+                case "--metrics-port" -> {
+                    Tupel<Integer, Boolean> result = validateServerPort(values[1]);
+                    metricsPort = result.getX();
+                    startable = result.getY();
+                }
+                case "--storage-shards" -> {
+                    Tupel<Integer, Boolean> result = validateStorageShards(values[1]);
+                    storageShards = result.getX();
+                    startable = result.getY();
+                }
             }
         }
 
@@ -128,7 +153,8 @@ public class ServerStarter {
             AuditLogFxGUI.main(args);
         } else {
             try {
-                startAuditLogServer(implType, port, sendBuffer, receiveBuffer);
+                boolean started = startAuditLogServer(implType, port, sendBuffer, receiveBuffer, storageShards);
+                if (started && metricsPort > 0) startMetricsServer(metricsPort);
             } catch (Exception e) {
                 LOG.error("Server konnte nicht gestartet werden: " + e.getMessage());
             }
@@ -143,9 +169,10 @@ public class ServerStarter {
      *                          soll
      * @param sendBufferSize    Sendepuffergröße, die der Server nutzen soll
      * @param receiveBufferSize Empfangspuffergröße, die der Server nutzen soll
+     * @param storageShards     Anzahl der Storage-Shards
      */
-    private boolean startAuditLogServer(String implType, int serverPort, int sendBufferSize, int receiveBufferSize)
-            throws Exception {
+    private boolean startAuditLogServer(String implType, int serverPort, int sendBufferSize, int receiveBufferSize,
+            int storageShards) throws Exception {
         AuditLogImplementationType serverImpl;
         if (implType.equals(SystemConstants.AUDIT_LOG_SERVER_TCP_IMPL)) {
             serverImpl = AuditLogImplementationType.AuditLogServerTCPImplementation;
@@ -156,7 +183,8 @@ public class ServerStarter {
         }
 
         try {
-            auditLogServer = ServerFactory.getServer(serverImpl, serverPort, sendBufferSize, receiveBufferSize, null);
+            auditLogServer = ServerFactory.getServer(serverImpl, serverPort, sendBufferSize, receiveBufferSize,
+                    storageShards, null);
         } catch (Exception e) {
             LOG.error("Fehler beim Starten des Chat-Servers: " + e.getMessage());
             ExceptionHandler.logException(e);
@@ -171,10 +199,25 @@ public class ServerStarter {
         }
     }
 
+    /**
+     * starts the HTTP endpoint with the metrics of the audit log server and the JVM
+     *
+     * @param port port of the endpoint
+     * @throws IOException if the port can't be bound
+     */
+    private void startMetricsServer(int port) throws IOException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        auditLogServer.registerMetrics(metrics);
+        JvmMetrics.register(metrics);
+        metricsServer = new MetricsServer(port, metrics);
+        metricsServer.start();
+    }
+
     /**
      * Audit-Log-Server stoppen
      */
     private void stopAuditLogServer() {
+        if (metricsServer != null) metricsServer.stop();
         try {
             auditLogServer.stop();
         } catch (Exception e) {
@@ -252,4 +295,26 @@ public class ServerStarter {
         }
         return new Tupel<>(iReceiveBufferSize, startable);
     }
-}
\ No newline at end of file
+
+    /**
+     * validate number of storage shards
+     *
+     * @param shards number of shards to validate
+     * @return number of shards
+     */
+    public static Tupel<Integer, Boolean> validateStorageShards(String shards) {
+        int iShards = 0;
+        boolean startable = true;
+        if (shards.matches("[0-9]+")) {
+            iShards = Integer.parseInt(shards);
+            if ((iShards < 1) || (iShards > 64)) {
+                startable = false;
+            } else {
+                LOG.debug("Storage-Shards: " + iShards);
+            }
+        } else {
+            startable = false;
+        }
+        return new Tupel<>(iShards, startable);
+    }
+}
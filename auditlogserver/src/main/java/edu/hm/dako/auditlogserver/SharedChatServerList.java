@@ -1,8 +1,14 @@
 package edu.hm.dako.auditlogserver;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -18,6 +24,9 @@ import org.apache.logging.log4j.Logger;
  * Genereller Hinweis: Zur Umgehung von ConcurrentModificationExceptions wird
  * bei der Iteration durch Listen generell
  * eine Kopie der Liste angelegt.
+ * <p>
+ * Die Liste arbeitet ohne Sperren: Anlegen und Löschen erfolgen über atomare Operationen der ConcurrentHashMap, die
+ * Ingest-Statistik pflegt jeder {@link ServerListEntry} selbst, sodass der Ingest-Pfad nie auf die Liste wartet.
  *
  * @author Linus Englert
  */
@@ -30,25 +39,20 @@ public class SharedChatServerList {
     /**
      * Liste aller eingeloggten Clients
      */
-    private static ConcurrentHashMap<String, ServerListEntry> clients;
+    private static final ConcurrentHashMap<String, ServerListEntry> clients = new ConcurrentHashMap<>();
 
-    private static SharedChatServerList instance;
+    private static final SharedChatServerList instance = new SharedChatServerList();
 
     private SharedChatServerList() {
     }
 
     /**
-     * Thread-sicheres Erzeugen einer Instanz der Liste
+     * Liefert die einzige Instanz der Liste
      *
-     * @return Referenz auf die erzeugte Liste
+     * @return Referenz auf die Liste
      */
-    public static synchronized SharedChatServerList getInstance() {
-        if (SharedChatServerList.instance == null) {
-            SharedChatServerList.instance = new SharedChatServerList();
-            // ClientListe nur einmal erzeugen
-            clients = new ConcurrentHashMap<>();
-        }
-        return SharedChatServerList.instance;
+    public static SharedChatServerList getInstance() {
+        return instance;
     }
 
     /**
@@ -65,7 +69,7 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return Referenz auf den gesuchten Server
      */
-    public synchronized ServerListEntry getServer(String serverAddress, String serverPort) {
+    public ServerListEntry getServer(String serverAddress, String serverPort) {
         return clients.get(serverAddress + ":" + serverPort);
     }
 
@@ -75,7 +79,7 @@ public class SharedChatServerList {
      * @param serverKey key in the hash map
      * @return the mapped server list entry
      */
-    public synchronized ServerListEntry getServer(String serverKey) {
+    public ServerListEntry getServer(String serverKey) {
         return clients.get(serverKey);
     }
 
@@ -84,7 +88,7 @@ public class SharedChatServerList {
      *
      * @return Vektor mit allen Sockets der eingetragenen Server
      */
-    public synchronized Vector<String> getServerSocketList() {
+    public Vector<String> getServerSocketList() {
         return new Vector<>(new HashSet<>(clients.keySet()));
     }
 
@@ -95,7 +99,7 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return true = Server existiert, false = Server existiert nicht
      */
-    public synchronized boolean existsServer(String serverAddress, String serverPort) {
+    public boolean existsServer(String serverAddress, String serverPort) {
         if ((serverAddress != null) && (serverPort != null)) {
             String socket = serverAddress + ":" + serverPort;
             if (!clients.containsKey(socket)) {
@@ -116,10 +120,58 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @param server        Server-Daten
      */
-    public synchronized void createServer(String serverAddress, String serverPort, ServerListEntry server) {
+    public void createServer(String serverAddress, String serverPort, ServerListEntry server) {
         clients.put(serverAddress + ":" + serverPort, server);
     }
 
+    /**
+     * Legt einen Server atomar an, falls er noch nicht in der Liste ist
+     *
+     * @param serverAddress address of the server
+     * @param serverPort    port of the server
+     * @param factory       erzeugt die Server-Daten, wird nur aufgerufen, wenn der Server fehlt
+     * @return vorhandener oder neu angelegter Server
+     */
+    public ServerListEntry createServerIfAbsent(String serverAddress, String serverPort,
+            Supplier<ServerListEntry> factory) {
+        return clients.computeIfAbsent(serverAddress + ":" + serverPort, socket -> factory.get());
+    }
+
+    /**
+     * Entfernt genau diesen Eintrag, falls er noch in der Liste ist
+     *
+     * @param server Server-Daten
+     * @return true, falls der Eintrag entfernt wurde
+     */
+    public boolean deleteServer(ServerListEntry server) {
+        return clients.remove(server.getServerAddress() + ":" + server.getServerPort(), server);
+    }
+
+    /**
+     * Momentaufnahme der Ingest-Statistik aller Server
+     *
+     * @return Statistik pro Server
+     */
+    public List<ServerListEntry.Statistics> getStatistics() {
+        List<ServerListEntry.Statistics> statistics = new ArrayList<>();
+        for (ServerListEntry server : clients.values()) {
+            statistics.add(server.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Liefert einen Wert pro Server, z.B. für Metriken
+     *
+     * @param value Wert eines Servers
+     * @return Werte mit Adresse:Port als Schlüssel
+     */
+    public Map<String, Number> getValueByServer(Function<ServerListEntry, Number> value) {
+        Map<String, Number> values = new LinkedHashMap<>();
+        clients.forEach((socket, server) -> values.put(socket, value.apply(server)));
+        return values;
+    }
+
     /**
      * Aktualisierung eines vorhandenen Servers
      *
@@ -127,13 +179,9 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @param server        Server-Daten
      */
-    public synchronized void updateServer(String serverAddress, String serverPort, ServerListEntry server) {
+    public void updateServer(String serverAddress, String serverPort, ServerListEntry server) {
         String socket = serverAddress + ":" + serverPort;
-        ServerListEntry existingClient = clients.get(socket);
-
-        if (existingClient != null) {
-            clients.put(socket, server);
-        } else {
+        if (clients.replace(socket, server) == null) {
             LOG.debug("User nicht in ClientListe: " + socket);
         }
     }
@@ -146,10 +194,11 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return true Löschen möglich, sonst false
      */
-    public synchronized boolean deletable(String serverAddress, String serverPort) {
+    public boolean deletable(String serverAddress, String serverPort) {
         String socket = serverAddress + ":" + serverPort;
         for (String s : new Vector<>(clients.keySet())) {
             ServerListEntry server = clients.get(s);
+            if (server == null) continue;
             if (server.getWaitList().contains(socket)) {
                 // Client noch in einer Warteliste
                 LOG.debug("Löschen nicht möglich, da Client " + socket
@@ -167,11 +216,12 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void deleteServerWithoutCondition(String serverAddress, String serverPort) {
+    public void deleteServerWithoutCondition(String serverAddress, String serverPort) {
         String socket = serverAddress + ":" + serverPort;
         LOG.debug("Client  " + socket + " zwangsweise aus allen Listen entfernen");
         for (String s : new HashSet<>(clients.keySet())) {
             ServerListEntry server = clients.get(s);
+            if (server == null) continue;
             if (server.getWaitList().contains(socket)) {
                 LOG.error("Client " + socket
                         + " wird aus der ClientListe entfernt, obwohl er noch in der Warteliste von Client "
@@ -194,7 +244,7 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return true bei erfolgreichem Löschen, sonst false
      */
-    public synchronized boolean deleteServer(String serverAddress, String serverPort) {
+    public boolean deleteServer(String serverAddress, String serverPort) {
         String socket = serverAddress + ":" + serverPort;
         LOG.debug("ServerListe vor dem Löschen von " + socket + ": " + printServerList());
         LOG.debug("Logout für " + socket + ", Länge der ServerListe vor dem Löschen von: " + socket + ": "
@@ -212,6 +262,7 @@ public class SharedChatServerList {
 
                 for (String s : new HashSet<>(clients.keySet())) {
                     ServerListEntry server = clients.get(s);
+                    if (server == null) continue;
                     if (server.getWaitList().contains(socket)) {
                         LOG.debug("Löschen nicht möglich, da Server " + socket
                                 + " noch in der Warteliste von " + s + " ist");
@@ -220,8 +271,7 @@ public class SharedChatServerList {
                 }
 
                 // Server kann entfernt werden, sofern er auch zum Beenden vorgemerkt ist.
-                clients.remove(socket);
-                deletedFlag = true;
+                deletedFlag = clients.remove(socket, removeCandidateClient);
             }
         }
 
@@ -235,18 +285,20 @@ public class SharedChatServerList {
      *
      * @return Namensliste aller entfernten Clients
      */
-    public synchronized Vector<String> gcServerList() {
+    public Vector<String> gcServerList() {
         Vector<String> deletedServers = new Vector<>();
 
         for (String s1 : new Vector<>(clients.keySet())) {
             boolean clientUsed = true;
             ServerListEntry server1 = clients.get(s1);
+            if (server1 == null) continue;
             if ((server1.getWaitList().size() == 0) && (server1.isFinished())) {
                 // Eigene Warteliste leer, jetzt prüfen, ob auch alle anderen Wartelisten diesen
                 // Client nicht enthalten
                 clientUsed = false;
                 for (String s2 : new Vector<>(clients.keySet())) {
                     ServerListEntry server2 = clients.get(s2);
+                    if (server2 == null) continue;
                     if (server2.getWaitList().contains(s1)) {
                         // Client noch in einer Warteliste
                         clientUsed = true;
@@ -256,8 +308,7 @@ public class SharedChatServerList {
             if (!clientUsed) {
                 LOG.debug("Garbage Collection: Client " + server1.getServerAddress() + ":" + server1.getServerPort()
                         + " wird aus ClientListe entfernt");
-                deletedServers.add(s1);
-                clients.remove(s1);
+                if (clients.remove(s1, server1)) deletedServers.add(s1);
             }
         }
         return deletedServers;
@@ -268,7 +319,7 @@ public class SharedChatServerList {
      *
      * @return size of the list
      */
-    public synchronized long size() {
+    public long size() {
         return clients.size();
     }
 
@@ -278,7 +329,7 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void increaseNumberOfReceivedChatEventConfirms(String serverAddress, String serverPort) {
+    public void increaseNumberOfReceivedChatEventConfirms(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             server.increaseNumberOfReceivedEventConfirms();
@@ -292,7 +343,7 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void increaseNumberOfSentChatEvents(String serverAddress, String serverPort) {
+    public void increaseNumberOfSentChatEvents(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             server.increaseNumberOfSentEvents();
@@ -305,7 +356,7 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void increaseNumberOfReceivedChatMessages(String serverAddress, String serverPort) {
+    public void increaseNumberOfReceivedChatMessages(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             server.increaseNumberOfReceivedChatMessages();
@@ -319,7 +370,7 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return Referenz auf Warteliste des Servers
      */
-    public synchronized Vector<String> createWaitList(String serverAddress, String serverPort) {
+    public Vector<String> createWaitList(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             for (String s : new HashSet<>(clients.keySet())) {
@@ -339,7 +390,7 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void deleteWaitList(String serverAddress, String serverPort) {
+    public void deleteWaitList(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             server.clearWaitList();
@@ -361,7 +412,7 @@ public class SharedChatServerList {
      * @throws Exception Eintrag, der gelöscht werden sollte, ist nicht vorhanden
      */
 
-    public synchronized int deleteWaitListEntry(String serverAddress, String serverPort,
+    public int deleteWaitListEntry(String serverAddress, String serverPort,
             String entryAddress, String entryPort) throws Exception {
         String socket = serverAddress + ":" + serverPort;
         String entrySocket = entryAddress + ":" + entryPort;
@@ -389,7 +440,7 @@ public class SharedChatServerList {
      * @param serverPort    port of the server
      * @return Anzahl der noch vorhandenen Einträge in der Liste
      */
-    public synchronized int getWaitListSize(String serverAddress, String serverPort) {
+    public int getWaitListSize(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             return server.getWaitList().size();
@@ -403,7 +454,7 @@ public class SharedChatServerList {
      * @param serverAddress address of the server
      * @param serverPort    port of the server
      */
-    public synchronized void finish(String serverAddress, String serverPort) {
+    public void finish(String serverAddress, String serverPort) {
         ServerListEntry server = clients.get(serverAddress + ":" + serverPort);
         if (server != null) {
             server.setFinished(true);
@@ -425,6 +476,7 @@ public class SharedChatServerList {
             stringBuilder.append("\n");
             for (String s : new HashSet<>(clients.keySet())) {
                 ServerListEntry server = clients.get(s);
+                if (server == null) continue;
                 stringBuilder.append(server.getServerAddress()).append(":").append(server.getServerPort()).append(", ");
                 stringBuilder.append(server.getWaitList()).append("\n");
             }
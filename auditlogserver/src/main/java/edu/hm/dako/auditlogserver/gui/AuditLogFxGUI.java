@@ -9,8 +9,8 @@ import edu.hm.dako.common.AuditLogImplementationType;
 import edu.hm.dako.common.ExceptionHandler;
 import edu.hm.dako.common.SystemConstants;
 import edu.hm.dako.common.Tupel;
+import edu.hm.dako.common.gui.CounterDisplay;
 import edu.hm.dako.common.gui.FxGUI;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -28,7 +28,6 @@ import org.apache.logging.log4j.core.LoggerContext;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * GUI for the audit log server
@@ -52,9 +51,9 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
     private static ALServerInterface chatServer;
 
     /**
-     * Zähler für die eingeloggten Clients und die empfangenen Request
+     * Zähler für die eingeloggten Clients und die empfangenen Requests, periodisch in der GUI angezeigt
      */
-    private static AtomicInteger loggedInClientCounter, requestCounter;
+    private final CounterDisplay counters;
 
     /**
      * Daten, die beim Start der GUI übergeben werden
@@ -94,7 +93,7 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
      */
     private TextField serverPort, sendBufferSize, receiveBufferSize;
     private Button startButton, stopButton, finishButton;
-    private final TextField startTimeField, receivedRequests, loggedInClients;
+    private final TextField startTimeField, receivedRequests, requestRate, loggedInClients, loginRate;
 
     /**
      * saving args for further processing
@@ -127,13 +126,14 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
      * Konstruktor
      */
     public AuditLogFxGUI() {
-        super("AuditLogServerGUI", 400, 400);
+        super("AuditLogServerGUI", 400, 460);
 
-        loggedInClientCounter = new AtomicInteger(0);
-        requestCounter = new AtomicInteger(0);
         startTimeField = createNotEditableTextField();
         receivedRequests = createNotEditableTextField();
+        requestRate = createNotEditableTextField();
         loggedInClients = createNotEditableTextField();
+        loginRate = createNotEditableTextField();
+        counters = new CounterDisplay(receivedRequests, requestRate, loggedInClients, loginRate);
     }
 
     @Override
@@ -247,8 +247,14 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
         infoPane.add(createLabel("Empfangene Requests"), 1, 5);
         infoPane.add(receivedRequests, 3, 5);
 
-        infoPane.add(createLabel("Angemeldete Clients"), 1, 7);
-        infoPane.add(loggedInClients, 3, 7);
+        infoPane.add(createLabel("Requests/s"), 1, 7);
+        infoPane.add(requestRate, 3, 7);
+
+        infoPane.add(createLabel("Angemeldete Clients"), 1, 9);
+        infoPane.add(loggedInClients, 3, 9);
+
+        infoPane.add(createLabel("Logins/s"), 1, 11);
+        infoPane.add(loginRate, 3, 11);
 
         return infoPane;
     }
@@ -328,10 +334,6 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
             // CHat-Server-Port aus GUI lesen
             int serverPortInt = readServerPort();
 
-            // Zähler in der GUI initialisieren
-            receivedRequests.setText("0");
-            loggedInClients.setText("0");
-
             // Puffergrößen für Verbindung zu Chat-Clients aus GUI lesen
             int sendBufferSizeInt = readSendBufferSize();
             int receiveBufferSizeInt = readReceiveBufferSize();
@@ -353,6 +355,9 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
                 stopButton.setDisable(false);
                 finishButton.setDisable(true);
 
+                // periodische Anzeige starten, die Zähler laufen bereits seit dem Start des Servers
+                counters.start();
+
                 // Startzeit ermitteln
                 cal = Calendar.getInstance();
                 startTimeAsString = getCurrentTime(cal);
@@ -375,9 +380,8 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
                 ExceptionHandler.logException(e);
             }
 
-            // Zähler für Clients und Requests auf 0 stellen
-            requestCounter.set(0);
-            loggedInClientCounter.set(0);
+            // Anzeige anhalten, Zähler für Clients und Requests auf 0 stellen
+            counters.stop();
 
             startButton.setDisable(false);
             stopButton.setDisable(true);
@@ -385,8 +389,6 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
 
             // GUI-Einstellungen wieder auf Standard setzen
             startTimeField.setText("");
-            receivedRequests.setText("");
-            loggedInClients.setText("");
             sendBufferSize.setText(SystemConstants.DEFAULT_SEND_BUFFER_SIZE);
             receiveBufferSize.setText(SystemConstants.DEFAULT_RECEIVE_BUFFER_SIZE);
         });
@@ -442,28 +444,6 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
         }
     }
 
-    /**
-     * GUI-Feld für eingeloggte Clients über Event-Liste des JavaFX-GUI-Threads aktualisieren
-     */
-    private void updateLoggedInClients() {
-        Platform.runLater(() -> {
-            LOG.debug("runLater: run-Methode wird ausgeführt");
-            LOG.debug("runLater: Logged in Clients: {}", loggedInClientCounter.get());
-            loggedInClients.setText(String.valueOf(loggedInClientCounter.get()));
-        });
-    }
-
-    /**
-     * GUI-Feld für Anzahl empfangener Requests über Event-Liste des JavaFX-GUI-Threads aktualisieren
-     */
-    private void updateNumberOfRequests() {
-        Platform.runLater(() -> {
-            LOG.debug("runLater: run-Methode wird ausgeführt");
-            LOG.debug("runLater: Received Requests: " + requestCounter.get());
-            receivedRequests.setText(String.valueOf(requestCounter.get()));
-        });
-    }
-
     @Override
     public void showStartData(ServerStartData data) {
         startTimeField.setText(startTimeAsString);
@@ -471,22 +451,16 @@ public class AuditLogFxGUI extends FxGUI implements ALServerGUIInterface {
 
     @Override
     public void increaseNumberOfLoggedInClients() {
-        loggedInClientCounter.getAndIncrement();
-        LOG.debug("Eingeloggte Clients: " + loggedInClientCounter.get());
-        updateLoggedInClients();
+        counters.increaseLoggedInClients();
     }
 
     @Override
     public void decreaseNumberOfLoggedInClients() {
-        loggedInClientCounter.getAndDecrement();
-        LOG.debug("Eingeloggte Clients: " + loggedInClientCounter.get());
-        updateLoggedInClients();
+        counters.decreaseLoggedInClients();
     }
 
     @Override
     public void increaseNumberOfRequests() {
-        requestCounter.getAndIncrement();
-        LOG.debug(requestCounter.get() + " empfangene Message Requests");
-        updateNumberOfRequests();
+        counters.increaseRequests();
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -24,8 +25,18 @@ class ApiStorage implements AuditLogRMIInterface, StorageInterface, Serializable
      */
     private static final Logger log = LogManager.getLogger(ApiStorage.class);
 
+    /**
+     * max number of pdus the API accepts in one batch request
+     */
+    static final int MAX_BATCH_SIZE = 10000;
+
     ALServerGUIInterface counter;
 
+    /**
+     * false once the API answered the batch endpoint with http404, then pdus are posted one by one
+     */
+    private volatile boolean batchSupported = true;
+
     /**
      * constructor
      */
@@ -36,7 +47,15 @@ class ApiStorage implements AuditLogRMIInterface, StorageInterface, Serializable
     @Override
     public void audit(AuditLogPDU pdu) {
         Storage.updateCounter(pdu, counter);
+        post(pdu);
+    }
 
+    /**
+     * posts a single pdu to /api/pdus
+     *
+     * @param pdu pdu to be persisted
+     */
+    private void post(AuditLogPDU pdu) {
         try {
             String encodedData =
                     "pduType=" + URLEncoder.encode(String.valueOf(pdu.getPduType()).trim(), StandardCharsets.UTF_8) +
@@ -65,4 +84,107 @@ class ApiStorage implements AuditLogRMIInterface, StorageInterface, Serializable
             e.printStackTrace();
         }
     }
+
+    /**
+     * posts the whole batch as JSON-list to /api/pdus/batch, stored by the API in one transaction; batches larger than
+     * the API limit are split. Only if the API has no batch endpoint (http404), the pdus are posted one by one.
+     *
+     * @param pdus pdus to be persisted in their order
+     */
+    @Override
+    public void auditBatch(List<AuditLogPDU> pdus) {
+        if (!batchSupported) {
+            StorageInterface.super.auditBatch(pdus);
+            return;
+        }
+
+        for (int from = 0; from < pdus.size(); from += MAX_BATCH_SIZE) {
+            List<AuditLogPDU> chunk = pdus.subList(from, Math.min(pdus.size(), from + MAX_BATCH_SIZE));
+            for (AuditLogPDU pdu : chunk) {
+                Storage.updateCounter(pdu, counter);
+            }
+
+            try {
+                byte[] body = toJson(chunk).getBytes(StandardCharsets.UTF_8);
+                URL url = new URL("http://localhost:8080/api/pdus/batch");
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod("POST");
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+                conn.setFixedLengthStreamingMode(body.length);
+                conn.getOutputStream().write(body);
+                int responseCode = conn.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                    log.warn("API has no batch endpoint, posting pdus one by one");
+                    batchSupported = false;
+                    // counters were already updated for this chunk
+                    for (AuditLogPDU pdu : chunk) {
+                        post(pdu);
+                    }
+                    for (AuditLogPDU pdu : pdus.subList(from + chunk.size(), pdus.size())) {
+                        audit(pdu);
+                    }
+                    return;
+                }
+                if (responseCode != HttpURLConnection.HTTP_OK) {
+                    log.error("API batch call with " + chunk.size() + " pdus failed with response code: "
+                            + responseCode);
+                } else {
+                    log.debug("API batch call with " + chunk.size() + " pdus, response code: " + responseCode);
+                }
+            } catch (MalformedURLException e) {
+                log.error("wrong URL");
+                e.printStackTrace();
+            } catch (IOException e) {
+                log.error("could not open URL");
+                e.printStackTrace();
+            } catch (Exception e) {
+                log.error("critical error");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * pdus as JSON-list of objects as expected by /api/pdus/batch, values trimmed like in {@link #audit(AuditLogPDU)}
+     *
+     * @param pdus pdus
+     * @return JSON text
+     */
+    static String toJson(List<AuditLogPDU> pdus) {
+        StringBuilder sb = new StringBuilder(pdus.size() * 160).append('[');
+        for (AuditLogPDU pdu : pdus) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('{');
+            appendField(sb, "pduType", String.valueOf(pdu.getPduType())).append(',');
+            appendField(sb, "username", String.valueOf(pdu.getUserName())).append(',');
+            appendField(sb, "clientThread", String.valueOf(pdu.getClientThreadName())).append(',');
+            appendField(sb, "serverThread", String.valueOf(pdu.getServerThreadName())).append(',');
+            appendField(sb, "auditTime", String.valueOf(pdu.getAuditTime())).append(',');
+            appendField(sb, "content", String.valueOf(pdu.getMessage()));
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static StringBuilder appendField(StringBuilder sb, String name, String value) {
+        sb.append('"').append(name).append("\":\"");
+        for (char c : value.trim().toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import java.io.FileWriter;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.Formatter;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -38,7 +39,19 @@ public class FileStorage implements AuditLogRMIInterface, StorageInterface, Seri
 
     @Override
     public void audit(AuditLogPDU pdu) {
-        Storage.updateCounter(pdu, counter);
+        auditBatch(List.of(pdu));
+    }
+
+    /**
+     * writes all pdus of a batch with one write, the file is opened once per batch
+     *
+     * @param pdus pdus to be persisted in their order
+     */
+    @Override
+    public void auditBatch(List<AuditLogPDU> pdus) {
+        for (AuditLogPDU pdu : pdus) {
+            Storage.updateCounter(pdu, counter);
+        }
 
         File file = new File(fileName);
         log.debug("Die file heißt: "+ fileName + "und liegt in: "+ file.toPath().toString());
@@ -58,19 +71,21 @@ public class FileStorage implements AuditLogRMIInterface, StorageInterface, Seri
             BufferedWriter out = new BufferedWriter(fileWriter);
 
             StringBuilder sb = new StringBuilder();
-            Formatter formatter = new Formatter();
+            Formatter formatter = new Formatter(sb);
 
-            sb.append(formatter.format("%s | %s | %s | %s | %s | %s\n",
-                    pdu.getPduType(),
-                    pdu.getUserName(),
-                    pdu.getClientThreadName(),
-                    pdu.getServerThreadName(),
-                    pdu.getAuditTime(),
-                    pdu.getMessage()));
+            for (AuditLogPDU pdu : pdus) {
+                formatter.format("%s | %s | %s | %s | %s | %s\n",
+                        pdu.getPduType(),
+                        pdu.getUserName(),
+                        pdu.getClientThreadName(),
+                        pdu.getServerThreadName(),
+                        pdu.getAuditTime(),
+                        pdu.getMessage());
+            }
 
             out.append(sb);
             formatter.close();
-            System.out.println("Audit Log PDU in Datei " + fileName + " geschrieben");
+            log.debug(pdus.size() + " Audit Log PDUs in Datei " + fileName + " geschrieben");
             out.flush();
             out.close();
         } catch (IOException e) {
@@ -0,0 +1,243 @@
+package edu.hm.dako.auditlogserver.persistence;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.ExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * thread-safe ingest pipeline of one storage shard, shared by all transports (TCP and UDP worker threads, RMI call
+ * threads) of the chat servers mapped to the shard<br/>
+ * Producers only put their records into a bounded queue and wait if it is full. One writer thread takes all
+ * waiting records and persists them with calls of {@link StorageInterface#auditBatch(List)} of at most
+ * {@link #MAX_WRITE_SIZE} records, so records from many threads are written together and lines never interleave. A
+ * batch handed in with one call (e.g. one RMI call) stays contiguous, records of one producer keep their order.
+ * Producers check and enqueue under a shared lock, close takes it exclusively, so every record accepted before
+ * {@link #close(long)} is written.
+ *
+ * @author Lerngruppe
+ */
+public class IngestPipeline implements StorageInterface {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(IngestPipeline.class);
+
+    /**
+     * max. number of waiting calls (single records or batches)
+     */
+    static final int QUEUE_CAPACITY = 10000;
+
+    /**
+     * max. number of records persisted with one write
+     */
+    static final int MAX_WRITE_SIZE = 4096;
+
+    /**
+     * max. time the writer waits for records before checking if the pipeline was closed
+     */
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    /**
+     * waiting records, one entry per call
+     */
+    private final BlockingQueue<List<AuditLogPDU>> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * storage the writer persists to
+     */
+    private final StorageInterface storage;
+
+    /**
+     * number of writes and written records
+     */
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    /**
+     * writer thread
+     */
+    private final Thread writer;
+
+    /**
+     * true if no more records are accepted
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * shared by producers while checking closed and enqueueing, exclusive while closing
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * constructor, starts the writer thread
+     *
+     * @param storage    storage the records are persisted to
+     * @param threadName name of the writer thread
+     */
+    public IngestPipeline(StorageInterface storage, String threadName) {
+        this.storage = storage;
+        writer = new Thread(this::writeLoop, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void audit(AuditLogPDU pdu) {
+        enqueue(List.of(pdu));
+    }
+
+    @Override
+    public void auditBatch(List<AuditLogPDU> pdus) {
+        if (!pdus.isEmpty()) enqueue(pdus);
+    }
+
+    /**
+     * puts the records of one call into the queue without waiting
+     *
+     * @param pdus records
+     * @return false if the queue is full, true if the records were taken (or dropped because the pipeline is closed)
+     */
+    public boolean offer(List<AuditLogPDU> pdus) {
+        if (pdus.isEmpty()) return true;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                LOG.error("Ingest geschlossen, " + pdus.size() + " AuditLog-Sätze verworfen");
+                return true;
+            }
+            return queue.offer(pdus);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * stops accepting records, persists all waiting records and stops the writer thread
+     *
+     * @param timeoutMillis max. time to wait for the writer
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void close(long timeoutMillis) throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        writer.join(timeoutMillis);
+        if (writer.isAlive()) LOG.error("Ingest-Warteschlange konnte nicht geleert werden");
+        LOG.debug("Ingest beendet, " + written + " AuditLog-Sätze in " + writes + " Schreibvorgängen");
+    }
+
+    /**
+     * getter
+     *
+     * @return number of waiting calls
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * getter
+     *
+     * @return max. number of waiting calls
+     */
+    public int getQueueCapacity() {
+        return QUEUE_CAPACITY;
+    }
+
+    /**
+     * getter
+     *
+     * @return number of writes to the storage
+     */
+    public long getNumberOfWrites() {
+        return writes.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of records written to the storage
+     */
+    public long getNumberOfWrittenRecords() {
+        return written.sum();
+    }
+
+    /**
+     * puts the records of one call into the queue, waits if it is full
+     *
+     * @param pdus records
+     */
+    private void enqueue(List<AuditLogPDU> pdus) {
+        // the writer drains without the lock, so waiting for space here cannot block it
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                LOG.error("Ingest geschlossen, " + pdus.size() + " AuditLog-Sätze verworfen");
+                return;
+            }
+            queue.put(pdus);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Beim Einstellen unterbrochen, " + pdus.size() + " AuditLog-Sätze verworfen");
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * writer thread: takes waiting calls until {@link #MAX_WRITE_SIZE} records are collected and persists them with
+     * writes of at most {@link #MAX_WRITE_SIZE} records, until the pipeline is closed and the queue is empty
+     */
+    private void writeLoop() {
+        List<AuditLogPDU> batch = new ArrayList<>(MAX_WRITE_SIZE);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                List<AuditLogPDU> first = queue.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.addAll(first);
+
+                List<AuditLogPDU> next;
+                while (batch.size() < MAX_WRITE_SIZE && (next = queue.poll()) != null) {
+                    batch.addAll(next);
+                }
+
+                for (int from = 0; from < batch.size(); from += MAX_WRITE_SIZE) {
+                    write(batch.subList(from, Math.min(from + MAX_WRITE_SIZE, batch.size())));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * persists records with one write
+     *
+     * @param pdus at most {@link #MAX_WRITE_SIZE} records
+     */
+    private void write(List<AuditLogPDU> pdus) {
+        try {
+            storage.auditBatch(pdus);
+            writes.increment();
+            written.add(pdus.size());
+        } catch (Exception e) {
+            LOG.error("Fehler beim Schreiben von " + pdus.size() + " AuditLog-Sätzen");
+            ExceptionHandler.logException(e);
+        }
+    }
+}
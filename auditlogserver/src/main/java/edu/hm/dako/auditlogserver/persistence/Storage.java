@@ -9,12 +9,16 @@ import java.io.Serializable;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * storing audit log data in a database via API-call if possible
- * else storage in text file
+ * else storage in text file<br/>
+ * The backend is switched by {@link #useApi(boolean)} (health check of the {@link StorageManager}), the switch takes
+ * effect with the next record or batch and never blocks the caller.
  *
  * @author Linus Englert
  */
@@ -24,6 +28,13 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
      */
     private static final Logger log = LogManager.getLogger(Storage.class);
 
+    /**
+     * counters of all received audit log records, logins and logouts for the metrics
+     */
+    private static final LongAdder records = new LongAdder();
+    private static final LongAdder logins = new LongAdder();
+    private static final LongAdder logouts = new LongAdder();
+
     /**
      * storage in a file
      */
@@ -34,27 +45,47 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
      */
     ApiStorage apiStorage;
 
+    /**
+     * max. time for connecting to and reading from the API when probing it
+     */
+    static final int API_PROBE_TIMEOUT_MILLIS = 1000;
+
     /**
      * storage that will be used
      */
-    StorageInterface activeStorage;
+    volatile StorageInterface activeStorage;
 
     /**
-     * constructor
+     * constructor, uses the file storage until the API is reported as available
      *
      * @param fileName file name for text file storage, ignored if API is used
      */
     public Storage(String fileName, ALServerGUIInterface serverGUIInterface) {
         fileStorage = new FileStorage(fileName, serverGUIInterface);
         apiStorage = new ApiStorage(serverGUIInterface);
+        activeStorage = fileStorage;
+    }
 
-        if (hasApiConnection()) {
-            activeStorage = apiStorage;
-            log.info("using api storage");
-        } else {
-            activeStorage = fileStorage;
-            log.info("api not available - using file storage");
-        }
+    /**
+     * switches between API and file storage
+     *
+     * @param api true if the API is available
+     * @return true if the backend was changed
+     */
+    public boolean useApi(boolean api) {
+        StorageInterface next = api ? apiStorage : fileStorage;
+        if (activeStorage == next) return false;
+        activeStorage = next;
+        return true;
+    }
+
+    /**
+     * getter
+     *
+     * @return true if the API storage is active
+     */
+    public boolean isApiActive() {
+        return activeStorage == apiStorage;
     }
 
     @Override
@@ -62,6 +93,11 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
         activeStorage.audit(pdu);
     }
 
+    @Override
+    public void auditBatch(List<AuditLogPDU> pdus) {
+        activeStorage.auditBatch(pdus);
+    }
+
     /**
      * prüft, ob API gestartet wurde
      *
@@ -71,12 +107,18 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
         try {
             URL url = new URL("http://localhost:8080/api/");
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn.setConnectTimeout(API_PROBE_TIMEOUT_MILLIS);
+            conn.setReadTimeout(API_PROBE_TIMEOUT_MILLIS);
             conn.setRequestMethod("GET");
-            return (conn.getResponseCode() == 200);
+            try {
+                return (conn.getResponseCode() == 200);
+            } finally {
+                conn.disconnect();
+            }
         } catch (MalformedURLException e) {
             log.error("wrong URL");
         } catch (IOException e) {
-            log.error("could not open URL");
+            log.debug("could not open URL");
         } catch (Exception e) {
             log.error("critical error");
             e.printStackTrace();
@@ -84,7 +126,19 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
         return false;
     }
     
+    /**
+     * counts the pdu for the metrics and in the GUI, the GUI only increases its counters and shows them
+     * periodically
+     *
+     * @param pdu                received pdu
+     * @param serverGUIInterface GUI of the server, null if the server runs without GUI
+     */
     public static void updateCounter(AuditLogPDU pdu, ALServerGUIInterface serverGUIInterface) {
+        records.increment();
+        if (pdu.getPduType() == AuditLogPDUType.LOGIN_REQUEST) logins.increment();
+        if (pdu.getPduType() == AuditLogPDUType.LOGOUT_REQUEST) logouts.increment();
+        if (serverGUIInterface == null) return;
+
         // Counter hochzählen
         serverGUIInterface.increaseNumberOfRequests();
 
@@ -92,4 +146,31 @@ public class Storage implements AuditLogRMIInterface, StorageInterface, Serializ
         if (pdu.getPduType().equals(AuditLogPDUType.LOGIN_REQUEST)) serverGUIInterface.increaseNumberOfLoggedInClients();
         if (pdu.getPduType().equals(AuditLogPDUType.LOGOUT_REQUEST)) serverGUIInterface.decreaseNumberOfLoggedInClients();
     }
-}
\ No newline at end of file
+
+    /**
+     * getter
+     *
+     * @return number of received audit log records
+     */
+    public static long getNumberOfRecords() {
+        return records.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of received login records
+     */
+    public static long getNumberOfLogins() {
+        return logins.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of received logout records
+     */
+    public static long getNumberOfLogouts() {
+        return logouts.sum();
+    }
+}
@@ -1,6 +1,7 @@
 package edu.hm.dako.auditlogserver.persistence;
 
 import edu.hm.dako.common.AuditLogPDU;
+import java.util.List;
 
 /**
  * Common methods for storing audit log data
@@ -14,4 +15,15 @@ public interface StorageInterface {
      * @param pdu pdu to be persisted
      */
     void audit(AuditLogPDU pdu);
+
+    /**
+     * persists several audit log pdus, by default one after another
+     *
+     * @param pdus pdus to be persisted in their order
+     */
+    default void auditBatch(List<AuditLogPDU> pdus) {
+        for (AuditLogPDU pdu : pdus) {
+            audit(pdu);
+        }
+    }
 }
\ No newline at end of file
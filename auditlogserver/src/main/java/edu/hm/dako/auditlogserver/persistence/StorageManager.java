@@ -0,0 +1,256 @@
+package edu.hm.dako.auditlogserver.persistence;
+
+import edu.hm.dako.auditlogserver.gui.ALServerGUIInterface;
+import edu.hm.dako.common.ExceptionHandler;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * storage of the audit log server, created once when the server starts<br/>
+ * The records are persisted by several shards, each with its own {@link Storage}, file and writer thread
+ * ({@link IngestPipeline}), so the shards write in parallel. Every connected chat server is mapped to one shard with
+ * {@link #assignShard()}, its records stay in order in the file of its shard. A health check thread probes the API
+ * periodically and switches all shards between API and file storage, ingestion never waits for the probe.
+ *
+ * @author Lerngruppe
+ */
+public class StorageManager {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(StorageManager.class);
+
+    /**
+     * file of the file storage if only one shard is used
+     */
+    public static final String DEFAULT_FILE_NAME = "ChatAuditLog.dat";
+
+    /**
+     * default number of shards
+     */
+    public static final int DEFAULT_SHARDS = 4;
+
+    /**
+     * interval of the API health check
+     */
+    static final long HEALTH_CHECK_INTERVAL_MILLIS = 5000;
+
+    /**
+     * storage (API or file) of each shard
+     */
+    private final Storage[] storages;
+
+    /**
+     * ingest pipeline of each shard
+     */
+    private final IngestPipeline[] shards;
+
+    /**
+     * number of chat servers mapped to each shard
+     */
+    private final AtomicIntegerArray assigned;
+
+    /**
+     * thread of the API health check
+     */
+    private final ScheduledExecutorService healthCheck;
+
+    /**
+     * number of switches between API and file storage
+     */
+    private final LongAdder backendSwitches = new LongAdder();
+
+    /**
+     * constructor, starts the writer threads and the API health check
+     *
+     * @param numberOfShards     number of shards, at least 1
+     * @param serverGUIInterface GUI of the server, null if the server runs without GUI
+     */
+    public StorageManager(int numberOfShards, ALServerGUIInterface serverGUIInterface) {
+        int n = Math.max(1, numberOfShards);
+        storages = new Storage[n];
+        shards = new IngestPipeline[n];
+        assigned = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            storages[i] = new Storage(getFileName(i, n), serverGUIInterface);
+            shards[i] = new IngestPipeline(storages[i], "AuditLogIngestWriter-" + i);
+        }
+
+        healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AuditLogApiHealthCheck");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkApi, 0, HEALTH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        LOG.info(n + " Storage-Shards gestartet");
+    }
+
+    /**
+     * file name of a shard
+     *
+     * @param shard          number of the shard
+     * @param numberOfShards number of shards
+     * @return ChatAuditLog.dat if only one shard is used, else ChatAuditLog-&lt;shard&gt;.dat
+     */
+    public static String getFileName(int shard, int numberOfShards) {
+        return (numberOfShards == 1) ? DEFAULT_FILE_NAME : "ChatAuditLog-" + shard + ".dat";
+    }
+
+    /**
+     * maps a chat server to the shard with the fewest chat servers
+     *
+     * @return number of the shard
+     */
+    public int assignShard() {
+        while (true) {
+            int shard = 0;
+            int min = assigned.get(0);
+            for (int i = 1; i < assigned.length(); i++) {
+                int count = assigned.get(i);
+                if (count < min) {
+                    min = count;
+                    shard = i;
+                }
+            }
+            if (assigned.compareAndSet(shard, min, min + 1)) return shard;
+        }
+    }
+
+    /**
+     * releases the mapping of a chat server
+     *
+     * @param shard shard returned by {@link #assignShard()}
+     */
+    public void releaseShard(int shard) {
+        if (shard >= 0 && shard < assigned.length()) assigned.decrementAndGet(shard);
+    }
+
+    /**
+     * getter
+     *
+     * @param shard number of the shard
+     * @return ingest pipeline of the shard
+     */
+    public IngestPipeline getShard(int shard) {
+        return shards[shard];
+    }
+
+    /**
+     * getter
+     *
+     * @return number of shards
+     */
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * getter
+     *
+     * @return true if the records are persisted via API
+     */
+    public boolean isApiActive() {
+        return storages[0].isApiActive();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of switches between API and file storage
+     */
+    public long getNumberOfBackendSwitches() {
+        return backendSwitches.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of waiting calls in all shards
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (IngestPipeline shard : shards) {
+            size += shard.getQueueSize();
+        }
+        return size;
+    }
+
+    /**
+     * getter
+     *
+     * @return number of writes of all shards
+     */
+    public long getNumberOfWrites() {
+        long writes = 0;
+        for (IngestPipeline shard : shards) {
+            writes += shard.getNumberOfWrites();
+        }
+        return writes;
+    }
+
+    /**
+     * getter
+     *
+     * @return number of waiting calls per shard
+     */
+    public Map<String, Number> getQueueSizeByShard() {
+        Map<String, Number> sizes = new LinkedHashMap<>();
+        for (int i = 0; i < shards.length; i++) {
+            sizes.put(String.valueOf(i), shards[i].getQueueSize());
+        }
+        return sizes;
+    }
+
+    /**
+     * getter
+     *
+     * @return number of written records per shard
+     */
+    public Map<String, Number> getWrittenRecordsByShard() {
+        Map<String, Number> written = new LinkedHashMap<>();
+        for (int i = 0; i < shards.length; i++) {
+            written.put(String.valueOf(i), shards[i].getNumberOfWrittenRecords());
+        }
+        return written;
+    }
+
+    /**
+     * stops the health check, persists all waiting records and stops the writer threads
+     *
+     * @param timeoutMillis max. time to wait for each shard
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void close(long timeoutMillis) throws InterruptedException {
+        healthCheck.shutdownNow();
+        for (IngestPipeline shard : shards) {
+            shard.close(timeoutMillis);
+        }
+    }
+
+    /**
+     * health check: probes the API and switches the backend of all shards if its availability changed
+     */
+    private void checkApi() {
+        try {
+            boolean available = Storage.hasApiConnection();
+            boolean switched = false;
+            for (Storage storage : storages) {
+                switched |= storage.useApi(available);
+            }
+            if (switched) {
+                backendSwitches.increment();
+                LOG.info(available ? "using api storage" : "api not available - using file storage");
+            }
+        } catch (Exception e) {
+            LOG.error("Fehler beim Prüfen der API");
+            ExceptionHandler.logException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package edu.hm.dako.auditlogserver.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class StorageManagerTest {
+    @Test
+    public void assignShardBalancesChatServers() throws InterruptedException {
+        StorageManager storage = new StorageManager(3, null);
+        try {
+            assertEquals(0, storage.assignShard());
+            assertEquals(1, storage.assignShard());
+            assertEquals(2, storage.assignShard());
+            storage.releaseShard(1);
+            assertEquals(1, storage.assignShard());
+        } finally {
+            storage.close(1000);
+        }
+    }
+
+    @Test
+    public void fileNamePerShard() {
+        assertEquals(StorageManager.DEFAULT_FILE_NAME, StorageManager.getFileName(0, 1));
+        assertEquals("ChatAuditLog-2.dat", StorageManager.getFileName(2, 4));
+    }
+}
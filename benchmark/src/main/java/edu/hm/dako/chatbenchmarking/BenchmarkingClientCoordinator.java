@@ -8,6 +8,7 @@ import edu.hm.dako.chatclient.ClientUserInterface;
 import edu.hm.dako.common.ExceptionHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Vector;
@@ -26,6 +27,12 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
      */
     private static final Logger log = LogManager.getLogger(BenchmarkingClientCoordinator.class);
 
+    /**
+     * Max. Genauigkeit der RTT-Histogramme ohne Event-Loops (ca. 440 KB pro Client-Thread, 4 Stellen bräuchten
+     * 6,5 MB)
+     */
+    static final int MAX_RTT_PRECISION_PER_CLIENT_THREAD = 3;
+
     /**
      * Übergebene Parameter vom User-Interface
      */
@@ -66,6 +73,16 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
     private SharedClientStatistics sharedData;
     private CpuUtilisationWatch cpuUtilisationWatch;
 
+    /**
+     * Thread zum Schreiben der Zeitreihe während des Tests, null wenn keine Zeitreihe geschrieben wird
+     */
+    private TimeSeriesRecorder timeSeriesRecorder;
+
+    /**
+     * Messung von CPU- und GC-Zeit des Servers über dessen Metrik-Endpunkt, null ohne Metrik-Endpunkt
+     */
+    private ServerResourceWatch serverResourceWatch;
+
     /**
      * Kennzeichen, ob gerade ein Test läuft (es darf nur einer zu einer Zeit laufen)
      */
@@ -76,6 +93,11 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
      */
     private boolean abortedFlag = false;
 
+    /**
+     * Ergebnisdaten des abgeschlossenen Tests, null solange der Test läuft oder wenn er nicht gestartet werden konnte
+     */
+    private volatile UserInterfaceResultData lastResultData;
+
     /**
      * Konstruktor
      */
@@ -106,9 +128,21 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         // Anzahl aller erwarteten Requests ermitteln
         numberOfAllRequests = (long) param.getNumberOfClients() * param.getNumberOfMessages();
 
-        // Gemeinsamen Datenbereich für alle Threads anlegen
+        // Gemeinsamen Datenbereich für alle Threads anlegen, ohne Event-Loops hat jeder Client-Thread ein eigenes
+        // RTT-Histogramm, die Genauigkeit wird dann begrenzt
+        int rttPrecision = param.getRttPrecision();
+        if (param.getNumberOfEventLoops() == 0 && rttPrecision > MAX_RTT_PRECISION_PER_CLIENT_THREAD) {
+            log.warn("RTT-Genauigkeit " + rttPrecision + " ohne Event-Loops auf "
+                    + MAX_RTT_PRECISION_PER_CLIENT_THREAD + " Stellen begrenzt");
+            rttPrecision = MAX_RTT_PRECISION_PER_CLIENT_THREAD;
+        }
         sharedData = new SharedClientStatistics(param.getNumberOfClients(),
-                param.getNumberOfMessages(), param.getClientThinkTime());
+                param.getNumberOfMessages(), param.getClientThinkTime(), rttPrecision);
+        if (param.isOpenLoop()) {
+            sharedData.setOpenLoopStatistics(new OpenLoopStatistics(OpenLoopSchedule.getStepRates(param),
+                    OpenLoopSchedule.getStepEnds(param)));
+        }
+        sharedData.setLoginStatistics(new LoginStatistics(LoginRamp.create(param), param.getNumberOfClients()));
 
         if (clientGui != null) {
             // Berechnung aller Messages für Progress-Bar
@@ -128,9 +162,40 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         timeCounterThread.start();
 
         cpuUtilisationWatch = new CpuUtilisationWatch();
+        cpuUtilisationWatch.start();
+        if (param.getServerMetricsUrl() != null) {
+            serverResourceWatch = new ServerResourceWatch(param.getServerMetricsUrl());
+            serverResourceWatch.start();
+        } else {
+            serverResourceWatch = null;
+        }
+        sharedData.startHeapSampling();
+        if (param.getTimeSeriesFile() != null) {
+            timeSeriesRecorder = new TimeSeriesRecorder(sharedData, cpuUtilisationWatch, param.getTimeSeriesFile(),
+                    param.getTimeSeriesInterval());
+            timeSeriesRecorder.start();
+        }
         start();
     }
 
+    /**
+     * Zeitreihe beenden, die letzte Zeile enthält das angebrochene Intervall
+     */
+    private void stopTimeSeries() {
+        if (timeSeriesRecorder != null) {
+            timeSeriesRecorder.stopThread();
+            timeSeriesRecorder = null;
+        }
+    }
+
+    /**
+     * Messung des Ressourcenverbrauchs von Lastgenerator und Server beenden
+     */
+    private void stopResourceWatches() {
+        cpuUtilisationWatch.stop();
+        if (serverResourceWatch != null) serverResourceWatch.stop();
+    }
+
     /**
      * Thread zur Entkoppelung des User-Interface von der Testausführung, damit im User-Interface Eingaben möglich
      * sind, während der Benchmark läuft (z.B. Abbruch).
@@ -141,24 +206,67 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         // Test aktiv
         running = true;
 
-        // Client-Threads in Abhängigkeit des Implementierungstyps instanziieren und starten
-        ExecutorService executorService = Executors
-                .newFixedThreadPool(params.getNumberOfClients());
-
-        for (int i = 0; i < params.getNumberOfClients(); i++) {
-            executorService.submit(
-                    BenchmarkingClientFactory.getClient(this, params, i, sharedData, benchmarkingClientGui));
-
-            // Warten, bis der Client seinen Login abgeschlossen hat. Damit erfolgt eine Serialisierung der Logins,
-            // damit die Anzahl der Login-Events genau berechnet werden kann.
-            while (sharedData.getNumberOfLoggedInClients() != i + 1) {
-                try {
-                    Thread.sleep(10);
-                } catch (Exception e) {
-                    ExceptionHandler.logException(e);
+        // Clients auf Event-Loops ausführen, die Logins erfolgen nach der Login-Rampe
+        LoginStatistics loginStatistics = sharedData.getLoginStatistics();
+        ExecutorService executorService = null;
+        EventLoopClientEngine engine = null;
+        if (params.getNumberOfEventLoops() > 0) {
+            engine = new EventLoopClientEngine(params, sharedData, this, benchmarkingClientGui);
+            try {
+                engine.start();
+                engine.awaitLoggedIn();
+            } catch (IOException | InterruptedException e) {
+                log.error("Event-Loops konnten nicht gestartet werden");
+                ExceptionHandler.logException(e);
+                timeCounterThread.stopThread();
+                stopTimeSeries();
+                stopResourceWatches();
+                sharedData.stopHeapSampling();
+                running = false;
+                return;
+            }
+        } else {
+            // Client-Threads in Abhängigkeit des Implementierungstyps instanziieren und starten
+            executorService = Executors.newFixedThreadPool(params.getNumberOfClients());
+            if (loginStatistics.isSerial()) {
+                for (int i = 0; i < params.getNumberOfClients(); i++) {
+                    executorService.submit(
+                            BenchmarkingClientFactory.getClient(this, params, i, sharedData, benchmarkingClientGui));
+
+                    // Warten, bis der Client seinen Login abgeschlossen hat. Damit erfolgt eine Serialisierung der
+                    // Logins.
+                    while (sharedData.getNumberOfLoggedInClients() != i + 1) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (Exception e) {
+                            ExceptionHandler.logException(e);
+                        }
+                    }
+                    log.debug("Client " + (i + 1) + " ist eingeloggt");
+                }
+            } else {
+                // Erst alle Verbindungen aufbauen, dann die Rampe starten: Jeder Client wartet selbst auf seinen
+                // geplanten Login-Zeitpunkt
+                Runnable[] clients = new Runnable[params.getNumberOfClients()];
+                for (int i = 0; i < clients.length; i++) {
+                    clients[i] = BenchmarkingClientFactory.getClient(this, params, i, sharedData,
+                            benchmarkingClientGui);
                 }
+                loginStatistics.start();
+                for (Runnable client : clients) {
+                    executorService.submit(client);
+                }
+
+                // Warten, bis alle Clients ihren Login abgeschlossen haben (erfolgreich oder nicht)
+                while (loginStatistics.getNumberOfFinishedLogins() < clients.length && !isTestAborted()) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (Exception e) {
+                        ExceptionHandler.logException(e);
+                    }
+                }
+                log.debug(sharedData.getNumberOfLoggedInClients() + " Clients sind eingeloggt");
             }
-            log.debug("Client " + (i + 1) + " ist eingeloggt");
         }
 
         // Startwerte anzeigen
@@ -167,13 +275,17 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         startData.setStartTime(getCurrentTime(cal));
 
         /*
-         * Maximal mögliche Events = ChatMessage-Events + Anzahl an Login-Events (wenn alle Clients sich seriell
-         * hintereinander einloggen) + die Anzahl an Logout-Events, wenn alle Clients bis zum letzten Logout arbeiten.
+         * Maximal mögliche Events = ChatMessage-Events + Anzahl an Login-Events + die Anzahl an Logout-Events, wenn
+         * alle Clients bis zum letzten Logout arbeiten. Die Login-Events ergeben sich aus dem Fan-out jedes Logins in
+         * der tatsächlichen Login-Reihenfolge, ohne Fan-out-Angaben wird mit seriellen Logins gerechnet.
          */
 
-        long numberOfPlannedLoginEvents = 0;
-        for (int i = 1; i <= params.getNumberOfClients(); i++) {
-            numberOfPlannedLoginEvents += i;
+        long numberOfPlannedLoginEvents = loginStatistics.getNumberOfLoginEvents();
+        if (numberOfPlannedLoginEvents < 0) {
+            numberOfPlannedLoginEvents = 0;
+            for (int i = 1; i <= params.getNumberOfClients(); i++) {
+                numberOfPlannedLoginEvents += i;
+            }
         }
         log.debug("Anzahl geplanter LoginEvent-Nachrichten: " + numberOfPlannedLoginEvents);
 
@@ -194,17 +306,23 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         else System.out.println("Alle Client-Threads gestartet");
 
         // Auf das Ende aller Clients warten
-        executorService.shutdown();
-
         try {
-            executorService.awaitTermination(120000, TimeUnit.MINUTES);
+            if (engine != null) {
+                engine.awaitTermination();
+            } else {
+                executorService.shutdown();
+                executorService.awaitTermination(120000, TimeUnit.MINUTES);
+            }
         } catch (InterruptedException e) {
-            log.error("Das Beenden des ExecutorService wurde unterbrochen");
+            log.error("Das Beenden der Clients wurde unterbrochen");
             ExceptionHandler.logException(e);
         }
 
-        // Laufzeitzähler-Thread beenden
+        // Laufzeitzähler-Thread, Zeitreihe, Ressourcen-Messung und Heap-Sampler beenden
         timeCounterThread.stopThread();
+        stopTimeSeries();
+        stopResourceWatches();
+        sharedData.stopHeapSampling();
 
         // Analyse der Ergebnisse durchführen, Statistikdaten berechnen und ausgeben
         // sharedData.printStatistic();
@@ -214,6 +332,7 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         else System.out.println("Alle Clients-Threads beendet");
 
         UserInterfaceResultData resultData = getResultData(startTime);
+        lastResultData = resultData;
 
         if (benchmarkingClientGui != null) benchmarkingClientGui.showResultData(resultData);
         if (benchmarkingClientGui != null) benchmarkingClientGui.setMessageLine(params.mapImplementationTypeToString(
@@ -222,9 +341,39 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         if (benchmarkingClientGui != null) benchmarkingClientGui.testFinished();
         else System.out.println("Benchmark beendet");
 
+        // Ressourcenverbrauch ausgeben und warnen, wenn der Lastgenerator der Engpass war
+        log.info(cpuUtilisationWatch.format());
+        if (serverResourceWatch != null) log.info(serverResourceWatch.format());
+        if (benchmarkingClientGui == null) {
+            System.out.println(cpuUtilisationWatch.format());
+            if (serverResourceWatch != null) System.out.println(serverResourceWatch.format());
+        }
+        if (!resultData.isValid()) {
+            String warning = "Messung ungültig, der Lastgenerator war der Engpass: " + resultData.getInvalidReason();
+            log.warn(warning);
+            if (benchmarkingClientGui != null) benchmarkingClientGui.setMessageLine(warning);
+            else System.out.println(warning);
+        }
+
         log.debug("Anzahl aller erneuten Sendungen wegen Nachrichtenverlust (Übertragungswiederholungen): "
                         + sharedData.getSumOfAllRetries());
 
+        // Login-Latenz, Login-Durchsatz und Fan-out der Login-Events ausgeben
+        loginStatistics.logResults();
+        if (benchmarkingClientGui == null) System.out.println(loginStatistics.format());
+
+        // Open Loop: Durchsatz und Latenz pro Laststufe ausgeben
+        OpenLoopStatistics openLoopStatistics = sharedData.getOpenLoopStatistics();
+        if (openLoopStatistics != null) {
+            openLoopStatistics.logResults();
+            if (benchmarkingClientGui != null) {
+                String[] lines = openLoopStatistics.format().split(System.lineSeparator());
+                benchmarkingClientGui.setMessageLine(lines[lines.length - 1]);
+            } else {
+                System.out.println(openLoopStatistics.format());
+            }
+        }
+
         // Datensatz für Benchmark-Lauf auf Protokolldatei schreiben
         sharedData.writeStatisticSet("Benchmarking-ChatApp-Protokolldatei",
                 params.mapImplementationTypeToString(params.getChatServerImplementationType()),
@@ -339,6 +488,24 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         return 0;
     }
 
+    /**
+     * getter, für den Aufruf ohne GUI nach dem Ende des Tests (join)
+     *
+     * @return Ergebnisdaten des Tests, null wenn der Test nicht durchgeführt wurde
+     */
+    public UserInterfaceResultData getLastResultData() {
+        return lastResultData;
+    }
+
+    /**
+     * getter, für den Aufruf ohne GUI nach dem Ende des Tests (join)
+     *
+     * @return Statistikdaten aller Clients des Tests
+     */
+    public SharedClientStatistics getSharedStatistics() {
+        return sharedData;
+    }
+
     /**
      * Ergebnisdaten des Tests aufbereiten
      *
@@ -370,7 +537,17 @@ public class BenchmarkingClientCoordinator extends Thread implements Benchmarkin
         long elapsedTimeInSeconds = (cal.getTimeInMillis() - startTime) / 1000;
         resultData.setElapsedTime(elapsedTimeInSeconds);
 
-        resultData.setMaxCpuUsage(cpuUtilisationWatch.getAverageCpuUtilisation());
+        float cpuUsage = cpuUtilisationWatch.getAverageCpuUtilisation();
+        resultData.setMaxCpuUsage(cpuUsage);
+        resultData.setSystemCpuUsage(cpuUtilisationWatch.getAverageSystemCpuUtilisation());
+        resultData.setBusiestThreadCpuUsage(cpuUtilisationWatch.getBusiestThreadUtilisation());
+        resultData.setGcTimeShare(cpuUtilisationWatch.getGcTimeShare());
+        resultData.setAllocationRate(cpuUtilisationWatch.getAllocationRate() / (1024 << 10));
+        resultData.setInvalidReason(cpuUtilisationWatch.getGeneratorBottleneck(cpuUsage));
+        if (serverResourceWatch != null) {
+            resultData.setServerCpuUsage(serverResourceWatch.getCpuUtilisation());
+            resultData.setServerGcTimeShare(serverResourceWatch.getGcTimeShare());
+        }
 
         resultData.setMaxHeapSize(sharedData.getMaxHeapSize() / (1024 << 10));
 
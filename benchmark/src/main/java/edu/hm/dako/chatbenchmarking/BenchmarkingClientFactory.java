@@ -40,7 +40,8 @@ public final class BenchmarkingClientFactory {
                         benchmarkingGui, param.getChatServerImplementationType(), param.getRemoteServerPort(),
                         param.getRemoteServerAddress(), numberOfClient, param.getMessageLength(),
                         param.getNumberOfMessages(), param.getClientThinkTime(),
-                        param.getNumberOfRetries(), param.getResponseTimeout(), sharedData);
+                        param.getNumberOfRetries(), param.getResponseTimeout(), sharedData,
+                        OpenLoopSchedule.create(param, numberOfClient));
                 default -> throw new RuntimeException(
                         "Unbekannter Implementierungstyp: " + param.getChatServerImplementationType());
             };
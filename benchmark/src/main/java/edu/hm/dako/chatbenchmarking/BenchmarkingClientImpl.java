@@ -10,13 +10,22 @@ import edu.hm.dako.common.ClientConversationStatus;
 import edu.hm.dako.common.ExceptionHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Benchmarking-Client: Simuliert einen Chat-User
+ * Benchmarking-Client: Simuliert einen Chat-User<br/>
+ * Der Client-Thread wartet auf Login-, Logout- und Chat-Responses ohne Polling: Der Listener-Thread nimmt beim
+ * Empfang einer Chat-Response die Zeit und weckt den wartenden Client-Thread mit LockSupport.unpark, die RTT reicht
+ * also vom Senden bis zum Empfang und enthält keine Sleep- oder Aufweckzeiten.<br/>
+ * Bei Open-Loop-Messungen sendet der Client nach einem festen Plan ({@link OpenLoopSchedule}), ohne auf Responses zu
+ * warten. Mehrere Requests können offen sein, die RTT wird ab dem geplanten Sendezeitpunkt gemessen.
  *
  * @author Peter Mandl, edited by Lerngruppe
  */
@@ -37,6 +46,82 @@ public class BenchmarkingClientImpl extends AbstractChatClient
      */
     private final AtomicLong lastServerTime = new AtomicLong(0);
 
+    /**
+     * Max. Wartezeit am Stück, danach wird geprüft, ob der Test abgebrochen wurde
+     */
+    private static final long WAIT_SLICE_NANOS = 100_000_000L;
+
+    /**
+     * Client-Thread, der auf Responses wartet und vom Listener-Thread geweckt wird
+     */
+    private volatile Thread clientThread;
+
+    /**
+     * Erwartete Chat-Response zum zuletzt gesendeten Request, null wenn keine erwartet wird
+     */
+    private final AtomicReference<PendingResponse> pendingResponse = new AtomicReference<>();
+
+    /**
+     * Sendeplan bei Open-Loop-Messungen, null bei Closed-Loop-Messungen
+     */
+    private final OpenLoopSchedule schedule;
+
+    /**
+     * Offene Requests bei Open-Loop-Messungen nach Sequenznummer
+     */
+    private final Map<Integer, PendingResponse> outstandingResponses = new ConcurrentHashMap<>();
+
+    /**
+     * Zeitpunkt (System.nanoTime) der letzten Response bei Open-Loop-Messungen
+     */
+    private volatile long lastResponseTime;
+
+    /**
+     * Login-Phase: Zeitpunkt (System.nanoTime) von Login-Request und Login-Response, Anzahl Empfänger des eigenen
+     * Login-Events (-1 solange nicht empfangen) und ob der Login schon in der Statistik erfasst ist
+     */
+    private long loginRequestTime;
+    private volatile long loginResponseTime;
+    private volatile int loginFanOut = -1;
+    private boolean loginRecorded = false;
+
+    /**
+     * Erwartete Chat-Response, wird vom Listener-Thread mit Empfangs- und Serverzeit abgeschlossen
+     */
+    private static final class PendingResponse {
+        /**
+         * Sequenznummer des Requests
+         */
+        final int sequenceNumber;
+
+        /**
+         * Open Loop: Laststufe und geplanter Sendezeitpunkt (System.nanoTime)
+         */
+        final int step;
+        final long intendedTime;
+
+        /**
+         * Empfangszeit (System.nanoTime) und Serverzeit, gültig sobald received gesetzt ist
+         */
+        long receiveTime;
+        long serverTime;
+
+        /**
+         * true, sobald die Response empfangen wurde
+         */
+        volatile boolean received;
+
+        PendingResponse(int sequenceNumber) {
+            this(sequenceNumber, 0, 0);
+        }
+
+        PendingResponse(int sequenceNumber, int step, long intendedTime) {
+            this.sequenceNumber = sequenceNumber;
+            this.step = step;
+            this.intendedTime = intendedTime;
+        }
+    }
+
     /**
      * Parameter für den Benchmarking-Lauf
      */
@@ -129,6 +214,34 @@ public class BenchmarkingClientImpl extends AbstractChatClient
                                   String remoteServerAddress, int numberOfClient, int messageLength,
                                   int numberOfMessages, int clientThinkTime, int numberOfRetries, int responseTimeout,
                                   SharedClientStatistics sharedStatistics) {
+        this(userInterface, benchmarkingGui, implementationType, serverPort, remoteServerAddress, numberOfClient,
+                messageLength, numberOfMessages, clientThinkTime, numberOfRetries, responseTimeout, sharedStatistics,
+                null);
+    }
+
+    /**
+     * Konstruktor für Benchmarking mit optionalem Open-Loop-Sendeplan
+     *
+     * @param userInterface       Schnittstelle zur GUI
+     * @param benchmarkingGui     Schnittstelle zur BenchmarkingGUI
+     * @param implementationType  Typ der Implementierung
+     * @param serverPort          Port des Servers
+     * @param remoteServerAddress HostAdresse des Servers
+     * @param numberOfClient      Anzahl der zu simulierenden Clients
+     * @param messageLength       Länge der Chat-Nachrichten
+     * @param numberOfMessages    Anzahl der Nachrichten pro Client
+     * @param clientThinkTime     Maximale Denkzeit zwischen zwei Chat-Requests (nur Closed Loop)
+     * @param numberOfRetries     Anzahl Wiederholungen bei Nachrichtenverlust
+     * @param responseTimeout     Timeout bei Überwachung der Bestätigungen
+     * @param sharedStatistics    Statistikdaten
+     * @param schedule            Sendeplan für Open-Loop-Messungen, null für Closed Loop
+     */
+    public BenchmarkingClientImpl(ClientUserInterface userInterface,
+                                  BenchmarkingClientUserInterface benchmarkingGui,
+                                  ChatServerImplementationType implementationType, int serverPort,
+                                  String remoteServerAddress, int numberOfClient, int messageLength,
+                                  int numberOfMessages, int clientThinkTime, int numberOfRetries, int responseTimeout,
+                                  SharedClientStatistics sharedStatistics, OpenLoopSchedule schedule) {
 
         super(userInterface, serverPort, remoteServerAddress);
 
@@ -141,6 +254,8 @@ public class BenchmarkingClientImpl extends AbstractChatClient
         this.nrOfRetries = numberOfRetries;
         this.responseTimeout = responseTimeout;
         this.sharedStatistics = sharedStatistics;
+        this.schedule = schedule;
+        sharedStatistics.setEventCounter(clientNumber, sharedClientData.eventCounter);
         startMessageListenerThread();
     }
 
@@ -179,23 +294,36 @@ public class BenchmarkingClientImpl extends AbstractChatClient
      */
     @Override
     public void run() {
+        clientThread = Thread.currentThread();
+        // Thread des Pools nach dem Client benennen, damit seine CPU-Zeit den Client-Threads zugeordnet wird
+        clientThread.setName(threadName);
+        LoginStatistics loginStatistics = sharedStatistics.getLoginStatistics();
 
         try {
+            // Bei einer Login-Rampe bis zum geplanten Login-Zeitpunkt warten
+            if (loginStatistics != null && !loginStatistics.isSerial()
+                    && !awaitPlannedTime(loginStatistics.getPlannedLoginTime(clientNumber))) {
+                recordLoginFailed(loginStatistics);
+                return;
+            }
+
             // Login ausführen und warten, bis Server bestätigt
             // eindeutigen Login-Namen generieren
             String userName = threadName.concat(UUID.randomUUID().toString());
+            loginRequestTime = System.nanoTime();
             this.login(userName);
 
-            while (sharedClientData.status != ClientConversationStatus.REGISTERED) {
-
-                Thread.sleep(1);
-                if (sharedClientData.status == ClientConversationStatus.UNREGISTERED) {
-                    // Fehlermeldung vom Server beim Login-Vorgang
-                    log.debug("User " + userName + " schon im Server angemeldet");
-                    return;
-                }
+            if (awaitStatusChange(ClientConversationStatus.REGISTERING) != ClientConversationStatus.REGISTERED) {
+                // Fehlermeldung vom Server beim Login-Vorgang oder Test abgebrochen
+                log.debug("User " + userName + " schon im Server angemeldet");
+                recordLoginFailed(loginStatistics);
+                return;
             }
 
+            if (loginStatistics != null) {
+                loginStatistics.recordLogin(clientNumber, loginRequestTime, loginResponseTime, loginFanOut);
+                loginRecorded = true;
+            }
             sharedStatistics.increaseNumberOfLoggedInClients();
 
             log.debug("User " + userName + " beim Server angemeldet");
@@ -204,21 +332,25 @@ public class BenchmarkingClientImpl extends AbstractChatClient
             waitForLoggedInClients();
 
             // Alle Chat-Nachrichten senden
-            int i = 0;
-            while ((i < numberOfMessagesToSend) && (!userInterface.isTestAborted())) {
-
-                sendMessageAndWaitForAck(i);
-                try {
-                    // Zufällige Zeit, aber maximal die angegebene Denkzeit
-                    // warten
-                    int randomThinkTime = (int) (Math.random() * clientThinkTime) + 1;
-                    Thread.sleep(randomThinkTime);
-                } catch (Exception e) {
-                    ExceptionHandler.logException(e);
+            if (schedule != null) {
+                sendMessagesOpenLoop();
+            } else {
+                int i = 0;
+                while ((i < numberOfMessagesToSend) && (!userInterface.isTestAborted())) {
+
+                    sendMessageAndWaitForAck(i);
+                    try {
+                        // Zufällige Zeit, aber maximal die angegebene Denkzeit
+                        // warten
+                        int randomThinkTime = (int) (Math.random() * clientThinkTime) + 1;
+                        Thread.sleep(randomThinkTime);
+                    } catch (Exception e) {
+                        ExceptionHandler.logException(e);
+                    }
+
+                    i++;
+                    log.debug("Gesendete Chat-Nachrichten von " + userName + ": " + i);
                 }
-
-                i++;
-                log.debug("Gesendete Chat-Nachrichten von " + userName + ": " + i);
             }
 
             // Warten, bis alle Clients bereit zum Ausloggen sind (alle Clients
@@ -227,9 +359,7 @@ public class BenchmarkingClientImpl extends AbstractChatClient
 
             // Logout ausführen und warten, bis Server bestätigt
             this.logout(threadName);
-            while (sharedClientData.status != ClientConversationStatus.UNREGISTERED) {
-                Thread.sleep(1);
-            }
+            awaitStatusChange(ClientConversationStatus.UNREGISTERING);
 
             sharedStatistics.increaseNumberOfLoggedOutClients();
 
@@ -254,24 +384,49 @@ public class BenchmarkingClientImpl extends AbstractChatClient
 
         } catch (Exception e) {
             ExceptionHandler.logException(e);
+            recordLoginFailed(loginStatistics);
         }
     }
 
+    /**
+     * Fehlgeschlagenen Login in der Statistik erfassen, falls der Login noch nicht erfasst ist
+     *
+     * @param loginStatistics Statistik der Login-Phase, null wenn nicht gesetzt
+     */
+    private void recordLoginFailed(LoginStatistics loginStatistics) {
+        if (loginStatistics == null || loginRecorded) return;
+        loginRecorded = true;
+        loginStatistics.recordLoginFailed(clientNumber);
+    }
+
+    /**
+     * Warten, bis der Listener-Thread den Status des Clients ändert (Login- bzw. Logout-Response)
+     *
+     * @param transientStatus Status während des Wartens (REGISTERING bzw. UNREGISTERING)
+     * @return neuer Status, bei Testabbruch der aktuelle Status
+     */
+    private ClientConversationStatus awaitStatusChange(ClientConversationStatus transientStatus) {
+        ClientConversationStatus status;
+        while ((status = sharedClientData.status) == transientStatus && !userInterface.isTestAborted()) {
+            LockSupport.parkNanos(this, WAIT_SLICE_NANOS);
+        }
+        return status;
+    }
+
     /**
      * Warten, bis Server eine Chat-Response als Antwort auf den letzten Chat-Request gesendet hat
      * (nur für Benchmarking)
+     *
+     * @param pending erwartete Chat-Response
+     * @return true, wenn die Response empfangen wurde, false bei Testabbruch
      */
-    private void waitUntilChatResponseReceived() {
-        setLock(true);
-        try {
-            while (getLock()) {
-                log.debug(userName + " wartet auf Chat-Message-Response-PDU");
-                Thread.sleep(1);
-                // Durch den Sleep wird die RTT beim Benchmark ein wenig verfälscht
-            }
-        } catch (Exception e) {
-            ExceptionHandler.logException(e);
+    private boolean awaitChatResponse(PendingResponse pending) {
+        while (!pending.received) {
+            if (userInterface.isTestAborted()) return false;
+            log.debug(userName + " wartet auf Chat-Message-Response-PDU");
+            LockSupport.parkNanos(this, WAIT_SLICE_NANOS);
         }
+        return true;
     }
 
     /**
@@ -289,23 +444,87 @@ public class BenchmarkingClientImpl extends AbstractChatClient
 
             sharedStatistics.increaseSentMsgCounter(clientNumber);
 
+            // Erwartete Response vor dem Senden eintragen, tell vergibt die nächste Sequenznummer
+            PendingResponse pending = new PendingResponse(sharedClientData.messageCounter.get() + 1);
+            pendingResponse.set(pending);
+
             // RTT-Startzeit ermitteln
             long rttStartTime = System.nanoTime();
             tell(userName, chatMessage.toString());
 
             // Warten, bis Chat-Response empfangen wurde, dann erst nächsten
             // Chat Request senden
-            waitUntilChatResponseReceived();
+            boolean received = awaitChatResponse(pending);
+            pendingResponse.compareAndSet(pending, null);
 
-            // Response in Statistik aufnehmen
-            long rtt = System.nanoTime() - rttStartTime;
-            postReceive(i, getLastServerTime(), rtt);
+            // Response mit der Empfangszeit des Listener-Threads in Statistik aufnehmen
+            if (received) postReceive(i, pending.serverTime, pending.receiveTime - rttStartTime);
 
         } catch (Exception e) {
             ExceptionHandler.logException(e);
         }
     }
 
+    /**
+     * Open Loop: Alle Chat-Nachrichten zu den geplanten Zeitpunkten senden, ohne auf die Responses zu warten. Ist der
+     * Client im Verzug, wird sofort gesendet, die Verspätung geht in die RTT ein. Am Ende wird auf die offenen
+     * Responses gewartet, bis responseTimeout lang keine mehr gekommen ist.
+     */
+    private void sendMessagesOpenLoop() {
+        OpenLoopStatistics openLoopStatistics = sharedStatistics.getOpenLoopStatistics();
+        long startTime = openLoopStatistics.getStartTime();
+        String chatMessage = "+".repeat(Math.max(0, messageLength));
+
+        for (int i = 0; i < numberOfMessagesToSend; i++) {
+            long intendedTime = startTime + schedule.nextSendOffset();
+            int step = schedule.getStep();
+            if (!awaitPlannedTime(intendedTime)) break;
+
+            sharedStatistics.increaseSentMsgCounter(clientNumber);
+
+            // Erwartete Response vor dem Senden eintragen, tell vergibt die nächste Sequenznummer
+            int sequenceNumber = sharedClientData.messageCounter.get() + 1;
+            outstandingResponses.put(sequenceNumber, new PendingResponse(sequenceNumber, step, intendedTime));
+            long sendTime = System.nanoTime();
+            try {
+                tell(userName, chatMessage);
+            } catch (Exception e) {
+                outstandingResponses.remove(sequenceNumber);
+                ExceptionHandler.logException(e);
+                break;
+            }
+            openLoopStatistics.recordSend(step, intendedTime, sendTime);
+        }
+
+        // Auf offene Responses warten, solange noch welche ankommen
+        lastResponseTime = System.nanoTime();
+        long timeout = responseTimeout * 1000000L;
+        while (!outstandingResponses.isEmpty() && !userInterface.isTestAborted()) {
+            long remaining = lastResponseTime + timeout - System.nanoTime();
+            if (remaining <= 0) break;
+            LockSupport.parkNanos(this, Math.min(remaining, WAIT_SLICE_NANOS));
+        }
+        if (!outstandingResponses.isEmpty()) {
+            log.debug(threadName + ": " + outstandingResponses.size() + " Chat-Responses nicht empfangen");
+            outstandingResponses.clear();
+        }
+    }
+
+    /**
+     * Warten bis zu einem geplanten Zeitpunkt (Login-Rampe, Open-Loop-Sendeplan)
+     *
+     * @param intendedTime geplanter Zeitpunkt (System.nanoTime)
+     * @return true, wenn es weitergehen soll, false bei Testabbruch
+     */
+    private boolean awaitPlannedTime(long intendedTime) {
+        long remaining;
+        while ((remaining = intendedTime - System.nanoTime()) > 0) {
+            if (userInterface.isTestAborted()) return false;
+            LockSupport.parkNanos(this, Math.min(remaining, WAIT_SLICE_NANOS));
+        }
+        return !userInterface.isTestAborted();
+    }
+
     /**
      * Synchronisation mit allen anderen Client-Threads: Warten, bis alle Clients angemeldet sind und dann erst mit der
      * Lasterzeugung beginnen
@@ -383,18 +602,66 @@ public class BenchmarkingClientImpl extends AbstractChatClient
     }
 
     @Override
-    // Wird nicht genutzt, nur für ClientGui relevant
+    // Login fehlgeschlagen, wartenden Client-Thread wecken
     public void setErrorMessage(String sender, String errorMessage, long errorCode) {
+        LockSupport.unpark(clientThread);
     }
 
     @Override
-    // Wird nicht genutzt, nur für BenchmarkingClientCoordinator relevant
     public void loginComplete() {
+        // Empfangszeit sofort nehmen, damit die Login-Latenz keine Aufweckzeit des Client-Threads enthält
+        loginResponseTime = System.nanoTime();
+        LockSupport.unpark(clientThread);
+    }
+
+    @Override
+    public void loginEventReceived(String eventUserName, Vector<String> clients) {
+        // Fan-out des eigenen Logins merken, das Event kommt vor der Login-Response
+        if (clients != null && eventUserName != null && eventUserName.equals(userName)) {
+            loginFanOut = clients.size();
+        }
     }
 
     @Override
-    // Wird nicht genutzt, nur für BenchmarkingClientCoordinator relevant
     public void logoutComplete() {
+        LockSupport.unpark(clientThread);
+    }
+
+    @Override
+    public void chatMessageResponseReceived(int sequenceNumber, long serverTime) {
+        // Empfangszeit sofort nehmen, damit die RTT keine Aufweckzeit des Client-Threads enthält
+        long receiveTime = System.nanoTime();
+        setLastServerTime(serverTime);
+
+        if (schedule != null) {
+            // Open Loop: RTT ab dem geplanten Sendezeitpunkt, wird direkt im Listener-Thread erfasst
+            PendingResponse outstanding = outstandingResponses.remove(sequenceNumber);
+            if (outstanding == null) {
+                log.debug("Keine Chat-Response mit Sequenznummer " + sequenceNumber + " erwartet");
+                return;
+            }
+            lastResponseTime = receiveTime;
+            sharedStatistics.getOpenLoopStatistics().recordResponse(outstanding.step, outstanding.intendedTime,
+                    receiveTime);
+            postReceive(sequenceNumber - 1, serverTime, receiveTime - outstanding.intendedTime);
+            if (outstandingResponses.isEmpty()) LockSupport.unpark(clientThread);
+            return;
+        }
+
+        PendingResponse pending = pendingResponse.get();
+        if (pending == null || pending.sequenceNumber != sequenceNumber) {
+            log.debug("Keine Chat-Response mit Sequenznummer " + sequenceNumber + " erwartet");
+            return;
+        }
+        pending.receiveTime = receiveTime;
+        pending.serverTime = serverTime;
+        pending.received = true;
+        LockSupport.unpark(clientThread);
+    }
+
+    @Override
+    public boolean allowsOutstandingRequests() {
+        return schedule != null;
     }
 
     @Override
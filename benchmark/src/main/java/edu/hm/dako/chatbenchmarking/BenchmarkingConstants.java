@@ -11,6 +11,11 @@ public class BenchmarkingConstants {
      */
     public static final int MAX_CLIENTS = 300;
 
+    /**
+     * Maximale Anzahl an simulierten Clients, wenn die Clients auf Event-Loops ausgeführt werden
+     */
+    public static final int MAX_CLIENTS_EVENT_LOOPS = 20000;
+
     /**
      * Maximale Anzahl an Nachrichten, die ein Client versenden darf
      */
@@ -38,6 +38,11 @@ public class BenchmarkingStarter {
      */
     private static boolean GUI = true;
 
+    /**
+     * Szenario-Datei, die ohne GUI abgearbeitet wird, null für einen einzelnen Test
+     */
+    private String scenarioFile;
+
     /**
      * starts the benchmarking server
      *
@@ -47,12 +52,26 @@ public class BenchmarkingStarter {
      *             --num-clients=1 (default)
      *             --num-messages=10 (default)
      *             --max-retries=1 (default)
-     *             --measurement=var-threads | var-length (default)
+     *             --measurement=var-threads (default) | var-length | open-loop | open-loop-ramp
      *             --message-length=10 (default)
      *             --response-timeout=2000 (default)
      *             --think-time=100 (default)
      *             --port=50001 (default)
      *             --host=localhost (default)
+     *             --rate=100 (default, open loop: messages per second of all clients, target rate of the ramp)
+     *             --arrivals=poisson (default) | fixed
+     *             --ramp-steps=5 (default)
+     *             --event-loops=0 (default: two threads per client, else number of event loops for all clients)
+     *             --login-ramp=serial (default) | all | rate | staged
+     *             --login-rate=100 (default, login ramp "rate": logins per second)
+     *             --login-stage-size=100 (default, login ramp "staged": clients per stage)
+     *             --login-stage-pause=1000 (default, login ramp "staged": pause between stages in ms)
+     *             --rtt-precision=2 (default, significant decimal digits of the RTT histograms, 1 to 4,
+     *             at most 3 without event loops)
+     *             --time-series=<file> (default: none, per-interval results while running, .json/.jsonl or CSV)
+     *             --time-series-interval=1000 (default, interval of the time series in ms)
+     *             --server-metrics=<url> (default: none, /metrics/json endpoint of the server for its CPU and GC time)
+     *             --scenario=<file> (default: none, runs all runs of the scenario file without GUI and exits)
      */
     public static void main(String[] args) {
         // Log4j2-Logging aus Datei konfigurieren
@@ -93,12 +112,26 @@ public class BenchmarkingStarter {
      *             --num-clients=1 (default)
      *             --num-messages=10 (default)
      *             --max-retries=1 (default)
-     *             --measurement=var-threads | var-length (default)
+     *             --measurement=var-threads (default) | var-length | open-loop | open-loop-ramp
      *             --message-length=10 (default)
      *             --response-timeout=2000 (default)
      *             --think-time=100 (default)
      *             --port=50001 (default)
      *             --host=localhost (default)
+     *             --rate=100 (default, open loop: messages per second of all clients, target rate of the ramp)
+     *             --arrivals=poisson (default) | fixed
+     *             --ramp-steps=5 (default)
+     *             --event-loops=0 (default: two threads per client, else number of event loops for all clients)
+     *             --login-ramp=serial (default) | all | rate | staged
+     *             --login-rate=100 (default, login ramp "rate": logins per second)
+     *             --login-stage-size=100 (default, login ramp "staged": clients per stage)
+     *             --login-stage-pause=1000 (default, login ramp "staged": pause between stages in ms)
+     *             --rtt-precision=2 (default, significant decimal digits of the RTT histograms, 1 to 4,
+     *             at most 3 without event loops)
+     *             --time-series=<file> (default: none, per-interval results while running, .json/.jsonl or CSV)
+     *             --time-series-interval=1000 (default, interval of the time series in ms)
+     *             --server-metrics=<url> (default: none, /metrics/json endpoint of the server for its CPU and GC time)
+     *             --scenario=<file> (default: none, runs all runs of the scenario file without GUI and exits)
      */
     public BenchmarkingStarter(String[] args) {
         UserInterfaceInputParameters iParams = new UserInterfaceInputParameters();
@@ -128,10 +161,64 @@ public class BenchmarkingStarter {
                     startable = validation.getY();
                 }
                 case "--measurement" -> {
-                    if ("var-length".equals(values[1])) {
-                        iParams.setMeasurementType(UserInterfaceInputParameters.MeasurementType.VarMsgLength);
+                    switch (values[1]) {
+                        case "var-length" -> iParams.setMeasurementType(
+                                UserInterfaceInputParameters.MeasurementType.VarMsgLength);
+                        case "open-loop" -> iParams.setMeasurementType(
+                                UserInterfaceInputParameters.MeasurementType.OpenLoop);
+                        case "open-loop-ramp" -> iParams.setMeasurementType(
+                                UserInterfaceInputParameters.MeasurementType.OpenLoopRamp);
+                    }
+                }
+                case "--rate" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setTargetRate(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--arrivals" -> iParams.setPoissonArrivals(!"fixed".equals(values[1]));
+                case "--ramp-steps" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setRampSteps(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--event-loops" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setNumberOfEventLoops(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--login-ramp" -> {
+                    switch (values[1]) {
+                        case "all" -> iParams.setLoginRamp(UserInterfaceInputParameters.LoginRampType.AllAtOnce);
+                        case "rate" -> iParams.setLoginRamp(UserInterfaceInputParameters.LoginRampType.FixedRate);
+                        case "staged" -> iParams.setLoginRamp(UserInterfaceInputParameters.LoginRampType.Staged);
                     }
                 }
+                case "--login-rate" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setLoginRate(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--login-stage-size" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setLoginStageSize(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--login-stage-pause" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setLoginStagePause(validation.getX());
+                    startable = validation.getY();
+                }
+                case "--rtt-precision" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setRttPrecision(validation.getX());
+                    startable = validation.getY() && validation.getX() <= 4;
+                }
+                case "--time-series" -> iParams.setTimeSeriesFile(values[1]);
+                case "--time-series-interval" -> {
+                    Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
+                    iParams.setTimeSeriesInterval(validation.getX());
+                    startable = validation.getY();
+                }
                 case "--message-length" -> {
                     Tupel<Integer, Boolean> validation = isPositiveNumber(values[1]);
                     iParams.setMessageLength(validation.getX());
@@ -152,11 +239,18 @@ public class BenchmarkingStarter {
                     iParams.setRemoteServerPort(validation.getX());
                     startable = validation.getY();
                 }
+                case "--server-metrics" -> iParams.setServerMetricsUrl(s.substring(s.indexOf('=') + 1));
                 case "--host" -> iParams.setRemoteServerAddress(values[1]);
+                case "--scenario" -> {
+                    scenarioFile = values[1];
+                    GUI = false;
+                }
             }
         }
 
-        if (GUI) {
+        if (scenarioFile != null) {
+            System.exit(runScenario() ? 0 : 1);
+        } else if (GUI) {
             BenchmarkingClientFxGUI.main(args);
         } else {
             startBenchmarking(iParams);
@@ -168,6 +262,20 @@ public class BenchmarkingStarter {
         benchmarkingClient.executeTest(iParams, null);
     }
 
+    /**
+     * Szenario-Datei abarbeiten
+     *
+     * @return true, wenn alle Läufe Ergebnisse geliefert haben
+     */
+    private boolean runScenario() {
+        try {
+            return new ScenarioRunner(scenarioFile).runAll();
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.error("Szenario " + scenarioFile + " kann nicht ausgeführt werden: " + e.getMessage());
+            return false;
+        }
+    }
+
     private void stopBenchmarking() {
 
     }
@@ -0,0 +1,525 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.chatbenchmarking.gui.BenchmarkingClientUserInterface;
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters;
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.common.ClientConversationStatus;
+import edu.hm.dako.common.ExceptionHandler;
+import edu.hm.dako.common.PDUType;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Simulierter Chat-User der {@link EventLoopClientEngine}: gleicher Ablauf wie {@link BenchmarkingClientImpl}
+ * (Login, Chat-Nachrichten, Logout) und gleiche Statistik, aber ohne eigene Threads. Die Session ist ein
+ * Zustandsautomat, der nur im Thread seiner {@link EventLoop} läuft: Empfangene PDUs, Denkzeiten und Sendezeitpunkte
+ * lösen jeweils den nächsten Schritt aus.
+ *
+ * @author Lerngruppe
+ */
+class ChatSession {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(ChatSession.class);
+
+    /**
+     * Puffergrößen der Verbindung wie beim BenchmarkingClientImpl
+     */
+    private static final int BUFFER_SIZE = 20000;
+
+    /**
+     * Lastgenerator, dem die Session die Fortschritte meldet
+     */
+    private final EventLoopClientEngine engine;
+
+    /**
+     * Event-Loop der Session
+     */
+    private final EventLoop loop;
+
+    /**
+     * Parameter für den Benchmarking-Lauf
+     */
+    private final UserInterfaceInputParameters param;
+    private final int clientNumber;
+    private final String threadName;
+    private final String chatMessage;
+
+    /**
+     * Sendeplan bei Open-Loop-Messungen, null bei Closed-Loop-Messungen
+     */
+    private final OpenLoopSchedule schedule;
+
+    /**
+     * Gemeinsame Daten aller Clients zur Erfassung statistischer Daten
+     */
+    private final SharedClientStatistics sharedStatistics;
+
+    /**
+     * Schnittstelle zur BenchmarkingGui, um den Progressbar zu verändern
+     */
+    private final BenchmarkingClientUserInterface benchmarkingGui;
+
+    /**
+     * Verbindung zum Server
+     */
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ObjectStreamChannel stream;
+
+    /**
+     * Login-Kennung und Zustand des Clients
+     */
+    private String userName;
+    private ClientConversationStatus status = ClientConversationStatus.UNREGISTERED;
+
+    /**
+     * Sequenznummer des zuletzt gesendeten Requests und Anzahl gesendeter Chat-Nachrichten
+     */
+    private int messageCounter = 0;
+    private int sentMessages = 0;
+
+    /**
+     * Anzahl empfangener Events, wird während des Tests für die Zeitreihe gelesen
+     */
+    private final AtomicInteger eventCounter = new AtomicInteger();
+
+    /**
+     * Login-Phase: Zeitpunkt (System.nanoTime) des Login-Requests und Anzahl Empfänger des eigenen Login-Events (-1
+     * solange nicht empfangen)
+     */
+    private long loginRequestTime;
+    private int loginFanOut = -1;
+
+    /**
+     * Closed Loop: Sendezeitpunkt (System.nanoTime) des offenen Requests
+     */
+    private long rttStartTime;
+
+    /**
+     * Open Loop: offene Requests nach Sequenznummer, Start der Lastphase und Zeitpunkt der letzten Response
+     */
+    private final Map<Integer, OutstandingRequest> outstandingRequests = new HashMap<>();
+    private long openLoopStartTime;
+    private long lastResponseTime;
+
+    /**
+     * bereits an den Lastgenerator gemeldete Fortschritte
+     */
+    private boolean loginReported = false;
+    private boolean sendingReported = false;
+    private boolean finished = false;
+
+    /**
+     * Konstruktor
+     *
+     * @param engine           Lastgenerator
+     * @param loop             Event-Loop der Session
+     * @param param            Eingabeparameter
+     * @param clientNumber     Nummer des Clients
+     * @param sharedStatistics Statistikdaten
+     * @param benchmarkingGui  Schnittstelle zur BenchmarkingGUI, null ohne GUI
+     */
+    ChatSession(EventLoopClientEngine engine, EventLoop loop, UserInterfaceInputParameters param, int clientNumber,
+                SharedClientStatistics sharedStatistics, BenchmarkingClientUserInterface benchmarkingGui) {
+        this.engine = engine;
+        this.loop = loop;
+        this.param = param;
+        this.clientNumber = clientNumber;
+        this.sharedStatistics = sharedStatistics;
+        sharedStatistics.setEventCounter(clientNumber, eventCounter);
+        this.benchmarkingGui = benchmarkingGui;
+        this.threadName = "Client-Thread-" + (clientNumber + 1);
+        this.chatMessage = "+".repeat(Math.max(0, param.getMessageLength()));
+        this.schedule = OpenLoopSchedule.create(param, clientNumber);
+    }
+
+    /**
+     * getter
+     *
+     * @return Event-Loop der Session
+     */
+    EventLoop getLoop() {
+        return loop;
+    }
+
+    /**
+     * Verbindung aufbauen und Login senden
+     */
+    void login() {
+        if (finished) return;
+        if (engine.isTestAborted()) {
+            finish();
+            return;
+        }
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, false);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, BUFFER_SIZE);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, BUFFER_SIZE);
+            boolean connected = channel.connect(
+                    new InetSocketAddress(param.getRemoteServerAddress(), param.getRemoteServerPort()));
+            key = channel.register(loop.getSelector(), connected ? 0 : SelectionKey.OP_CONNECT, this);
+            if (connected) onConnected();
+        } catch (IOException e) {
+            connectionLost(e);
+        }
+    }
+
+    /**
+     * Bereitschaft einer Verbindung bearbeiten, wird von der Event-Loop aufgerufen
+     *
+     * @param key Selection-Key der Verbindung
+     */
+    void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) return;
+            if (key.isConnectable()) {
+                if (channel.finishConnect()) onConnected();
+                return;
+            }
+            if (key.isWritable() && stream.flush()) key.interestOps(SelectionKey.OP_READ);
+            if (key.isReadable()) {
+                boolean open = stream.read();
+                Object received;
+                while (!finished && (received = stream.poll()) != null) {
+                    onPdu((ChatPDU) received);
+                }
+                if (!open && !finished) throw new IOException("Verbindung vom Server geschlossen");
+            }
+        } catch (Exception e) {
+            connectionLost(e);
+        }
+    }
+
+    /**
+     * Barriere erreicht, alle Clients sind angemeldet: Chat-Nachrichten senden
+     */
+    void startMessages() {
+        if (finished) return;
+        if (schedule != null) {
+            openLoopStartTime = sharedStatistics.getOpenLoopStatistics().getStartTime();
+            scheduleNextOpenLoopMessage();
+        } else {
+            sendClosedLoopMessage();
+        }
+    }
+
+    /**
+     * Barriere erreicht, alle Clients haben ihre Chat-Nachrichten gesendet: Logout senden
+     */
+    void logout() {
+        if (finished) return;
+        status = ClientConversationStatus.UNREGISTERING;
+        ChatPDU requestPdu = createRequestPdu(PDUType.LOGOUT_REQUEST);
+        send(requestPdu);
+    }
+
+    /**
+     * Session beenden, Verbindung abbauen und noch fehlende Fortschritte an den Lastgenerator melden
+     */
+    void finish() {
+        if (finished) return;
+        finished = true;
+        try {
+            if (key != null) key.cancel();
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            ExceptionHandler.logException(e);
+        }
+        if (!loginReported) {
+            loginReported = true;
+            LoginStatistics loginStatistics = sharedStatistics.getLoginStatistics();
+            if (loginStatistics != null) loginStatistics.recordLoginFailed(clientNumber);
+            engine.loginFinished(this, false);
+        }
+        reportSendingFinished();
+        engine.sessionFinished(this);
+    }
+
+    /**
+     * Verbindung aufgebaut: Objektstrom anlegen und Login-Request senden
+     *
+     * @throws IOException Fehler beim Anlegen des Objektstroms
+     */
+    private void onConnected() throws IOException {
+        stream = new ObjectStreamChannel(channel);
+        key.interestOps(SelectionKey.OP_READ);
+
+        userName = threadName.concat(UUID.randomUUID().toString());
+        status = ClientConversationStatus.REGISTERING;
+        loginRequestTime = System.nanoTime();
+        send(createRequestPdu(PDUType.LOGIN_REQUEST));
+        log.debug("Login-Request-PDU für Client " + userName + " an Server gesendet");
+    }
+
+    /**
+     * Empfangene PDU abhängig vom Zustand bearbeiten, wie im SimpleMessageListenerThreadImpl
+     *
+     * @param receivedPdu empfangene PDU
+     */
+    private void onPdu(ChatPDU receivedPdu) {
+        PDUType type = receivedPdu.getPduType();
+        if (type == PDUType.LOGIN_EVENT || type == PDUType.LOGOUT_EVENT || type == PDUType.CHAT_MESSAGE_EVENT) {
+            // EventZähler für Testzwecke erhöhen
+            if (status != ClientConversationStatus.UNREGISTERED) eventCounter.incrementAndGet();
+
+            // Fan-out des eigenen Logins merken, das Event kommt vor der Login-Response
+            if (type == PDUType.LOGIN_EVENT && receivedPdu.getClients() != null
+                    && userName.equals(receivedPdu.getEventUserName())) {
+                loginFanOut = receivedPdu.getClients().size();
+            }
+            return;
+        }
+
+        switch (status) {
+            case REGISTERING -> {
+                if (type == PDUType.LOGIN_RESPONSE) onLoginResponse(receivedPdu);
+            }
+            case REGISTERED -> {
+                if (type == PDUType.CHAT_MESSAGE_RESPONSE) onChatMessageResponse(receivedPdu);
+            }
+            case UNREGISTERING -> {
+                if (type == PDUType.LOGOUT_RESPONSE) onLogoutResponse();
+            }
+            default -> log.debug("Ankommende PDU im Zustand " + status + " wird verworfen");
+        }
+    }
+
+    /**
+     * Login-Response bearbeiten
+     *
+     * @param receivedPdu empfangene PDU
+     */
+    private void onLoginResponse(ChatPDU receivedPdu) {
+        if (receivedPdu.getErrorCode() == ChatPDU.LOGIN_ERROR) {
+            log.error("Login-Response-PDU für Client " + receivedPdu.getUserName() + " mit Login-Error empfangen");
+            status = ClientConversationStatus.UNREGISTERED;
+            finish();
+            return;
+        }
+        status = ClientConversationStatus.REGISTERED;
+        LoginStatistics loginStatistics = sharedStatistics.getLoginStatistics();
+        if (loginStatistics != null) {
+            loginStatistics.recordLogin(clientNumber, loginRequestTime, System.nanoTime(), loginFanOut);
+        }
+        sharedStatistics.increaseNumberOfLoggedInClients();
+        log.debug("User " + userName + " beim Server angemeldet");
+        loginReported = true;
+        engine.loginFinished(this, true);
+    }
+
+    /**
+     * Closed Loop: nächste Chat-Nachricht senden oder, wenn alle gesendet sind, das Ende melden
+     */
+    private void sendClosedLoopMessage() {
+        if (finished) return;
+        if (sentMessages >= param.getNumberOfMessages() || engine.isTestAborted()) {
+            reportSendingFinished();
+            return;
+        }
+        sharedStatistics.increaseSentMsgCounter(clientNumber);
+        rttStartTime = System.nanoTime();
+        sendChatMessage();
+    }
+
+    /**
+     * Open Loop: nächste Chat-Nachricht zum geplanten Zeitpunkt senden, nach der letzten auf offene Responses warten
+     */
+    private void scheduleNextOpenLoopMessage() {
+        if (sentMessages >= param.getNumberOfMessages()) {
+            lastResponseTime = System.nanoTime();
+            checkOutstandingRequests();
+            return;
+        }
+        long intendedTime = openLoopStartTime + schedule.nextSendOffset();
+        int step = schedule.getStep();
+        loop.schedule(intendedTime, () -> sendOpenLoopMessage(step, intendedTime));
+    }
+
+    /**
+     * Open Loop: Chat-Nachricht senden, ohne auf die Response zu warten
+     *
+     * @param step         Laststufe
+     * @param intendedTime geplanter Sendezeitpunkt (System.nanoTime)
+     */
+    private void sendOpenLoopMessage(int step, long intendedTime) {
+        if (finished) return;
+        if (engine.isTestAborted()) {
+            reportSendingFinished();
+            return;
+        }
+        sharedStatistics.increaseSentMsgCounter(clientNumber);
+        outstandingRequests.put(messageCounter + 1, new OutstandingRequest(step, intendedTime));
+        long sendTime = System.nanoTime();
+        sendChatMessage();
+        sharedStatistics.getOpenLoopStatistics().recordSend(step, intendedTime, sendTime);
+        scheduleNextOpenLoopMessage();
+    }
+
+    /**
+     * Open Loop: Ende melden, sobald alle Responses da sind oder responseTimeout lang keine mehr gekommen ist
+     */
+    private void checkOutstandingRequests() {
+        if (finished || sendingReported) return;
+        long timeout = param.getResponseTimeout() * 1000000L;
+        if (!outstandingRequests.isEmpty() && System.nanoTime() - lastResponseTime < timeout
+                && !engine.isTestAborted()) {
+            loop.schedule(lastResponseTime + timeout, this::checkOutstandingRequests);
+            return;
+        }
+        if (!outstandingRequests.isEmpty()) {
+            log.debug(threadName + ": " + outstandingRequests.size() + " Chat-Responses nicht empfangen");
+            outstandingRequests.clear();
+        }
+        reportSendingFinished();
+    }
+
+    /**
+     * Chat-Message-Request mit der nächsten Sequenznummer senden
+     */
+    private void sendChatMessage() {
+        ChatPDU requestPdu = createRequestPdu(PDUType.CHAT_MESSAGE_REQUEST);
+        requestPdu.setMessage(chatMessage);
+        requestPdu.setSequenceNumber(++messageCounter);
+        sentMessages++;
+        send(requestPdu);
+    }
+
+    /**
+     * Chat-Response bearbeiten
+     *
+     * @param receivedPdu empfangene PDU
+     */
+    private void onChatMessageResponse(ChatPDU receivedPdu) {
+        long receiveTime = System.nanoTime();
+        int sequenceNumber = (int) receivedPdu.getSequenceNumber();
+
+        if (schedule != null) {
+            // Open Loop: RTT ab dem geplanten Sendezeitpunkt
+            OutstandingRequest request = outstandingRequests.remove(sequenceNumber);
+            if (request == null) return;
+            lastResponseTime = receiveTime;
+            sharedStatistics.getOpenLoopStatistics().recordResponse(request.step(), request.intendedTime(),
+                    receiveTime);
+            postReceive(sequenceNumber, receivedPdu.getServerTime(), receiveTime - request.intendedTime());
+            if (sentMessages >= param.getNumberOfMessages() && outstandingRequests.isEmpty()) {
+                reportSendingFinished();
+            }
+            return;
+        }
+
+        if (sequenceNumber != messageCounter) {
+            log.debug("Sequenznummer der Chat-Response-PDU " + userName + " passt nicht: " + sequenceNumber + "/"
+                    + messageCounter);
+            return;
+        }
+        postReceive(sequenceNumber, receivedPdu.getServerTime(), receiveTime - rttStartTime);
+
+        // Zufällige Zeit, aber maximal die angegebene Denkzeit warten
+        int randomThinkTime = (int) (Math.random() * param.getClientThinkTime()) + 1;
+        loop.schedule(receiveTime + randomThinkTime * 1000000L, this::sendClosedLoopMessage);
+    }
+
+    /**
+     * Logout-Response bearbeiten: Statistik eintragen und Verbindung abbauen
+     */
+    private void onLogoutResponse() {
+        status = ClientConversationStatus.UNREGISTERED;
+        sharedStatistics.increaseNumberOfLoggedOutClients();
+
+        // Zähler für Statistik eintragen, der Simple-Server erwartet keine Confirms
+        sharedStatistics.setNumberOfSentEventMessages(clientNumber, eventCounter.get());
+        sharedStatistics.setNumberOfReceivedConfirmEvents(clientNumber, 0);
+        sharedStatistics.setNumberOfLostConfirmEvents(clientNumber, 0);
+        sharedStatistics.setNumberOfRetriedEvents(clientNumber, 0);
+        log.debug("User " + userName + " beim Server abgemeldet");
+        finish();
+    }
+
+    /**
+     * Nacharbeit nach Empfang einer Chat-Response
+     *
+     * @param sequenceNumber Sequenznummer des Requests
+     * @param serverTime     Zeit, die der Server für die Bearbeitung des Chat-Message-Requests benötigt
+     * @param rtt            Round Trip Time für den Request
+     */
+    private void postReceive(int sequenceNumber, long serverTime, long rtt) {
+        sharedStatistics.increaseReceivedMsgCounter(clientNumber, rtt, serverTime);
+        if (benchmarkingGui != null) benchmarkingGui.countUpProgressTask();
+        if (rtt <= serverTime) {
+            // Test, ob Messung plausibel ist, rtt muss größer als serverTime sein
+            log.error(threadName + ": RTT für Request " + sequenceNumber + ": " + rtt + " ns = " + (rtt / 1000000)
+                    + " ms,  benötigte Serverzeit: " + serverTime + " ns = " + (serverTime / 1000000) + " ms");
+        }
+    }
+
+    /**
+     * Ende des Sendens einmalig an den Lastgenerator melden
+     */
+    private void reportSendingFinished() {
+        if (sendingReported) return;
+        sendingReported = true;
+        engine.sendingFinished(this);
+    }
+
+    /**
+     * Request-PDU mit den gemeinsamen Feldern erzeugen
+     *
+     * @param type PDU-Typ
+     * @return PDU
+     */
+    private ChatPDU createRequestPdu(PDUType type) {
+        ChatPDU requestPdu = new ChatPDU();
+        requestPdu.setPduType(type);
+        requestPdu.setClientStatus(status);
+        requestPdu.setClientThreadName(threadName);
+        requestPdu.setUserName(userName);
+        return requestPdu;
+    }
+
+    /**
+     * PDU senden, Daten, die nicht sofort geschrieben werden können, werden bei OP_WRITE nachgeschrieben
+     *
+     * @param pdu PDU
+     */
+    private void send(ChatPDU pdu) {
+        try {
+            if (!stream.send(pdu)) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            connectionLost(e);
+        }
+    }
+
+    /**
+     * Verbindung unerwartet verloren: Session beenden
+     *
+     * @param e Ursache
+     */
+    private void connectionLost(Exception e) {
+        if (finished) return;
+        log.error(threadName + ": Verbindung zum Server verloren: " + e);
+        finish();
+    }
+
+    /**
+     * Open Loop: offener Request
+     *
+     * @param step         Laststufe
+     * @param intendedTime geplanter Sendezeitpunkt (System.nanoTime)
+     */
+    private record OutstandingRequest(int step, long intendedTime) {
+    }
+}
@@ -1,25 +1,97 @@
 package edu.hm.dako.chatbenchmarking;
 
 import com.sun.management.OperatingSystemMXBean;
+import com.sun.management.ThreadMXBean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Ermitteln der durchschnittlich verbrauchten CPU-Zeit eines Prozesses
+ * Ermitteln der durchschnittlich verbrauchten CPU-Zeit eines Prozesses<br/>
+ * Zwischen {@link #start()} und {@link #stop()} misst ein Thread zusätzlich die CPU-Auslastung des ganzen Rechners und
+ * die CPU-Zeit jedes Threads, getrennt nach Listener-Threads (Message-Listener und Event-Loops), Client-Threads und
+ * sonstigen Threads. Dazu kommen GC-Zeit und Allokationsrate. Daraus wird abgeleitet, ob der Lastgenerator selbst der
+ * Engpass war und die Messung damit nichts über den Server aussagt.
  *
  * @author Peter Mandl, edited by Lerngruppe
  */
 public class CpuUtilisationWatch {
+    private static final Logger log = LogManager.getLogger(CpuUtilisationWatch.class);
+
     /**
      * platform specific os management interface
      */
     private static final OperatingSystemMXBean osBean =
             (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
 
+    /**
+     * platform specific thread management interface
+     */
+    private static final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
     /**
      * number of available processors
      */
     private static final int nCPUs = osBean.getAvailableProcessors();
 
+    /**
+     * Abstand zwischen zwei Messungen des Sampler-Threads in ms
+     */
+    private static final int SAMPLE_INTERVAL_IN_MILLIS = 500;
+
+    /**
+     * Grenzen, ab denen der Lastgenerator als Engpass gilt: CPU des Prozesses über alle Kerne, CPU des am stärksten
+     * ausgelasteten Listener- oder Client-Threads, Anteil der GC-Zeit an der Laufzeit und CPU des ganzen Rechners
+     */
+    static final double PROCESS_CPU_LIMIT = 0.9;
+    static final double THREAD_CPU_LIMIT = 0.9;
+    static final double GC_TIME_LIMIT = 0.1;
+    static final double SYSTEM_CPU_LIMIT = 0.95;
+
+    /**
+     * Threads, die kürzer beobachtet wurden, zählen nicht für den am stärksten ausgelasteten Thread
+     */
+    private static final long MIN_OBSERVED_THREAD_TIME = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Gruppen von Threads des Lastgenerators
+     */
+    public enum ThreadCategory {
+        /**
+         * Message-Listener-Threads und Event-Loops, empfangen Responses und Events
+         */
+        LISTENER,
+        /**
+         * Client-Threads, senden Requests
+         */
+        CLIENT,
+        /**
+         * alle anderen Threads, z.B. JVM-, GUI- und Sampler-Threads
+         */
+        OTHER;
+
+        /**
+         * Gruppe eines Threads anhand seines Namens
+         *
+         * @param threadName Name des Threads
+         * @return Gruppe
+         */
+        static ThreadCategory of(String threadName) {
+            if (threadName.startsWith("Listener-") || threadName.startsWith("MessageListener-Thread")
+                    || threadName.startsWith("Benchmarking-EventLoop")) {
+                return LISTENER;
+            }
+            if (threadName.startsWith("Client-Thread")) return CLIENT;
+            return OTHER;
+        }
+    }
+
     /**
      * start time
      */
@@ -30,11 +102,80 @@ public class CpuUtilisationWatch {
      */
     private final Long startCpuTime = osBean.getProcessCpuTime();
 
+    /**
+     * wall clock and processor time at the last interval
+     */
+    private long intervalWallClockTime;
+    private long intervalCpuTime;
+
+    /**
+     * GC-Zeit in ms beim Start
+     */
+    private final long startGcTime = getGcTime();
+
+    /**
+     * Werte beim Stoppen, bis dahin -1
+     */
+    private volatile long stopWallClockTime = -1;
+    private volatile long stopGcTime = -1;
+
+    /**
+     * Summe und Anzahl der Messungen der System-CPU, nur vom Sampler geschrieben
+     */
+    private volatile double systemCpuSum;
+    private volatile int systemCpuSamples;
+
+    /**
+     * beobachtete Threads nach Thread-Id, nur im Sampler verwendet
+     */
+    private final Map<Long, ThreadSample> threads = new HashMap<>();
+
+    /**
+     * Ergebnis der Thread-Messung, wird beim Stoppen gesetzt
+     */
+    private final long[] threadCpuTimes = new long[ThreadCategory.values().length];
+    private volatile long allocatedBytes = -1;
+    private volatile String busiestThreadName;
+    private volatile double busiestThreadUtilisation;
+
+    /**
+     * Sampler-Thread, null wenn nicht gestartet
+     */
+    private Sampler sampler;
+
     /**
      * Konstruktor
      */
     public CpuUtilisationWatch() {
         startWallClockTime = System.nanoTime();
+        intervalWallClockTime = startWallClockTime;
+        intervalCpuTime = startCpuTime;
+    }
+
+    /**
+     * Sampler-Thread für System-CPU, CPU-Zeit und Allokation pro Thread starten
+     */
+    public synchronized void start() {
+        if (sampler != null) return;
+        if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+        if (threadBean.isThreadAllocatedMemorySupported() && !threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        sampler = new Sampler();
+        sampler.start();
+    }
+
+    /**
+     * Sampler-Thread beenden und Endwerte für GC-Zeit und Threads festhalten
+     */
+    public synchronized void stop() {
+        if (stopWallClockTime >= 0) return;
+        if (sampler != null) sampler.stopThread();
+        stopGcTime = getGcTime();
+        stopWallClockTime = System.nanoTime();
+        evaluateThreads();
     }
 
     /**
@@ -49,4 +190,299 @@ public class CpuUtilisationWatch {
 
         return (cpuTimeDelta / (float) nCPUs) / wallClockTimeDelta;
     }
-}
\ No newline at end of file
+
+    /**
+     * average CPU utilisation since the last call (or the start)
+     *
+     * @return average CPU utilisation of the interval
+     */
+    public synchronized float getIntervalCpuUtilisation() {
+        long wallClockTime = System.nanoTime();
+        long cpuTime = osBean.getProcessCpuTime();
+        float wallClockTimeDelta = Math.max(wallClockTime - intervalWallClockTime, 1);
+        float cpuTimeDelta = Math.max(cpuTime - intervalCpuTime, 0);
+        intervalWallClockTime = wallClockTime;
+        intervalCpuTime = cpuTime;
+
+        return (cpuTimeDelta / (float) nCPUs) / wallClockTimeDelta;
+    }
+
+    /**
+     * getter
+     *
+     * @return durchschnittliche CPU-Auslastung des ganzen Rechners (0 bis 1), NaN wenn nicht messbar
+     */
+    public double getAverageSystemCpuUtilisation() {
+        int samples = systemCpuSamples;
+        return samples == 0 ? Double.NaN : systemCpuSum / samples;
+    }
+
+    /**
+     * getter, erst nach {@link #stop()} vollständig
+     *
+     * @param group Gruppe von Threads
+     * @return CPU-Zeit aller Threads der Gruppe in ns
+     */
+    public synchronized long getThreadCpuTime(ThreadCategory group) {
+        return threadCpuTimes[group.ordinal()];
+    }
+
+    /**
+     * getter, erst nach {@link #stop()} gesetzt
+     *
+     * @return Name des am stärksten ausgelasteten Listener- oder Client-Threads, null wenn keiner lange genug lief
+     */
+    public String getBusiestThreadName() {
+        return busiestThreadName;
+    }
+
+    /**
+     * getter, erst nach {@link #stop()} gesetzt
+     *
+     * @return CPU-Auslastung des am stärksten ausgelasteten Listener- oder Client-Threads bezogen auf einen Kern
+     */
+    public double getBusiestThreadUtilisation() {
+        return busiestThreadUtilisation;
+    }
+
+    /**
+     * getter
+     *
+     * @return GC-Zeit aller Collectors seit dem Start bis zum Stoppen (bzw. bis jetzt) in ms
+     */
+    public long getGcTimeMillis() {
+        long gcTime = stopGcTime >= 0 ? stopGcTime : getGcTime();
+        return gcTime - startGcTime;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anteil der GC-Zeit an der Laufzeit (0 bis 1)
+     */
+    public double getGcTimeShare() {
+        return getGcTimeMillis() / (double) Math.max(TimeUnit.NANOSECONDS.toMillis(getElapsedTime()), 1);
+    }
+
+    /**
+     * getter, erst nach {@link #stop()} gesetzt
+     *
+     * @return Allokationsrate aller Threads in Bytes pro Sekunde, NaN wenn nicht messbar
+     */
+    public double getAllocationRate() {
+        if (allocatedBytes < 0) return Double.NaN;
+        return allocatedBytes / (Math.max(getElapsedTime(), 1) / 1_000_000_000.0);
+    }
+
+    /**
+     * Prüft, ob der Lastgenerator selbst der Engpass war
+     *
+     * @param processCpuUtilisation durchschnittliche CPU-Auslastung des Prozesses (0 bis 1)
+     * @return Grund, warum die Messung ungültig ist, null wenn der Lastgenerator nicht der Engpass war
+     */
+    public String getGeneratorBottleneck(double processCpuUtilisation) {
+        if (processCpuUtilisation >= PROCESS_CPU_LIMIT) {
+            return String.format(Locale.ROOT, "Lastgenerator nutzt %.0f %% aller Kerne",
+                    processCpuUtilisation * 100);
+        }
+        if (busiestThreadName != null && busiestThreadUtilisation >= THREAD_CPU_LIMIT) {
+            return String.format(Locale.ROOT, "Thread %s lastet einen Kern zu %.0f %% aus", busiestThreadName,
+                    busiestThreadUtilisation * 100);
+        }
+        if (getGcTimeShare() >= GC_TIME_LIMIT) {
+            return String.format(Locale.ROOT, "Lastgenerator verbringt %.0f %% der Laufzeit mit GC",
+                    getGcTimeShare() * 100);
+        }
+        if (getAverageSystemCpuUtilisation() >= SYSTEM_CPU_LIMIT) {
+            return String.format(Locale.ROOT, "Rechner des Lastgenerators zu %.0f %% ausgelastet",
+                    getAverageSystemCpuUtilisation() * 100);
+        }
+        return null;
+    }
+
+    /**
+     * Ressourcenverbrauch des Lastgenerators als Text
+     *
+     * @return Text mit einer Zeile pro Wert
+     */
+    public String format() {
+        double elapsedSeconds = getElapsedTime() / 1_000_000_000.0;
+        StringBuilder sb = new StringBuilder("Ressourcen des Lastgenerators:").append(System.lineSeparator());
+        sb.append(String.format(Locale.ROOT, "CPU Prozess: %.1f %%, System: %.1f %% (%d Kerne)%n",
+                getAverageCpuUtilisation() * 100.0, getAverageSystemCpuUtilisation() * 100, nCPUs));
+        for (ThreadCategory group : ThreadCategory.values()) {
+            sb.append(String.format(Locale.ROOT, "CPU %s-Threads: %.2f s (%.1f %% eines Kerns)%n", group,
+                    getThreadCpuTime(group) / 1_000_000_000.0,
+                    getThreadCpuTime(group) / 1_000_000_000.0 / elapsedSeconds * 100));
+        }
+        if (busiestThreadName != null) {
+            sb.append(String.format(Locale.ROOT, "Am stärksten ausgelasteter Thread: %s mit %.1f %%%n",
+                    busiestThreadName, busiestThreadUtilisation * 100));
+        }
+        sb.append(String.format(Locale.ROOT, "GC-Zeit: %d ms (%.1f %%), Allokationsrate: %.1f MB/s",
+                getGcTimeMillis(), getGcTimeShare() * 100, getAllocationRate() / (1024 << 10)));
+        return sb.toString();
+    }
+
+    /**
+     * Laufzeit seit dem Start bis zum Stoppen (bzw. bis jetzt)
+     *
+     * @return Laufzeit in ns
+     */
+    private long getElapsedTime() {
+        long end = stopWallClockTime >= 0 ? stopWallClockTime : System.nanoTime();
+        return end - startWallClockTime;
+    }
+
+    /**
+     * Summe der GC-Zeit aller Collectors
+     *
+     * @return GC-Zeit in ms seit dem Start der JVM
+     */
+    private static long getGcTime() {
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcTime += Math.max(gc.getCollectionTime(), 0);
+        }
+        return gcTime;
+    }
+
+    /**
+     * System-CPU, CPU-Zeit und Allokation aller lebenden Threads messen, nur im Sampler-Thread aufgerufen<br/>
+     * Die Werte beendeter Threads sind nicht mehr abfragbar, es fehlt also jeweils das letzte Intervall.
+     */
+    private void sample() {
+        double systemCpu = osBean.getCpuLoad();
+        if (systemCpu >= 0) {
+            systemCpuSum += systemCpu;
+            systemCpuSamples++;
+        }
+        sampleThreads();
+    }
+
+    /**
+     * CPU-Zeit und Allokation aller lebenden Threads messen, nur im Sampler-Thread aufgerufen
+     */
+    private void sampleThreads() {
+        if (!threadBean.isThreadCpuTimeEnabled()) return;
+        long now = System.nanoTime();
+        long[] ids = threadBean.getAllThreadIds();
+        long[] cpuTimes = threadBean.getThreadCpuTime(ids);
+        long[] allocated = threadBean.isThreadAllocatedMemoryEnabled()
+                ? threadBean.getThreadAllocatedBytes(ids) : new long[ids.length];
+        ThreadInfo[] infos = threadBean.getThreadInfo(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] == null || cpuTimes[i] < 0) continue;
+            ThreadSample thread = threads.get(ids[i]);
+            if (thread == null) {
+                // Erste Beobachtung: Werte vor dem Start der Messung nicht mitzählen
+                threads.put(ids[i], new ThreadSample(infos[i].getThreadName(), now, cpuTimes[i], allocated[i]));
+            } else {
+                thread.update(infos[i].getThreadName(), now, cpuTimes[i], allocated[i]);
+            }
+        }
+    }
+
+    /**
+     * CPU-Zeit der Threads nach Gruppen summieren und den am stärksten ausgelasteten Thread bestimmen
+     */
+    private synchronized void evaluateThreads() {
+        String busiestName = null;
+        double busiest = 0;
+        long allocated = 0;
+        for (ThreadSample thread : threads.values()) {
+            ThreadCategory group = ThreadCategory.of(thread.name);
+            threadCpuTimes[group.ordinal()] += thread.cpuTime - thread.firstCpuTime;
+            allocated += Math.max(thread.allocatedBytes - thread.firstAllocatedBytes, 0);
+
+            long observed = thread.lastSeen - thread.firstSeen;
+            if (group != ThreadCategory.OTHER && observed >= MIN_OBSERVED_THREAD_TIME) {
+                double utilisation = (thread.cpuTime - thread.firstCpuTime) / (double) observed;
+                if (utilisation > busiest) {
+                    busiest = utilisation;
+                    busiestName = thread.name;
+                }
+            }
+        }
+        busiestThreadName = busiestName;
+        busiestThreadUtilisation = busiest;
+        if (threadBean.isThreadAllocatedMemoryEnabled() && !threads.isEmpty()) allocatedBytes = allocated;
+        threads.clear();
+    }
+
+    /**
+     * Messwerte eines Threads
+     */
+    private static class ThreadSample {
+        private String name;
+        private final long firstSeen;
+        private final long firstCpuTime;
+        private final long firstAllocatedBytes;
+        private long lastSeen;
+        private long cpuTime;
+        private long allocatedBytes;
+
+        ThreadSample(String name, long now, long cpuTime, long allocatedBytes) {
+            this.name = name;
+            this.firstSeen = now;
+            this.firstCpuTime = cpuTime;
+            this.firstAllocatedBytes = allocatedBytes;
+            this.lastSeen = now;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * Neue Messung, der Name kann sich ändern, weil die Client-Threads sich nach dem Start umbenennen
+         */
+        void update(String name, long now, long cpuTime, long allocatedBytes) {
+            this.name = name;
+            this.lastSeen = now;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Thread misst alle SAMPLE_INTERVAL_IN_MILLIS ms System-CPU, CPU-Zeit und Allokation pro Thread
+     */
+    private class Sampler extends Thread {
+        private volatile boolean running = true;
+
+        Sampler() {
+            setName("CpuUtilisationSampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            log.debug(getName() + " gestartet");
+
+            // Erste Messung legt die Ausgangswerte fest, getCpuLoad liefert erst ab der zweiten Abfrage Werte
+            osBean.getCpuLoad();
+            sampleThreads();
+            while (running) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(SAMPLE_INTERVAL_IN_MILLIS);
+                } catch (InterruptedException e) {
+                    log.debug("Sleep unterbrochen");
+                }
+                sample();
+            }
+        }
+
+        /**
+         * Beenden des Threads, wartet auf die letzte Messung
+         */
+        void stopThread() {
+            running = false;
+            interrupt();
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.debug(getName() + " gestoppt");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.common.ExceptionHandler;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Event-Loop des Lastgenerators: ein Thread bedient mit einem Selector die Verbindungen vieler simulierter Clients
+ * ({@link ChatSession}) und führt deren Timer (Denkzeit, Sendeplan) aus. Alle Methoden einer Session laufen im
+ * Thread ihrer Event-Loop, andere Threads übergeben Aufgaben mit {@link #execute(Runnable)}.
+ *
+ * @author Lerngruppe
+ */
+class EventLoop implements Runnable {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(EventLoop.class);
+
+    /**
+     * Selector für alle Verbindungen der Event-Loop
+     */
+    private final Selector selector;
+
+    /**
+     * Thread der Event-Loop
+     */
+    private final Thread thread;
+
+    /**
+     * Aufgaben aus anderen Threads
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Timer nach Fälligkeit, nur im Thread der Event-Loop verwendet
+     */
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+
+    /**
+     * Zähler für die Reihenfolge gleichzeitig fälliger Timer
+     */
+    private long timerSequence = 0;
+
+    /**
+     * false, sobald die Event-Loop beendet werden soll
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Konstruktor
+     *
+     * @param name Name des Threads
+     * @throws IOException Selector kann nicht geöffnet werden
+     */
+    EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Thread der Event-Loop starten
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Event-Loop beenden und auf das Ende des Threads warten
+     *
+     * @throws InterruptedException beim Warten unterbrochen
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join();
+    }
+
+    /**
+     * getter
+     *
+     * @return Selector der Event-Loop
+     */
+    Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Aufgabe im Thread der Event-Loop ausführen
+     *
+     * @param task Aufgabe
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Aufgabe zu einem Zeitpunkt ausführen, nur im Thread der Event-Loop aufzurufen
+     *
+     * @param time Zeitpunkt (System.nanoTime)
+     * @param task Aufgabe
+     */
+    void schedule(long time, Runnable task) {
+        timers.add(new Timer(time, timerSequence++, task));
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                runTasks();
+
+                Timer next = timers.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long delay = next.time - System.nanoTime();
+                    if (delay <= 0) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(Math.max(1, (delay + 999_999) / 1_000_000));
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ((ChatSession) key.attachment()).handle(key);
+                }
+
+                runTimers();
+            } catch (Exception e) {
+                log.error("Fehler in der Event-Loop " + thread.getName());
+                ExceptionHandler.logException(e);
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            ExceptionHandler.logException(e);
+        }
+    }
+
+    /**
+     * Aufgaben aus anderen Threads ausführen
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Fällige Timer ausführen
+     */
+    private void runTimers() {
+        long now = System.nanoTime();
+        Timer timer;
+        while ((timer = timers.peek()) != null && timer.time - now <= 0) {
+            timers.poll();
+            timer.task.run();
+        }
+    }
+
+    /**
+     * Timer einer Event-Loop
+     */
+    private record Timer(long time, long sequence, Runnable task) implements Comparable<Timer> {
+        @Override
+        public int compareTo(Timer other) {
+            int c = Long.compare(time - other.time, 0);
+            return (c != 0) ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.chatbenchmarking.gui.BenchmarkingClientUserInterface;
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters;
+import edu.hm.dako.chatclient.ClientUserInterface;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lastgenerator, der alle simulierten Clients auf wenigen Event-Loops ausführt, statt pro Client einen Client- und
+ * einen Listener-Thread zu starten<br/>
+ * Jeder Client ist eine {@link ChatSession} mit eigener, nicht blockierender Verbindung. Die Sessions werden reihum auf
+ * die Event-Loops verteilt. Ablauf und Statistik entsprechen dem BenchmarkingClientImpl: Die Logins erfolgen nach der
+ * {@link LoginRamp} (seriell oder zu geplanten Zeitpunkten), nach dem letzten Login senden alle Clients ihre
+ * Chat-Nachrichten, nach der letzten Chat-Nachricht melden sich alle ab.
+ *
+ * @author Lerngruppe
+ */
+public class EventLoopClientEngine {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(EventLoopClientEngine.class);
+
+    /**
+     * Max. Wartezeit am Stück, danach wird geprüft, ob der Test abgebrochen wurde
+     */
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    /**
+     * Eingabeparameter
+     */
+    private final UserInterfaceInputParameters param;
+
+    /**
+     * Gemeinsame Daten aller Clients zur Erfassung statistischer Daten
+     */
+    private final SharedClientStatistics sharedStatistics;
+
+    /**
+     * Koordinator, liefert den Abbruch-Status
+     */
+    private final ClientUserInterface userInterface;
+
+    /**
+     * Schnittstelle zur BenchmarkingGui, null ohne GUI
+     */
+    private final BenchmarkingClientUserInterface benchmarkingGui;
+
+    /**
+     * true, wenn die Logins nacheinander erfolgen
+     */
+    private final boolean serialLogins;
+
+    /**
+     * Event-Loops und simulierte Clients
+     */
+    private final EventLoop[] loops;
+    private final ChatSession[] sessions;
+
+    /**
+     * Anzahl abgeschlossener Logins und Clients, die alle Chat-Nachrichten gesendet haben
+     */
+    private final AtomicInteger loginsFinished = new AtomicInteger();
+    private final AtomicInteger sendersFinished = new AtomicInteger();
+
+    /**
+     * Signale für das Ende der Login-Phase und das Ende aller Sessions
+     */
+    private final CountDownLatch loggedIn;
+    private final CountDownLatch finished;
+
+    /**
+     * Konstruktor
+     *
+     * @param param            Eingabeparameter
+     * @param sharedStatistics Statistikdaten
+     * @param userInterface    Koordinator, liefert den Abbruch-Status
+     * @param benchmarkingGui  Schnittstelle zur BenchmarkingGUI, null ohne GUI
+     */
+    public EventLoopClientEngine(UserInterfaceInputParameters param, SharedClientStatistics sharedStatistics,
+                                 ClientUserInterface userInterface, BenchmarkingClientUserInterface benchmarkingGui) {
+        this.param = param;
+        this.sharedStatistics = sharedStatistics;
+        this.userInterface = userInterface;
+        this.benchmarkingGui = benchmarkingGui;
+        LoginStatistics loginStatistics = sharedStatistics.getLoginStatistics();
+        serialLogins = (loginStatistics == null) || loginStatistics.isSerial();
+        int numberOfLoops = Math.max(1, Math.min(param.getNumberOfEventLoops(), param.getNumberOfClients()));
+        loops = new EventLoop[numberOfLoops];
+        sessions = new ChatSession[param.getNumberOfClients()];
+        loggedIn = new CountDownLatch(sessions.length);
+        finished = new CountDownLatch(sessions.length);
+    }
+
+    /**
+     * Event-Loops starten und den ersten bzw. bei einer Login-Rampe alle Logins auslösen
+     *
+     * @throws IOException Event-Loop kann nicht angelegt werden
+     */
+    public void start() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop("Benchmarking-EventLoop-" + i);
+        }
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = new ChatSession(this, loops[i % loops.length], param, i, sharedStatistics,
+                    benchmarkingGui);
+        }
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+        log.info(sessions.length + " Clients auf " + loops.length + " Event-Loops gestartet");
+
+        if (serialLogins) {
+            if (sessions.length > 0) execute(sessions[0], sessions[0]::login);
+        } else {
+            LoginStatistics loginStatistics = sharedStatistics.getLoginStatistics();
+            loginStatistics.start();
+            for (int i = 0; i < sessions.length; i++) {
+                ChatSession session = sessions[i];
+                long loginTime = loginStatistics.getPlannedLoginTime(i);
+                execute(session, () -> session.getLoop().schedule(loginTime, session::login));
+            }
+        }
+    }
+
+    /**
+     * Warten, bis alle Clients ihren Login abgeschlossen haben (erfolgreich oder nicht)
+     *
+     * @throws InterruptedException beim Warten unterbrochen
+     */
+    public void awaitLoggedIn() throws InterruptedException {
+        await(loggedIn);
+    }
+
+    /**
+     * Warten, bis alle Clients abgemeldet sind, danach die Event-Loops beenden
+     *
+     * @throws InterruptedException beim Warten unterbrochen
+     */
+    public void awaitTermination() throws InterruptedException {
+        await(finished);
+        for (EventLoop loop : loops) {
+            loop.stop();
+        }
+    }
+
+    /**
+     * Test, ob der Test in der GUI abgebrochen wurde
+     *
+     * @return true bei Abbruch
+     */
+    boolean isTestAborted() {
+        return userInterface.isTestAborted();
+    }
+
+    /**
+     * Login eines Clients abgeschlossen: bei seriellen Logins den nächsten Login auslösen, nach dem letzten Login alle
+     * Clients senden lassen
+     *
+     * @param session Client
+     * @param success true, wenn der Login erfolgreich war
+     */
+    void loginFinished(ChatSession session, boolean success) {
+        loggedIn.countDown();
+        int next = loginsFinished.incrementAndGet();
+        if (success) log.debug("Client " + next + " ist eingeloggt");
+
+        if (next < sessions.length) {
+            if (serialLogins) execute(sessions[next], sessions[next]::login);
+        } else {
+            for (ChatSession s : sessions) {
+                execute(s, s::startMessages);
+            }
+        }
+    }
+
+    /**
+     * Client hat alle Chat-Nachrichten gesendet: nach dem letzten Client alle abmelden
+     *
+     * @param session Client
+     */
+    void sendingFinished(ChatSession session) {
+        if (sendersFinished.incrementAndGet() == sessions.length) {
+            for (ChatSession s : sessions) {
+                execute(s, s::logout);
+            }
+        }
+    }
+
+    /**
+     * Client ist abgemeldet oder abgebrochen
+     *
+     * @param session Client
+     */
+    void sessionFinished(ChatSession session) {
+        finished.countDown();
+    }
+
+    /**
+     * Aufgabe im Thread der Event-Loop eines Clients ausführen
+     *
+     * @param session Client
+     * @param task    Aufgabe
+     */
+    private void execute(ChatSession session, Runnable task) {
+        session.getLoop().execute(task);
+    }
+
+    /**
+     * Auf ein Signal warten, bei Testabbruch alle Clients beenden
+     *
+     * @param signal Signal
+     * @throws InterruptedException beim Warten unterbrochen
+     */
+    private void await(CountDownLatch signal) throws InterruptedException {
+        boolean aborted = false;
+        while (!signal.await(WAIT_SLICE_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!aborted && isTestAborted()) {
+                aborted = true;
+                log.debug("Test abgebrochen, alle Clients werden beendet");
+                for (ChatSession s : sessions) {
+                    execute(s, s::finish);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package edu.hm.dako.chatbenchmarking;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread ermittelt zyklisch die Heap-Belegung und merkt sich das Maximum, damit die Client-Threads den Heap nicht
+ * bei jeder Nachricht abfragen müssen
+ *
+ * @author Lerngruppe
+ */
+public class HeapUsageSampler extends Thread {
+    private static final Logger log = LogManager.getLogger(HeapUsageSampler.class);
+
+    /**
+     * Abstand zwischen zwei Messungen in ms
+     */
+    private static final int SAMPLE_INTERVAL_IN_MILLIS = 100;
+
+    /**
+     * maximale Heap-Belegung in Bytes, wird nur von diesem Thread geschrieben
+     */
+    private volatile long maxUsedHeap;
+
+    /**
+     * Heap-Belegung der letzten Messung in Bytes
+     */
+    private volatile long lastUsedHeap;
+
+    private volatile boolean running = true;
+
+    /**
+     * Konstruktor
+     */
+    public HeapUsageSampler() {
+        setName("HeapUsageSampler");
+        setDaemon(true);
+    }
+
+    /**
+     * Run-Methode für den Thread: Misst alle SAMPLE_INTERVAL_IN_MILLIS ms die Heap-Belegung
+     */
+    @Override
+    public void run() {
+        log.debug(getName() + " gestartet");
+
+        while (running) {
+            sample();
+            try {
+                TimeUnit.MILLISECONDS.sleep(SAMPLE_INTERVAL_IN_MILLIS);
+            } catch (InterruptedException e) {
+                log.debug("Sleep unterbrochen");
+            }
+        }
+        sample();
+    }
+
+    /**
+     * Beenden des Threads, wartet auf die letzte Messung
+     */
+    public void stopThread() {
+        running = false;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug(getName() + " gestoppt");
+    }
+
+    /**
+     * getter
+     *
+     * @return maximale Heap-Belegung in Bytes
+     */
+    public long getMaxUsedHeap() {
+        return maxUsedHeap;
+    }
+
+    /**
+     * getter
+     *
+     * @return Heap-Belegung der letzten Messung in Bytes
+     */
+    public long getLastUsedHeap() {
+        return lastUsedHeap;
+    }
+
+    /**
+     * Aktuelle Heap-Belegung messen und das Maximum fortschreiben
+     */
+    private void sample() {
+        Runtime r = Runtime.getRuntime();
+        long usedHeap = r.totalMemory() - r.freeMemory();
+        lastUsedHeap = usedHeap;
+        if (usedHeap > maxUsedHeap) maxUsedHeap = usedHeap;
+    }
+}
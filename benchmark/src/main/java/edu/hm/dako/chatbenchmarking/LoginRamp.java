@@ -0,0 +1,93 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters;
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters.LoginRampType;
+
+/**
+ * Plan für die Logins vor der Lastphase<br/>
+ * Seriell startet jeder Login erst nach der Login-Response des vorherigen Clients, das ergibt keine geplanten
+ * Zeitpunkte. Bei allen anderen Abläufen hat jeder Client einen geplanten Login-Zeitpunkt relativ zum Start der
+ * Rampe: alle gleichzeitig, mit fester Rate oder in Stufen fester Größe mit einer Pause dazwischen.
+ *
+ * @author Lerngruppe
+ */
+public class LoginRamp {
+    /**
+     * Ablauf der Logins
+     */
+    private final LoginRampType type;
+
+    /**
+     * feste Rate: Logins pro Sekunde
+     */
+    private final int rate;
+
+    /**
+     * Stufen: Anzahl Clients pro Stufe und Pause zwischen zwei Stufen in ms
+     */
+    private final int stageSize;
+    private final int stagePause;
+
+    /**
+     * Konstruktor
+     *
+     * @param type       Ablauf der Logins
+     * @param rate       feste Rate: Logins pro Sekunde
+     * @param stageSize  Stufen: Anzahl Clients pro Stufe
+     * @param stagePause Stufen: Pause zwischen zwei Stufen in ms
+     */
+    public LoginRamp(LoginRampType type, int rate, int stageSize, int stagePause) {
+        this.type = type;
+        this.rate = Math.max(1, rate);
+        this.stageSize = Math.max(1, stageSize);
+        this.stagePause = Math.max(0, stagePause);
+    }
+
+    /**
+     * Plan aus den Eingabeparametern erzeugen
+     *
+     * @param param Eingabeparameter
+     * @return Plan
+     */
+    public static LoginRamp create(UserInterfaceInputParameters param) {
+        return new LoginRamp(param.getLoginRamp(), param.getLoginRate(), param.getLoginStageSize(),
+                param.getLoginStagePause());
+    }
+
+    /**
+     * Test, ob die Logins nacheinander erfolgen
+     *
+     * @return true bei seriellen Logins
+     */
+    public boolean isSerial() {
+        return type == LoginRampType.Serial;
+    }
+
+    /**
+     * Geplanten Login-Zeitpunkt eines Clients ermitteln, nicht für serielle Logins
+     *
+     * @param clientNumber Nummer des Clients (ab 0)
+     * @return Login-Zeitpunkt relativ zum Start der Rampe in ns
+     */
+    public long getOffset(int clientNumber) {
+        return switch (type) {
+            case FixedRate -> clientNumber * 1_000_000_000L / rate;
+            case Staged -> (long) (clientNumber / stageSize) * stagePause * 1000000L;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Plan als Text beschreiben
+     *
+     * @return Beschreibung
+     */
+    public String describe() {
+        return switch (type) {
+            case Serial -> "seriell";
+            case AllAtOnce -> "alle gleichzeitig";
+            case FixedRate -> rate + " Logins/s";
+            case Staged -> "Stufen zu " + stageSize + " Clients, Pause " + stagePause + " ms";
+        };
+    }
+}
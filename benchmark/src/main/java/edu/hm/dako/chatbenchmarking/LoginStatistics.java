@@ -0,0 +1,285 @@
+package edu.hm.dako.chatbenchmarking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Statistik der Login-Phase: Login-Latenz (Login-Request bis Login-Response), Login-Durchsatz und Fan-out der
+ * Login-Events<br/>
+ * Der Server sendet zu jedem Login ein Login-Event an alle Clients, die zu diesem Zeitpunkt in seiner Liste stehen,
+ * und schickt die angemeldeten und sich anmeldenden Clients aus demselben Stand der Liste im Event mit. Jeder Client
+ * merkt sich die Länge der Liste aus dem Event zu seinem eigenen Login, die Summe ergibt die Anzahl der Login-Events in
+ * der tatsächlichen Login-Reihenfolge. Bei seriellen Logins ist das 1 + 2 + ... + n, bei überlappenden Logins kann es
+ * abweichen. Meldet sich während eines Logins ein Client ab, erhält er das Event noch, steht aber nicht in der Liste,
+ * der Fan-out ist dann nur eine untere Schranke. Die Fan-out-Reihe teilt die Logins in der
+ * Reihenfolge ihrer Login-Responses in gleich große Gruppen und zeigt pro Gruppe Fan-out und Latenz.<br/>
+ * Jeder Client schreibt nur seine eigenen Einträge, der Zähler abgeschlossener Logins macht sie für den Koordinator
+ * sichtbar.
+ *
+ * @author Lerngruppe
+ */
+public class LoginStatistics {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(LoginStatistics.class);
+
+    /**
+     * max. Anzahl Gruppen der Fan-out-Reihe
+     */
+    private static final int MAX_GROUPS = 10;
+
+    /**
+     * Plan der Logins
+     */
+    private final LoginRamp ramp;
+
+    /**
+     * Start der Rampe (System.nanoTime), 0 solange noch nicht gestartet
+     */
+    private final AtomicLong startTime = new AtomicLong();
+
+    /**
+     * Login-Request- und Login-Response-Zeitpunkt (System.nanoTime) sowie Fan-out pro Client, Fan-out -1 wenn das
+     * eigene Login-Event nicht vor der Login-Response ankam
+     */
+    private final long[] requestTimes;
+    private final long[] responseTimes;
+    private final int[] fanOuts;
+    private final boolean[] loggedIn;
+
+    /**
+     * Anzahl abgeschlossener (erfolgreicher und fehlgeschlagener) Logins
+     */
+    private final AtomicInteger finishedLogins = new AtomicInteger();
+
+    /**
+     * Konstruktor
+     *
+     * @param ramp            Plan der Logins
+     * @param numberOfClients Anzahl der Clients
+     */
+    public LoginStatistics(LoginRamp ramp, int numberOfClients) {
+        this.ramp = ramp;
+        requestTimes = new long[numberOfClients];
+        responseTimes = new long[numberOfClients];
+        fanOuts = new int[numberOfClients];
+        loggedIn = new boolean[numberOfClients];
+    }
+
+    /**
+     * Test, ob die Logins nacheinander erfolgen
+     *
+     * @return true bei seriellen Logins
+     */
+    public boolean isSerial() {
+        return ramp.isSerial();
+    }
+
+    /**
+     * Rampe starten, der erste Aufruf legt den Startzeitpunkt fest
+     */
+    public void start() {
+        startTime.compareAndSet(0, System.nanoTime());
+    }
+
+    /**
+     * Geplanten Login-Zeitpunkt eines Clients ermitteln, nicht für serielle Logins
+     *
+     * @param clientNumber Nummer des Clients
+     * @return Login-Zeitpunkt (System.nanoTime)
+     */
+    public long getPlannedLoginTime(int clientNumber) {
+        start();
+        return startTime.get() + ramp.getOffset(clientNumber);
+    }
+
+    /**
+     * Erfolgreichen Login erfassen
+     *
+     * @param clientNumber Nummer des Clients
+     * @param requestTime  Zeitpunkt des Login-Requests (System.nanoTime)
+     * @param responseTime Zeitpunkt der Login-Response (System.nanoTime)
+     * @param fanOut       Anzahl Empfänger des eigenen Login-Events, -1 wenn unbekannt
+     */
+    public void recordLogin(int clientNumber, long requestTime, long responseTime, int fanOut) {
+        requestTimes[clientNumber] = requestTime;
+        responseTimes[clientNumber] = responseTime;
+        fanOuts[clientNumber] = fanOut;
+        loggedIn[clientNumber] = true;
+        finishedLogins.incrementAndGet();
+    }
+
+    /**
+     * Fehlgeschlagenen oder abgebrochenen Login erfassen
+     *
+     * @param clientNumber Nummer des Clients
+     */
+    public void recordLoginFailed(int clientNumber) {
+        finishedLogins.incrementAndGet();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl abgeschlossener (erfolgreicher und fehlgeschlagener) Logins
+     */
+    public int getNumberOfFinishedLogins() {
+        return finishedLogins.get();
+    }
+
+    /**
+     * Anzahl der Login-Events aus den Fan-outs aller erfolgreichen Logins ermitteln, erst nach der Login-Phase
+     * aufzurufen
+     *
+     * @return Anzahl Login-Events oder -1, wenn ein Fan-out unbekannt ist
+     */
+    public long getNumberOfLoginEvents() {
+        long events = 0;
+        for (int i = 0; i < fanOuts.length; i++) {
+            if (!loggedIn[i]) continue;
+            if (fanOuts[i] < 0) return -1;
+            events += fanOuts[i];
+        }
+        return events;
+    }
+
+    /**
+     * Fan-out-Reihe ermitteln, erst nach der Login-Phase aufzurufen
+     *
+     * @return Gruppen in der Reihenfolge der Login-Responses
+     */
+    public List<FanOutGroup> getFanOutSeries() {
+        Integer[] order = loggedInClients();
+        List<FanOutGroup> series = new ArrayList<>();
+        int groups = Math.min(MAX_GROUPS, order.length);
+        for (int g = 0; g < groups; g++) {
+            int from = order.length * g / groups;
+            int to = order.length * (g + 1) / groups;
+            long fanOutSum = 0;
+            long[] latencies = new long[to - from];
+            for (int i = from; i < to; i++) {
+                fanOutSum += Math.max(0, fanOuts[order[i]]);
+                latencies[i - from] = responseTimes[order[i]] - requestTimes[order[i]];
+            }
+            Arrays.sort(latencies);
+            series.add(new FanOutGroup(from + 1, to, fanOutSum / (double) (to - from), mean(latencies),
+                    percentile(latencies, 0.99)));
+        }
+        return series;
+    }
+
+    /**
+     * Ergebnisse als Text aufbereiten: Zusammenfassung, Login-Events und eine Zeile pro Gruppe der Fan-out-Reihe
+     *
+     * @return Ergebnistext
+     */
+    public String format() {
+        Integer[] order = loggedInClients();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Login-Rampe %s: %d erfolgreich, %d fehlgeschlagen", ramp.describe(), order.length,
+                finishedLogins.get() - order.length));
+        if (order.length > 0) {
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            long[] latencies = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                first = Math.min(first, requestTimes[order[i]]);
+                last = Math.max(last, responseTimes[order[i]]);
+                latencies[i] = responseTimes[order[i]] - requestTimes[order[i]];
+            }
+            Arrays.sort(latencies);
+            double duration = (last - first) / 1_000_000_000.0;
+            sb.append(String.format(", Dauer %.2f s, Durchsatz %.1f Logins/s, Latenz Mittel %.2f ms, p99 %.2f ms, "
+                            + "max %.2f ms", duration, (duration > 0) ? order.length / duration : 0,
+                    mean(latencies), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1000000.0));
+        }
+        sb.append(System.lineSeparator());
+
+        long events = getNumberOfLoginEvents();
+        if (events < 0) {
+            sb.append("Login-Events: Fan-out nicht für alle Logins bekannt");
+        } else {
+            sb.append(String.format("Login-Events: %d, Fan-out Mittel %.1f", events,
+                    (order.length > 0) ? events / (double) order.length : 0));
+        }
+        for (FanOutGroup group : getFanOutSeries()) {
+            sb.append(System.lineSeparator());
+            sb.append(String.format("Logins %d-%d: Fan-out Mittel %.1f, Latenz Mittel %.2f ms, p99 %.2f ms",
+                    group.fromLogin(), group.toLogin(), group.meanFanOut(), group.meanLatencyMillis(),
+                    group.p99LatencyMillis()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ergebnisse loggen
+     */
+    public void logResults() {
+        for (String line : format().split(System.lineSeparator())) {
+            log.info(line);
+        }
+    }
+
+    /**
+     * Erfolgreich eingeloggte Clients in der Reihenfolge ihrer Login-Responses ermitteln
+     *
+     * @return Nummern der Clients
+     */
+    private Integer[] loggedInClients() {
+        List<Integer> clients = new ArrayList<>();
+        for (int i = 0; i < loggedIn.length; i++) {
+            if (loggedIn[i]) clients.add(i);
+        }
+        Integer[] order = clients.toArray(new Integer[0]);
+        Arrays.sort(order, Comparator.comparingLong(i -> responseTimes[i]));
+        return order;
+    }
+
+    /**
+     * Mittelwert in ms
+     *
+     * @param values Werte in ns
+     * @return Mittelwert in ms
+     */
+    private static double mean(long[] values) {
+        if (values.length == 0) return 0;
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / (double) values.length / 1000000.0;
+    }
+
+    /**
+     * Percentil in ms
+     *
+     * @param sorted sortierte Werte in ns
+     * @param p      Percentil (0..1)
+     * @return Percentil in ms
+     */
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000000.0;
+    }
+
+    /**
+     * Gruppe der Fan-out-Reihe
+     *
+     * @param fromLogin         erster Login der Gruppe (ab 1, in Reihenfolge der Login-Responses)
+     * @param toLogin           letzter Login der Gruppe
+     * @param meanFanOut        mittlere Anzahl Empfänger der Login-Events
+     * @param meanLatencyMillis mittlere Login-Latenz in ms
+     * @param p99LatencyMillis  99%-Percentil der Login-Latenz in ms
+     */
+    public record FanOutGroup(int fromLogin, int toLogin, double meanFanOut, double meanLatencyMillis,
+                              double p99LatencyMillis) {
+    }
+}
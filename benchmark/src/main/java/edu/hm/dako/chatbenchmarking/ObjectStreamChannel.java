@@ -0,0 +1,210 @@
+package edu.hm.dako.chatbenchmarking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Nicht blockierende TCP-Verbindung zum Chat-Server für die Event-Loops des Lastgenerators<br/>
+ * Das Format auf der Leitung entspricht der TCPConnection: pro Richtung ein ObjectOutputStream bzw.
+ * ObjectInputStream über die gesamte Verbindung. Gesendete Objekte werden in einen Puffer serialisiert und ohne zu
+ * blockieren geschrieben, der Rest wird beim nächsten OP_WRITE nachgeschrieben. Empfangene Bytes werden gepuffert und
+ * erst dekodiert, wenn der {@link SerializedObjectScanner} ein vollständiges Objekt im Puffer findet. Ein teilweise
+ * empfangenes Objekt bleibt im Puffer, bis der Rest mit einem späteren OP_READ ankommt, die Event-Loop wartet nie.
+ *
+ * @author Lerngruppe
+ */
+class ObjectStreamChannel {
+    /**
+     * Größe des Empfangspuffers in Byte
+     */
+    private static final int RECEIVE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Max. Größe des Empfangspuffers, falls ein einzelnes Objekt größer als der Empfangspuffer ist
+     */
+    private static final int MAX_RECEIVE_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Länge des Stream-Headers (STREAM_MAGIC und STREAM_VERSION)
+     */
+    private static final int STREAM_HEADER_LENGTH = 4;
+
+    /**
+     * Verbindung
+     */
+    private final ByteChannel channel;
+
+    /**
+     * Serialisierte, noch nicht gesendete Objekte
+     */
+    private final ByteArrayOutputStream outBytes = new ByteArrayOutputStream(1024);
+    private final ObjectOutputStream out;
+    private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+
+    /**
+     * Empfangene Bytes (Schreibmodus), ab consumed noch nicht dekodiert
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+    private int consumed = 0;
+    private final SerializedObjectScanner scanner = new SerializedObjectScanner();
+    private final InputStream input = new BufferInputStream();
+    private ObjectInputStream in;
+
+    /**
+     * Konstruktor, der Header des Objektstroms wird mit dem ersten {@link #flush()} gesendet
+     *
+     * @param channel verbundener, nicht blockierender Kanal (SocketChannel)
+     * @throws IOException Fehler beim Anlegen des Objektstroms
+     */
+    ObjectStreamChannel(ByteChannel channel) throws IOException {
+        this.channel = channel;
+        out = new ObjectOutputStream(outBytes);
+        out.flush();
+        takeOutBytes();
+    }
+
+    /**
+     * Objekt senden. Objekte werden "unshared" geschrieben (gleiches Format wie writeObject für neue Objekte), damit
+     * der Objektstrom keine Referenzen auf alle gesendeten PDUs behält.
+     *
+     * @param message Objekt
+     * @return true, wenn alles geschrieben wurde, false, wenn noch Daten auf OP_WRITE warten
+     * @throws IOException Fehler beim Serialisieren oder Senden
+     */
+    boolean send(Serializable message) throws IOException {
+        out.writeUnshared(message);
+        out.flush();
+        takeOutBytes();
+        return flush();
+    }
+
+    /**
+     * Wartende Daten ohne zu blockieren schreiben
+     *
+     * @return true, wenn alles geschrieben wurde
+     * @throws IOException Fehler beim Senden
+     */
+    boolean flush() throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = pendingWrites.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) return false;
+            pendingWrites.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Verfügbare Bytes ohne zu blockieren lesen
+     *
+     * @return false, wenn die Verbindung vom Server geschlossen wurde
+     * @throws IOException Fehler beim Lesen
+     */
+    boolean read() throws IOException {
+        compact();
+        if (!readBuffer.hasRemaining()) grow();
+        return channel.read(readBuffer) >= 0;
+    }
+
+    /**
+     * Nächstes Objekt dekodieren, falls es vollständig empfangen wurde
+     *
+     * @return Objekt oder null, wenn noch kein vollständiges Objekt vorliegt
+     * @throws IOException            Fehler beim Dekodieren oder Verbindung geschlossen
+     * @throws ClassNotFoundException unbekannte Klasse im Objektstrom
+     */
+    Object poll() throws IOException, ClassNotFoundException {
+        if (in == null) {
+            if (available() < STREAM_HEADER_LENGTH) return null;
+            in = new ObjectInputStream(input);
+        }
+        if (available() == 0) return null;
+        int length = scanner.scan(readBuffer, consumed, readBuffer.position());
+        if (length < 0) return null;
+        int start = consumed;
+        Object message = in.readObject();
+        if (consumed - start != length) {
+            throw new StreamCorruptedException("Objekt mit " + (consumed - start) + " statt " + length + " Byte dekodiert");
+        }
+        return message;
+    }
+
+    /**
+     * Anzahl empfangener, noch nicht dekodierter Bytes
+     *
+     * @return Anzahl Bytes
+     */
+    private int available() {
+        return readBuffer.position() - consumed;
+    }
+
+    /**
+     * Dekodierte Bytes aus dem Empfangspuffer entfernen
+     */
+    private void compact() {
+        if (consumed == 0) return;
+        readBuffer.flip();
+        readBuffer.position(consumed);
+        readBuffer.compact();
+        consumed = 0;
+    }
+
+    /**
+     * Empfangspuffer vergrößern, wenn ein einzelnes Objekt nicht hineinpasst
+     *
+     * @throws IOException Objekt größer als {@link #MAX_RECEIVE_BUFFER_SIZE}
+     */
+    private void grow() throws IOException {
+        if (readBuffer.capacity() >= MAX_RECEIVE_BUFFER_SIZE) {
+            throw new IOException("Objekt größer als " + MAX_RECEIVE_BUFFER_SIZE + " Byte");
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.min(readBuffer.capacity() * 2, MAX_RECEIVE_BUFFER_SIZE));
+        readBuffer.flip();
+        larger.put(readBuffer);
+        readBuffer = larger;
+    }
+
+    /**
+     * Serialisierte Bytes in die Sendewarteschlange übernehmen
+     */
+    private void takeOutBytes() {
+        if (outBytes.size() == 0) return;
+        pendingWrites.add(ByteBuffer.wrap(outBytes.toByteArray()));
+        outBytes.reset();
+    }
+
+    /**
+     * Eingabestrom des ObjectInputStream über den Empfangspuffer, liest nie über die empfangenen Bytes hinaus
+     */
+    private class BufferInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            if (available() == 0) throw new EOFException("Objekt unvollständig empfangen");
+            return readBuffer.get(consumed++) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (available() == 0) throw new EOFException("Objekt unvollständig empfangen");
+            int n = Math.min(len, available());
+            readBuffer.get(consumed, b, off, n);
+            consumed += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return ObjectStreamChannel.this.available();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Geplante Sendezeitpunkte eines Clients bei Open-Loop-Messungen<br/>
+ * Die Gesamtrate wird gleichmäßig auf alle Clients verteilt. Bei Poisson-Ankünften sind die Abstände eines Clients
+ * exponentialverteilt, alle Clients zusammen ergeben wieder einen Poisson-Prozess mit der Gesamtrate. Bei festen
+ * Abständen werden die Clients gleichmäßig gegeneinander versetzt. Bei der Raten-Rampe sendet Stufe s mit (s + 1) /
+ * Stufen der Zielrate. Die Stufen sind Zeitfenster, die für alle Clients gleich liegen: Jede Stufe dauert so lange, wie
+ * ein Client für seinen Anteil der Nachrichten (gleichmäßig auf die Stufen verteilt) bei dieser Rate braucht. Eine
+ * Nachricht gehört zu der Stufe, in deren Fenster ihr geplanter Sendezeitpunkt liegt; bei Poisson-Ankünften schwankt
+ * die Anzahl pro Stufe daher etwas.
+ *
+ * @author Lerngruppe
+ */
+public class OpenLoopSchedule {
+    /**
+     * Anzahl der Clients, auf die die Gesamtrate verteilt wird
+     */
+    private final int numberOfClients;
+
+    /**
+     * Nummer des Clients
+     */
+    private final int clientNumber;
+
+    /**
+     * Rate eines Clients pro Stufe in Nachrichten pro ns
+     */
+    private final double[] clientRates;
+
+    /**
+     * Ende der Stufen relativ zum Start der Lastphase in ns
+     */
+    private final double[] stepEnds;
+
+    /**
+     * true für Poisson-verteilte, false für feste Abstände
+     */
+    private final boolean poisson;
+
+    /**
+     * Nummer der nächsten Nachricht
+     */
+    private int index = 0;
+
+    /**
+     * geplanter Sendezeitpunkt der letzten Nachricht relativ zum Start der Lastphase in ns und seine Stufe
+     */
+    private double offset = 0;
+    private int step = 0;
+
+    /**
+     * Konstruktor
+     *
+     * @param numberOfClients  Anzahl der Clients
+     * @param clientNumber     Nummer des Clients
+     * @param numberOfMessages Anzahl der Nachrichten des Clients
+     * @param stepRates        Gesamtrate aller Clients pro Stufe in Nachrichten pro Sekunde
+     * @param poisson          true für Poisson-verteilte, false für feste Abstände
+     */
+    public OpenLoopSchedule(int numberOfClients, int clientNumber, int numberOfMessages, double[] stepRates,
+                            boolean poisson) {
+        this.numberOfClients = numberOfClients;
+        this.clientNumber = clientNumber;
+        this.poisson = poisson;
+        clientRates = new double[stepRates.length];
+        for (int s = 0; s < stepRates.length; s++) {
+            clientRates[s] = stepRates[s] / numberOfClients / 1_000_000_000.0;
+        }
+        stepEnds = getStepEnds(numberOfClients, numberOfMessages, stepRates);
+    }
+
+    /**
+     * Plan für einen Client aus den Eingabeparametern erzeugen
+     *
+     * @param param        Eingabeparameter
+     * @param clientNumber Nummer des Clients
+     * @return Plan oder null, wenn keine Open-Loop-Messung gewählt ist
+     */
+    public static OpenLoopSchedule create(UserInterfaceInputParameters param, int clientNumber) {
+        if (!param.isOpenLoop()) return null;
+        return new OpenLoopSchedule(param.getNumberOfClients(), clientNumber, param.getNumberOfMessages(),
+                getStepRates(param), param.isPoissonArrivals());
+    }
+
+    /**
+     * Gesamtrate pro Stufe aus den Eingabeparametern ermitteln, ohne Rampe gibt es genau eine Stufe mit der Zielrate
+     *
+     * @param param Eingabeparameter
+     * @return Gesamtrate pro Stufe in Nachrichten pro Sekunde
+     */
+    public static double[] getStepRates(UserInterfaceInputParameters param) {
+        int steps = 1;
+        if (param.getMeasurementType() == UserInterfaceInputParameters.MeasurementType.OpenLoopRamp) {
+            // Jede Stufe braucht mindestens eine Nachricht pro Client
+            steps = Math.max(1, Math.min(param.getRampSteps(), param.getNumberOfMessages()));
+        }
+        double[] rates = new double[steps];
+        for (int s = 0; s < steps; s++) {
+            rates[s] = (double) param.getTargetRate() * (s + 1) / steps;
+        }
+        return rates;
+    }
+
+    /**
+     * Ende der Stufen aus den Eingabeparametern ermitteln
+     *
+     * @param param Eingabeparameter
+     * @return Ende pro Stufe relativ zum Start der Lastphase in ns
+     */
+    public static double[] getStepEnds(UserInterfaceInputParameters param) {
+        return getStepEnds(param.getNumberOfClients(), param.getNumberOfMessages(), getStepRates(param));
+    }
+
+    /**
+     * Ende der Stufen ermitteln: Stufe s dauert so lange, wie ein Client für seine Nachrichten der Stufe braucht
+     *
+     * @param numberOfClients  Anzahl der Clients
+     * @param numberOfMessages Anzahl der Nachrichten pro Client
+     * @param stepRates        Gesamtrate aller Clients pro Stufe in Nachrichten pro Sekunde
+     * @return Ende pro Stufe relativ zum Start der Lastphase in ns
+     */
+    private static double[] getStepEnds(int numberOfClients, int numberOfMessages, double[] stepRates) {
+        double[] ends = new double[stepRates.length];
+        double end = 0;
+        for (int s = 0; s < stepRates.length; s++) {
+            // Nachrichten pro Client in Stufe s, Summe über alle Stufen = numberOfMessages
+            long messages = (long) numberOfMessages * (s + 1) / stepRates.length
+                    - (long) numberOfMessages * s / stepRates.length;
+            end += messages * numberOfClients * 1_000_000_000.0 / stepRates[s];
+            ends[s] = end;
+        }
+        return ends;
+    }
+
+    /**
+     * Stufe der zuletzt mit {@link #nextSendOffset()} geplanten Nachricht
+     *
+     * @return Stufe (ab 0)
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Geplanten Sendezeitpunkt der nächsten Nachricht ermitteln. Die Zeitpunkte hängen nur vom Plan ab, nicht davon,
+     * wann die vorherigen Nachrichten tatsächlich gesendet oder beantwortet wurden. Der Abstand wird in "Nachrichten"
+     * gemessen (Poisson: exponentialverteilt mit Mittelwert 1, sonst 1) und über Stufengrenzen hinweg mit der Rate der
+     * jeweiligen Stufe in Zeit umgerechnet.
+     *
+     * @return Sendezeitpunkt relativ zum Start der Lastphase in ns
+     */
+    public long nextSendOffset() {
+        double distance;
+        if (poisson) {
+            distance = -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        } else if (index == 0) {
+            distance = (double) clientNumber / numberOfClients;
+        } else {
+            distance = 1;
+        }
+        index++;
+
+        while (step < stepEnds.length - 1 && offset + distance / clientRates[step] >= stepEnds[step]) {
+            distance -= (stepEnds[step] - offset) * clientRates[step];
+            offset = stepEnds[step];
+            step++;
+        }
+        offset += distance / clientRates[step];
+        return (long) offset;
+    }
+}
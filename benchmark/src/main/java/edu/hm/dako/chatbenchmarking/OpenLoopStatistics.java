@@ -0,0 +1,265 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.common.metrics.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Statistik einer Open-Loop-Messung pro Laststufe (ohne Rampe gibt es genau eine Stufe)<br/>
+ * Die Latenz wird ab dem geplanten Sendezeitpunkt gemessen, eine Verzögerung beim Senden geht also mit ein. Angebotene
+ * und erreichte Rate einer Stufe beziehen sich auf ihr Sendefenster (erster geplanter Sendezeitpunkt bis zum letzten,
+ * höchstens bis zum geplanten Ende der Stufe): im Fenster geplante Requests bzw. deren bis zum Fensterende empfangene
+ * Responses geteilt durch die Fensterlänge. Kommt der Server nicht mit, stauen sich die Responses hinter das Fenster.
+ * Eine Stufe gilt als gesättigt, wenn Responses fehlen oder die erreichte Rate unter {@link #SATURATION_THRESHOLD} der
+ * angebotenen liegt. Pro Stufe werden nur Zähler und zwei {@link LatencyHistogram} geführt, der Speicherbedarf hängt
+ * nicht von der Anzahl der Nachrichten ab.
+ *
+ * @author Lerngruppe
+ */
+public class OpenLoopStatistics {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(OpenLoopStatistics.class);
+
+    /**
+     * Anteil der angebotenen Rate, der mindestens erreicht werden muss
+     */
+    static final double SATURATION_THRESHOLD = 0.9;
+
+    /**
+     * Laststufen
+     */
+    private final Step[] steps;
+
+    /**
+     * Start der Lastphase (System.nanoTime), 0 solange noch nicht gestartet
+     */
+    private final AtomicLong startTime = new AtomicLong();
+
+    /**
+     * Konstruktor
+     *
+     * @param stepRates angebotene Gesamtrate pro Stufe in Nachrichten pro Sekunde
+     * @param stepEnds  geplantes Ende pro Stufe relativ zum Start der Lastphase in ns
+     */
+    public OpenLoopStatistics(double[] stepRates, double[] stepEnds) {
+        steps = new Step[stepRates.length];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = new Step(stepRates[i], (long) stepEnds[i]);
+        }
+    }
+
+    /**
+     * Gemeinsamen Start der Lastphase ermitteln, der erste Aufruf legt ihn fest
+     *
+     * @return Startzeit (System.nanoTime)
+     */
+    public long getStartTime() {
+        startTime.compareAndSet(0, System.nanoTime());
+        return startTime.get();
+    }
+
+    /**
+     * Gesendeten Request erfassen
+     *
+     * @param step         Stufe
+     * @param intendedTime geplanter Sendezeitpunkt (System.nanoTime)
+     * @param sendTime     tatsächlicher Sendezeitpunkt (System.nanoTime)
+     */
+    public void recordSend(int step, long intendedTime, long sendTime) {
+        steps[step].recordSend(startTime.get(), intendedTime, sendTime);
+    }
+
+    /**
+     * Empfangene Response erfassen
+     *
+     * @param step         Stufe
+     * @param intendedTime geplanter Sendezeitpunkt des Requests (System.nanoTime)
+     * @param receiveTime  Empfangszeitpunkt (System.nanoTime)
+     */
+    public void recordResponse(int step, long intendedTime, long receiveTime) {
+        steps[step].recordResponse(startTime.get(), intendedTime, receiveTime);
+    }
+
+    /**
+     * Ergebnisse aller Stufen ermitteln
+     *
+     * @return Ergebnis pro Stufe
+     */
+    public List<StepResult> getResults() {
+        List<StepResult> results = new ArrayList<>(steps.length);
+        for (int i = 0; i < steps.length; i++) {
+            results.add(steps[i].getResult(i, startTime.get()));
+        }
+        return results;
+    }
+
+    /**
+     * Sättigungsdurchsatz ermitteln: höchster erreichter Durchsatz aller Stufen
+     *
+     * @return Durchsatz in Responses pro Sekunde
+     */
+    public double getSaturationThroughput() {
+        double max = 0;
+        for (StepResult result : getResults()) {
+            max = Math.max(max, result.throughput());
+        }
+        return max;
+    }
+
+    /**
+     * Ergebnisse als Text aufbereiten, eine Zeile pro Stufe und eine Zeile zur Sättigung
+     *
+     * @return Ergebnistext
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        StepResult firstSaturated = null;
+        for (StepResult result : getResults()) {
+            sb.append(String.format("Stufe %d: geplant %.1f/s, angeboten %.1f/s, erreicht %.1f/s, gesendet %d, "
+                            + "empfangen %d, Latenz Mittel %.2f ms, p99 %.2f ms, max. Sendeverzögerung %.2f ms%s%n",
+                    result.step() + 1, result.targetRate(), result.offeredRate(), result.throughput(), result.sent(),
+                    result.received(),
+                    result.meanLatencyMillis(), result.p99LatencyMillis(), result.maxSendDelayMillis(),
+                    result.isSaturated() ? " (gesättigt)" : ""));
+            if (firstSaturated == null && result.isSaturated()) firstSaturated = result;
+        }
+        if (firstSaturated == null) {
+            sb.append(String.format("Keine Sättigung bis %.1f/s", steps[steps.length - 1].targetRate));
+        } else {
+            sb.append(String.format("Sättigung ab Stufe %d (geplant %.1f/s), Sättigungsdurchsatz %.1f/s",
+                    firstSaturated.step() + 1, firstSaturated.targetRate(), getSaturationThroughput()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ergebnisse loggen
+     */
+    public void logResults() {
+        for (String line : format().split(System.lineSeparator())) {
+            log.info(line);
+        }
+    }
+
+    /**
+     * Ergebnis einer Stufe
+     *
+     * @param step               Stufe (ab 0)
+     * @param targetRate         geplante Rate in Nachrichten pro Sekunde
+     * @param offeredRate        tatsächlich angebotene Rate im Sendefenster in Nachrichten pro Sekunde
+     * @param sent               Anzahl gesendeter Requests
+     * @param received           Anzahl empfangener Responses
+     * @param throughput         erreichter Durchsatz im Sendefenster in Responses pro Sekunde
+     * @param meanLatencyMillis  mittlere Latenz ab geplantem Sendezeitpunkt in ms
+     * @param p99LatencyMillis   99%-Percentil der Latenz in ms
+     * @param maxSendDelayMillis max. Verzögerung des Sendens gegenüber dem Plan in ms
+     */
+    public record StepResult(int step, double targetRate, double offeredRate, long sent, long received, double throughput,
+                             double meanLatencyMillis, double p99LatencyMillis, double maxSendDelayMillis) {
+        /**
+         * Test, ob die Stufe gesättigt ist
+         *
+         * @return true, wenn Responses fehlen oder der Durchsatz deutlich unter der angebotenen Rate liegt
+         */
+        public boolean isSaturated() {
+            return received < sent || throughput < SATURATION_THRESHOLD * offeredRate;
+        }
+    }
+
+    /**
+     * Daten einer Laststufe
+     */
+    private static class Step {
+        /**
+         * geplante Rate in Nachrichten pro Sekunde
+         */
+        final double targetRate;
+
+        /**
+         * geplantes Ende relativ zum Start der Lastphase in ns
+         */
+        final long plannedEnd;
+
+        /**
+         * Anzahl gesendeter Requests und empfangener Responses
+         */
+        long sent;
+        long received;
+
+        /**
+         * Anzahl der Requests, die bis zum geplanten Ende der Stufe gesendet werden sollten
+         */
+        long sentUntilPlannedEnd;
+
+        /**
+         * erster und letzter geplanter Sendezeitpunkt (System.nanoTime)
+         */
+        long firstIntendedTime = Long.MAX_VALUE;
+        long lastIntendedTime = Long.MIN_VALUE;
+
+        /**
+         * max. Verzögerung des Sendens gegenüber dem Plan in ns
+         */
+        long maxSendDelay;
+
+        /**
+         * Latenz ab dem geplanten Sendezeitpunkt in ns
+         */
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Abstand des Empfangs vor dem geplanten Ende der Stufe in ns, nur für Responses bis zum geplanten Ende. Endet
+         * das Sendefenster früher, werden die Responses bis dahin mit der Genauigkeit des Histogramms gezählt, der
+         * Fehler wächst mit dem Abstand zum geplanten Ende.
+         */
+        final LatencyHistogram receivedBeforePlannedEnd = new LatencyHistogram();
+
+        Step(double targetRate, long plannedEnd) {
+            this.targetRate = targetRate;
+            this.plannedEnd = plannedEnd;
+        }
+
+        synchronized void recordSend(long startTime, long intendedTime, long sendTime) {
+            sent++;
+            if (intendedTime - (startTime + plannedEnd) <= 0) sentUntilPlannedEnd++;
+            firstIntendedTime = Math.min(firstIntendedTime, intendedTime);
+            lastIntendedTime = Math.max(lastIntendedTime, intendedTime);
+            maxSendDelay = Math.max(maxSendDelay, sendTime - intendedTime);
+        }
+
+        void recordResponse(long startTime, long intendedTime, long receiveTime) {
+            synchronized (this) {
+                received++;
+            }
+            latency.record(receiveTime - intendedTime);
+            long beforePlannedEnd = startTime + plannedEnd - receiveTime;
+            if (beforePlannedEnd >= 0) receivedBeforePlannedEnd.record(beforePlannedEnd);
+        }
+
+        synchronized StepResult getResult(int step, long startTime) {
+            double offered = 0;
+            double throughput = 0;
+            long windowEnd = (lastIntendedTime - (startTime + plannedEnd) < 0) ? lastIntendedTime
+                    : startTime + plannedEnd;
+            long window = windowEnd - firstIntendedTime;
+            if (window > 0) {
+                // alle Requests bis zum Fensterende, auch wenn es vor dem geplanten Ende liegt
+                long offeredInWindow = sentUntilPlannedEnd;
+                // eine Response kommt nach ihrem Request, der Empfang bis zum Fensterende genügt
+                long receivedInWindow = receivedBeforePlannedEnd.snapshot()
+                        .getCountBetween(startTime + plannedEnd - windowEnd, Long.MAX_VALUE);
+                offered = offeredInWindow * 1_000_000_000.0 / window;
+                throughput = receivedInWindow * 1_000_000_000.0 / window;
+            }
+            LatencyHistogram.Snapshot latencies = latency.snapshot();
+            return new StepResult(step, targetRate, offered, sent, received, throughput,
+                    latencies.getMean() / 1000000.0, latencies.getValueAtPercentile(99) / 1000000.0,
+                    maxSendDelay / 1000000.0);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceInputParameters;
+import edu.hm.dako.chatbenchmarking.gui.UserInterfaceResultData;
+import edu.hm.dako.common.ChatServerImplementationType;
+import edu.hm.dako.common.ExceptionHandler;
+import edu.hm.dako.common.metrics.LatencyHistogram;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Führt die Läufe einer Szenario-Datei ohne GUI nacheinander gegen einen laufenden Server aus und schreibt die
+ * Ergebnisse maschinenlesbar in eine Datei<br/>
+ * Die Szenario-Datei ist eine Properties-Datei. runs listet die Namen der Läufe, die Parameter eines Laufs stehen unter
+ * run.&lt;name&gt;.&lt;parameter&gt;, ohne Präfix gelten sie als Standard für alle Läufe. Die Parameter heißen wie die
+ * Kommandozeilenparameter: num-clients, num-messages, message-length, think-time, protocol, response-timeout,
+ * event-loops, host, port, server-metrics, dazu warmup (verworfene Wiederholungen, Standard 1), repetitions (gewertete
+ * Wiederholungen, Standard 3) und pause (ms zwischen zwei Wiederholungen, Standard 1000). output ist die Ergebnisdatei,
+ * bei .csv eine Zeile pro Lauf und Kennzahl, sonst JSON.<br/>
+ * Pro Kennzahl werden Mittelwert, Standardabweichung und das 95%-Konfidenzintervall des Mittelwerts über die
+ * gültigen gewerteten Wiederholungen (t-Verteilung) sowie die Einzelwerte ausgegeben. Wiederholungen, bei denen der
+ * Lastgenerator der Engpass war, gehen nicht in die Zusammenfassung ein, sie werden pro Lauf als invalid gezählt und
+ * ihre Einzelwerte im JSON getrennt unter invalid_values ausgegeben.
+ *
+ * @author Lerngruppe
+ */
+public class ScenarioRunner {
+    /**
+     * referencing the logger
+     */
+    private static final Logger log = LogManager.getLogger(ScenarioRunner.class);
+
+    /**
+     * Konfidenzniveau der Intervalle
+     */
+    private static final double CONFIDENCE_LEVEL = 0.95;
+
+    /**
+     * Kennzahlen einer Wiederholung, Name und Einheit im Namen
+     */
+    private static final String[] METRICS = {"duration_s", "throughput_per_s", "rtt_mean_ms", "rtt_p50_ms",
+            "rtt_p90_ms", "rtt_p99_ms", "rtt_max_ms", "server_time_mean_ms", "lost_responses", "cpu_percent",
+            "system_cpu_percent", "busiest_thread_cpu_percent", "gc_percent", "alloc_mb_per_s", "heap_mb",
+            "server_cpu_percent", "server_gc_percent"};
+
+    /**
+     * Name der Szenario-Datei
+     */
+    private final String scenarioFile;
+
+    /**
+     * Inhalt der Szenario-Datei
+     */
+    private final Properties scenario = new Properties();
+
+    /**
+     * Konstruktor
+     *
+     * @param scenarioFile Name der Szenario-Datei
+     * @throws IOException Szenario-Datei kann nicht gelesen werden
+     */
+    public ScenarioRunner(String scenarioFile) throws IOException {
+        this.scenarioFile = scenarioFile;
+        try (Reader in = new FileReader(scenarioFile, StandardCharsets.UTF_8)) {
+            scenario.load(in);
+        }
+    }
+
+    /**
+     * Alle Läufe des Szenarios ausführen und die Ergebnisdatei schreiben
+     *
+     * @return true, wenn alle Wiederholungen aller Läufe gültige Ergebnisse geliefert haben
+     */
+    public boolean runAll() {
+        String[] runs = scenario.getProperty("runs", "").trim().split("\\s*,\\s*");
+        if (runs.length == 0 || runs[0].isEmpty()) {
+            log.error("Szenario " + scenarioFile + " enthält keine Läufe (runs)");
+            return false;
+        }
+
+        boolean complete = true;
+        List<RunResult> results = new ArrayList<>();
+        for (String run : runs) {
+            RunResult result = execute(run);
+            complete &= result.failed() == 0 && result.invalidValues().isEmpty();
+            results.add(result);
+        }
+
+        String output = scenario.getProperty("output", "Benchmarking-ChatApp-Szenario.json");
+        try {
+            if (output.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                writeCsv(output, results);
+            } else {
+                writeJson(output, results);
+            }
+            System.out.println("Szenario-Ergebnisse in Datei " + output + " geschrieben");
+        } catch (IOException e) {
+            log.error("Fehler beim Schreiben der Szenario-Ergebnisse in Datei " + output);
+            ExceptionHandler.logException(e);
+            return false;
+        }
+        return complete;
+    }
+
+    /**
+     * Einen Lauf mit Aufwärm- und gewerteten Wiederholungen ausführen
+     *
+     * @param run Name des Laufs
+     * @return Ergebnis des Laufs
+     */
+    private RunResult execute(String run) {
+        UserInterfaceInputParameters params = createParameters(run);
+        int warmup = getInt(run, "warmup", 0, 1);
+        int repetitions = getInt(run, "repetitions", 1, 3);
+        int pause = getInt(run, "pause", 0, 1000);
+
+        List<double[]> values = new ArrayList<>();
+        List<double[]> invalidValues = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < warmup + repetitions; i++) {
+            boolean counted = i >= warmup;
+            String label = "Lauf " + run + (counted ? ", Wiederholung " + (i - warmup + 1) + "/" + repetitions
+                    : ", Aufwärmen " + (i + 1) + "/" + warmup);
+            System.out.println(label);
+            log.info(label);
+
+            Repetition repetition = executeOnce(params);
+            if (repetition == null) {
+                log.error(label + " lieferte kein Ergebnis");
+                if (counted) failed++;
+            } else if (counted && repetition.invalidReason() != null) {
+                log.warn(label + " ungültig, nicht gewertet: " + repetition.invalidReason());
+                invalidValues.add(repetition.metrics());
+            } else if (counted) {
+                values.add(repetition.metrics());
+            }
+
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                ExceptionHandler.logException(e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return new RunResult(run, params, warmup, repetitions, failed, values, invalidValues);
+    }
+
+    /**
+     * Eine Wiederholung ausführen
+     *
+     * @param params Parameter des Laufs
+     * @return Ergebnis, null wenn der Test kein Ergebnis geliefert hat
+     */
+    private Repetition executeOnce(UserInterfaceInputParameters params) {
+        BenchmarkingClientCoordinator coordinator = new BenchmarkingClientCoordinator();
+        long start = System.nanoTime();
+        coordinator.executeTest(params, null);
+        try {
+            coordinator.join();
+        } catch (InterruptedException e) {
+            ExceptionHandler.logException(e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        double duration = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        UserInterfaceResultData resultData = coordinator.getLastResultData();
+        if (resultData == null) return null;
+        LatencyHistogram.Snapshot rtts = coordinator.getSharedStatistics().getRttSnapshot();
+
+        return new Repetition(new double[]{duration, resultData.getNumberOfResponses() / duration, resultData.getMean(),
+                resultData.getPercentile50(), resultData.getPercentile90(),
+                rtts.getValueAtPercentile(99) / 1000000.0, resultData.getMaximum(), resultData.getAvgServerTime(),
+                resultData.getNumberOfLostResponses(), resultData.getMaxCpuUsage() * 100,
+                resultData.getSystemCpuUsage() * 100, resultData.getBusiestThreadCpuUsage() * 100,
+                resultData.getGcTimeShare() * 100, resultData.getAllocationRate(), resultData.getMaxHeapSize(),
+                resultData.getServerCpuUsage() * 100, resultData.getServerGcTimeShare() * 100},
+                resultData.getInvalidReason());
+    }
+
+    /**
+     * Parameter eines Laufs aus dem Szenario lesen
+     *
+     * @param run Name des Laufs
+     * @return Parameter
+     */
+    private UserInterfaceInputParameters createParameters(String run) {
+        UserInterfaceInputParameters params = new UserInterfaceInputParameters();
+        params.setNumberOfClients(getInt(run, "num-clients", 1, params.getNumberOfClients()));
+        params.setNumberOfMessages(getInt(run, "num-messages", 1, params.getNumberOfMessages()));
+        params.setMessageLength(getInt(run, "message-length", 1, params.getMessageLength()));
+        params.setClientThinkTime(getInt(run, "think-time", 0, params.getClientThinkTime()));
+        params.setResponseTimeout(getInt(run, "response-timeout", 1, params.getResponseTimeout()));
+        params.setNumberOfEventLoops(getInt(run, "event-loops", 0, params.getNumberOfEventLoops()));
+        params.setRemoteServerPort(getInt(run, "port", 1, params.getRemoteServerPort()));
+        params.setRemoteServerAddress(get(run, "host", params.getRemoteServerAddress()));
+        String serverMetrics = get(run, "server-metrics", "");
+        if (!serverMetrics.isEmpty()) params.setServerMetricsUrl(serverMetrics);
+        if ("tcpadvanced".equals(get(run, "protocol", "tcpsimple"))) {
+            params.setChatServerImplementationType(ChatServerImplementationType.TCPAdvancedImplementation);
+        }
+        return params;
+    }
+
+    /**
+     * Parameter eines Laufs lesen, ohne Angabe für den Lauf gilt der Standard des Szenarios
+     *
+     * @param run          Name des Laufs
+     * @param key          Name des Parameters
+     * @param defaultValue Wert, wenn der Parameter fehlt
+     * @return Wert
+     */
+    private String get(String run, String key, String defaultValue) {
+        return scenario.getProperty("run." + run + "." + key, scenario.getProperty(key, defaultValue)).trim();
+    }
+
+    /**
+     * Ganzzahligen Parameter eines Laufs lesen
+     *
+     * @param run          Name des Laufs
+     * @param key          Name des Parameters
+     * @param min          kleinster gültiger Wert
+     * @param defaultValue Wert, wenn der Parameter fehlt
+     * @return Wert
+     * @throws IllegalArgumentException keine Zahl oder kleiner als min
+     */
+    private int getInt(String run, String key, int min, int defaultValue) {
+        String value = get(run, key, String.valueOf(defaultValue));
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min) return number;
+        } catch (NumberFormatException e) {
+            // Fehlermeldung unten
+        }
+        throw new IllegalArgumentException("Lauf " + run + ": ungültiger Wert für " + key + ": " + value);
+    }
+
+    /**
+     * Ergebnisse als JSON schreiben
+     *
+     * @param fileName Name der Datei
+     * @param results  Ergebnisse aller Läufe
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writeJson(String fileName, List<RunResult> results) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
+            out.write("{\"scenario\":" + quote(scenarioFile) + ",\"confidence_level\":" + CONFIDENCE_LEVEL
+                    + ",\"runs\":[");
+            for (int r = 0; r < results.size(); r++) {
+                RunResult result = results.get(r);
+                out.write((r > 0 ? "," : "") + "\n{");
+                for (Map.Entry<String, Object> parameter : result.parameters().entrySet()) {
+                    out.write(quote(parameter.getKey()) + ":" + (parameter.getValue() instanceof String value
+                            ? quote(value) : parameter.getValue()) + ",");
+                }
+                out.write("\"metrics\":{");
+                for (int m = 0; m < METRICS.length; m++) {
+                    Summary summary = result.summarize(m);
+                    out.write((m > 0 ? "," : "") + "\n  " + quote(METRICS[m]) + ":{\"mean\":"
+                            + number(summary.mean()) + ",\"stddev\":" + number(summary.stddev())
+                            + ",\"ci_low\":" + number(summary.ciLow()) + ",\"ci_high\":" + number(summary.ciHigh())
+                            + ",\"values\":[" + numbers(result.values(), m) + "],\"invalid_values\":["
+                            + numbers(result.invalidValues(), m) + "]}");
+                }
+                out.write("}}");
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Ergebnisse als CSV schreiben, eine Zeile pro Lauf und Kennzahl
+     *
+     * @param fileName Name der Datei
+     * @param results  Ergebnisse aller Läufe
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writeCsv(String fileName, List<RunResult> results) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
+            if (!results.isEmpty()) {
+                out.write(String.join(",", results.get(0).parameters().keySet())
+                        + ",metric,mean,stddev,ci_low,ci_high");
+                out.newLine();
+            }
+            for (RunResult result : results) {
+                StringBuilder parameters = new StringBuilder();
+                for (Object value : result.parameters().values()) {
+                    parameters.append(value).append(',');
+                }
+                for (int m = 0; m < METRICS.length; m++) {
+                    Summary summary = result.summarize(m);
+                    out.write(parameters + METRICS[m] + "," + number(summary.mean()) + ","
+                            + number(summary.stddev()) + "," + number(summary.ciLow()) + ","
+                            + number(summary.ciHigh()));
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Einzelwerte einer Kennzahl für JSON formatieren
+     *
+     * @param repetitions Kennzahlen der Wiederholungen
+     * @param metric      Index der Kennzahl in {@link #METRICS}
+     * @return durch Komma getrennte Zahlen
+     */
+    private static String numbers(List<double[]> repetitions, int metric) {
+        StringBuilder values = new StringBuilder();
+        for (double[] repetition : repetitions) {
+            if (values.length() > 0) values.append(',');
+            values.append(number(repetition[metric]));
+        }
+        return values.toString();
+    }
+
+    /**
+     * Zahl für JSON und CSV formatieren
+     *
+     * @param value Zahl
+     * @return Zahl mit Punkt als Dezimaltrenner, null wenn nicht definiert
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Zeichenkette für JSON in Anführungszeichen setzen
+     *
+     * @param value Zeichenkette
+     * @return JSON-String
+     */
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Ergebnis einer Wiederholung
+     *
+     * @param metrics       Kennzahlen in der Reihenfolge von {@link #METRICS}
+     * @param invalidReason Grund, warum die Wiederholung ungültig ist (Lastgenerator war der Engpass), null wenn gültig
+     */
+    record Repetition(double[] metrics, String invalidReason) {
+    }
+
+    /**
+     * Mittelwert, Standardabweichung und Konfidenzintervall des Mittelwerts
+     *
+     * @param mean   Mittelwert
+     * @param stddev Standardabweichung (Stichprobe), NaN bei weniger als zwei Werten
+     * @param ciLow  untere Grenze des Konfidenzintervalls, NaN bei weniger als zwei Werten
+     * @param ciHigh obere Grenze des Konfidenzintervalls, NaN bei weniger als zwei Werten
+     */
+    record Summary(double mean, double stddev, double ciLow, double ciHigh) {
+    }
+
+    /**
+     * Ergebnis eines Laufs
+     *
+     * @param name          Name des Laufs
+     * @param params        Parameter des Laufs
+     * @param warmup        Anzahl verworfener Wiederholungen
+     * @param repetitions   Anzahl gewerteter Wiederholungen
+     * @param failed        Anzahl gewerteter Wiederholungen ohne Ergebnis
+     * @param values        Kennzahlen der gültigen gewerteten Wiederholungen
+     * @param invalidValues Kennzahlen der gewerteten Wiederholungen, bei denen der Lastgenerator der Engpass war
+     */
+    record RunResult(String name, UserInterfaceInputParameters params, int warmup, int repetitions, int failed,
+                     List<double[]> values, List<double[]> invalidValues) {
+        /**
+         * Parameter für die Ausgabe
+         *
+         * @return Name und Wert in fester Reihenfolge
+         */
+        Map<String, Object> parameters() {
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            parameters.put("run", name);
+            parameters.put("protocol", params.mapImplementationTypeToString(params.getChatServerImplementationType()));
+            parameters.put("num_clients", params.getNumberOfClients());
+            parameters.put("num_messages", params.getNumberOfMessages());
+            parameters.put("message_length", params.getMessageLength());
+            parameters.put("think_time_ms", params.getClientThinkTime());
+            parameters.put("event_loops", params.getNumberOfEventLoops());
+            parameters.put("warmup", warmup);
+            parameters.put("repetitions", repetitions);
+            parameters.put("failed", failed);
+            parameters.put("invalid", invalidValues.size());
+            return parameters;
+        }
+
+        /**
+         * Kennzahl über die gültigen Wiederholungen zusammenfassen
+         *
+         * @param metric Index der Kennzahl in {@link #METRICS}
+         * @return Zusammenfassung
+         */
+        Summary summarize(int metric) {
+            int n = values.size();
+            if (n == 0) return new Summary(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+            double sum = 0;
+            for (double[] repetition : values) {
+                sum += repetition[metric];
+            }
+            double mean = sum / n;
+            if (n < 2) return new Summary(mean, Double.NaN, Double.NaN, Double.NaN);
+
+            double squares = 0;
+            for (double[] repetition : values) {
+                squares += (repetition[metric] - mean) * (repetition[metric] - mean);
+            }
+            double stddev = Math.sqrt(squares / (n - 1));
+            double t = new TDistribution(n - 1).inverseCumulativeProbability(1 - (1 - CONFIDENCE_LEVEL) / 2);
+            double halfWidth = t * stddev / Math.sqrt(n);
+            return new Summary(mean, stddev, mean - halfWidth, mean + halfWidth);
+        }
+    }
+}
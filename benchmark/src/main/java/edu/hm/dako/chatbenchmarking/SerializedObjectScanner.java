@@ -0,0 +1,366 @@
+package edu.hm.dako.chatbenchmarking;
+
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prüft, ob das nächste Objekt eines Java-Objektstroms vollständig im Empfangspuffer liegt, ohne es zu dekodieren<br/>
+ * Der Scanner läuft die Grammatik des Serialisierungsformats ab (Objekte, Strings, Arrays, Enums,
+ * Klassenbeschreibungen, Block-Daten) und führt dazu eine eigene Handle-Tabelle parallel zum ObjectInputStream, damit
+ * Rückverweise auf Klassenbeschreibungen früherer Objekte aufgelöst werden können. Ist das Objekt unvollständig,
+ * werden die während des Versuchs angelegten Handles zurückgenommen und der nächste Versuch beginnt wieder am Anfang
+ * des Objekts. Klassen mit eigener writeObject-Methode müssen ihre Felder zuerst schreiben (defaultWriteObject bzw.
+ * writeFields), wie es Vector, ArrayList und HashMap tun.
+ *
+ * @author Lerngruppe
+ */
+class SerializedObjectScanner implements ObjectStreamConstants {
+
+    /**
+     * Signal für ein unvollständiges Objekt, ohne Stacktrace
+     */
+    private static final IncompleteException INCOMPLETE = new IncompleteException();
+
+    /**
+     * Markierung für ein TC_ENDBLOCKDATA und für Handles ohne Klassenbeschreibung
+     */
+    private static final Object END_BLOCK_DATA = new Object();
+    private static final Object OTHER_HANDLE = new Object();
+
+    /**
+     * Handle-Tabelle: Klassenbeschreibung oder {@link #OTHER_HANDLE}, Index = Handle - baseWireHandle
+     */
+    private List<Object> handles = new ArrayList<>();
+
+    /**
+     * Puffer und Position des aktuellen Versuchs
+     */
+    private ByteBuffer buffer;
+    private int pos;
+    private int end;
+
+    /**
+     * Länge des nächsten vollständigen Objekts bestimmen, vorangehende TC_RESET werden mitgezählt
+     *
+     * @param buffer Empfangspuffer
+     * @param from   Beginn des nächsten Objekts
+     * @param to     Ende der empfangenen Bytes
+     * @return Länge in Byte oder -1, wenn das Objekt noch nicht vollständig empfangen wurde
+     * @throws StreamCorruptedException unbekanntes oder nicht unterstütztes Element im Objektstrom
+     */
+    int scan(ByteBuffer buffer, int from, int to) throws StreamCorruptedException {
+        this.buffer = buffer;
+        this.pos = from;
+        this.end = to;
+        int mark = handles.size();
+        List<Object> beforeReset = null;
+        try {
+            while (peekByte() == TC_RESET) {
+                pos++;
+                if (beforeReset == null) beforeReset = new ArrayList<>(handles);
+                handles.clear();
+            }
+            if (content() == END_BLOCK_DATA) throw new StreamCorruptedException("TC_ENDBLOCKDATA ohne Block");
+            return pos - from;
+        } catch (StreamCorruptedException e) {
+            throw e;
+        } catch (IOException e) {
+            // nur IncompleteException möglich: Handles dieses Versuchs zurücknehmen
+            if (beforeReset != null) {
+                handles = beforeReset;
+            } else {
+                handles.subList(mark, handles.size()).clear();
+            }
+            return -1;
+        } finally {
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl der Handles, die der Scanner kennt
+     */
+    int getNumberOfHandles() {
+        return handles.size();
+    }
+
+    /**
+     * ein Element des Objektstroms überspringen
+     *
+     * @return Klassenbeschreibung, {@link #END_BLOCK_DATA} oder ein beliebiges anderes Objekt
+     */
+    private Object content() throws IOException {
+        byte tc = peekByte();
+        switch (tc) {
+            case TC_NULL -> {
+                pos++;
+                return OTHER_HANDLE;
+            }
+            case TC_REFERENCE -> {
+                pos++;
+                return handle(readInt());
+            }
+            case TC_CLASSDESC, TC_PROXYCLASSDESC -> {
+                return classDesc();
+            }
+            case TC_STRING -> {
+                pos++;
+                skip(readUnsignedShort());
+                newHandle(OTHER_HANDLE);
+                return OTHER_HANDLE;
+            }
+            case TC_LONGSTRING -> {
+                pos++;
+                skip(readLong());
+                newHandle(OTHER_HANDLE);
+                return OTHER_HANDLE;
+            }
+            case TC_CLASS -> {
+                pos++;
+                classDesc();
+                newHandle(OTHER_HANDLE);
+                return OTHER_HANDLE;
+            }
+            case TC_ENUM -> {
+                pos++;
+                classDesc();
+                newHandle(OTHER_HANDLE);
+                content();
+                return OTHER_HANDLE;
+            }
+            case TC_ARRAY -> {
+                pos++;
+                ClassDesc desc = classDesc();
+                newHandle(OTHER_HANDLE);
+                int size = readInt();
+                char componentType = desc.name.charAt(1);
+                if (componentType == 'L' || componentType == '[') {
+                    for (int i = 0; i < size; i++) {
+                        content();
+                    }
+                } else {
+                    skip((long) size * primitiveSize(componentType));
+                }
+                return OTHER_HANDLE;
+            }
+            case TC_OBJECT -> {
+                pos++;
+                ClassDesc desc = classDesc();
+                newHandle(OTHER_HANDLE);
+                classData(desc);
+                return OTHER_HANDLE;
+            }
+            case TC_BLOCKDATA -> {
+                pos++;
+                skip(readUnsignedByte());
+                return OTHER_HANDLE;
+            }
+            case TC_BLOCKDATALONG -> {
+                pos++;
+                skip(readInt());
+                return OTHER_HANDLE;
+            }
+            case TC_ENDBLOCKDATA -> {
+                pos++;
+                return END_BLOCK_DATA;
+            }
+            default -> throw new StreamCorruptedException(String.format("nicht unterstütztes Element: %02X", tc));
+        }
+    }
+
+    /**
+     * Klassenbeschreibung lesen oder auflösen
+     *
+     * @return Klassenbeschreibung, null für TC_NULL
+     */
+    private ClassDesc classDesc() throws IOException {
+        byte tc = readByte();
+        switch (tc) {
+            case TC_NULL -> {
+                return null;
+            }
+            case TC_REFERENCE -> {
+                Object desc = handle(readInt());
+                if (!(desc instanceof ClassDesc)) throw new StreamCorruptedException("Verweis auf keine Klasse");
+                return (ClassDesc) desc;
+            }
+            case TC_CLASSDESC -> {
+                ClassDesc desc = new ClassDesc(readUtf());
+                skip(8);
+                newHandle(desc);
+                desc.flags = readByte();
+                int numberOfFields = readUnsignedShort();
+                desc.fieldTypes = new char[numberOfFields];
+                for (int i = 0; i < numberOfFields; i++) {
+                    desc.fieldTypes[i] = (char) readUnsignedByte();
+                    skip(readUnsignedShort());
+                    if (desc.fieldTypes[i] == 'L' || desc.fieldTypes[i] == '[') content();
+                }
+                skipAnnotation();
+                desc.superDesc = classDesc();
+                return desc;
+            }
+            case TC_PROXYCLASSDESC -> {
+                ClassDesc desc = new ClassDesc("");
+                newHandle(desc);
+                desc.flags = SC_SERIALIZABLE;
+                desc.fieldTypes = new char[0];
+                int numberOfInterfaces = readInt();
+                for (int i = 0; i < numberOfInterfaces; i++) {
+                    skip(readUnsignedShort());
+                }
+                skipAnnotation();
+                desc.superDesc = classDesc();
+                return desc;
+            }
+            default -> throw new StreamCorruptedException(String.format("Klassenbeschreibung erwartet: %02X", tc));
+        }
+    }
+
+    /**
+     * Felder eines Objekts überspringen, von der obersten serialisierbaren Oberklasse abwärts
+     *
+     * @param desc Klassenbeschreibung des Objekts
+     */
+    private void classData(ClassDesc desc) throws IOException {
+        List<ClassDesc> hierarchy = new ArrayList<>();
+        for (ClassDesc d = desc; d != null; d = d.superDesc) {
+            hierarchy.add(0, d);
+        }
+        for (ClassDesc d : hierarchy) {
+            if ((d.flags & SC_EXTERNALIZABLE) != 0) {
+                if ((d.flags & SC_BLOCK_DATA) == 0) {
+                    throw new StreamCorruptedException("Externalizable ohne Block-Daten: " + d.name);
+                }
+                skipAnnotation();
+            } else if ((d.flags & SC_SERIALIZABLE) != 0) {
+                for (char type : d.fieldTypes) {
+                    if (type == 'L' || type == '[') {
+                        content();
+                    } else {
+                        skip(primitiveSize(type));
+                    }
+                }
+                if ((d.flags & SC_WRITE_METHOD) != 0) skipAnnotation();
+            }
+        }
+    }
+
+    /**
+     * Elemente bis einschließlich TC_ENDBLOCKDATA überspringen
+     */
+    private void skipAnnotation() throws IOException {
+        while (content() != END_BLOCK_DATA) {
+            // weiter bis zum Ende des Blocks
+        }
+    }
+
+    private static int primitiveSize(char type) throws StreamCorruptedException {
+        return switch (type) {
+            case 'B', 'Z' -> 1;
+            case 'C', 'S' -> 2;
+            case 'I', 'F' -> 4;
+            case 'J', 'D' -> 8;
+            default -> throw new StreamCorruptedException("unbekannter Feldtyp: " + type);
+        };
+    }
+
+    private void newHandle(Object value) {
+        handles.add(value);
+    }
+
+    private Object handle(int handle) throws StreamCorruptedException {
+        int index = handle - baseWireHandle;
+        if (index < 0 || index >= handles.size()) throw new StreamCorruptedException("ungültiges Handle: " + handle);
+        return handles.get(index);
+    }
+
+    private void need(long n) throws IOException {
+        if (end - pos < n) throw INCOMPLETE;
+    }
+
+    private void skip(long n) throws IOException {
+        need(n);
+        pos += (int) n;
+    }
+
+    private byte peekByte() throws IOException {
+        need(1);
+        return buffer.get(pos);
+    }
+
+    private byte readByte() throws IOException {
+        need(1);
+        return buffer.get(pos++);
+    }
+
+    private int readUnsignedByte() throws IOException {
+        return readByte() & 0xff;
+    }
+
+    private int readUnsignedShort() throws IOException {
+        need(2);
+        int value = buffer.getShort(pos) & 0xffff;
+        pos += 2;
+        return value;
+    }
+
+    private int readInt() throws IOException {
+        need(4);
+        int value = buffer.getInt(pos);
+        pos += 4;
+        return value;
+    }
+
+    private long readLong() throws IOException {
+        need(8);
+        long value = buffer.getLong(pos);
+        pos += 8;
+        return value;
+    }
+
+    private String readUtf() throws IOException {
+        int length = readUnsignedShort();
+        need(length);
+        byte[] bytes = new byte[length];
+        buffer.get(pos, bytes);
+        pos += length;
+        // Klassennamen werden nur für den Komponententyp von Arrays gebraucht
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Objekt unvollständig empfangen
+     */
+    private static final class IncompleteException extends IOException {
+        private IncompleteException() {
+            super("Objekt unvollständig");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Klassenbeschreibung, soweit zum Überspringen der Objektdaten nötig
+     */
+    private static final class ClassDesc {
+        private final String name;
+        private byte flags;
+        private char[] fieldTypes;
+        private ClassDesc superDesc;
+
+        private ClassDesc(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package edu.hm.dako.chatbenchmarking;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Liest CPU-Zeit und GC-Zeit des Chat-Servers zu Beginn und am Ende eines Benchmarks über dessen Metrik-Endpunkt
+ * (/metrics/json, Server mit --metrics-port gestartet) und berechnet daraus die Auslastung des Servers während des
+ * Laufs. Ist der Endpunkt nicht erreichbar, bleiben die Werte NaN und der Benchmark läuft normal weiter.
+ *
+ * @author Lerngruppe
+ */
+public class ServerResourceWatch {
+    private static final Logger log = LogManager.getLogger(ServerResourceWatch.class);
+
+    /**
+     * Timeout für Verbindungsaufbau und Lesen in ms
+     */
+    private static final int TIMEOUT_IN_MILLIS = 2000;
+
+    /**
+     * ein ungelabelter Wert bzw. die Werte eines gelabelten Metrik-Objekts in /metrics/json
+     */
+    private static final String VALUE = "\"%s\":(-?[0-9.]+)";
+    private static final String OBJECT = "\"%s\":\\{([^}]*)}";
+    private static final Pattern NUMBER = Pattern.compile(":(-?[0-9.]+)");
+
+    /**
+     * URL des Metrik-Endpunkts
+     */
+    private final String url;
+
+    /**
+     * Messwerte zu Beginn und am Ende, null wenn nicht gelesen
+     */
+    private Sample start;
+    private Sample end;
+
+    /**
+     * Konstruktor
+     *
+     * @param url URL des Metrik-Endpunkts, z.B. http://localhost:9100/metrics/json
+     */
+    public ServerResourceWatch(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Ausgangswerte lesen
+     */
+    public void start() {
+        start = read();
+    }
+
+    /**
+     * Endwerte lesen
+     */
+    public void stop() {
+        end = read();
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn Anfangs- und Endwerte gelesen werden konnten
+     */
+    public boolean isAvailable() {
+        return start != null && end != null && end.wallClockTime > start.wallClockTime;
+    }
+
+    /**
+     * getter
+     *
+     * @return durchschnittliche CPU-Auslastung des Server-Prozesses über alle Kerne (0 bis 1), NaN wenn nicht
+     * verfügbar
+     */
+    public double getCpuUtilisation() {
+        if (!isAvailable() || Double.isNaN(start.cpuSeconds) || end.processors <= 0) return Double.NaN;
+        return (end.cpuSeconds - start.cpuSeconds) / end.processors / getElapsedSeconds();
+    }
+
+    /**
+     * getter
+     *
+     * @return GC-Zeit des Servers während des Laufs in ms, NaN wenn nicht verfügbar
+     */
+    public double getGcTimeMillis() {
+        if (!isAvailable()) return Double.NaN;
+        return end.gcMillis - start.gcMillis;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anteil der GC-Zeit des Servers an der Laufzeit (0 bis 1), NaN wenn nicht verfügbar
+     */
+    public double getGcTimeShare() {
+        return getGcTimeMillis() / (getElapsedSeconds() * 1000);
+    }
+
+    /**
+     * Ressourcenverbrauch des Servers als Text
+     *
+     * @return Text, Hinweis wenn der Endpunkt nicht erreichbar war
+     */
+    public String format() {
+        if (!isAvailable()) return "Ressourcen des Servers: Metrik-Endpunkt " + url + " nicht erreichbar";
+        return String.format(Locale.ROOT, "Ressourcen des Servers: CPU %.1f %% (%d Kerne), GC-Zeit %.0f ms (%.1f %%)",
+                getCpuUtilisation() * 100, end.processors, getGcTimeMillis(), getGcTimeShare() * 100);
+    }
+
+    private double getElapsedSeconds() {
+        return (end.wallClockTime - start.wallClockTime) / 1_000_000_000.0;
+    }
+
+    /**
+     * Metrik-Endpunkt lesen
+     *
+     * @return Messwerte, null bei Fehlern
+     */
+    private Sample read() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(TIMEOUT_IN_MILLIS);
+            connection.setReadTimeout(TIMEOUT_IN_MILLIS);
+            String json;
+            try (InputStream in = connection.getInputStream()) {
+                json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } finally {
+                connection.disconnect();
+            }
+            return new Sample(System.nanoTime(), value(json, "jvm_process_cpu_seconds"),
+                    (int) value(json, "jvm_available_processors"), sum(json, "jvm_gc_time_milliseconds"));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Metrik-Endpunkt " + url + " nicht lesbar: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * ungelabelten Wert aus /metrics/json lesen
+     *
+     * @param json Antwort des Endpunkts
+     * @param name Name der Metrik
+     * @return Wert, NaN wenn nicht vorhanden
+     */
+    private static double value(String json, String name) {
+        Matcher matcher = Pattern.compile(String.format(VALUE, name)).matcher(json);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    /**
+     * Werte einer gelabelten Metrik aus /metrics/json summieren
+     *
+     * @param json Antwort des Endpunkts
+     * @param name Name der Metrik
+     * @return Summe über alle Label-Werte, 0 wenn nicht vorhanden
+     */
+    private static double sum(String json, String name) {
+        Matcher matcher = Pattern.compile(String.format(OBJECT, name)).matcher(json);
+        double sum = 0;
+        if (matcher.find()) {
+            Matcher number = NUMBER.matcher(matcher.group(1));
+            while (number.find()) {
+                sum += Double.parseDouble(number.group(1));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Messwerte zu einem Zeitpunkt
+     *
+     * @param wallClockTime Zeitpunkt (System.nanoTime)
+     * @param cpuSeconds    CPU-Zeit des Server-Prozesses in s
+     * @param processors    Anzahl Kerne des Servers
+     * @param gcMillis      GC-Zeit aller Collectors in ms
+     */
+    private record Sample(long wallClockTime, double cpuSeconds, int processors, double gcMillis) {
+    }
+}
@@ -1,12 +1,6 @@
 package edu.hm.dako.chatbenchmarking;
 
-import org.apache.commons.math3.exception.MathIllegalArgumentException;
-import org.apache.commons.math3.stat.descriptive.moment.Mean;
-import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
-import org.apache.commons.math3.stat.descriptive.moment.Variance;
-import org.apache.commons.math3.stat.descriptive.rank.Max;
-import org.apache.commons.math3.stat.descriptive.rank.Min;
-import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import edu.hm.dako.common.metrics.LatencyHistogram;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.BufferedWriter;
@@ -15,16 +9,24 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Formatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Die Klasse sammelt Statistikdaten zur Ermittlung von Round Trip Times (RTT) für einen Test zur
  * Kommunikation zwischen mehreren Client-Threads und einem Server.
  * Die Daten werden in einem Array gesammelt, das einen Eintrag für jeden Client enthält.
  * Jeder Client erhält eine Nummer, die als Zugriffsindex auf das Array verwendet wird.
+ * <p>
+ * Das Erfassen kommt ohne Sperre aus: Jeder Eintrag wird nur vom Client-Thread (bzw. der Event-Loop) des Clients
+ * geschrieben, ein Feld immer nur von einem Thread (bei Open-Loop-Messungen zählt der Listener-Thread die Responses).
+ * Die Einträge sind gegen False Sharing aufgefüllt, summiert wird erst beim Auslesen. Die RTTs landen in einem
+ * Histogramm pro erfassendem Thread (Client-, Listener-Thread oder Event-Loop) mit fester Größe, die
+ * Verteilungsmetriken werden aus den zusammengeführten Histogrammen berechnet. Die maximale Heap-Belegung
+ * ermittelt ein eigener {@link HeapUsageSampler}.
  *
  * @author Peter Mandl, edited by Lerngruppe
  */
@@ -77,12 +79,42 @@ public class SharedClientStatistics {
     /**
      * Zählt angemeldete Clients
      */
-    private int numberOfLoggedInClients;
+    private final AtomicInteger numberOfLoggedInClients = new AtomicInteger();
 
     /**
      * Zählt abgemeldete Clients
      */
-    private int numberOfLoggedOutClients;
+    private final AtomicInteger numberOfLoggedOutClients = new AtomicInteger();
+
+    /**
+     * Genauigkeit der RTT-Histogramme in Bits des exakt gezählten Bereichs
+     */
+    private final int rttHistogramBits;
+
+    /**
+     * RTT-Histogramme aller erfassenden Threads
+     */
+    private final Queue<LatencyHistogram> rttHistograms = new ConcurrentLinkedQueue<>();
+
+    /**
+     * RTT-Histogramm des aktuellen Threads, wird beim ersten Zugriff angelegt
+     */
+    private final ThreadLocal<LatencyHistogram> rttHistogram = ThreadLocal.withInitial(this::newRttHistogram);
+
+    /**
+     * Ermittelt die maximale Heap-Belegung während des Tests
+     */
+    private final HeapUsageSampler heapUsageSampler = new HeapUsageSampler();
+
+    /**
+     * Statistik pro Laststufe bei Open-Loop-Messungen, sonst null
+     */
+    private volatile OpenLoopStatistics openLoopStatistics;
+
+    /**
+     * Statistik der Login-Phase, null wenn nicht gesetzt
+     */
+    private volatile LoginStatistics loginStatistics;
 
     /**
      * Konstruktor
@@ -90,8 +122,10 @@ public class SharedClientStatistics {
      * @param numberOfClients  Anzahl an Clients
      * @param numberOfMessages Anzahl Nachrichten, die je Client gesendet werden sollen
      * @param clientThinkTime  Denkzeit
+     * @param rttPrecision     Genauigkeit der RTT-Histogramme in signifikanten Dezimalstellen (1 bis 4)
      */
-    public SharedClientStatistics(int numberOfClients, int numberOfMessages, int clientThinkTime) {
+    public SharedClientStatistics(int numberOfClients, int numberOfMessages, int clientThinkTime,
+                                  int rttPrecision) {
         this.numberOfClients = numberOfClients;
         this.numberOfMessages = numberOfMessages;
         this.clientThinkTime = clientThinkTime;
@@ -100,27 +134,28 @@ public class SharedClientStatistics {
         loginSignal = new CountDownLatch(numberOfClients);
         logoutSignal = new CountDownLatch(numberOfClients);
         clientStatistics = new ClientStatistics[numberOfClients];
+        rttHistogramBits = LatencyHistogram.subBucketBitsFor(Math.min(4, Math.max(1, rttPrecision)));
 
         // Initialisieren der Statistik-Tabelle
         for (int i = 0; i < numberOfClients; i++) {
             clientStatistics[i] = new ClientStatistics();
-            clientStatistics[i].receivedResponses = 0;
-            clientStatistics[i].sentRequests = 0;
-            clientStatistics[i].numberOfRetries = 0;
-            clientStatistics[i].numberOfSentEventMessages = 0;
-            clientStatistics[i].numberOfReceivedConfirmEvents = 0;
-            clientStatistics[i].numberOfLostConfirmEvents = 0;
-            clientStatistics[i].numberOfRetriedEvents = 0;
-            clientStatistics[i].averageRTT = 0;
-            clientStatistics[i].maxRTT = 0;
-            clientStatistics[i].minRTT = 0;
-            clientStatistics[i].sumRTT = 0;
-            clientStatistics[i].sumServerTime = 0;
-            clientStatistics[i].maxHeapSize = 0;
-            clientStatistics[i].rttList = new ArrayList<>();
         }
     }
 
+    /**
+     * Heap-Sampler starten, zu Beginn des Tests aufzurufen
+     */
+    public void startHeapSampling() {
+        heapUsageSampler.start();
+    }
+
+    /**
+     * Heap-Sampler beenden, nach dem Ende aller Clients aufzurufen
+     */
+    public void stopHeapSampling() {
+        heapUsageSampler.stopThread();
+    }
+
     /**
      * Test, ob Client-Id im gültigen Bereich ist
      *
@@ -155,12 +190,46 @@ public class SharedClientStatistics {
     }
 
     /**
-     * Anzahl der angemeldeten Clients erhöhen
+     * getter
+     *
+     * @return Statistik der Open-Loop-Messung, null bei Closed-Loop-Messungen
      */
-    public synchronized void increaseNumberOfLoggedInClients() {
-        numberOfLoggedInClients++;
+    public OpenLoopStatistics getOpenLoopStatistics() {
+        return openLoopStatistics;
+    }
+
+    /**
+     * setter, vor dem Start der Clients aufzurufen
+     *
+     * @param openLoopStatistics Statistik der Open-Loop-Messung
+     */
+    public void setOpenLoopStatistics(OpenLoopStatistics openLoopStatistics) {
+        this.openLoopStatistics = openLoopStatistics;
+    }
+
+    /**
+     * getter
+     *
+     * @return Statistik der Login-Phase, null wenn nicht gesetzt
+     */
+    public LoginStatistics getLoginStatistics() {
+        return loginStatistics;
+    }
+
+    /**
+     * setter, vor dem Start der Clients aufzurufen
+     *
+     * @param loginStatistics Statistik der Login-Phase
+     */
+    public void setLoginStatistics(LoginStatistics loginStatistics) {
+        this.loginStatistics = loginStatistics;
+    }
 
-        if (numberOfLoggedInClients == numberOfClients) {
+    /**
+     * Anzahl der angemeldeten Clients erhöhen
+     */
+    public void increaseNumberOfLoggedInClients() {
+        if (numberOfLoggedInClients.incrementAndGet() == numberOfClients) {
             log.debug("Alle " + numberOfClients + " Test-Clients angemeldet");
         }
     }
@@ -170,29 +239,55 @@ public class SharedClientStatistics {
      *
      * @return Anzahl eingeloggter Clients
      */
-    public synchronized int getNumberOfLoggedInClients() {
-        return numberOfLoggedInClients;
+    public int getNumberOfLoggedInClients() {
+        return numberOfLoggedInClients.get();
     }
 
     /**
      * Anzahl der abgemeldeten Clients erhöhen
      */
-    public synchronized void increaseNumberOfLoggedOutClients() {
-        numberOfLoggedOutClients++;
-        log.debug(numberOfLoggedOutClients + " Test-Clients abgemeldet");
-        if (numberOfLoggedOutClients == numberOfClients) {
+    public void increaseNumberOfLoggedOutClients() {
+        int loggedOut = numberOfLoggedOutClients.incrementAndGet();
+        log.debug(loggedOut + " Test-Clients abgemeldet");
+        if (loggedOut == numberOfClients) {
             log.debug("Alle " + numberOfClients + " Test-Clients abgemeldet");
         }
     }
 
     /**
-     * Anzahl der gesendeten Nachrichten eines Clients erhöhen
+     * Anzahl der gesendeten Nachrichten eines Clients erhöhen, nur vom sendenden Thread des Clients aufzurufen
      *
      * @param i Client-Id
      */
-    public synchronized void increaseSentMsgCounter(int i) {
+    public void increaseSentMsgCounter(int i) {
+        if (notInRange(i)) return;
+        ClientStatistics statistics = clientStatistics[i];
+        statistics.sentRequests = statistics.sentRequests + 1;
+    }
+
+    /**
+     * Zähler der vom Client empfangenen Events hinterlegen, damit die Events während des Tests gezählt werden können
+     *
+     * @param i       Client-Id
+     * @param counter Zähler, den der empfangende Thread des Clients erhöht
+     */
+    public void setEventCounter(int i, AtomicInteger counter) {
         if (notInRange(i)) return;
-        clientStatistics[i].sentRequests++;
+        clientStatistics[i].eventCounter = counter;
+    }
+
+    /**
+     * Anzahl der bisher von allen Clients empfangenen Events ermitteln, auch während des Tests
+     *
+     * @return Anzahl empfangener Events
+     */
+    public long getNumberOfReceivedEvents() {
+        long sum = 0;
+        for (int i = 0; i < numberOfClients; i++) {
+            AtomicInteger counter = clientStatistics[i].eventCounter;
+            if (counter != null) sum += counter.get();
+        }
+        return sum;
     }
 
     /**
@@ -201,7 +296,7 @@ public class SharedClientStatistics {
      * @param i  Nummer des Client-Threads
      * @param nr Anzahl der gesendeten Event-Nachrichten
      */
-    public synchronized void setNumberOfSentEventMessages(int i, long nr) {
+    public void setNumberOfSentEventMessages(int i, long nr) {
         if (notInRange(i)) return;
         clientStatistics[i].numberOfSentEventMessages = nr;
     }
@@ -212,7 +307,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl gesendeter Message Events
      */
-    public synchronized long getNumberOfSentEventMessages(int i) {
+    public long getNumberOfSentEventMessages(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].numberOfSentEventMessages;
     }
@@ -223,7 +318,7 @@ public class SharedClientStatistics {
      * @param i  Client-Id
      * @param nr Anzahl an verloren gegangenen Confirm-Nachrichten
      */
-    public synchronized void setNumberOfLostConfirmEvents(int i, long nr) {
+    public void setNumberOfLostConfirmEvents(int i, long nr) {
         if (notInRange(i)) return;
         clientStatistics[i].numberOfLostConfirmEvents = nr;
     }
@@ -234,7 +329,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl verlorener Confirm Events
      */
-    public synchronized long getNumberOfLostConfirmEvents(int i) {
+    public long getNumberOfLostConfirmEvents(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].numberOfLostConfirmEvents;
     }
@@ -245,7 +340,7 @@ public class SharedClientStatistics {
      * @param i  Client-Id
      * @param nr Anzahl an empfangenen Confirm-Nachrichten
      */
-    public synchronized void setNumberOfReceivedConfirmEvents(int i, long nr) {
+    public void setNumberOfReceivedConfirmEvents(int i, long nr) {
         if (notInRange(i)) return;
         clientStatistics[i].numberOfReceivedConfirmEvents = nr;
     }
@@ -256,7 +351,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl empfangener Confirm-Events
      */
-    public synchronized long getNumberOfReceivedConfirmEvents(int i) {
+    public long getNumberOfReceivedConfirmEvents(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].numberOfReceivedConfirmEvents;
     }
@@ -267,7 +362,7 @@ public class SharedClientStatistics {
      * @param i  Client-Id
      * @param nr Anzahl der Wiederholungen von Event-Nachrichten
      */
-    public synchronized void setNumberOfRetriedEvents(int i, long nr) {
+    public void setNumberOfRetriedEvents(int i, long nr) {
         if (notInRange(i)) return;
         clientStatistics[i].numberOfRetriedEvents = nr;
     }
@@ -278,43 +373,36 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl der Wiederholungen von Event-Nachrichten
      */
-    public synchronized long getNumberOfRetriedEvents(int i) {
+    public long getNumberOfRetriedEvents(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].numberOfRetriedEvents;
     }
 
     /**
-     * Anzahl der empfangenen Nachrichten eines Clients erhöhen
+     * Anzahl der empfangenen Nachrichten eines Clients erhöhen, nur vom empfangenden Thread des Clients aufzurufen
      *
      * @param i          Client-Id
      * @param rtt        RoundTrip Time
      * @param serverTime Die Zeit, die der Server benötigt hat
      */
-    public synchronized void increaseReceivedMsgCounter(int i, long rtt, long serverTime) {
+    public void increaseReceivedMsgCounter(int i, long rtt, long serverTime) {
         if (notInRange(i)) return;
+        ClientStatistics statistics = clientStatistics[i];
 
-        clientStatistics[i].receivedResponses++;
-
-        if (clientStatistics[i].receivedResponses > 1) {
-            clientStatistics[i].minRTT = Math.min(rtt, clientStatistics[i].minRTT);
-            clientStatistics[i].maxRTT = Math.max(rtt, clientStatistics[i].maxRTT);
+        if (statistics.receivedResponses > 0) {
+            statistics.minRTT = Math.min(rtt, statistics.minRTT);
+            statistics.maxRTT = Math.max(rtt, statistics.maxRTT);
         } else {
-            clientStatistics[i].minRTT = rtt;
-            clientStatistics[i].maxRTT = rtt;
+            statistics.minRTT = rtt;
+            statistics.maxRTT = rtt;
         }
 
-        clientStatistics[i].sumRTT = clientStatistics[i].sumRTT + rtt;
-        clientStatistics[i].averageRTT = clientStatistics[i].sumRTT
-                / clientStatistics[i].receivedResponses;
-        clientStatistics[i].sumServerTime = clientStatistics[i].sumServerTime + serverTime;
+        statistics.sumRTT = statistics.sumRTT + rtt;
+        statistics.sumServerTime = statistics.sumServerTime + serverTime;
+        rttHistogram.get().record(rtt);
 
-        clientStatistics[i].avgServerTime = clientStatistics[i].sumServerTime
-                / clientStatistics[i].receivedResponses;
-
-        clientStatistics[i].rttList.add(rtt);
-        if (clientStatistics[i].maxHeapSize < usedMemory()) {
-            clientStatistics[i].maxHeapSize = usedMemory();
-        }
+        // Zuletzt zählen, damit Leser mit dem Zähler auch die Zeiten sehen
+        statistics.receivedResponses = statistics.receivedResponses + 1;
     }
 
     /**
@@ -322,8 +410,8 @@ public class SharedClientStatistics {
      *
      * @return true angemeldet; false nicht angemeldet
      */
-    public synchronized boolean allClientsLoggedIn() {
-        return numberOfLoggedInClients == numberOfClients;
+    public boolean allClientsLoggedIn() {
+        return numberOfLoggedInClients.get() == numberOfClients;
     }
 
     /**
@@ -331,7 +419,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl empfangener Event-Confirm-Nachrichten
      */
-    public synchronized int getSumOfAllReceivedConfirmEvents() {
+    public int getSumOfAllReceivedConfirmEvents() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].numberOfReceivedConfirmEvents;
@@ -344,7 +432,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl verlorener Event-Confirm-Nachrichten
      */
-    public synchronized int getSumOfAllLostConfirmEvents() {
+    public int getSumOfAllLostConfirmEvents() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].numberOfLostConfirmEvents;
@@ -357,7 +445,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl verlorener Event-Nachrichten
      */
-    public synchronized int getSumOfAllRetriedEvents() {
+    public int getSumOfAllRetriedEvents() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].numberOfRetriedEvents;
@@ -370,7 +458,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl gesendeten Event-Nachrichten
      */
-    public synchronized int getSumOfAllSentEventMessages() {
+    public int getSumOfAllSentEventMessages() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].numberOfSentEventMessages;
@@ -383,7 +471,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl empfangener Nachrichten
      */
-    public synchronized int getSumOfAllReceivedMessages() {
+    public int getSumOfAllReceivedMessages() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].receivedResponses;
@@ -396,7 +484,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl Übertragungswiederholungen
      */
-    public synchronized int getSumOfAllRetries() {
+    public int getSumOfAllRetries() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].numberOfRetries;
@@ -409,7 +497,7 @@ public class SharedClientStatistics {
      *
      * @return Durchschnittliche RTT
      */
-    public synchronized long getAverageRTT() {
+    public long getAverageRTT() {
         long sum = 0;
         int nrClients = 0;
 
@@ -417,7 +505,7 @@ public class SharedClientStatistics {
             // Nur Threads, die mindestens eine Antwort bekommen haben,
             // verwenden
             if (clientStatistics[i].receivedResponses > 0) {
-                sum = sum + clientStatistics[i].averageRTT;
+                sum = sum + getAverageRTT(i);
                 nrClients++;
             }
         }
@@ -435,7 +523,9 @@ public class SharedClientStatistics {
      * @return Durchschnittliche RTT
      */
     public long getAverageRTT(int i) {
-        return clientStatistics[i].averageRTT;
+        ClientStatistics statistics = clientStatistics[i];
+        long received = statistics.receivedResponses;
+        return (received > 0) ? statistics.sumRTT / received : 0;
     }
 
     /**
@@ -443,7 +533,7 @@ public class SharedClientStatistics {
      *
      * @return Minimale RTT
      */
-    public synchronized long getMinimumRTT() {
+    public long getMinimumRTT() {
         long min = Long.MAX_VALUE;
         for (int i = 0; i < numberOfClients; i++) {
             // Nur Threads, die mindestens eine Antwort bekommen haben verwenden
@@ -464,7 +554,7 @@ public class SharedClientStatistics {
      *
      * @return Maximale RTT
      */
-    public synchronized long getMaximumRTT() {
+    public long getMaximumRTT() {
         long max = -1;
 
         for (int i = 0; i < numberOfClients; i++) {
@@ -487,7 +577,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl gesendeter Requests
      */
-    public synchronized int getNumberOfSentRequests() {
+    public int getNumberOfSentRequests() {
         int sum = 0;
 
         for (int i = 0; i < numberOfClients; i++) {
@@ -503,7 +593,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl gesendeter Requests des Clients i
      */
-    public synchronized int getNumberOfSentRequests(int i) {
+    public int getNumberOfSentRequests(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].sentRequests;
     }
@@ -513,7 +603,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl empfangener Responses
      */
-    public synchronized int getNumberOfReceivedResponses() {
+    public int getNumberOfReceivedResponses() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].receivedResponses;
@@ -527,7 +617,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl empfangenerResponses des Clients i
      */
-    public synchronized int getNumberOfReceivedResponses(int i) {
+    public int getNumberOfReceivedResponses(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].receivedResponses;
     }
@@ -537,7 +627,7 @@ public class SharedClientStatistics {
      *
      * @return Anzahl verlorenen Responses
      */
-    public synchronized int getNumberOfLostResponses() {
+    public int getNumberOfLostResponses() {
         int sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].sentRequests;
@@ -551,7 +641,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl verlorenen Responses des Clients i
      */
-    public synchronized int getNumberOfLostResponses(int i) {
+    public int getNumberOfLostResponses(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].sentRequests - getNumberOfReceivedResponses(i);
     }
@@ -562,7 +652,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Anzahl Übertragungswiederholungen des Clients i
      */
-    public synchronized int getNumberOfRetries(int i) {
+    public int getNumberOfRetries(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].numberOfRetries;
     }
@@ -573,7 +663,7 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return RTT oder -1 bei falscher Client-Id
      */
-    public synchronized long getSumRTT(int i) {
+    public long getSumRTT(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].sumRTT;
     }
@@ -583,7 +673,7 @@ public class SharedClientStatistics {
      *
      * @return RTT
      */
-    public synchronized long getSumRTT() {
+    public long getSumRTT() {
         long sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].sumRTT;
@@ -597,88 +687,89 @@ public class SharedClientStatistics {
      * @param i Client-Id
      * @return Serverzeit
      */
-    public synchronized long getSumServerTime(int i) {
+    public long getSumServerTime(int i) {
         if (notInRange(i)) return (-1);
         return clientStatistics[i].sumServerTime;
     }
 
     /**
-     * Gesamtliste über alle RTTs bilden
+     * Verteilungsmetriken über die RTTs aller Clients berechnen, Perzentile, Mittelwert und Standardabweichung aus
+     * den RTT-Histogrammen, Minimum und Maximum exakt
      *
-     * @return ArrayList
+     * @return Verteilungsmetriken in ms
      */
-    public synchronized DistributionMetrics calculateMetrics() {
-        ArrayList<Long> completeList = new ArrayList<>();
+    public DistributionMetrics calculateMetrics() {
         DistributionMetrics distributionMetrics = new DistributionMetrics();
-
-        // RTT-Listen aller Clients zusammenfügen
-        for (int i = 0; i < numberOfClients; i++) {
-            completeList.addAll(clientStatistics[i].rttList);
+        LatencyHistogram.Snapshot rtts = getRttSnapshot();
+        if (rtts.getTotalCount() == 0) {
+            log.error("Keine RTTs für die Berechnung der Verteilungsmetriken");
+            return distributionMetrics;
         }
 
-        // Sortieren der gesamten RTT-Liste
-        Collections.sort(completeList);
-        double[] doubleList = new double[completeList.size()];
+        distributionMetrics.setPercentile10(rtts.getValueAtPercentile(10) / 1000000.0);
+        distributionMetrics.setPercentile25(rtts.getValueAtPercentile(25) / 1000000.0);
+        distributionMetrics.setPercentile50(rtts.getValueAtPercentile(50) / 1000000.0);
+        distributionMetrics.setPercentile75(rtts.getValueAtPercentile(75) / 1000000.0);
+        distributionMetrics.setPercentile90(rtts.getValueAtPercentile(90) / 1000000.0);
 
-        try {
-            // RTT-Werte konvertieren zu double-Werten
-            for (int i = 0; i < completeList.size(); i++) {
-                doubleList[i] = completeList.get(i).doubleValue();
-            }
+        distributionMetrics.setInterQuartilRange(
+                distributionMetrics.percentile75 - distributionMetrics.percentile25);
 
-            // Percentile berechnen
-            Percentile percentile = new Percentile();
-            percentile.setData(doubleList);
-            distributionMetrics.setPercentile10(percentile.evaluate(10) / 1000000.0);
-            distributionMetrics.setPercentile25(percentile.evaluate(25) / 1000000.0);
-            distributionMetrics.setPercentile50(percentile.evaluate(50) / 1000000.0);
-            distributionMetrics.setPercentile75(percentile.evaluate(75) / 1000000.0);
-            distributionMetrics.setPercentile90(percentile.evaluate(90) / 1000000.0);
-
-            distributionMetrics.setInterQuartilRange(
-                    distributionMetrics.percentile75 - distributionMetrics.percentile25);
-
-            // Maximum berechnen
-            Max max = new Max();
-            max.setData(doubleList);
-            distributionMetrics.setMaximum(max.evaluate() / 1000000.0);
-
-            // Minimum berechnen
-            Min min = new Min();
-            min.setData(doubleList);
-            distributionMetrics.setMinimum(min.evaluate() / 1000000.0);
-
-            // Spannweite und IQR berechnen
-            distributionMetrics
-                    .setRange(distributionMetrics.maximum - distributionMetrics.minimum);
-
-            // Arithmetisches Mittel berechnen
-            Mean mean = new Mean();
-            mean.setData(doubleList);
-            distributionMetrics.setMean(mean.evaluate() / 1000000.0);
-
-            // Varianz berechnen
-            Variance variance = new Variance();
-            variance.setData(doubleList);
-            distributionMetrics.setVariance(variance.evaluate() / 1000000.0);
-
-            // Standardabweichung berechnen
-            StandardDeviation standardDeviation = new StandardDeviation();
-            standardDeviation.setData(doubleList);
-            distributionMetrics.setStandardDeviation(standardDeviation.evaluate() / 1000000.0);
-
-        } catch (MathIllegalArgumentException e) {
-            log.error("Fehler bei der Berechnung der Verteilungsmetriken");
-        }
+        distributionMetrics.setMaximum(getMaximumRTT() / 1000000.0);
+        distributionMetrics.setMinimum(getMinimumRTT() / 1000000.0);
+        distributionMetrics
+                .setRange(distributionMetrics.maximum - distributionMetrics.minimum);
+
+        distributionMetrics.setMean(rtts.getMean() / 1000000.0);
+        double standardDeviation = rtts.getStandardDeviation() / 1000000.0;
+        distributionMetrics.setVariance(standardDeviation * standardDeviation);
+        distributionMetrics.setStandardDeviation(standardDeviation);
         return distributionMetrics;
     }
 
+    /**
+     * RTT-Verteilung über alle Clients seit dem Start
+     *
+     * @return zusammengeführte Histogramme aller erfassenden Threads, RTTs in ns
+     */
+    public LatencyHistogram.Snapshot getRttSnapshot() {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty(rttHistogramBits);
+        for (LatencyHistogram histogram : rttHistograms) {
+            merged = merged.merge(histogram.snapshot());
+        }
+        return merged;
+    }
+
+    /**
+     * RTT-Verteilung über alle Clients seit dem letzten Aufruf, nur von einem Thread aufzurufen (Zeitreihe)
+     *
+     * @return zusammengeführte Intervall-Snapshots aller erfassenden Threads, RTTs in ns
+     */
+    public LatencyHistogram.Snapshot getRttIntervalSnapshot() {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty(rttHistogramBits);
+        for (LatencyHistogram histogram : rttHistograms) {
+            merged = merged.merge(histogram.intervalSnapshot());
+        }
+        return merged;
+    }
+
+    /**
+     * RTT-Histogramm für einen erfassenden Thread anlegen
+     *
+     * @return Histogramm
+     */
+    private LatencyHistogram newRttHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram(rttHistogramBits);
+        rttHistograms.add(histogram);
+        return histogram;
+    }
+
     /**
      * Gesamte Serverzeit über alle Clients ermitteln
      *
      * @return Serverzeit
      */
-    public synchronized long getSumServerTime() {
+    public long getSumServerTime() {
         long sum = 0;
         for (int i = 0; i < numberOfClients; i++) {
             sum += clientStatistics[i].sumServerTime;
@@ -691,15 +782,16 @@ public class SharedClientStatistics {
      *
      * @return Serverbearbeitungszeit
      */
-    public synchronized long getAverageServerTime() {
+    public long getAverageServerTime() {
         long sum = 0;
         long nrClients = 0;
 
         for (int i = 0; i < numberOfClients; i++) {
             // Nur Threads, die mindestens eine Antwort bekommen haben,
             // verwenden
-            if (clientStatistics[i].receivedResponses > 0) {
-                sum = sum + clientStatistics[i].avgServerTime;
+            long received = clientStatistics[i].receivedResponses;
+            if (received > 0) {
+                sum = sum + clientStatistics[i].sumServerTime / received;
                 nrClients++;
             }
         }
@@ -711,23 +803,21 @@ public class SharedClientStatistics {
     }
 
     /**
-     * Maximale Heap-Größe über alle Clients ermitteln
+     * Maximale Heap-Größe während des Tests ermitteln
      *
-     * @return Maximale Heap-Größe
+     * @return Maximale Heap-Größe in Bytes
      */
-    public synchronized long getMaxHeapSize() {
-        long max = -1;
+    public long getMaxHeapSize() {
+        return heapUsageSampler.getMaxUsedHeap();
+    }
 
-        for (int i = 0; i < numberOfClients; i++) {
-            // Nur Threads, die mindestens eine Antwort bekommen haben,
-            // verwenden
-            if (clientStatistics[i].receivedResponses > 0) {
-                if (clientStatistics[i].maxHeapSize > max) {
-                    max = clientStatistics[i].maxHeapSize;
-                }
-            }
-        }
-        return max;
+    /**
+     * Heap-Belegung der letzten Messung ermitteln
+     *
+     * @return Heap-Belegung in Bytes
+     */
+    public long getCurrentHeapSize() {
+        return heapUsageSampler.getLastUsedHeap();
     }
 
     /**
@@ -735,7 +825,7 @@ public class SharedClientStatistics {
      *
      * @param i Client-Id
      */
-    public synchronized void printClientStatistic(int i) {
+    public void printClientStatistic(int i) {
         if (notInRange(i)) return;
 
         System.out
@@ -766,10 +856,10 @@ public class SharedClientStatistics {
     /**
      * Ausgabe aller Statistikdaten
      */
-    public synchronized void printStatistic() {
+    public void printStatistic() {
         NumberFormat n = NumberFormat.getInstance();
         // n.setMaximumFractionDigits(2);
-        String usedMemoryAsString = n.format(usedMemory() / (1024 << 10));
+        String usedMemoryAsString = n.format(getMaxHeapSize() / (1024 << 10));
 
         System.out.println(
                 "*********************************************************************" + "\n"
@@ -934,58 +1024,52 @@ public class SharedClientStatistics {
     }
 
     /**
-     * Berechnet den tatsächlich benutzten Heap-Speicher Heap-Größe in MiB
-     *
-     * @return Verwendeter Heap-Speicher
+     * Auffüllung vor den Statistikdaten eines Clients gegen False Sharing mit dem vorherigen Eintrag
      */
-    private long usedMemory() {
-        Runtime r = Runtime.getRuntime();
-        return ((r.totalMemory() - r.freeMemory()));
+    @SuppressWarnings("unused")
+    private static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07, p08;
     }
 
     /**
-     * Statistikdaten eines Clients
+     * Statistikdaten eines Clients, jedes Feld hat genau einen schreibenden Thread. Die Zähler sind volatile, damit
+     * Auswertungen während des Tests konsistente Werte sehen.
      */
-    private static class ClientStatistics {
+    private static class ClientStatisticsFields extends LeftPadding {
         /**
          * Anzahl gesendeter Nachrichten
          */
-        int sentRequests;
+        volatile int sentRequests;
 
         /**
-         * Anzahl empfangener Antworten
+         * Anzahl empfangener Antworten, wird nach den zugehörigen RTT-Werten erhöht
          */
-        int receivedResponses;
+        volatile int receivedResponses;
 
         /**
          * Anzahl an Übertragungswiederholungen (für unzuverlässige Verbindungen wie UDP)
          */
-        int numberOfRetries;
+        volatile int numberOfRetries;
 
         /**
          * Anzahl gesendeter Events für den Client
          */
-        long numberOfSentEventMessages;
+        volatile long numberOfSentEventMessages;
 
         /**
          * Anzahl empfangener Responses für den Client
          */
-        long numberOfReceivedConfirmEvents;
+        volatile long numberOfReceivedConfirmEvents;
 
         /**
          * Anzahl verlorener Event-Bestätigungen für den Client
          */
-        long numberOfLostConfirmEvents;
+        volatile long numberOfLostConfirmEvents;
 
         /**
          * Anzahl von wiederholten Events für den Client (für unzuverlässige Verbindungen wie UDP)
          */
-        long numberOfRetriedEvents;
-
-        /**
-         * Durchschnittliche Round Trip Time in ns
-         */
-        long averageRTT;
+        volatile long numberOfRetriedEvents;
 
         /**
          * Maximale Round Trip Time in ns
@@ -1002,24 +1086,22 @@ public class SharedClientStatistics {
          */
         long sumRTT;
 
-        /**
-         * Alle RTTs werden hier für die Quartils-Ermittlung gesammelt
-         */
-        ArrayList<Long> rttList;
-
         /**
          * Zeit, die der Server insgesamt für alle Requests benötigt in ns
          */
         long sumServerTime;
 
         /**
-         * Zeit, die der Server im Durchschnitt für einen Request benötigt in ns
+         * Zähler der empfangenen Events, gehört dem Client
          */
-        long avgServerTime;
+        volatile AtomicInteger eventCounter;
+    }
 
-        /**
-         * Maximale Heap-Größe in Bytes während eines Testlaufs
-         */
-        long maxHeapSize;
+    /**
+     * Statistikdaten eines Clients mit Auffüllung gegen False Sharing mit dem nächsten Eintrag
+     */
+    @SuppressWarnings("unused")
+    private static class ClientStatistics extends ClientStatisticsFields {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package edu.hm.dako.chatbenchmarking;
+
+import edu.hm.dako.common.metrics.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread schreibt während des Benchmarks in festen Intervallen eine Zeile mit den Werten des letzten Intervalls in
+ * eine Datei: gesendete Requests, empfangene Responses und Events pro Sekunde, p50, p99 und Maximum der RTT, CPU-
+ * Auslastung des Benchmark-Prozesses und Heap-Belegung. Endet der Dateiname auf .json oder .jsonl, wird pro Zeile ein
+ * JSON-Objekt geschrieben, sonst CSV mit Kopfzeile. Die Datei wird pro Lauf neu angelegt und jede Zeile sofort
+ * geschrieben, damit Einschwingphase, GC-Pausen und Einbrüche schon während des Laufs sichtbar sind.
+ *
+ * @author Lerngruppe
+ */
+public class TimeSeriesRecorder extends Thread {
+    private static final Logger log = LogManager.getLogger(TimeSeriesRecorder.class);
+
+    /**
+     * Spalten der CSV-Datei bzw. Namen der JSON-Felder
+     */
+    private static final String[] COLUMNS = {"time", "elapsed_s", "logged_in_clients", "sent", "received",
+            "sent_per_s", "received_per_s", "events_per_s", "rtt_p50_ms", "rtt_p99_ms", "rtt_max_ms", "cpu_percent",
+            "heap_mb"};
+
+    private final SharedClientStatistics sharedData;
+    private final CpuUtilisationWatch cpuUtilisationWatch;
+    private final String fileName;
+    private final long intervalMillis;
+    private final boolean json;
+
+    private volatile boolean running = true;
+
+    /**
+     * Zählerstände und Zeitpunkt (System.nanoTime) am Ende des letzten Intervalls
+     */
+    private long lastSent;
+    private long lastReceived;
+    private long lastEvents;
+    private long lastTime;
+    private long startTime;
+
+    /**
+     * Konstruktor
+     *
+     * @param sharedData          Statistikdaten der Clients
+     * @param cpuUtilisationWatch CPU-Messung des Benchmark-Prozesses
+     * @param fileName            Name der Datei, .json oder .jsonl für JSON-Zeilen, sonst CSV
+     * @param intervalMillis      Länge eines Intervalls in ms
+     */
+    public TimeSeriesRecorder(SharedClientStatistics sharedData, CpuUtilisationWatch cpuUtilisationWatch,
+                              String fileName, int intervalMillis) {
+        setName("TimeSeriesRecorder");
+        setDaemon(true);
+        this.sharedData = sharedData;
+        this.cpuUtilisationWatch = cpuUtilisationWatch;
+        this.fileName = fileName;
+        this.intervalMillis = Math.max(1, intervalMillis);
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        this.json = lowerCaseName.endsWith(".json") || lowerCaseName.endsWith(".jsonl");
+    }
+
+    /**
+     * Run-Methode für den Thread: Schreibt am Ende jedes Intervalls eine Zeile, beim Beenden eine letzte für das
+     * angebrochene Intervall
+     */
+    @Override
+    public void run() {
+        log.debug(getName() + " gestartet");
+
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
+            if (!json) {
+                out.write(String.join(",", COLUMNS));
+                out.newLine();
+                out.flush();
+            }
+
+            startTime = System.nanoTime();
+            lastTime = startTime;
+            long nextTime = startTime;
+            while (running) {
+                // Ist der Thread im Verzug, nicht mit kurzen Intervallen aufholen
+                nextTime = Math.max(nextTime + intervalMillis * 1000000L, System.nanoTime());
+                long remaining = nextTime - System.nanoTime();
+                if (remaining > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(remaining);
+                    } catch (InterruptedException e) {
+                        log.debug("Sleep unterbrochen");
+                    }
+                }
+                writeSample(out);
+            }
+            System.out.println("Zeitreihe in Datei " + fileName + " geschrieben");
+        } catch (IOException e) {
+            log.error("Fehler beim Schreiben der Zeitreihe in Datei " + fileName);
+        }
+    }
+
+    /**
+     * Beenden des Threads, wartet auf die letzte Zeile
+     */
+    public void stopThread() {
+        running = false;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug(getName() + " gestoppt");
+    }
+
+    /**
+     * Werte des abgelaufenen Intervalls ermitteln und als Zeile schreiben
+     *
+     * @param out Ausgabedatei
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writeSample(BufferedWriter out) throws IOException {
+        long now = System.nanoTime();
+        long sent = sharedData.getNumberOfSentRequests();
+        long received = sharedData.getSumOfAllReceivedMessages();
+        long events = sharedData.getNumberOfReceivedEvents();
+        LatencyHistogram.Snapshot rtts = sharedData.getRttIntervalSnapshot();
+        double seconds = Math.max(now - lastTime, 1) / 1_000_000_000.0;
+
+        Object[] values = {System.currentTimeMillis(), (now - startTime) / 1_000_000_000.0,
+                sharedData.getNumberOfLoggedInClients(), sent - lastSent, received - lastReceived,
+                (sent - lastSent) / seconds, (received - lastReceived) / seconds, (events - lastEvents) / seconds,
+                rtts.getValueAtPercentile(50) / 1000000.0, rtts.getValueAtPercentile(99) / 1000000.0,
+                rtts.getMax() / 1000000.0, cpuUtilisationWatch.getIntervalCpuUtilisation() * 100.0,
+                sharedData.getCurrentHeapSize() / (double) (1024 << 10)};
+
+        StringBuilder sb = new StringBuilder();
+        if (json) sb.append('{');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) sb.append(',');
+            if (json) sb.append('"').append(COLUMNS[i]).append("\":");
+            if (values[i] instanceof Double value) {
+                sb.append(String.format(Locale.ROOT, "%.3f", value));
+            } else {
+                sb.append(values[i]);
+            }
+        }
+        if (json) sb.append('}');
+        out.write(sb.toString());
+        out.newLine();
+        out.flush();
+
+        lastSent = sent;
+        lastReceived = received;
+        lastEvents = events;
+        lastTime = now;
+    }
+}
@@ -91,7 +91,7 @@ public class BenchmarkingClientFxGUI extends FxGUI implements BenchmarkingClient
     final ObservableList<String> implTypeOptions = FXCollections.observableArrayList(
             SystemConstants.IMPL_TCP_SIMPLE, SystemConstants.IMPL_TCP_ADVANCED);
     final ObservableList<String> measureTypeOptions = FXCollections
-            .observableArrayList("Variable Threads", "Variable Length");
+            .observableArrayList("Variable Threads", "Variable Length", "Open Loop", "Open Loop Ramp");
 
     /**
      * ComboBoxen
@@ -99,6 +99,13 @@ public class BenchmarkingClientFxGUI extends FxGUI implements BenchmarkingClient
     private ComboBox<String> optionListImplType;
     private ComboBox<String> optionListMeasureType;
 
+    /**
+     * Parameter der Open-Loop-Messung, nur über die Startparameter einstellbar
+     */
+    private int targetRate = 100;
+    private boolean poissonArrivals = true;
+    private int rampSteps = 5;
+
     /**
      * Eingabefelder
      */
@@ -239,10 +246,44 @@ public class BenchmarkingClientFxGUI extends FxGUI implements BenchmarkingClient
                     if (validation.getY()) textFieldNumberOfMaxRetries.setText(validation.getX().toString());
                 }
                 case "--measurement" -> {
-                    if ("var-length".equals(values[1])) {
-                        optionListMeasureType.setValue("Variable Length");
+                    switch (values[1]) {
+                        case "var-length" -> optionListMeasureType.setValue("Variable Length");
+                        case "open-loop" -> optionListMeasureType.setValue("Open Loop");
+                        case "open-loop-ramp" -> optionListMeasureType.setValue("Open Loop Ramp");
                     }
                 }
+                case "--rate" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) targetRate = validation.getX();
+                }
+                case "--arrivals" -> poissonArrivals = !"fixed".equals(values[1]);
+                case "--ramp-steps" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) rampSteps = validation.getX();
+                }
+                case "--event-loops" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) iParam.setNumberOfEventLoops(validation.getX());
+                }
+                case "--login-ramp" -> {
+                    switch (values[1]) {
+                        case "all" -> iParam.setLoginRamp(UserInterfaceInputParameters.LoginRampType.AllAtOnce);
+                        case "rate" -> iParam.setLoginRamp(UserInterfaceInputParameters.LoginRampType.FixedRate);
+                        case "staged" -> iParam.setLoginRamp(UserInterfaceInputParameters.LoginRampType.Staged);
+                    }
+                }
+                case "--login-rate" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) iParam.setLoginRate(validation.getX());
+                }
+                case "--login-stage-size" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) iParam.setLoginStageSize(validation.getX());
+                }
+                case "--login-stage-pause" -> {
+                    Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
+                    if (validation.getY()) iParam.setLoginStagePause(validation.getX());
+                }
                 case "--message-length" -> {
                     Tupel<Integer, Boolean> validation = BenchmarkingStarter.isPositiveNumber(values[1]);
                     if (validation.getY()) textFieldMessageLength.setText(validation.getX().toString());
@@ -726,7 +767,9 @@ public class BenchmarkingClientFxGUI extends FxGUI implements BenchmarkingClient
         String testString3 = textFieldNumberOfClientThreads.getText();
         if (testString3.matches("[0-9]+")) {
             int iClientThreads = Integer.parseInt(textFieldNumberOfClientThreads.getText());
-            if (iClientThreads < 1 || iClientThreads > BenchmarkingConstants.MAX_CLIENTS) {
+            int maxClients = (iParam.getNumberOfEventLoops() > 0) ? BenchmarkingConstants.MAX_CLIENTS_EVENT_LOOPS
+                    : BenchmarkingConstants.MAX_CLIENTS;
+            if (iClientThreads < 1 || iClientThreads > maxClients) {
                 // Nicht im Wertebereich; Aktualisieren des Frames auf dem Bildschirm
                 startable = false;
                 numberOfClientThreads.setTextFill(Color.web(SystemConstants.RED_COLOR));
@@ -882,11 +925,18 @@ public class BenchmarkingClientFxGUI extends FxGUI implements BenchmarkingClient
             }
         }
         String item1 = optionListMeasureType.getValue();
+        iParam.setTargetRate(targetRate);
+        iParam.setPoissonArrivals(poissonArrivals);
+        iParam.setRampSteps(rampSteps);
         if (item1.equals("Variable Threads")) {
             iParam.setMeasurementType(UserInterfaceInputParameters.MeasurementType.VarThreads);
         } else if (item1.equals("Variable Length")) {
             iParam
                     .setMeasurementType(UserInterfaceInputParameters.MeasurementType.VarMsgLength);
+        } else if (item1.equals("Open Loop")) {
+            iParam.setMeasurementType(UserInterfaceInputParameters.MeasurementType.OpenLoop);
+        } else if (item1.equals("Open Loop Ramp")) {
+            iParam.setMeasurementType(UserInterfaceInputParameters.MeasurementType.OpenLoopRamp);
         } else {
             setAlert("Art der Messung nicht festgelegt!");
             startable = false;
@@ -58,6 +58,63 @@ public class UserInterfaceInputParameters {
      */
     private String remoteServerAddress;
 
+    /**
+     * Open-Loop-Messung: angestrebte Gesamtrate aller Clients in Nachrichten pro Sekunde, bei der Raten-Rampe die
+     * Rate der letzten Stufe
+     */
+    private int targetRate;
+
+    /**
+     * Open-Loop-Messung: true für Poisson-verteilte Sendezeitpunkte, false für feste Abstände
+     */
+    private boolean poissonArrivals;
+
+    /**
+     * Raten-Rampe: Anzahl der Stufen, die Rate steigt gleichmäßig bis zur Zielrate
+     */
+    private int rampSteps;
+
+    /**
+     * Anzahl der Event-Loops, auf denen alle Clients ausgeführt werden, 0: zwei Threads pro Client
+     */
+    private int numberOfEventLoops;
+
+    /**
+     * Ablauf der Logins vor der Lastphase
+     */
+    private LoginRampType loginRamp;
+
+    /**
+     * Login-Rampe mit fester Rate: Logins pro Sekunde
+     */
+    private int loginRate;
+
+    /**
+     * Login-Rampe in Stufen: Anzahl Clients pro Stufe und Pause zwischen zwei Stufen in ms
+     */
+    private int loginStageSize;
+    private int loginStagePause;
+
+    /**
+     * Genauigkeit der RTT-Histogramme in signifikanten Dezimalstellen (1 bis 4)
+     */
+    private int rttPrecision;
+
+    /**
+     * Datei für die Zeitreihe während des Tests (.json/.jsonl für JSON-Zeilen, sonst CSV), null: keine Zeitreihe
+     */
+    private String timeSeriesFile;
+
+    /**
+     * Länge eines Intervalls der Zeitreihe in ms
+     */
+    private int timeSeriesInterval;
+
+    /**
+     * URL des Metrik-Endpunkts des Servers (/metrics/json) für CPU- und GC-Zeit des Servers, null: nicht auslesen
+     */
+    private String serverMetricsUrl;
+
     /**
      * Konstruktor: Belegung der InputParameter mit Standardwerten
      */
@@ -72,6 +129,18 @@ public class UserInterfaceInputParameters {
         measurementType = MeasurementType.VarThreads;
         numberOfRetries = 1;
         responseTimeout = 2000;
+        targetRate = 100;
+        poissonArrivals = true;
+        rampSteps = 5;
+        numberOfEventLoops = 0;
+        loginRamp = LoginRampType.Serial;
+        loginRate = 100;
+        loginStageSize = 100;
+        loginStagePause = 1000;
+        rttPrecision = 2;
+        timeSeriesFile = null;
+        timeSeriesInterval = 1000;
+        serverMetricsUrl = null;
     }
 
     /**
@@ -106,6 +175,8 @@ public class UserInterfaceInputParameters {
         switch (type) {
             case VarThreads -> returnString = "VariationThreadAnzahl";
             case VarMsgLength -> returnString = "VariationNachrichtenlänge";
+            case OpenLoop -> returnString = "OpenLoopKonstanteRate";
+            case OpenLoopRamp -> returnString = "OpenLoopRatenRampe";
             default -> {
             }
         }
@@ -113,6 +184,15 @@ public class UserInterfaceInputParameters {
         return returnString;
     }
 
+    /**
+     * Test, ob die Last mit fester Rate unabhängig von den Antwortzeiten erzeugt wird
+     *
+     * @return true bei OpenLoop und OpenLoopRamp
+     */
+    public boolean isOpenLoop() {
+        return measurementType == MeasurementType.OpenLoop || measurementType == MeasurementType.OpenLoopRamp;
+    }
+
     /**
      * getter
      *
@@ -293,6 +373,222 @@ public class UserInterfaceInputParameters {
         this.remoteServerAddress = remoteServerAddress;
     }
 
+    /**
+     * getter
+     *
+     * @return targetRate
+     */
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * setter
+     *
+     * @param targetRate targetRate
+     */
+    public void setTargetRate(int targetRate) {
+        this.targetRate = targetRate;
+    }
+
+    /**
+     * getter
+     *
+     * @return poissonArrivals
+     */
+    public boolean isPoissonArrivals() {
+        return poissonArrivals;
+    }
+
+    /**
+     * setter
+     *
+     * @param poissonArrivals poissonArrivals
+     */
+    public void setPoissonArrivals(boolean poissonArrivals) {
+        this.poissonArrivals = poissonArrivals;
+    }
+
+    /**
+     * getter
+     *
+     * @return rampSteps
+     */
+    public int getRampSteps() {
+        return rampSteps;
+    }
+
+    /**
+     * setter
+     *
+     * @param rampSteps rampSteps
+     */
+    public void setRampSteps(int rampSteps) {
+        this.rampSteps = rampSteps;
+    }
+
+    /**
+     * getter
+     *
+     * @return numberOfEventLoops
+     */
+    public int getNumberOfEventLoops() {
+        return numberOfEventLoops;
+    }
+
+    /**
+     * setter
+     *
+     * @param numberOfEventLoops numberOfEventLoops
+     */
+    public void setNumberOfEventLoops(int numberOfEventLoops) {
+        this.numberOfEventLoops = numberOfEventLoops;
+    }
+
+    /**
+     * getter
+     *
+     * @return loginRamp
+     */
+    public LoginRampType getLoginRamp() {
+        return loginRamp;
+    }
+
+    /**
+     * setter
+     *
+     * @param loginRamp loginRamp
+     */
+    public void setLoginRamp(LoginRampType loginRamp) {
+        this.loginRamp = loginRamp;
+    }
+
+    /**
+     * getter
+     *
+     * @return loginRate
+     */
+    public int getLoginRate() {
+        return loginRate;
+    }
+
+    /**
+     * setter
+     *
+     * @param loginRate loginRate
+     */
+    public void setLoginRate(int loginRate) {
+        this.loginRate = loginRate;
+    }
+
+    /**
+     * getter
+     *
+     * @return loginStageSize
+     */
+    public int getLoginStageSize() {
+        return loginStageSize;
+    }
+
+    /**
+     * setter
+     *
+     * @param loginStageSize loginStageSize
+     */
+    public void setLoginStageSize(int loginStageSize) {
+        this.loginStageSize = loginStageSize;
+    }
+
+    /**
+     * getter
+     *
+     * @return loginStagePause
+     */
+    public int getLoginStagePause() {
+        return loginStagePause;
+    }
+
+    /**
+     * setter
+     *
+     * @param loginStagePause loginStagePause
+     */
+    public void setLoginStagePause(int loginStagePause) {
+        this.loginStagePause = loginStagePause;
+    }
+
+    /**
+     * getter
+     *
+     * @return rttPrecision
+     */
+    public int getRttPrecision() {
+        return rttPrecision;
+    }
+
+    /**
+     * setter
+     *
+     * @param rttPrecision rttPrecision
+     */
+    public void setRttPrecision(int rttPrecision) {
+        this.rttPrecision = rttPrecision;
+    }
+
+    /**
+     * getter
+     *
+     * @return timeSeriesFile
+     */
+    public String getTimeSeriesFile() {
+        return timeSeriesFile;
+    }
+
+    /**
+     * setter
+     *
+     * @param timeSeriesFile timeSeriesFile
+     */
+    public void setTimeSeriesFile(String timeSeriesFile) {
+        this.timeSeriesFile = timeSeriesFile;
+    }
+
+    /**
+     * getter
+     *
+     * @return timeSeriesInterval
+     */
+    public int getTimeSeriesInterval() {
+        return timeSeriesInterval;
+    }
+
+    /**
+     * setter
+     *
+     * @param timeSeriesInterval timeSeriesInterval
+     */
+    public void setTimeSeriesInterval(int timeSeriesInterval) {
+        this.timeSeriesInterval = timeSeriesInterval;
+    }
+
+    /**
+     * getter
+     *
+     * @return serverMetricsUrl
+     */
+    public String getServerMetricsUrl() {
+        return serverMetricsUrl;
+    }
+
+    /**
+     * setter
+     *
+     * @param serverMetricsUrl serverMetricsUrl
+     */
+    public void setServerMetricsUrl(String serverMetricsUrl) {
+        this.serverMetricsUrl = serverMetricsUrl;
+    }
+
     /**
      * Typen von unterstützten Messungen: nur für die Unterscheidung der Messung im Benchmarking-Protokoll
      *
@@ -307,6 +603,42 @@ public class UserInterfaceInputParameters {
         /**
          * Variation der Nachrichtenlänge
          */
-        VarMsgLength
+        VarMsgLength,
+
+        /**
+         * Open Loop: Nachrichten werden mit fester Gesamtrate gesendet, unabhängig davon, ob die Antworten schon da
+         * sind. Die RTT wird ab dem geplanten Sendezeitpunkt gemessen.
+         */
+        OpenLoop,
+
+        /**
+         * Open Loop mit stufenweise steigender Rate zur Ermittlung des Sättigungsdurchsatzes
+         */
+        OpenLoopRamp
+    }
+
+    /**
+     * Ablauf der Logins vor der Lastphase
+     */
+    public enum LoginRampType {
+        /**
+         * ein Client nach dem anderen, der nächste Login startet erst nach der Login-Response des vorherigen
+         */
+        Serial,
+
+        /**
+         * alle Clients gleichzeitig
+         */
+        AllAtOnce,
+
+        /**
+         * Logins mit fester Rate
+         */
+        FixedRate,
+
+        /**
+         * Logins in Stufen fester Größe mit einer Pause zwischen den Stufen
+         */
+        Staged
     }
 }
\ No newline at end of file
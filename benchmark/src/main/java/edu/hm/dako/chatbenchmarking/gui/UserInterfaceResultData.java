@@ -81,6 +81,41 @@ public class UserInterfaceResultData {
      */
     private float maxCpuUsage;
 
+    /**
+     * Durchschnittliche CPU-Auslastung des Rechners des Lastgenerators (0 bis 1), NaN wenn nicht messbar
+     */
+    private double systemCpuUsage = Double.NaN;
+
+    /**
+     * CPU-Auslastung des am stärksten ausgelasteten Listener- oder Client-Threads bezogen auf einen Kern (0 bis 1)
+     */
+    private double busiestThreadCpuUsage;
+
+    /**
+     * Anteil der GC-Zeit des Lastgenerators an der Laufzeit (0 bis 1)
+     */
+    private double gcTimeShare;
+
+    /**
+     * Allokationsrate des Lastgenerators in MiB/s, NaN wenn nicht messbar
+     */
+    private double allocationRate = Double.NaN;
+
+    /**
+     * Durchschnittliche CPU-Auslastung des Servers (0 bis 1), NaN ohne Metrik-Endpunkt
+     */
+    private double serverCpuUsage = Double.NaN;
+
+    /**
+     * Anteil der GC-Zeit des Servers an der Laufzeit (0 bis 1), NaN ohne Metrik-Endpunkt
+     */
+    private double serverGcTimeShare = Double.NaN;
+
+    /**
+     * Grund, warum der Lauf ungültig ist (Lastgenerator war der Engpass), null wenn gültig
+     */
+    private String invalidReason;
+
     /**
      * Minimum (Minimale RTT über alle Requests)
      */
@@ -366,6 +401,141 @@ public class UserInterfaceResultData {
         this.maxCpuUsage = maxCpuUsage;
     }
 
+    /**
+     * getter
+     *
+     * @return systemCpuUsage
+     */
+    public double getSystemCpuUsage() {
+        return systemCpuUsage;
+    }
+
+    /**
+     * setter
+     *
+     * @param systemCpuUsage systemCpuUsage
+     */
+    public void setSystemCpuUsage(double systemCpuUsage) {
+        this.systemCpuUsage = systemCpuUsage;
+    }
+
+    /**
+     * getter
+     *
+     * @return busiestThreadCpuUsage
+     */
+    public double getBusiestThreadCpuUsage() {
+        return busiestThreadCpuUsage;
+    }
+
+    /**
+     * setter
+     *
+     * @param busiestThreadCpuUsage busiestThreadCpuUsage
+     */
+    public void setBusiestThreadCpuUsage(double busiestThreadCpuUsage) {
+        this.busiestThreadCpuUsage = busiestThreadCpuUsage;
+    }
+
+    /**
+     * getter
+     *
+     * @return gcTimeShare
+     */
+    public double getGcTimeShare() {
+        return gcTimeShare;
+    }
+
+    /**
+     * setter
+     *
+     * @param gcTimeShare gcTimeShare
+     */
+    public void setGcTimeShare(double gcTimeShare) {
+        this.gcTimeShare = gcTimeShare;
+    }
+
+    /**
+     * getter
+     *
+     * @return allocationRate
+     */
+    public double getAllocationRate() {
+        return allocationRate;
+    }
+
+    /**
+     * setter
+     *
+     * @param allocationRate allocationRate
+     */
+    public void setAllocationRate(double allocationRate) {
+        this.allocationRate = allocationRate;
+    }
+
+    /**
+     * getter
+     *
+     * @return serverCpuUsage
+     */
+    public double getServerCpuUsage() {
+        return serverCpuUsage;
+    }
+
+    /**
+     * setter
+     *
+     * @param serverCpuUsage serverCpuUsage
+     */
+    public void setServerCpuUsage(double serverCpuUsage) {
+        this.serverCpuUsage = serverCpuUsage;
+    }
+
+    /**
+     * getter
+     *
+     * @return serverGcTimeShare
+     */
+    public double getServerGcTimeShare() {
+        return serverGcTimeShare;
+    }
+
+    /**
+     * setter
+     *
+     * @param serverGcTimeShare serverGcTimeShare
+     */
+    public void setServerGcTimeShare(double serverGcTimeShare) {
+        this.serverGcTimeShare = serverGcTimeShare;
+    }
+
+    /**
+     * getter
+     *
+     * @return invalidReason
+     */
+    public String getInvalidReason() {
+        return invalidReason;
+    }
+
+    /**
+     * setter
+     *
+     * @param invalidReason invalidReason
+     */
+    public void setInvalidReason(String invalidReason) {
+        this.invalidReason = invalidReason;
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn der Lastgenerator nicht der Engpass war
+     */
+    public boolean isValid() {
+        return invalidReason == null;
+    }
+
     /**
      * getter
      *
@@ -0,0 +1,123 @@
+package edu.hm.dako.chatbenchmarking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.common.PDUType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.Test;
+
+public class ObjectStreamChannelTest {
+    @Test
+    public void pollWithFixedChunks() throws Exception {
+        for (boolean reset : new boolean[]{false, true}) {
+            SerializedObjectScannerTest.Stream stream = SerializedObjectScannerTest.write(reset);
+            for (int chunk : new int[]{1, 2, 3, 7, 64, 1000, stream.bytes().length}) {
+                assertPdus(stream.pdus(), receive(stream.bytes(), () -> chunk));
+            }
+        }
+    }
+
+    @Test
+    public void pollWithRandomChunks() throws Exception {
+        Random random = new Random(42);
+        for (int run = 0; run < 100; run++) {
+            SerializedObjectScannerTest.Stream stream = SerializedObjectScannerTest.write(run % 2 == 1);
+            assertPdus(stream.pdus(), receive(stream.bytes(), () -> 1 + random.nextInt(300)));
+        }
+    }
+
+    @Test
+    public void pollObjectLargerThanReceiveBuffer() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        List<ChatPDU> pdus = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ChatPDU pdu = new ChatPDU(PDUType.CHAT_MESSAGE_EVENT, String.valueOf(i).repeat(200000));
+            pdu.setSequenceNumber(i);
+            pdus.add(pdu);
+            out.writeObject(pdu);
+        }
+        out.flush();
+        assertPdus(pdus, receive(bytes.toByteArray(), () -> 50000));
+    }
+
+    /**
+     * Objektstrom über einen Kanal empfangen, der pro read() höchstens chunk Byte liefert, und nach jedem read()
+     * alle vollständigen Objekte abholen
+     */
+    private static List<Object> receive(byte[] bytes, IntSupplier chunk) throws Exception {
+        ChunkedChannel channel = new ChunkedChannel(bytes, chunk);
+        ObjectStreamChannel stream = new ObjectStreamChannel(channel);
+        List<Object> received = new ArrayList<>();
+        while (stream.read()) {
+            Object message;
+            while ((message = stream.poll()) != null) {
+                received.add(message);
+            }
+        }
+        assertNull(stream.poll());
+        return received;
+    }
+
+    private static void assertPdus(List<ChatPDU> expected, List<Object> received) {
+        assertEquals(expected.size(), received.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ChatPDU pdu = (ChatPDU) received.get(i);
+            assertEquals(expected.get(i).getPduType(), pdu.getPduType());
+            assertEquals(expected.get(i).getUserName(), pdu.getUserName());
+            assertEquals(expected.get(i).getSequenceNumber(), pdu.getSequenceNumber());
+            assertEquals(expected.get(i).getMessage(), pdu.getMessage());
+            assertEquals(expected.get(i).getClients(), pdu.getClients());
+            assertEquals(expected.get(i).getClientStatus(), pdu.getClientStatus());
+        }
+    }
+
+    /**
+     * Kanal, der die Bytes in Stücken liefert und am Ende -1 meldet, Geschriebenes wird verworfen
+     */
+    private static class ChunkedChannel implements ByteChannel {
+        private final byte[] bytes;
+        private final IntSupplier chunk;
+        private int position = 0;
+
+        ChunkedChannel(byte[] bytes, IntSupplier chunk) {
+            this.bytes = bytes;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position == bytes.length) return -1;
+            int n = Math.min(Math.min(chunk.getAsInt(), dst.remaining()), bytes.length - position);
+            dst.put(bytes, position, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
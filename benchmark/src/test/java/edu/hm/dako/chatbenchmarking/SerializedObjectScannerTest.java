@@ -0,0 +1,176 @@
+package edu.hm.dako.chatbenchmarking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.common.ClientConversationStatus;
+import edu.hm.dako.common.PDUType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import org.junit.jupiter.api.Test;
+
+public class SerializedObjectScannerTest {
+    /**
+     * Index des Objekts, vor dem ein ObjectOutputStream.reset() aufgerufen wird
+     */
+    private static final int RESET_BEFORE = 3;
+
+    @Test
+    public void everyPrefixOfEveryObject() throws IOException {
+        assertEveryPrefix(write(false));
+    }
+
+    @Test
+    public void everyPrefixAcrossReset() throws IOException {
+        Stream stream = write(true);
+        assertEquals(ObjectOutputStream.TC_RESET, stream.bytes[stream.bounds[RESET_BEFORE]]);
+        assertEveryPrefix(stream);
+    }
+
+    @Test
+    public void splitInsideClassDescriptor() throws IOException {
+        Stream stream = write(false);
+        int[] handles = referenceHandles(stream);
+        // Klassenbeschreibung von ChatPDU im ersten Objekt, von Vector im ersten Objekt mit Client-Liste
+        for (String className : new String[]{ChatPDU.class.getName(), Vector.class.getName()}) {
+            int index = indexOf(stream.bytes, className);
+            int object = objectAt(stream, index);
+            for (int split = index - 3; split < index + className.length() + 12; split++) {
+                SerializedObjectScanner scanner = new SerializedObjectScanner();
+                for (int i = 0; i < object; i++) {
+                    scanner.scan(stream.buffer(), stream.bounds[i], stream.bounds[i + 1]);
+                }
+                int before = scanner.getNumberOfHandles();
+                assertEquals(-1, scanner.scan(stream.buffer(), stream.bounds[object], split));
+                assertEquals(before, scanner.getNumberOfHandles());
+
+                // folgende Objekte verweisen auf Handles dieses Objekts
+                for (int i = object; i < stream.bounds.length - 1; i++) {
+                    assertEquals(stream.bounds[i + 1] - stream.bounds[i],
+                            scanner.scan(stream.buffer(), stream.bounds[i], stream.bytes.length));
+                    assertEquals(handles[i], scanner.getNumberOfHandles());
+                }
+            }
+        }
+    }
+
+    /**
+     * jedes Objekt mit allen Präfixen scannen: -1 bis zum letzten Byte, danach genau die geschriebene Länge, auch wenn
+     * dahinter schon das nächste Objekt im Puffer liegt
+     */
+    private static void assertEveryPrefix(Stream stream) throws IOException {
+        int[] handles = referenceHandles(stream);
+        SerializedObjectScanner scanner = new SerializedObjectScanner();
+        for (int i = 0; i < stream.bounds.length - 1; i++) {
+            int start = stream.bounds[i];
+            int end = stream.bounds[i + 1];
+            int before = scanner.getNumberOfHandles();
+            for (int prefix = start; prefix < end; prefix++) {
+                assertEquals(-1, scanner.scan(stream.buffer(), start, prefix), "Objekt " + i + ", Präfix " + prefix);
+                assertEquals(before, scanner.getNumberOfHandles());
+            }
+            assertEquals(end - start, scanner.scan(stream.buffer(), start, stream.bytes.length), "Objekt " + i);
+            assertEquals(handles[i], scanner.getNumberOfHandles(), "Objekt " + i);
+        }
+    }
+
+    /**
+     * Anzahl der Handles nach jedem Objekt, ohne geteilte Objekte ermittelt
+     */
+    private static int[] referenceHandles(Stream stream) throws IOException {
+        SerializedObjectScanner scanner = new SerializedObjectScanner();
+        int[] handles = new int[stream.bounds.length - 1];
+        for (int i = 0; i < handles.length; i++) {
+            scanner.scan(stream.buffer(), stream.bounds[i], stream.bounds[i + 1]);
+            handles[i] = scanner.getNumberOfHandles();
+        }
+        return handles;
+    }
+
+    private static int indexOf(byte[] bytes, String text) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        throw new AssertionError(text + " nicht im Objektstrom");
+    }
+
+    private static int objectAt(Stream stream, int index) {
+        for (int i = 0; i < stream.bounds.length - 1; i++) {
+            if (index < stream.bounds[i + 1]) return i;
+        }
+        throw new AssertionError();
+    }
+
+    /**
+     * ChatPDUs wie die TCPConnection des Servers mit writeObject auf einen Objektstrom schreiben: das erste ohne
+     * Client-Liste, danach mit Vector, gleiche Enums, Strings und zuletzt dieselbe Client-Liste als Rückverweis
+     *
+     * @param reset vor dem Objekt {@link #RESET_BEFORE} reset() aufrufen
+     * @return Objektstrom und Grenzen der Objekte
+     */
+    static Stream write(boolean reset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.flush();
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(bytes.size());
+
+        List<ChatPDU> pdus = createPdus();
+        for (int i = 0; i < pdus.size(); i++) {
+            if (reset && i == RESET_BEFORE) out.reset();
+            out.writeObject(pdus.get(i));
+            out.flush();
+            bounds.add(bytes.size());
+        }
+        return new Stream(bytes.toByteArray(), bounds.stream().mapToInt(Integer::intValue).toArray(), pdus);
+    }
+
+    static List<ChatPDU> createPdus() {
+        List<ChatPDU> pdus = new ArrayList<>();
+        ChatPDU login = new ChatPDU();
+        login.setPduType(PDUType.LOGIN_REQUEST);
+        login.setUserName("client-0");
+        login.setClientStatus(ClientConversationStatus.REGISTERING);
+        pdus.add(login);
+
+        Vector<String> clients = new Vector<>(List.of("client-0", "client-1"));
+        for (int i = 1; i <= 4; i++) {
+            ChatPDU event = new ChatPDU(PDUType.LOGIN_EVENT, i < 3 ? new Vector<>(clients) : clients);
+            event.setUserName("client-" + i);
+            event.setEventUserName("client-0");
+            event.setClientStatus(ClientConversationStatus.REGISTERED);
+            event.setSequenceNumber(i);
+            clients.add("client-" + (i + 1));
+            pdus.add(event);
+        }
+
+        ChatPDU chat = new ChatPDU(PDUType.CHAT_MESSAGE_REQUEST, "x".repeat(1000));
+        chat.setUserName("client-0");
+        chat.setClients(clients);
+        chat.setSequenceNumber(5);
+        pdus.add(chat);
+        assertTrue(pdus.size() > RESET_BEFORE + 1);
+        return pdus;
+    }
+
+    /**
+     * Objektstrom, bounds[0] ist das Ende des Headers, bounds[i + 1] das Ende von Objekt i
+     */
+    record Stream(byte[] bytes, int[] bounds, List<ChatPDU> pdus) {
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+}
@@ -75,6 +75,38 @@ public interface ClientUserInterface {
      */
     void setLastServerTime(long lastServerTime);
 
+    /**
+     * Chat-Response-PDU zum zuletzt gesendeten Chat-Message-Request empfangen, wird vom Listener-Thread unmittelbar
+     * nach dem Empfang aufgerufen. Standardmäßig wird die Serverzeit gemerkt und die Sperre aufgehoben.
+     *
+     * @param sequenceNumber Sequenznummer des beantworteten Requests
+     * @param serverTime     Serverbearbeitungszeit in ns
+     */
+    default void chatMessageResponseReceived(int sequenceNumber, long serverTime) {
+        setLastServerTime(serverTime);
+        setLock(false);
+    }
+
+    /**
+     * Login-Event empfangen. Standardmäßig wird nichts getan, der Benchmarking-Client ermittelt daraus den Fan-out
+     * seines eigenen Logins.
+     *
+     * @param eventUserName Client, der sich angemeldet hat
+     * @param clients       Liste der angemeldeten Clients, die das Event erhalten
+     */
+    default void loginEventReceived(String eventUserName, Vector<String> clients) {
+    }
+
+    /**
+     * Gibt an, ob mehrere Chat-Message-Requests gleichzeitig offen sein dürfen. Dann werden auch Responses zu
+     * früher gesendeten Requests an {@link #chatMessageResponseReceived(int, long)} übergeben.
+     *
+     * @return true, wenn mehrere Requests offen sein dürfen, standardmäßig false
+     */
+    default boolean allowsOutstandingRequests() {
+        return false;
+    }
+
     /**
      * Zähler einer Chat-Session setzen (Zählung erfolgt im Server)
      *
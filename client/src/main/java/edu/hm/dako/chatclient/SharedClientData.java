@@ -33,7 +33,7 @@ public class SharedClientData {
     /**
      * Aktueller Zustand des Clients
      */
-    public ClientConversationStatus status;
+    public volatile ClientConversationStatus status;
 
     /**
      * Zähler für gesendete Chat-Nachrichten des Clients
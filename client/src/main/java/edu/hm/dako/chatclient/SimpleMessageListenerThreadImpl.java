@@ -36,6 +36,7 @@ public class SimpleMessageListenerThreadImpl extends AbstractMessageListenerThre
             // Login hat nicht funktioniert
             LOG.error("Login-Response-PDU für Client " + receivedPdu.getUserName()
                     + " mit Login-Error empfangen");
+            sharedClientData.status = ClientConversationStatus.UNREGISTERED;
             if (userInterface != null) {
                 userInterface.setErrorMessage("Chat-Server", "Anmelden beim Server nicht erfolgreich,"
                                 + "Benutzer " + receivedPdu.getUserName() + " vermutlich schon angemeldet",
@@ -43,7 +44,6 @@ public class SimpleMessageListenerThreadImpl extends AbstractMessageListenerThre
             }
             else System.out.println("Anmelden beim Server nicht erfolgreich,"
                     + "Benutzer " + receivedPdu.getUserName() + " vermutlich schon angemeldet");
-            sharedClientData.status = ClientConversationStatus.UNREGISTERED;
 
             // Verbindung wird gleich geschlossen
             try {
@@ -72,6 +72,8 @@ public class SimpleMessageListenerThreadImpl extends AbstractMessageListenerThre
         int events = SharedClientData.loginEvents.incrementAndGet();
 
         LOG.debug(sharedClientData.userName + " erhält LoginEvent, LoginEventCounter: " + events);
+        if (userInterface != null) userInterface.loginEventReceived(receivedPdu.getEventUserName(),
+                receivedPdu.getClients());
 
         try {
             handleUserListEvent(receivedPdu);
@@ -121,18 +123,20 @@ public class SimpleMessageListenerThreadImpl extends AbstractMessageListenerThre
                 + receivedPdu.getServerTime() + " ns = " + receivedPdu.getServerTime() / 1000000
                 + " ms");
 
-        if (receivedPdu.getSequenceNumber() == sharedClientData.messageCounter.get()) {
-            // Zuletzt gemessene Serverzeit für das Benchmarking merken
-            if (userInterface != null) userInterface.setLastServerTime(receivedPdu.getServerTime());
-
-            // Nächste Chat-Nachricht darf eingegeben werden
-            if (userInterface != null) userInterface.setLock(false);
+        long messageCounter = sharedClientData.messageCounter.get();
+        boolean outstanding = receivedPdu.getSequenceNumber() < messageCounter && userInterface != null
+                && userInterface.allowsOutstandingRequests();
+        if (receivedPdu.getSequenceNumber() == messageCounter || outstanding) {
+            // Serverzeit merken, nächste Chat-Nachricht darf eingegeben werden
+            if (userInterface != null) {
+                userInterface.chatMessageResponseReceived((int) receivedPdu.getSequenceNumber(),
+                        receivedPdu.getServerTime());
+            }
 
             LOG.debug("Chat-Response-PDU für Client " + receivedPdu.getUserName() + " empfangen");
         } else {
             LOG.debug("Sequenznummer der Chat-Response-PDU " + receivedPdu.getUserName()
-                    + " passt nicht: " + receivedPdu.getSequenceNumber() + "/"
-                    + sharedClientData.messageCounter.get());
+                    + " passt nicht: " + receivedPdu.getSequenceNumber() + "/" + messageCounter);
         }
     }
 
@@ -2,6 +2,7 @@ package edu.hm.dako.common;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 /**
  * Schnittstelle für RMI
@@ -16,4 +17,12 @@ public interface AuditLogRMIInterface extends Remote {
      * @throws RemoteException Fehler bei der Kommunikation über RMI
      */
     void audit(AuditLogPDU pdu) throws RemoteException;
-}
\ No newline at end of file
+
+    /**
+     * mehrere Chat-Nachrichten mit einem Aufruf in das Audit-Log schreiben
+     *
+     * @param pdus Chat-Nachrichten in ihrer Reihenfolge
+     * @throws RemoteException Fehler bei der Kommunikation über RMI
+     */
+    void auditBatch(List<AuditLogPDU> pdus) throws RemoteException;
+}
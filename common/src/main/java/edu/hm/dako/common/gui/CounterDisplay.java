@@ -0,0 +1,160 @@
+package edu.hm.dako.common.gui;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counters of requests and logged in clients shown in a server GUI<br/>
+ * worker threads only increase lock-free counters, a timeline samples them on the JavaFX thread
+ * with a fixed rate and refreshes the text fields, so the event queue gets one update per frame
+ * instead of one per request
+ *
+ * @author Lerngruppe
+ */
+public class CounterDisplay {
+    /**
+     * refresh interval of the text fields in milliseconds
+     */
+    public static final int REFRESH_INTERVAL = 250;
+
+    /**
+     * counters, written by the worker threads
+     */
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final AtomicInteger loggedInClients = new AtomicInteger();
+
+    /**
+     * text fields, only accessed by the JavaFX thread
+     */
+    private final TextField requestField, requestRateField, clientField, loginRateField;
+
+    /**
+     * timeline for the refresh
+     */
+    private final Timeline timeline;
+
+    /**
+     * values of the last sample for the rates
+     */
+    private long lastRequests, lastLogins, lastSampleTime;
+
+    /**
+     * constructor
+     *
+     * @param requestField     field for the number of received requests
+     * @param requestRateField field for the requests per second
+     * @param clientField      field for the number of logged in clients
+     * @param loginRateField   field for the logins per second
+     */
+    public CounterDisplay(TextField requestField, TextField requestRateField, TextField clientField,
+                          TextField loginRateField) {
+        this.requestField = requestField;
+        this.requestRateField = requestRateField;
+        this.clientField = clientField;
+        this.loginRateField = loginRateField;
+
+        timeline = new Timeline(new KeyFrame(Duration.millis(REFRESH_INTERVAL), event -> refresh()));
+        timeline.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * starts the refresh, must be called on the JavaFX thread<br/>
+     * the counters are not reset here but in {@link #stop()}, so requests and logins counted between the start of the
+     * server and this call are kept
+     */
+    public void start() {
+        lastSampleTime = System.nanoTime();
+        refresh();
+        timeline.play();
+    }
+
+    /**
+     * stops the refresh and clears the text fields, must be called on the JavaFX thread
+     */
+    public void stop() {
+        timeline.stop();
+        reset();
+        requestField.setText("");
+        requestRateField.setText("");
+        clientField.setText("");
+        loginRateField.setText("");
+    }
+
+    /**
+     * increases the number of received requests
+     */
+    public void increaseRequests() {
+        requests.increment();
+    }
+
+    /**
+     * increases the number of logged in clients
+     */
+    public void increaseLoggedInClients() {
+        loggedInClients.incrementAndGet();
+        logins.increment();
+    }
+
+    /**
+     * decreases the number of logged in clients
+     */
+    public void decreaseLoggedInClients() {
+        loggedInClients.decrementAndGet();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of received requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return number of logged in clients
+     */
+    public int getLoggedInClients() {
+        return loggedInClients.get();
+    }
+
+    /**
+     * sets all counters to 0
+     */
+    private void reset() {
+        requests.reset();
+        logins.reset();
+        loggedInClients.set(0);
+        lastRequests = 0;
+        lastLogins = 0;
+    }
+
+    /**
+     * samples the counters and writes them to the text fields
+     */
+    private void refresh() {
+        long now = System.nanoTime();
+        long currentRequests = requests.sum();
+        long currentLogins = logins.sum();
+        double seconds = (now - lastSampleTime) / 1_000_000_000.0;
+
+        requestField.setText(String.valueOf(currentRequests));
+        clientField.setText(String.valueOf(loggedInClients.get()));
+        if (seconds > 0) {
+            requestRateField.setText(String.format("%.0f", (currentRequests - lastRequests) / seconds));
+            loginRateField.setText(String.format("%.0f", (currentLogins - lastLogins) / seconds));
+        }
+
+        lastRequests = currentRequests;
+        lastLogins = currentLogins;
+        lastSampleTime = now;
+    }
+}
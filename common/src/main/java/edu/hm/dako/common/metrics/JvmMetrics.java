@@ -0,0 +1,65 @@
+package edu.hm.dako.common.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * metrics of the JVM: heap, garbage collection, threads and CPU
+ *
+ * @author Lerngruppe
+ */
+public class JvmMetrics {
+    /**
+     * constructor
+     */
+    private JvmMetrics() {
+    }
+
+    /**
+     * registers the JVM metrics
+     *
+     * @param registry registry of the server
+     */
+    public static void register(MetricsRegistry registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        registry.gauge("jvm_heap_used_bytes", "used heap memory",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("jvm_heap_committed_bytes", "committed heap memory",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        registry.gauge("jvm_heap_max_bytes", "max heap memory, -1 if undefined",
+                () -> memory.getHeapMemoryUsage().getMax());
+        registry.gauge("jvm_threads", "live threads",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        registry.gauge("jvm_available_processors", "processors available to the JVM", os::getAvailableProcessors);
+        if (os instanceof com.sun.management.OperatingSystemMXBean platformOs) {
+            registry.counter("jvm_process_cpu_seconds", "CPU time used by the JVM process",
+                    () -> platformOs.getProcessCpuTime() / 1_000_000_000.0);
+            registry.gauge("jvm_system_cpu_load", "recent CPU load of the whole system (0 to 1)",
+                    platformOs::getCpuLoad);
+        }
+
+        registry.labelled("jvm_gc_collections", "garbage collections per collector",
+                MetricsRegistry.Type.COUNTER, "gc", () -> {
+                    Map<String, Number> values = new LinkedHashMap<>();
+                    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                        values.put(gc.getName(), gc.getCollectionCount());
+                    }
+                    return values;
+                });
+        registry.labelled("jvm_gc_time_milliseconds", "time spent in garbage collection per collector",
+                MetricsRegistry.Type.COUNTER, "gc", () -> {
+                    Map<String, Number> values = new LinkedHashMap<>();
+                    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                        values.put(gc.getName(), gc.getCollectionTime());
+                    }
+                    return values;
+                });
+    }
+}
@@ -0,0 +1,415 @@
+package edu.hm.dako.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock-free histogram with log-linear buckets like HdrHistogram<br/>
+ * values below 128 are counted exactly, above every power of two is divided into 64 linear sub-buckets,
+ * so the relative error of a percentile is below 1.6 %. Recording a value only increments atomic counters
+ * and allocates nothing, all positive long values (e.g. nanoseconds) can be recorded.
+ * The precision can be chosen with the number of sub-bucket bits, memory is fixed per histogram: 8 bytes per bucket,
+ * about 30 KB with the default precision and 6.5 MB with 15 bits (4 significant digits). The counts of the last interval snapshot take as
+ * much again, they are only allocated by the first {@link #intervalSnapshot()}.
+ * <p>
+ * {@link #snapshot()} returns the whole distribution since the start, {@link #intervalSnapshot()} the
+ * distribution since the last interval snapshot without resetting the histogram
+ *
+ * @author Lerngruppe
+ */
+public class LatencyHistogram {
+    /**
+     * default bits of the exactly counted range, 2^SUB_BUCKET_BITS values
+     */
+    static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * smallest and largest supported number of sub-bucket bits
+     */
+    static final int MIN_SUB_BUCKET_BITS = 2;
+    static final int MAX_SUB_BUCKET_BITS = 16;
+
+    /**
+     * number of buckets covering all positive long values with the default precision
+     */
+    static final int BUCKET_COUNT = bucketCount(SUB_BUCKET_BITS);
+
+    /**
+     * bits of the exactly counted range of this histogram
+     */
+    private final int subBucketBits;
+
+    /**
+     * counts per bucket since the start
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * exact max and sum since the start
+     */
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * counts at the last interval snapshot, null before the first one
+     */
+    private long[] lastCounts;
+    private long lastSum = 0;
+
+    /**
+     * constructor with the default precision (relative error below 1.6 %)
+     */
+    public LatencyHistogram() {
+        this(SUB_BUCKET_BITS);
+    }
+
+    /**
+     * constructor
+     *
+     * @param subBucketBits bits of the exactly counted range, the relative error is below 2^-(subBucketBits - 1),
+     *                      between 2 and 16
+     */
+    public LatencyHistogram(int subBucketBits) {
+        if (subBucketBits < MIN_SUB_BUCKET_BITS || subBucketBits > MAX_SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("subBucketBits must be between " + MIN_SUB_BUCKET_BITS + " and "
+                    + MAX_SUB_BUCKET_BITS + ": " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        counts = new AtomicLongArray(bucketCount(subBucketBits));
+    }
+
+    /**
+     * histogram with the given number of significant decimal digits like HdrHistogram
+     *
+     * @param digits significant decimal digits, 1 to 4
+     * @return histogram with a relative error below 10^-digits
+     */
+    public static LatencyHistogram forSignificantDigits(int digits) {
+        return new LatencyHistogram(subBucketBitsFor(digits));
+    }
+
+    /**
+     * sub-bucket bits needed for a number of significant decimal digits
+     *
+     * @param digits significant decimal digits, 1 to 4
+     * @return sub-bucket bits
+     */
+    public static int subBucketBitsFor(int digits) {
+        if (digits < 1 || digits > 4) {
+            throw new IllegalArgumentException("digits must be between 1 and 4: " + digits);
+        }
+        long subBuckets = 1;
+        for (int i = 0; i < digits; i++) {
+            subBuckets *= 10;
+        }
+        // relative error 2^-(bits - 1) <= 10^-digits
+        return Math.max(MIN_SUB_BUCKET_BITS, 65 - Long.numberOfLeadingZeros(subBuckets - 1));
+    }
+
+    /**
+     * records a value, negative values are recorded as 0
+     *
+     * @param value value, e.g. a latency in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value, subBucketBits));
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * distribution of all values recorded since the start
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        long[] current = new long[counts.length()];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = counts.get(i);
+        }
+        return new Snapshot(subBucketBits, current, sum.get(), max.get());
+    }
+
+    /**
+     * distribution of the values recorded since the last call, the max is the upper bound of the
+     * highest used bucket
+     *
+     * @return snapshot of the interval
+     */
+    public synchronized Snapshot intervalSnapshot() {
+        long[] current = new long[counts.length()];
+        long[] interval = new long[current.length];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = counts.get(i);
+            interval[i] = (lastCounts == null) ? current[i] : current[i] - lastCounts[i];
+        }
+        long currentSum = sum.get();
+        long intervalSum = currentSum - lastSum;
+        lastCounts = current;
+        lastSum = currentSum;
+
+        long intervalMax = 0;
+        for (int i = interval.length - 1; i >= 0; i--) {
+            if (interval[i] > 0) {
+                intervalMax = Math.min(highestValueOf(i, subBucketBits), max.get());
+                break;
+            }
+        }
+        return new Snapshot(subBucketBits, interval, intervalSum, intervalMax);
+    }
+
+    /**
+     * number of buckets covering all positive long values
+     *
+     * @param subBucketBits bits of the exactly counted range
+     * @return number of buckets
+     */
+    static int bucketCount(int subBucketBits) {
+        return (1 << subBucketBits) + (63 - subBucketBits) * (1 << (subBucketBits - 1));
+    }
+
+    /**
+     * bucket of a value with the default precision
+     *
+     * @param value value &gt;= 0
+     * @return index of the bucket
+     */
+    static int indexOf(long value) {
+        return indexOf(value, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * bucket of a value
+     *
+     * @param value         value &gt;= 0
+     * @param subBucketBits bits of the exactly counted range
+     * @return index of the bucket
+     */
+    static int indexOf(long value, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        int halfSubBucketCount = subBucketCount >> 1;
+        if (value < subBucketCount) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (subBucketBits - 1);
+        int subBucket = (int) (value >>> shift) - halfSubBucketCount;
+        return subBucketCount + (shift - 1) * halfSubBucketCount + subBucket;
+    }
+
+    /**
+     * lowest value counted in a bucket with the default precision
+     *
+     * @param index index of the bucket
+     * @return lowest value
+     */
+    static long lowestValueOf(int index) {
+        return lowestValueOf(index, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * lowest value counted in a bucket
+     *
+     * @param index         index of the bucket
+     * @param subBucketBits bits of the exactly counted range
+     * @return lowest value
+     */
+    static long lowestValueOf(int index, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        int halfSubBucketCount = subBucketCount >> 1;
+        if (index < subBucketCount) return index;
+        int shift = (index - subBucketCount) / halfSubBucketCount + 1;
+        long subBucket = (index - subBucketCount) % halfSubBucketCount + halfSubBucketCount;
+        return subBucket << shift;
+    }
+
+    /**
+     * highest value counted in a bucket with the default precision
+     *
+     * @param index index of the bucket
+     * @return highest value
+     */
+    static long highestValueOf(int index) {
+        return highestValueOf(index, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * highest value counted in a bucket
+     *
+     * @param index         index of the bucket
+     * @param subBucketBits bits of the exactly counted range
+     * @return highest value
+     */
+    static long highestValueOf(int index, int subBucketBits) {
+        if (index == bucketCount(subBucketBits) - 1) return Long.MAX_VALUE;
+        return lowestValueOf(index + 1, subBucketBits) - 1;
+    }
+
+    /**
+     * immutable distribution of a histogram
+     */
+    public static class Snapshot {
+        /**
+         * bits of the exactly counted range of the histogram
+         */
+        private final int subBucketBits;
+
+        /**
+         * counts per bucket
+         */
+        private final long[] counts;
+
+        /**
+         * number, sum and max of the values
+         */
+        private final long totalCount, sum, max;
+
+        /**
+         * constructor
+         *
+         * @param subBucketBits bits of the exactly counted range of the histogram
+         * @param counts        counts per bucket
+         * @param sum           sum of the values
+         * @param max           max of the values
+         */
+        Snapshot(int subBucketBits, long[] counts, long sum, long max) {
+            this.subBucketBits = subBucketBits;
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        /**
+         * empty distribution, e.g. as start value for {@link #merge(Snapshot)}
+         *
+         * @param subBucketBits bits of the exactly counted range
+         * @return empty snapshot
+         */
+        public static Snapshot empty(int subBucketBits) {
+            return new Snapshot(subBucketBits, new long[bucketCount(subBucketBits)], 0, 0);
+        }
+
+        /**
+         * combined distribution of this and another snapshot, e.g. of histograms of several threads
+         *
+         * @param other snapshot of a histogram with the same precision
+         * @return new snapshot
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.subBucketBits != subBucketBits) {
+                throw new IllegalArgumentException("snapshots with different precision cannot be merged");
+            }
+            long[] merged = new long[counts.length];
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(subBucketBits, merged, sum + other.sum, Math.max(max, other.max));
+        }
+
+        /**
+         * getter
+         *
+         * @return bits of the exactly counted range of the histogram
+         */
+        public int getSubBucketBits() {
+            return subBucketBits;
+        }
+
+        /**
+         * getter
+         *
+         * @return number of values
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * getter
+         *
+         * @return largest value, 0 if empty
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * getter
+         *
+         * @return smallest value (lower bound of its bucket), 0 if empty
+         */
+        public long getMin() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) return lowestValueOf(i, subBucketBits);
+            }
+            return 0;
+        }
+
+        /**
+         * getter
+         *
+         * @return mean of the values, 0 if empty
+         */
+        public double getMean() {
+            return (totalCount == 0) ? 0 : (double) sum / totalCount;
+        }
+
+        /**
+         * standard deviation of the values, every value is taken as the middle of its bucket
+         *
+         * @return standard deviation, 0 if empty
+         */
+        public double getStandardDeviation() {
+            if (totalCount == 0) return 0;
+            double mean = getMean();
+            double squares = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) continue;
+                double low = lowestValueOf(i, subBucketBits);
+                double high = Math.min(highestValueOf(i, subBucketBits), max);
+                double deviation = (low + Math.max(low, high)) / 2 - mean;
+                squares += counts[i] * deviation * deviation;
+            }
+            return Math.sqrt(squares / totalCount);
+        }
+
+        /**
+         * value at a percentile, the upper bound of the bucket containing it, but not more than the max
+         *
+         * @param percentile percentile between 0 and 100, e.g. 99.9
+         * @return value, 0 if empty
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) return 0;
+            long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * totalCount);
+            if (rank < 1) rank = 1;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValueOf(i, subBucketBits), max);
+            }
+            return max;
+        }
+
+        /**
+         * number of values in a range
+         *
+         * @param from lowest value, inclusive
+         * @param to   highest value, inclusive
+         * @return number of values in the buckets overlapping the range
+         */
+        public long getCountBetween(long from, long to) {
+            long count = 0;
+            for (int i = indexOf(Math.max(from, 0), subBucketBits); i <= indexOf(Math.max(to, 0), subBucketBits); i++) {
+                count += counts[i];
+            }
+            return count;
+        }
+    }
+}
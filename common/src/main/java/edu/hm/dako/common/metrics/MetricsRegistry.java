@@ -0,0 +1,174 @@
+package edu.hm.dako.common.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * registry of all metrics a server exposes<br/>
+ * a metric only holds a supplier, the value is read when a snapshot is taken, so the hot path of the server
+ * just increments its own counters; for every counter a rate per second is derived from the last two samples
+ *
+ * @author Lerngruppe
+ */
+public class MetricsRegistry {
+    /**
+     * type of a metric, named like in the Prometheus text format
+     */
+    public enum Type {
+        COUNTER, GAUGE;
+
+        /**
+         * getter
+         *
+         * @return name of the type in the Prometheus text format
+         */
+        public String prometheusName() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * one registered metric, labelled metrics return one value per label value
+     *
+     * @param name  name of the metric
+     * @param help  description of the metric
+     * @param type  counter or gauge
+     * @param label name of the label, null if the metric has no label
+     * @param values supplier of the values, key is the label value or "" if unlabelled
+     */
+    public record Metric(String name, String help, Type type, String label,
+                         Supplier<Map<String, Number>> values) {
+    }
+
+    /**
+     * suffix of the derived rates
+     */
+    public static final String RATE_SUFFIX = "_per_second";
+
+    /**
+     * all registered metrics in registration order
+     */
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    /**
+     * tasks run before every sample, e.g. taking interval snapshots of histograms
+     */
+    private final List<Runnable> sampleListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * counter values and time of the last sample, key is the name of the metric with label
+     */
+    private final Map<String, Double> lastValues = new LinkedHashMap<>();
+    private long lastSampleTime = 0;
+
+    /**
+     * rates of the counters since the sample before the last one
+     */
+    private Map<String, Double> rates = Collections.emptyMap();
+
+    /**
+     * registers a counter, a value that only increases
+     *
+     * @param name  name of the metric
+     * @param help  description of the metric
+     * @param value supplier of the current value
+     */
+    public void counter(String name, String help, DoubleSupplier value) {
+        metrics.add(new Metric(name, help, Type.COUNTER, null, () -> Map.of("", value.getAsDouble())));
+    }
+
+    /**
+     * registers a gauge, a value that can increase and decrease
+     *
+     * @param name  name of the metric
+     * @param help  description of the metric
+     * @param value supplier of the current value
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        metrics.add(new Metric(name, help, Type.GAUGE, null, () -> Map.of("", value.getAsDouble())));
+    }
+
+    /**
+     * registers a metric with one value per label value, e.g. one value per garbage collector
+     *
+     * @param name   name of the metric
+     * @param help   description of the metric
+     * @param type   counter or gauge
+     * @param label  name of the label
+     * @param values supplier of the values by label value
+     */
+    public void labelled(String name, String help, Type type, String label, Supplier<Map<String, Number>> values) {
+        metrics.add(new Metric(name, help, type, label, values));
+    }
+
+    /**
+     * registers a task run before every sample
+     *
+     * @param listener task
+     */
+    public void onSample(Runnable listener) {
+        sampleListeners.add(listener);
+    }
+
+    /**
+     * getter
+     *
+     * @return all registered metrics
+     */
+    public List<Metric> getMetrics() {
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * reads all counters and computes their rates since the last sample, called periodically by the
+     * {@link MetricsServer}
+     */
+    public synchronized void sample() {
+        sampleListeners.forEach(Runnable::run);
+        long now = System.nanoTime();
+        double seconds = (now - lastSampleTime) / 1_000_000_000.0;
+        Map<String, Double> newRates = new LinkedHashMap<>();
+
+        for (Metric metric : metrics) {
+            if (metric.type() != Type.COUNTER) continue;
+            for (Map.Entry<String, Number> entry : metric.values().get().entrySet()) {
+                String key = key(metric, entry.getKey());
+                double value = entry.getValue().doubleValue();
+                Double last = lastValues.put(key, value);
+                if (last != null && lastSampleTime != 0 && seconds > 0) {
+                    newRates.put(key, Math.max(0, (value - last) / seconds));
+                }
+            }
+        }
+
+        lastSampleTime = now;
+        rates = newRates;
+    }
+
+    /**
+     * rate of a counter per second, measured between the last two samples
+     *
+     * @param metric     counter
+     * @param labelValue label value, "" if the counter has no label
+     * @return rate per second, 0 if not sampled twice yet
+     */
+    public synchronized double getRate(Metric metric, String labelValue) {
+        return rates.getOrDefault(key(metric, labelValue), 0.0);
+    }
+
+    /**
+     * key of a value for the sample maps
+     *
+     * @param metric     metric
+     * @param labelValue label value
+     * @return key
+     */
+    private static String key(Metric metric, String labelValue) {
+        return metric.name() + "{" + labelValue + "}";
+    }
+}
@@ -0,0 +1,198 @@
+package edu.hm.dako.common.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * embedded HTTP endpoint with snapshots of a {@link MetricsRegistry}<br/>
+ * GET /metrics returns the Prometheus text format, GET /metrics/json the same values as JSON;
+ * the rates of all counters are sampled once per second by a separate thread
+ *
+ * @author Lerngruppe
+ */
+public class MetricsServer {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(MetricsServer.class);
+
+    /**
+     * sample interval for the rates in milliseconds
+     */
+    public static final int SAMPLE_INTERVAL = 1000;
+
+    /**
+     * registry with all metrics
+     */
+    private final MetricsRegistry registry;
+
+    /**
+     * HTTP server of the JDK
+     */
+    private final HttpServer server;
+
+    /**
+     * thread sampling the rates
+     */
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * constructor, the server is started with {@link #start()}
+     *
+     * @param port     port of the HTTP endpoint
+     * @param registry registry with all metrics
+     * @throws IOException if the port can't be bound
+     */
+    public MetricsServer(int port, MetricsRegistry registry) throws IOException {
+        this.registry = registry;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics/json", exchange -> respond(exchange, "application/json", toJson()));
+        server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", toPrometheus()));
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "MetricsServer")));
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "MetricsSampler"));
+    }
+
+    /**
+     * starts the endpoint and the sampling
+     */
+    public void start() {
+        sampler.scheduleAtFixedRate(registry::sample, 0, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+        server.start();
+        LOG.info("Metriken unter http://localhost:" + server.getAddress().getPort() + "/metrics verfügbar");
+    }
+
+    /**
+     * stops the endpoint and the sampling
+     */
+    public void stop() {
+        sampler.shutdownNow();
+        server.stop(0);
+    }
+
+    /**
+     * snapshot in the Prometheus text format
+     *
+     * @return all metrics as text
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (MetricsRegistry.Metric metric : registry.getMetrics()) {
+            Map<String, Number> values = metric.values().get();
+            appendHeader(sb, metric.name(), metric.help(), metric.type().prometheusName());
+            values.forEach((label, value) -> appendValue(sb, metric, metric.name(), label, value.doubleValue()));
+
+            if (metric.type() == MetricsRegistry.Type.COUNTER) {
+                String rateName = metric.name() + MetricsRegistry.RATE_SUFFIX;
+                appendHeader(sb, rateName, metric.help() + " per second", "gauge");
+                values.keySet().forEach(label ->
+                        appendValue(sb, metric, rateName, label, registry.getRate(metric, label)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * snapshot as JSON object, labelled metrics are nested objects by label value
+     *
+     * @return all metrics as JSON
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (MetricsRegistry.Metric metric : registry.getMetrics()) {
+            Map<String, Number> values = metric.values().get();
+            appendJson(sb, metric, metric.name(), values, false);
+            if (metric.type() == MetricsRegistry.Type.COUNTER) {
+                appendJson(sb, metric, metric.name() + MetricsRegistry.RATE_SUFFIX, values, true);
+            }
+        }
+        if (sb.length() > 1) sb.setLength(sb.length() - 1);
+        return sb.append("}\n").toString();
+    }
+
+    /**
+     * writes a response
+     *
+     * @param exchange    HTTP request and response
+     * @param contentType content type of the response
+     * @param body        body of the response
+     * @throws IOException if the response can't be written
+     */
+    private void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void appendHeader(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendValue(StringBuilder sb, MetricsRegistry.Metric metric, String name, String label,
+                                    double value) {
+        sb.append(name);
+        if (metric.label() != null) {
+            sb.append('{').append(metric.label()).append("=\"")
+                    .append(label.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"}");
+        }
+        sb.append(' ').append(format(value)).append('\n');
+    }
+
+    private void appendJson(StringBuilder sb, MetricsRegistry.Metric metric, String name,
+                            Map<String, Number> values, boolean rate) {
+        sb.append(quote(name)).append(':');
+        if (metric.label() == null) {
+            double value = rate ? registry.getRate(metric, "") : values.getOrDefault("", 0).doubleValue();
+            sb.append(format(value));
+        } else {
+            sb.append('{');
+            values.forEach((label, value) -> sb.append(quote(label)).append(':')
+                    .append(format(rate ? registry.getRate(metric, label) : value.doubleValue())).append(','));
+            if (!values.isEmpty()) sb.setLength(sb.length() - 1);
+            sb.append('}');
+        }
+        sb.append(',');
+    }
+
+    /**
+     * formats a value, whole numbers without fraction
+     *
+     * @param value value
+     * @return formatted value
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * edu.hm.dako.common.metrics
+ */
+package edu.hm.dako.common.metrics;
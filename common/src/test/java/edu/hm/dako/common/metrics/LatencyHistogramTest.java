@@ -0,0 +1,86 @@
+package edu.hm.dako.common.metrics;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assert (LatencyHistogram.lowestValueOf(index) <= value);
+            assert (LatencyHistogram.highestValueOf(index) >= value);
+        }
+        assert (LatencyHistogram.indexOf(Long.MAX_VALUE) == LatencyHistogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    void getValueAtPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assert (snapshot.getTotalCount() == 10000);
+        assert (snapshot.getMax() == 10000000);
+        assert (Math.abs(snapshot.getValueAtPercentile(50) - 5000000) < 5000000 * 0.016);
+        assert (Math.abs(snapshot.getValueAtPercentile(99) - 9900000) < 9900000 * 0.016);
+        assert (snapshot.getValueAtPercentile(100) == 10000000);
+    }
+
+    @Test
+    void intervalSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+        assert (histogram.intervalSnapshot().getTotalCount() == 2);
+
+        histogram.record(50);
+        LatencyHistogram.Snapshot interval = histogram.intervalSnapshot();
+        assert (interval.getTotalCount() == 1);
+        assert (interval.getMax() == 50);
+        assert (histogram.snapshot().getTotalCount() == 3);
+    }
+
+    @Test
+    void precision() {
+        assert (LatencyHistogram.subBucketBitsFor(2) == 8);
+        assert (LatencyHistogram.subBucketBitsFor(3) == 11);
+        for (int bits : new int[]{2, 8, 16}) {
+            for (long value : new long[]{0, 1, 3, 4, 1000, 123456789, Long.MAX_VALUE}) {
+                int index = LatencyHistogram.indexOf(value, bits);
+                assert (LatencyHistogram.lowestValueOf(index, bits) <= value);
+                assert (LatencyHistogram.highestValueOf(index, bits) >= value);
+            }
+            assert (LatencyHistogram.indexOf(Long.MAX_VALUE, bits) == LatencyHistogram.bucketCount(bits) - 1);
+        }
+
+        LatencyHistogram histogram = LatencyHistogram.forSignificantDigits(3);
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assert (Math.abs(snapshot.getValueAtPercentile(50) - 5000000) < 5000000 * 0.001);
+        assert (Math.abs(snapshot.getValueAtPercentile(99) - 9900000) < 9900000 * 0.001);
+    }
+
+    @Test
+    void merge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            first.record(i * 1000);
+            second.record((i + 1000) * 1000);
+        }
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty(LatencyHistogram.SUB_BUCKET_BITS)
+                .merge(first.snapshot()).merge(second.snapshot());
+        assert (merged.getTotalCount() == 2000);
+        assert (merged.getMax() == 2000000);
+        assert (merged.getMean() == 1000500);
+        assert (Math.abs(merged.getValueAtPercentile(50) - 1000000) < 1000000 * 0.016);
+
+        // uniform distribution 1..2000 us: standard deviation 2000 / sqrt(12) us
+        double expected = 2000000 / Math.sqrt(12);
+        assert (Math.abs(merged.getStandardDeviation() - expected) < expected * 0.016);
+    }
+}
@@ -35,6 +35,15 @@ public interface Connection {
      */
     void send(Serializable message) throws Exception;
 
+    /**
+     * Liefert Adresse und Port des Kommunikationspartners, bei UDP den Absender der zuletzt empfangenen Nachricht.
+     *
+     * @return Adresse:Port oder null, falls nicht bekannt
+     */
+    default String getRemoteEndpoint() {
+        return null;
+    }
+
     /**
      * Baut die Verbindung zum Kommunikationspartner ab.
      *
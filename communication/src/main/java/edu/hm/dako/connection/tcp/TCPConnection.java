@@ -226,6 +226,11 @@ public class TCPConnection implements Connection {
         }
     }
 
+    @Override
+    public String getRemoteEndpoint() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+
     @Override
     public synchronized void close() throws IOException {
         try {
@@ -48,6 +48,13 @@ public class UDPServerConnection implements Connection {
         serverSocket.send(udpRemoteObject.getRemoteAddress(), udpRemoteObject.getRemotePort(), message);
     }
 
+    @Override
+    public String getRemoteEndpoint() {
+        UDPPseudoConnectionContext context = udpRemoteObject;
+        if (context.getRemoteAddress() == null) return null;
+        return context.getRemoteAddress().getHostAddress() + ":" + context.getRemotePort();
+    }
+
     /**
      * Dies ist nur eine Dummy-Methode. Der ServerSocket darf nicht geschlossen
      * werden, da der Server sonst keine Requests mehr entgegennehmen kann. Es
@@ -0,0 +1,83 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.api.data.PDU;
+import edu.hm.dako.api.store.DataBaseController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Einfügen von PDUs in die SQLite-Datenbank des API-Servers, einzeln (insertPDU, eine Transaktion pro PDU) und als
+ * Batch (insertPDUs, eine Transaktion pro Batch). DataBaseController legt die Datenbank fest als database.sqlite im
+ * Arbeitsverzeichnis an; der Gradle-Task jmh löscht sie vor jedem Lauf, und vor jeder Iteration wird die Tabelle pdu
+ * geleert, damit jede Iteration und jede Methode mit derselben Tabellengröße beginnt.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBaseControllerBenchmark {
+
+    /**
+     * Anzahl PDUs pro Batch
+     */
+    @Param({"100"})
+    public int batchSize;
+
+    private DataBaseController dataBaseController;
+    private PDU pdu;
+    private List<PDU> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataBaseController = DataBaseController.getInstance();
+        dataBaseController.init();
+        pdu = createPdu();
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(createPdu());
+        }
+    }
+
+    /**
+     * Tabelle leeren, damit die Zeilen früherer Iterationen und Methoden die Messung nicht beeinflussen
+     */
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        if (!dataBaseController.deleteAllPDUs()) throw new IllegalStateException("Tabelle pdu nicht geleert");
+    }
+
+    @Benchmark
+    public boolean insertPDU() {
+        return dataBaseController.insertPDU(pdu);
+    }
+
+    /**
+     * Zeit für einen ganzen Batch, pro PDU durch batchSize teilen
+     */
+    @Benchmark
+    public boolean insertPDUs() {
+        return dataBaseController.insertPDUs(batch);
+    }
+
+    private static PDU createPdu() {
+        return new PDU(0, "Chat", "Client-1", "Client-Thread-1", "Listener-Client-1",
+                String.valueOf(System.currentTimeMillis()), "x".repeat(100));
+    }
+}
@@ -0,0 +1,82 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.auditlogserver.persistence.FileStorage;
+import edu.hm.dako.common.AuditLogPDU;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Schreiben von AuditLogPDUs mit FileStorage in eine temporäre Datei, einzeln (audit) und als Batch (auditBatch).
+ * Die Datei wird pro Iteration neu angelegt.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    /**
+     * Anzahl PDUs pro Batch
+     */
+    @Param({"100"})
+    public int batchSize;
+
+    private Path file;
+    private FileStorage storage;
+    private AuditLogPDU pdu;
+    private List<AuditLogPDU> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pdu = PduSerializationBenchmark.createAuditLogPdu(100);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(PduSerializationBenchmark.createAuditLogPdu(100));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createFile() throws IOException {
+        file = Files.createTempFile("ChatAuditLog", ".dat");
+        storage = new FileStorage(file.toString(), null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void audit() {
+        storage.audit(pdu);
+    }
+
+    /**
+     * Zeit für einen ganzen Batch, pro PDU durch batchSize teilen
+     */
+    @Benchmark
+    public void auditBatch() {
+        storage.auditBatch(batch);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.common.ClientConversationStatus;
+import edu.hm.dako.common.PDUType;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Vector;
+
+/**
+ * Handgeschriebene Kodierung von ChatPDU und AuditLogPDU mit DataOutput/DataInput als Vergleich zur
+ * Java-Serialisierung: Felder in fester Reihenfolge, Enums als Ordinalzahl, Strings als UTF mit vorangestelltem
+ * null-Kennzeichen. Es werden keine Klassenbeschreibungen und Objekt-Handles übertragen.
+ *
+ * @author Lerngruppe
+ */
+public final class PduCodec {
+    private static final PDUType[] PDU_TYPES = PDUType.values();
+    private static final AuditLogPDUType[] AUDIT_LOG_PDU_TYPES = AuditLogPDUType.values();
+    private static final ClientConversationStatus[] CLIENT_STATUS = ClientConversationStatus.values();
+
+    private PduCodec() {
+    }
+
+    /**
+     * ChatPDU kodieren
+     *
+     * @param pdu zu kodierende PDU
+     * @param out Ausgabe
+     * @throws IOException Fehler beim Schreiben
+     */
+    public static void write(ChatPDU pdu, DataOutput out) throws IOException {
+        out.writeByte(pdu.getPduType().ordinal());
+        writeString(pdu.getUserName(), out);
+        writeString(pdu.getEventUserName(), out);
+        writeString(pdu.getClientThreadName(), out);
+        writeString(pdu.getServerThreadName(), out);
+        out.writeLong(pdu.getSequenceNumber());
+        writeString(pdu.getMessage(), out);
+        out.writeLong(pdu.getServerTime());
+        out.writeByte(pdu.getClientStatus().ordinal());
+        out.writeInt(pdu.getErrorCode());
+        Vector<String> clients = pdu.getClients();
+        out.writeInt(clients == null ? -1 : clients.size());
+        if (clients != null) {
+            for (String client : clients) {
+                writeString(client, out);
+            }
+        }
+        out.writeLong(pdu.getNumberOfReceivedChatMessages());
+        out.writeLong(pdu.getNumberOfSentEvents());
+        out.writeLong(pdu.getNumberOfReceivedConfirms());
+        out.writeLong(pdu.getNumberOfLostConfirms());
+        out.writeLong(pdu.getNumberOfRetries());
+    }
+
+    /**
+     * ChatPDU dekodieren
+     *
+     * @param in Eingabe
+     * @return gelesene PDU
+     * @throws IOException Fehler beim Lesen
+     */
+    public static ChatPDU readChatPdu(DataInput in) throws IOException {
+        ChatPDU pdu = new ChatPDU();
+        pdu.setPduType(PDU_TYPES[in.readByte()]);
+        pdu.setUserName(readString(in));
+        pdu.setEventUserName(readString(in));
+        pdu.setClientThreadName(readString(in));
+        pdu.setServerThreadName(readString(in));
+        pdu.setSequenceNumber(in.readLong());
+        pdu.setMessage(readString(in));
+        pdu.setServerTime(in.readLong());
+        pdu.setClientStatus(CLIENT_STATUS[in.readByte()]);
+        pdu.setErrorCode(in.readInt());
+        int numberOfClients = in.readInt();
+        if (numberOfClients >= 0) {
+            Vector<String> clients = new Vector<>(numberOfClients);
+            for (int i = 0; i < numberOfClients; i++) {
+                clients.add(readString(in));
+            }
+            pdu.setClients(clients);
+        }
+        pdu.setNumberOfReceivedChatMessages(in.readLong());
+        pdu.setNumberOfSentEvents(in.readLong());
+        pdu.setNumberOfReceivedEventConfirms(in.readLong());
+        pdu.setNumberOfLostEventConfirms(in.readLong());
+        pdu.setNumberOfRetries(in.readLong());
+        return pdu;
+    }
+
+    /**
+     * AuditLogPDU kodieren
+     *
+     * @param pdu zu kodierende PDU
+     * @param out Ausgabe
+     * @throws IOException Fehler beim Schreiben
+     */
+    public static void write(AuditLogPDU pdu, DataOutput out) throws IOException {
+        out.writeByte(pdu.getPduType().ordinal());
+        writeString(pdu.getUserName(), out);
+        writeString(pdu.getClientThreadName(), out);
+        writeString(pdu.getServerThreadName(), out);
+        out.writeLong(pdu.getAuditTime());
+        writeString(pdu.getMessage(), out);
+    }
+
+    /**
+     * AuditLogPDU dekodieren
+     *
+     * @param in Eingabe
+     * @return gelesene PDU
+     * @throws IOException Fehler beim Lesen
+     */
+    public static AuditLogPDU readAuditLogPdu(DataInput in) throws IOException {
+        AuditLogPDU pdu = new AuditLogPDU();
+        pdu.setPduType(AUDIT_LOG_PDU_TYPES[in.readByte()]);
+        pdu.setUserName(readString(in));
+        pdu.setClientThreadName(readString(in));
+        pdu.setServerThreadName(readString(in));
+        pdu.setAuditTime(in.readLong());
+        pdu.setMessage(readString(in));
+        return pdu;
+    }
+
+    private static void writeString(String s, DataOutput out) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
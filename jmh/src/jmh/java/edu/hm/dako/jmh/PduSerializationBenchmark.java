@@ -0,0 +1,217 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.common.ClientConversationStatus;
+import edu.hm.dako.common.PDUType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Kodieren und Dekodieren von ChatPDU und AuditLogPDU:
+ * <ul>
+ * <li>objectStream: eigener ObjectOutputStream je Nachricht wie in UDPSocket, inklusive Stream-Header und
+ * Klassenbeschreibungen</li>
+ * <li>objectStreamReset: ein ObjectOutputStream für alle Nachrichten wie bei einer TCP-Verbindung, nach jeder
+ * Nachricht reset(), damit die Handle-Tabelle nicht wächst</li>
+ * <li>dataStream: handgeschriebene Kodierung aus {@link PduCodec}</li>
+ * </ul>
+ * Mit -prof gc zeigt gc.alloc.rate.norm die pro Nachricht allokierten Bytes.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PduSerializationBenchmark {
+
+    /**
+     * Länge der Chat-Nachricht in Zeichen
+     */
+    @Param({"10", "1000"})
+    public int messageLength;
+
+    /**
+     * Anzahl der Clients in der Client-Liste der PDU (0: keine Liste wie bei Chat-Nachrichten, sonst wie bei
+     * Login-Events)
+     */
+    @Param({"0", "100"})
+    public int numberOfClients;
+
+    private ChatPDU chatPdu;
+    private AuditLogPDU auditLogPdu;
+
+    private byte[] chatPduObjectBytes;
+    private byte[] chatPduDataBytes;
+    private byte[] auditLogPduObjectBytes;
+    private byte[] auditLogPduDataBytes;
+
+    /**
+     * wiederverwendete Puffer und Ströme für objectStreamReset und dataStream
+     */
+    private ByteArrayOutputStream sharedBuffer;
+    private ObjectOutputStream sharedObjectStream;
+    private DataOutputStream sharedDataStream;
+
+    @Setup
+    public void setup() throws IOException {
+        chatPdu = createChatPdu(messageLength, numberOfClients);
+        auditLogPdu = createAuditLogPdu(messageLength);
+
+        chatPduObjectBytes = writeObject(chatPdu);
+        auditLogPduObjectBytes = writeObject(auditLogPdu);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PduCodec.write(chatPdu, new DataOutputStream(buffer));
+        chatPduDataBytes = buffer.toByteArray();
+        buffer.reset();
+        PduCodec.write(auditLogPdu, new DataOutputStream(buffer));
+        auditLogPduDataBytes = buffer.toByteArray();
+
+        sharedBuffer = new ByteArrayOutputStream(4096);
+        sharedObjectStream = new ObjectOutputStream(sharedBuffer);
+        sharedDataStream = new DataOutputStream(sharedBuffer);
+    }
+
+    @Benchmark
+    public byte[] chatPduWriteObjectStream() throws IOException {
+        return writeObject(chatPdu);
+    }
+
+    @Benchmark
+    public int chatPduWriteObjectStreamReset() throws IOException {
+        sharedBuffer.reset();
+        sharedObjectStream.writeObject(chatPdu);
+        sharedObjectStream.flush();
+        sharedObjectStream.reset();
+        return sharedBuffer.size();
+    }
+
+    @Benchmark
+    public int chatPduWriteDataStream() throws IOException {
+        sharedBuffer.reset();
+        PduCodec.write(chatPdu, sharedDataStream);
+        sharedDataStream.flush();
+        return sharedBuffer.size();
+    }
+
+    @Benchmark
+    public Object chatPduReadObjectStream() throws IOException, ClassNotFoundException {
+        return readObject(chatPduObjectBytes);
+    }
+
+    @Benchmark
+    public ChatPDU chatPduReadDataStream() throws IOException {
+        return PduCodec.readChatPdu(new DataInputStream(new ByteArrayInputStream(chatPduDataBytes)));
+    }
+
+    @Benchmark
+    public byte[] auditLogPduWriteObjectStream() throws IOException {
+        return writeObject(auditLogPdu);
+    }
+
+    @Benchmark
+    public int auditLogPduWriteObjectStreamReset() throws IOException {
+        sharedBuffer.reset();
+        sharedObjectStream.writeObject(auditLogPdu);
+        sharedObjectStream.flush();
+        sharedObjectStream.reset();
+        return sharedBuffer.size();
+    }
+
+    @Benchmark
+    public int auditLogPduWriteDataStream() throws IOException {
+        sharedBuffer.reset();
+        PduCodec.write(auditLogPdu, sharedDataStream);
+        sharedDataStream.flush();
+        return sharedBuffer.size();
+    }
+
+    @Benchmark
+    public Object auditLogPduReadObjectStream() throws IOException, ClassNotFoundException {
+        return readObject(auditLogPduObjectBytes);
+    }
+
+    @Benchmark
+    public AuditLogPDU auditLogPduReadDataStream() throws IOException {
+        return PduCodec.readAuditLogPdu(new DataInputStream(new ByteArrayInputStream(auditLogPduDataBytes)));
+    }
+
+    /**
+     * Chat-Message-Request bzw. Login-Event wie vom Client bzw. Server erzeugt
+     *
+     * @param messageLength   Länge der Nachricht
+     * @param numberOfClients Anzahl Clients in der Client-Liste, 0 für keine Liste
+     * @return PDU
+     */
+    static ChatPDU createChatPdu(int messageLength, int numberOfClients) {
+        ChatPDU pdu = new ChatPDU();
+        pdu.setPduType(numberOfClients == 0 ? PDUType.CHAT_MESSAGE_REQUEST : PDUType.LOGIN_EVENT);
+        pdu.setUserName("Client-1");
+        pdu.setEventUserName("Client-1");
+        pdu.setClientThreadName("Client-Thread-1");
+        pdu.setServerThreadName("Listener-Client-1");
+        pdu.setSequenceNumber(42);
+        pdu.setMessage("x".repeat(messageLength));
+        pdu.setServerTime(System.nanoTime());
+        pdu.setClientStatus(ClientConversationStatus.REGISTERED);
+        if (numberOfClients > 0) {
+            Vector<String> clients = new Vector<>(numberOfClients);
+            for (int i = 0; i < numberOfClients; i++) {
+                clients.add("Client-" + i);
+            }
+            pdu.setClients(clients);
+        }
+        return pdu;
+    }
+
+    /**
+     * AuditLogPDU zu einem Chat-Message-Request
+     *
+     * @param messageLength Länge der Nachricht
+     * @return PDU
+     */
+    static AuditLogPDU createAuditLogPdu(int messageLength) {
+        AuditLogPDU pdu = new AuditLogPDU();
+        pdu.setPduType(AuditLogPDUType.CHAT_MESSAGE_REQUEST);
+        pdu.setUserName("Client-1");
+        pdu.setClientThreadName("Client-Thread-1");
+        pdu.setServerThreadName("Listener-Client-1");
+        pdu.setAuditTime(System.currentTimeMillis());
+        pdu.setMessage("x".repeat(messageLength));
+        return pdu;
+    }
+
+    private static byte[] writeObject(Object pdu) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream os = new ObjectOutputStream(out);
+        os.writeObject(pdu);
+        os.flush();
+        return out.toByteArray();
+    }
+
+    private static Object readObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+}
@@ -0,0 +1,119 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.chatserver.ClientListEntry;
+import edu.hm.dako.chatserver.SharedChatClientList;
+import edu.hm.dako.common.ClientConversationStatus;
+import java.util.Vector;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operationen der SharedChatClientList, wie sie die Worker-Threads des Servers pro Request ausführen, mit mehreren
+ * gleichzeitig zugreifenden Threads. Die Anzahl der Threads lässt sich mit -t überschreiben, z.B. um die Skalierung
+ * von 1 bis zur Anzahl der Kerne zu vergleichen.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SharedChatClientListBenchmark {
+
+    /**
+     * Anzahl angemeldeter Clients
+     */
+    @Param({"100", "1000"})
+    public int numberOfClients;
+
+    private SharedChatClientList clientList;
+    private String[] userNames;
+
+    /**
+     * Namen für an- und abmeldende Clients, die nicht mit den angemeldeten kollidieren
+     */
+    private final AtomicInteger loginCounter = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        clientList = SharedChatClientList.getInstance();
+        clientList.deleteAll();
+        userNames = new String[numberOfClients];
+        for (int i = 0; i < numberOfClients; i++) {
+            userNames[i] = "Client-" + i;
+            login(userNames[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientList.deleteAll();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean existsClient() {
+        return clientList.existsClient(randomUserName());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void increaseNumberOfSentChatEvents() {
+        clientList.increaseNumberOfSentChatEvents(randomUserName());
+    }
+
+    /**
+     * Empfängerliste für ein Event
+     */
+    @Benchmark
+    @Threads(4)
+    public Vector<String> getRegisteredClientNameList() {
+        return clientList.getRegisteredClientNameList();
+    }
+
+    /**
+     * Anmelden und Abmelden eines Clients, während andere Threads Empfängerlisten für Events erstellen
+     */
+    @Benchmark
+    @Group("loginLogout")
+    @GroupThreads(1)
+    public void loginLogout() {
+        String userName = "Login-" + loginCounter.incrementAndGet();
+        login(userName);
+        clientList.deleteClientWithoutCondition(userName);
+    }
+
+    @Benchmark
+    @Group("loginLogout")
+    @GroupThreads(3)
+    public Vector<String> loginLogoutReaders() {
+        return clientList.getRegisteredClientNameList();
+    }
+
+    private void login(String userName) {
+        clientList.createClient(userName, new ClientListEntry(userName, null));
+        clientList.changeClientStatus(userName, ClientConversationStatus.REGISTERED);
+    }
+
+    private String randomUserName() {
+        return userNames[ThreadLocalRandom.current().nextInt(userNames.length)];
+    }
+}
@@ -0,0 +1,93 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.common.ChatPDU;
+import edu.hm.dako.connection.tcp.TCPConnection;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round-Trip einer ChatPDU über eine TCPConnection auf Loopback: Der Benchmark-Thread sendet, ein Echo-Thread
+ * empfängt über eine zweite TCPConnection und schickt die PDU zurück. Die Verbindung wird pro Iteration neu
+ * aufgebaut, weil TCPConnection ohne reset() sendet und die Handle-Tabellen der Objektströme sonst über den ganzen
+ * Lauf wachsen.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TcpConnectionBenchmark {
+    private static final int BUFFER_SIZE = 65536;
+
+    @Param({"10", "1000"})
+    public int messageLength;
+
+    private ServerSocket serverSocket;
+    private TCPConnection client;
+    private Thread echoThread;
+
+    @Setup(Level.Iteration)
+    public void connect() throws IOException {
+        serverSocket = new ServerSocket(0);
+        echoThread = new Thread(this::echo, "Echo-Thread");
+        echoThread.setDaemon(true);
+        echoThread.start();
+        client = new TCPConnection("localhost", serverSocket.getLocalPort(), "0.0.0.0", 0, BUFFER_SIZE,
+                BUFFER_SIZE, false, true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void disconnect() throws IOException, InterruptedException {
+        client.close();
+        echoThread.join(TimeUnit.SECONDS.toMillis(5));
+        serverSocket.close();
+    }
+
+    /**
+     * Pro Aufruf eine neue PDU, da ein erneut gesendetes Objekt nur als Rückverweis übertragen würde
+     */
+    @Benchmark
+    public Serializable roundTrip() throws Exception {
+        client.send(PduSerializationBenchmark.createChatPdu(messageLength, 0));
+        return client.receive();
+    }
+
+    /**
+     * Echo-Seite: empfangene PDUs zurückschicken, bis der Client die Verbindung abbaut
+     */
+    private void echo() {
+        try {
+            TCPConnection server = new TCPConnection(serverSocket, BUFFER_SIZE, BUFFER_SIZE, false, true);
+            try {
+                while (true) {
+                    ChatPDU pdu = (ChatPDU) server.receive();
+                    server.send(pdu);
+                }
+            } catch (Exception e) {
+                // Verbindung vom Client abgebaut
+            } finally {
+                server.close();
+            }
+        } catch (IOException e) {
+            // Verbindungsaufbau abgebrochen
+        }
+    }
+}
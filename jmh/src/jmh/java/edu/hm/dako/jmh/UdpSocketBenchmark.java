@@ -0,0 +1,81 @@
+package edu.hm.dako.jmh;
+
+import edu.hm.dako.connection.udp.UDPSocket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round-Trip einer ChatPDU über zwei UDPSockets auf Loopback: Der Benchmark-Thread sendet und wartet auf die
+ * Antwort, ein Echo-Thread schickt jedes empfangene Datagramm an den Absender zurück. Geht ein Datagramm verloren,
+ * bricht der Benchmark nach dem Timeout mit einer Exception ab.
+ *
+ * @author Lerngruppe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UdpSocketBenchmark {
+    private static final int TIMEOUT_IN_MILLIS = 1000;
+
+    @Param({"10", "1000"})
+    public int messageLength;
+
+    private UDPSocket client;
+    private UDPSocket server;
+    private InetAddress serverAddress;
+    private Thread echoThread;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        server = new UDPSocket(0);
+        client = new UDPSocket(0);
+        serverAddress = InetAddress.getLoopbackAddress();
+        echoThread = new Thread(this::echo, "Echo-Thread");
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws InterruptedException {
+        server.close();
+        echoThread.join(TimeUnit.SECONDS.toMillis(5));
+        client.close();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        client.send(serverAddress, server.getLocalPort(), PduSerializationBenchmark.createChatPdu(messageLength, 0));
+        return client.receive(TIMEOUT_IN_MILLIS);
+    }
+
+    /**
+     * Echo-Seite: empfangene PDUs an den Absender zurückschicken, bis das Socket geschlossen wird
+     */
+    private void echo() {
+        while (!server.isClosed()) {
+            try {
+                Object pdu = server.receive(TIMEOUT_IN_MILLIS);
+                server.send(server.getRemoteAddress(), server.getRemotePort(), pdu);
+            } catch (Exception e) {
+                // Timeout oder Socket geschlossen
+            }
+        }
+    }
+}
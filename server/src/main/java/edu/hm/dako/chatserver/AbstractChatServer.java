@@ -1,6 +1,7 @@
 package edu.hm.dako.chatserver;
 
 import edu.hm.dako.chatserver.gui.ServerGUIInterface;
+import edu.hm.dako.common.metrics.MetricsRegistry;
 
 /**
  * shared attributes for all implementations
@@ -29,4 +30,20 @@ public abstract class AbstractChatServer implements ServerInterface {
      * referencing server GUI to register events
      */
     protected ServerGUIInterface serverGuiInterface;
-}
\ No newline at end of file
+
+    @Override
+    public void registerMetrics(MetricsRegistry metrics) {
+        SharedChatClientList clientList = SharedChatClientList.getInstance();
+        metrics.gauge("chat_logged_in_clients", "clients in the client list", clientList::size);
+        metrics.counter("chat_requests", "received requests", counter.requestCounter::sum);
+        metrics.counter("chat_logins", "successful logins", counter.loginCounter::sum);
+        metrics.counter("chat_logouts", "logout requests", () -> counter.logoutCounter.get());
+        metrics.counter("chat_events", "events sent to clients", () -> counter.eventCounter.get());
+        metrics.counter("chat_confirms", "received event confirms", () -> counter.confirmCounter.get());
+        metrics.gauge("chat_waitlist_entries", "outstanding confirms of all clients",
+                clientList::getTotalWaitListSize);
+        metrics.gauge("chat_waitlist_max_entries", "outstanding confirms of the client with the longest wait list",
+                clientList::getMaxWaitListSize);
+        counter.latencies.registerMetrics(metrics);
+    }
+}
@@ -5,6 +5,7 @@ import edu.hm.dako.common.ChatPDU;
 import edu.hm.dako.connection.Connection;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Abstrakte Klasse mit Basisfunktionalität für serverseitige Worker-Threads
@@ -57,6 +58,21 @@ public abstract class AbstractWorkerThread extends Thread {
      */
     protected final AtomicInteger confirmCounter;
 
+    /**
+     * Referenz auf globalen Zähler für Metriken
+     */
+    protected final LongAdder requestCounter;
+
+    /**
+     * Referenz auf globalen Zähler für Metriken
+     */
+    protected final LongAdder loginCounter;
+
+    /**
+     * Referenz auf globale Latenz-Histogramme
+     */
+    protected final SharedLatencyStatistics latencies;
+
     /**
      * Referenz auf GUI des Chat-Servers
      */
@@ -77,6 +93,9 @@ public abstract class AbstractWorkerThread extends Thread {
         this.logoutCounter = counter.logoutCounter;
         this.eventCounter = counter.eventCounter;
         this.confirmCounter = counter.confirmCounter;
+        this.requestCounter = counter.requestCounter;
+        this.loginCounter = counter.loginCounter;
+        this.latencies = counter.latencies;
         this.serverGuiInterface = serverGuiInterface;
     }
 
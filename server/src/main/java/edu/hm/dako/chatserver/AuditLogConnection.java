@@ -2,19 +2,35 @@ package edu.hm.dako.chatserver;
 
 import edu.hm.dako.common.AuditLogPDU;
 import edu.hm.dako.common.AuditLogPDUType;
-import edu.hm.dako.common.AuditLogRMIInterface;
 import edu.hm.dako.common.ChatPDU;
 import edu.hm.dako.common.ExceptionHandler;
-import edu.hm.dako.connection.tcp.TCPConnection;
-import edu.hm.dako.connection.udp.UDPClientConnection;
-import edu.hm.dako.connection.udp.UDPClientConnectionFactory;
-import edu.hm.dako.connection.tcp.TCPConnectionFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.rmi.Naming;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
 
 /**
- * Verwaltet eine logische Verbindung zum AuditLog-Server über UDP oder TCP
+ * Verwaltet eine logische Verbindung zu einem oder mehreren AuditLog-Servern über UDP, TCP oder RMI<br/>
+ * Jeder AuditLog-Server ist ein {@link AuditLogEndpoint} mit eigener begrenzter, lock-freier Warteschlange und
+ * eigenem Sende-Thread, die Worker-Threads stellen AuditLog-Sätze nur ein. Verteilt wird reihum oder über
+ * konsistentes Hashing des User-Namens ({@link AuditLogDistribution}) auf die erreichbaren Endpunkte. Fällt ein
+ * Endpunkt aus, werden seine Sätze auf die übrigen verteilt, nach dem Wiederverbinden wird er wieder berücksichtigt.
+ * Ist eine Warteschlange voll, entscheidet die {@link AuditLogOverflowPolicy}, ob gewartet, verworfen oder in eine
+ * lokale Datei ausgelagert wird.<br/>
+ * Ist kein AuditLog-Server erreichbar, werden die Sätze in den {@link AuditLogSpool} geschrieben. Sobald wieder ein
+ * Endpunkt verbunden ist, verteilt ein eigener Thread die ausgelagerten Sätze in ihrer ursprünglichen Reihenfolge,
+ * solange der Spool nicht leer ist, werden auch neue Sätze dort angehängt.
  *
  * @author Peter Mandl, edited by Lerngruppe
  */
@@ -44,165 +60,506 @@ public class AuditLogConnection {
      */
     static final int DEFAULT_RECEIVE_BUFFER_AUDIT_LOG_SIZE = 40000;
 
+    /**
+     * Standard-Kapazität der Warteschlange pro AuditLog-Server
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /**
+     * max. Anzahl Sätze, die ein Sende-Thread auf einmal entnimmt
+     */
+    static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * max. Wartezeit eines Sende-Threads bei leerer Warteschlange, danach prüft er, ob die Verbindung geschlossen
+     * wurde
+     */
+    static final long IDLE_WAIT_MILLIS = 100;
+
+    /**
+     * max. Wartezeit beim Schließen, bis eine Warteschlange geleert ist
+     */
+    static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * erster und max. Abstand zwischen zwei Verbindungsversuchen
+     */
+    static final long INITIAL_RECONNECT_DELAY_MILLIS = 500;
+    static final long MAX_RECONNECT_DELAY_MILLIS = 30000;
+
+    /**
+     * Anzahl virtueller Knoten pro Endpunkt im Hash-Ring, glättet die Verteilung der User
+     */
+    static final int VIRTUAL_NODES = 64;
+
     /**
      * Referenz auf den logger
      */
     private static final Logger LOG = LogManager.getLogger(AuditLogConnection.class);
 
     /**
-     * Verbindungstyp (UDP, TCP oder RMI)
+     * alle AuditLog-Server
      */
-    private final int connectionType;
+    private final List<AuditLogEndpoint> endpoints = new ArrayList<>();
 
     /**
-     * UDP Verbindung zum Audit Log Server
+     * erreichbare Endpunkte und Hash-Ring, wird bei jedem Zustandswechsel eines Endpunkts neu aufgebaut
      */
-    protected UDPClientConnection udpConnectionToAuditLogServer = null;
+    private volatile Routing routing = Routing.of(Collections.emptyList());
 
     /**
-     * TCP Verbindung zum Audit Log Server
+     * Verteilung der Sätze auf die Endpunkte
      */
-    protected TCPConnection tcpConnectionToAuditLogServer = null;
+    private final AuditLogDistribution distribution;
 
     /**
-     * RMI Verbindung zum Audit Log Server
+     * nächster Endpunkt bei Verteilung reihum
      */
-    protected AuditLogRMIInterface auditLogRemoteObject = null;
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
 
     /**
-     * Hostname des AuditLog-Servers
+     * Zählt AuditLog-Sätze, die nicht gesendet werden konnten
      */
-    final String auditLogServer;
+    private final LongAdder failedCounter = new LongAdder();
 
     /**
-     * Port des AuditLog-Servers
+     * Zählt AuditLog-Sätze, die wegen voller Warteschlange verworfen wurden
      */
-    final int auditLogPort;
+    private final LongAdder droppedCounter = new LongAdder();
 
     /**
-     * Zählt abgehende AuditLog-Sätze
+     * Zählt aus dem Spool nachgesendete AuditLog-Sätze
      */
-    private long counter = 0;
+    private final LongAdder replayedCounter = new LongAdder();
 
     /**
-     * Konstruktor
+     * Verhalten bei voller Warteschlange
+     */
+    private final AuditLogOverflowPolicy overflowPolicy;
+
+    /**
+     * lokaler Zwischenspeicher für ausgelagerte und nicht gesendete Sätze
+     */
+    private final AuditLogSpool spool = new AuditLogSpool(new File(AuditLogSpool.DEFAULT_DIRECTORY));
+
+    /**
+     * Thread, der den Spool auf die Endpunkte verteilt
+     */
+    private Thread replayer;
+
+    /**
+     * Kennzeichen, dass keine Sätze mehr angenommen werden
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Konstruktor mit Standard-Warteschlange (Kapazität 10000, Policy BLOCK)
      *
      * @param connectionType Verbindungstyp (UDP, TCP, RMI)
      * @param auditLogServer Host des AuditLog-Servers
      * @param auditLogPort   Port für AuditLog-Server
      */
     public AuditLogConnection(int connectionType, String auditLogServer, int auditLogPort) {
-        this.auditLogServer = auditLogServer;
-        this.auditLogPort = auditLogPort;
+        this(connectionType, auditLogServer, auditLogPort, DEFAULT_QUEUE_CAPACITY, AuditLogOverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Konstruktor mit Verteilung über den User-Namen
+     *
+     * @param connectionType Verbindungstyp (UDP, TCP, RMI)
+     * @param auditLogServer Host des AuditLog-Servers
+     * @param auditLogPort   Port für AuditLog-Server
+     * @param queueCapacity  max. Anzahl noch nicht gesendeter Sätze
+     * @param overflowPolicy Verhalten bei voller Warteschlange
+     */
+    public AuditLogConnection(int connectionType, String auditLogServer, int auditLogPort, int queueCapacity,
+                              AuditLogOverflowPolicy overflowPolicy) {
+        this(connectionType, auditLogServer, auditLogPort, queueCapacity, overflowPolicy, AuditLogDistribution.HASH);
+    }
+
+    /**
+     * Konstruktor
+     *
+     * @param connectionType  Verbindungstyp (UDP, TCP, RMI)
+     * @param auditLogServers AuditLog-Server, durch Komma getrennt als host oder host:port
+     * @param auditLogPort    Port der AuditLog-Server ohne eigene Portangabe
+     * @param queueCapacity   max. Anzahl noch nicht gesendeter Sätze pro AuditLog-Server
+     * @param overflowPolicy  Verhalten bei voller Warteschlange
+     * @param distribution    Verteilung der Sätze auf die AuditLog-Server
+     */
+    public AuditLogConnection(int connectionType, String auditLogServers, int auditLogPort, int queueCapacity,
+                              AuditLogOverflowPolicy overflowPolicy, AuditLogDistribution distribution) {
+        this.overflowPolicy = overflowPolicy;
+        this.distribution = distribution;
 
         if ((connectionType != AUDIT_LOG_CONNECTION_TYPE_TCP) &&
                 (connectionType != AUDIT_LOG_CONNECTION_TYPE_UDP) &&
                 (connectionType != AUDIT_LOG_CONNECTION_TYPE_RMI)) {
-            this.connectionType = AUDIT_LOG_CONNECTION_TYPE_TCP;
-        } else {
-            this.connectionType = connectionType;
+            connectionType = AUDIT_LOG_CONNECTION_TYPE_TCP;
+        }
+
+        for (String endpoint : auditLogServers.split(",")) {
+            endpoint = endpoint.trim();
+            if (endpoint.isEmpty()) continue;
+            String host = endpoint;
+            int port = auditLogPort;
+            int colon = endpoint.lastIndexOf(':');
+            if (colon > 0 && endpoint.substring(colon + 1).matches("[0-9]{1,5}")) {
+                host = endpoint.substring(0, colon);
+                port = Integer.parseInt(endpoint.substring(colon + 1));
+            }
+            endpoints.add(new AuditLogEndpoint(this, connectionType, host, port, queueCapacity));
         }
     }
 
     /**
-     * Logische Verbindung zum AuditLog-Server aufbauen
+     * Logische Verbindungen zu den AuditLog-Servern aufbauen und Sende-Threads starten. Die Sende-Threads werden
+     * auch gestartet, wenn eine Verbindung nicht aufgebaut werden kann, sie versuchen es dann im Hintergrund erneut.
      *
-     * @throws Exception - Fehler im Socket, Verbindung kann nicht aufgebaut werden
+     * @throws Exception - kein AuditLog-Server erreichbar
      */
     public void connectToAuditLogServer() throws Exception {
-        try {
-            switch (connectionType) {
-                case AUDIT_LOG_CONNECTION_TYPE_UDP -> {
-                    // Verbindung zum AuditLog-Server und Verbindungsparameter
-                    UDPClientConnectionFactory udpFactory = new UDPClientConnectionFactory();
-                    udpConnectionToAuditLogServer = (UDPClientConnection) udpFactory.connectToServer(auditLogServer,
-                            auditLogPort, 0, DEFAULT_SEND_BUFFER_AUDIT_LOG_SIZE,
-                            DEFAULT_RECEIVE_BUFFER_AUDIT_LOG_SIZE);
-                    LOG.debug("Verbindung zmu AuditLog-UDP-Server steht");
-                }
-                case AUDIT_LOG_CONNECTION_TYPE_TCP -> {
-                    TCPConnectionFactory tcpFactory = new TCPConnectionFactory();
-                    tcpConnectionToAuditLogServer = (TCPConnection) tcpFactory.connectToServer(auditLogServer,
-                            auditLogPort, 0, DEFAULT_SEND_BUFFER_AUDIT_LOG_SIZE,
-                            DEFAULT_RECEIVE_BUFFER_AUDIT_LOG_SIZE);
-                    LOG.debug("Verbindung zum AuditLog-TCP-Server steht");
-                }
-                case AUDIT_LOG_CONNECTION_TYPE_RMI -> {
-                    String rmiAddress = "rmi://" + auditLogServer + ":" + auditLogPort + "/" + "AuditLogRmiServer";
-                    LOG.debug("Adresse des AuditLogRmiServers: {}", rmiAddress);
-
-                    // RMI-Objekt-Referenz besorgen
-                    auditLogRemoteObject = (AuditLogRMIInterface) Naming.lookup(rmiAddress);
-                    LOG.debug("Lookup AuditLogRmiServer erfolgreich");
-                    LOG.debug("Verbindung zum AuditLog-RMI-Server steht");
-                }
-                default -> System.out.println("Verbindung zum AuditLog-Server nicht möglich," +
-                        "Verbindungstyp nicht korrekt");
-            }
-        } catch (Exception e) {
+        if (replayer != null) return;
+
+        int connected = 0;
+        for (AuditLogEndpoint endpoint : endpoints) {
+            if (endpoint.start()) connected++;
+        }
+        updateRouting();
+
+        replayer = new Thread(this::replayLoop, "AuditLogReplay");
+        replayer.setDaemon(true);
+        replayer.start();
+
+        LOG.debug("Verbindung zu {} von {} AuditLog-Servern steht", connected, endpoints.size());
+        if (connected == 0) {
             LOG.error("Exception bei Verbindungsaufbau zum AuditLog-Server");
-            ExceptionHandler.logException(e);
             throw new Exception();
         }
     }
 
     /**
-     * Senden eines AuditLog-Satzes zum AuditLog-Server
+     * AuditLog-Satz zum Senden an den AuditLog-Server einstellen, gesendet wird asynchron im Sende-Thread
      *
      * @param pdu  Chat-PDU zum Entnehmen von Parametern für den AuditLog-Satz
      * @param type Typ der AuditLog-PDU, der zu senden ist
-     * @throws Exception Fehler beim Senden zum AuditLog-Server
+     * @throws Exception Verbindung geschlossen, beim Warten unterbrochen oder Fehler beim Auslagern
      */
-    public synchronized void send(ChatPDU pdu, AuditLogPDUType type) throws Exception {
-        // AuditLog-Satz erzeugen
+    public void send(ChatPDU pdu, AuditLogPDUType type) throws Exception {
+        if (closed) throw new Exception("AuditLog-Verbindung ist geschlossen");
+
+        // AuditLog-Satz erzeugen, Zeitstempel und Thread-Name des Worker-Threads
         AuditLogPDU auditLogPdu = createAuditLogPdu(pdu);
         auditLogPdu.setPduType(type);
 
-        // AuditLog-Satz senden
-        try {
-            if (connectionType == AUDIT_LOG_CONNECTION_TYPE_UDP) {
-                udpConnectionToAuditLogServer.send(auditLogPdu);
-            } else if (connectionType == AUDIT_LOG_CONNECTION_TYPE_TCP) {
-                tcpConnectionToAuditLogServer.send(auditLogPdu);
-            } else if (connectionType == AUDIT_LOG_CONNECTION_TYPE_RMI) {
-                auditLogRemoteObject.audit(auditLogPdu);
+        // solange ausgelagerte Sätze warten, hinten anhängen, damit die Reihenfolge erhalten bleibt
+        AuditLogEndpoint endpoint = spool.hasBacklog() ? null : route(auditLogPdu);
+        if (endpoint == null) {
+            spool.append(auditLogPdu);
+            return;
+        }
+        if (endpoint.offer(auditLogPdu)) return;
+
+        // Warteschlange voll
+        switch (overflowPolicy) {
+            case BLOCK -> endpoint.put(auditLogPdu);
+            case DROP -> {
+                droppedCounter.increment();
+                LOG.debug("Warteschlange zum AuditLog-Server voll, AuditLog-Satz verworfen");
             }
-            counter++;
-            LOG.debug("AuditLog-Satz gesendet: {}", counter);
-        } catch (Exception e) {
-            LOG.error("Fehler beim Senden eines AuditLog-Satzes");
+            case SPILL -> spool.append(auditLogPdu);
+        }
+    }
+
+    /**
+     * nicht gesendete Sätze eines ausgefallenen Endpunkts auf die erreichbaren Endpunkte verteilen, ohne zu warten;
+     * was nicht angenommen wird, kommt in den Spool
+     *
+     * @param pdus AuditLog-Sätze
+     * @param from ausgefallener Endpunkt
+     */
+    void redistribute(List<AuditLogPDU> pdus, AuditLogEndpoint from) {
+        List<AuditLogPDU> rest = new ArrayList<>();
+        for (AuditLogPDU pdu : pdus) {
+            AuditLogEndpoint endpoint = closed ? null : route(pdu);
+            if (endpoint == null || endpoint == from || !endpoint.offer(pdu)) rest.add(pdu);
+        }
+        if (rest.isEmpty()) return;
+        try {
+            spool.append(rest);
+        } catch (IOException e) {
+            LOG.error("AuditLog-Sätze konnten nicht ausgelagert werden");
             ExceptionHandler.logException(e);
-            throw new Exception();
+            failedCounter.add(rest.size());
+        }
+    }
+
+    /**
+     * ein Endpunkt wurde verbunden oder ist ausgefallen, die Sätze werden neu verteilt
+     *
+     * @param endpoint Endpunkt
+     */
+    void endpointStateChanged(AuditLogEndpoint endpoint) {
+        updateRouting();
+        LOG.info("AuditLog-Server " + endpoint.getName() + (endpoint.isConnected() ? " verbunden" : " ausgefallen")
+                + ", Sätze werden auf " + routing.alive().length + " AuditLog-Server verteilt");
+    }
+
+    /**
+     * erreichbare Endpunkte und Hash-Ring neu aufbauen
+     */
+    private synchronized void updateRouting() {
+        List<AuditLogEndpoint> alive = new ArrayList<>();
+        for (AuditLogEndpoint endpoint : endpoints) {
+            if (endpoint.isConnected()) alive.add(endpoint);
         }
+        routing = Routing.of(alive);
     }
 
     /**
-     * Schliessen der Verbindung zum AuditLog-Server
+     * Endpunkt für einen Satz bestimmen
      *
-     * @throws Exception - Fehler beim Schliessen der Verbindung
+     * @param pdu AuditLog-Satz
+     * @return Endpunkt, null wenn keiner erreichbar ist
+     */
+    private AuditLogEndpoint route(AuditLogPDU pdu) {
+        Routing current = routing;
+        if (current.alive().length == 0) return null;
+        if (distribution == AuditLogDistribution.ROUND_ROBIN) {
+            return current.alive()[Math.floorMod(nextEndpoint.getAndIncrement(), current.alive().length)];
+        }
+        String userName = pdu.getUserName();
+        return current.lookup(hash(userName == null ? "" : userName));
+    }
+
+    /**
+     * Replay-Thread: ausgelagerte Sätze in ihrer Reihenfolge auf die erreichbaren Endpunkte verteilen, ein Satz
+     * gilt als nachgesendet, sobald ihn die Warteschlange eines verbundenen Endpunkts angenommen hat
+     */
+    private void replayLoop() {
+        List<AuditLogPDU> replay = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!closed) {
+            if (!spool.hasBacklog() || routing.alive().length == 0
+                    || (replay.isEmpty() && spool.readBatch(replay, MAX_BATCH_SIZE) == 0)) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(IDLE_WAIT_MILLIS));
+                continue;
+            }
+
+            int handedOver = 0;
+            try {
+                for (AuditLogPDU pdu : replay) {
+                    AuditLogEndpoint endpoint = route(pdu);
+                    if (endpoint == null || closed) break;
+                    endpoint.put(pdu);
+                    handedOver++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                replayedCounter.add(handedOver);
+                spool.commit(handedOver);
+                replay.subList(0, handedOver).clear();
+            }
+        }
+        LOG.debug("AuditLog-Replay-Thread beendet");
+    }
+
+    /**
+     * Schliessen der Verbindungen zu den AuditLog-Servern, vorher werden alle eingestellten Sätze gesendet oder in
+     * den Spool geschrieben
+     *
+     * @throws Exception - Fehler beim Schliessen einer Verbindung
      */
     public synchronized void close() throws Exception {
-        try {
-            AuditLogPDU closePdu = new AuditLogPDU();
-            closePdu.setUserName("Chat-Server");
-            closePdu.setPduType(AuditLogPDUType.FINISH_AUDIT_REQUEST);
-
-            if (connectionType == AUDIT_LOG_CONNECTION_TYPE_UDP) {
-                udpConnectionToAuditLogServer.send(closePdu);
-                udpConnectionToAuditLogServer.close();
-            } else if (connectionType == AUDIT_LOG_CONNECTION_TYPE_TCP) {
-                tcpConnectionToAuditLogServer.send(closePdu);
-                tcpConnectionToAuditLogServer.close();
-            } else if (connectionType == AUDIT_LOG_CONNECTION_TYPE_RMI) {
-                auditLogRemoteObject.audit(closePdu);
+        closed = true;
+        if (replayer != null) {
+            LockSupport.unpark(replayer);
+            replayer.join(CLOSE_TIMEOUT_MILLIS);
+        }
+
+        Exception error = null;
+        for (AuditLogEndpoint endpoint : endpoints) {
+            try {
+                endpoint.close(CLOSE_TIMEOUT_MILLIS);
+            } catch (Exception e) {
+                LOG.error("Fehler beim Schliessen der Verbindung zum AuditLog-Server " + endpoint.getName());
+                ExceptionHandler.logException(e);
+                error = e;
             }
+        }
+        updateRouting();
+        spool.close();
 
-            LOG.debug("Verbindung zum AuditLog-Server beendet, Gesendete AuditLog-Sätze: " + counter);
-        } catch (Exception e) {
-            LOG.error("Fehler beim Schliessen der Verbindung zum AuditLog-Server");
-            ExceptionHandler.logException(e);
-            throw new Exception();
+        LOG.debug("Verbindung zum AuditLog-Server beendet, Gesendete AuditLog-Sätze: " + getNumberOfSentRecords());
+        if (error != null) throw new Exception();
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn mindestens ein AuditLog-Server verbunden ist
+     */
+    public boolean isConnected() {
+        return routing.alive().length > 0;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl gesendeter AuditLog-Sätze
+     */
+    public long getNumberOfSentRecords() {
+        return sum(AuditLogEndpoint::getNumberOfSentRecords);
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl AuditLog-Sätze, die nicht gesendet werden konnten
+     */
+    public long getNumberOfFailedRecords() {
+        return failedCounter.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl wegen voller Warteschlange verworfener AuditLog-Sätze
+     */
+    public long getNumberOfDroppedRecords() {
+        return droppedCounter.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl in den Spool geschriebener AuditLog-Sätze
+     */
+    public long getNumberOfSpilledRecords() {
+        return spool.getNumberOfRecords();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl aus dem Spool nachgesendeter AuditLog-Sätze
+     */
+    public long getNumberOfReplayedRecords() {
+        return replayedCounter.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl erfolgreicher Wiederverbindungen
+     */
+    public long getNumberOfReconnects() {
+        return sum(AuditLogEndpoint::getNumberOfReconnects);
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl noch nicht nachgesendeter AuditLog-Sätze im Spool
+     */
+    public long getSpoolSize() {
+        return spool.getPendingRecords();
+    }
+
+    /**
+     * getter
+     *
+     * @return Größe des Spools in Byte
+     */
+    public long getSpoolBytes() {
+        return spool.getBytes();
+    }
+
+    /**
+     * getter
+     *
+     * @return Alter des ältesten noch nicht nachgesendeten AuditLog-Satzes im Spool in ms
+     */
+    public long getSpoolLagMillis() {
+        return spool.getLagMillis();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl noch nicht gesendeter AuditLog-Sätze in den Warteschlangen
+     */
+    public int getQueueSize() {
+        return (int) sum(AuditLogEndpoint::getQueueSize);
+    }
+
+    /**
+     * getter
+     *
+     * @return Kapazität aller Warteschlangen
+     */
+    public int getQueueCapacity() {
+        return (int) sum(AuditLogEndpoint::getQueueCapacity);
+    }
+
+    /**
+     * getter
+     *
+     * @return 1 für verbundene, 0 für ausgefallene AuditLog-Server, Schlüssel ist Host:Port
+     */
+    public Map<String, Number> getEndpointsConnected() {
+        return byEndpoint(endpoint -> endpoint.isConnected() ? 1 : 0);
+    }
+
+    /**
+     * getter
+     *
+     * @return gesendete AuditLog-Sätze pro AuditLog-Server, Schlüssel ist Host:Port
+     */
+    public Map<String, Number> getSentRecordsByEndpoint() {
+        return byEndpoint(AuditLogEndpoint::getNumberOfSentRecords);
+    }
+
+    /**
+     * getter
+     *
+     * @return wartende AuditLog-Sätze pro AuditLog-Server, Schlüssel ist Host:Port
+     */
+    public Map<String, Number> getQueueSizeByEndpoint() {
+        return byEndpoint(AuditLogEndpoint::getQueueSize);
+    }
+
+    private long sum(ToLongFunction<AuditLogEndpoint> value) {
+        long sum = 0;
+        for (AuditLogEndpoint endpoint : endpoints) {
+            sum += value.applyAsLong(endpoint);
+        }
+        return sum;
+    }
+
+    private Map<String, Number> byEndpoint(ToLongFunction<AuditLogEndpoint> value) {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (AuditLogEndpoint endpoint : endpoints) {
+            values.put(endpoint.getName(), value.applyAsLong(endpoint));
         }
+        return values;
+    }
+
+    /**
+     * Hashwert für den Hash-Ring, die Bits von String.hashCode werden gemischt (Finalizer von MurmurHash3)
+     *
+     * @param key Schlüssel
+     * @return Hashwert
+     */
+    static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
     }
 
     /**
@@ -221,4 +578,51 @@ public class AuditLogConnection {
         pdu.setMessage(chatPdu.getMessage());
         return (pdu);
     }
-}
\ No newline at end of file
+
+    /**
+     * unveränderliche Verteilungstabelle: erreichbare Endpunkte und Hash-Ring mit virtuellen Knoten
+     *
+     * @param alive  erreichbare Endpunkte
+     * @param hashes sortierte Positionen der virtuellen Knoten
+     * @param nodes  Endpunkt zu jeder Position
+     */
+    record Routing(AuditLogEndpoint[] alive, int[] hashes, AuditLogEndpoint[] nodes) {
+        /**
+         * Verteilungstabelle aufbauen
+         *
+         * @param alive erreichbare Endpunkte
+         * @return Verteilungstabelle
+         */
+        static Routing of(List<AuditLogEndpoint> alive) {
+            long[] ring = new long[alive.size() * VIRTUAL_NODES];
+            for (int i = 0; i < alive.size(); i++) {
+                for (int node = 0; node < VIRTUAL_NODES; node++) {
+                    // Position in den oberen, Index des Endpunkts in den unteren 32 Bit, so sortiert ein long[]
+                    int position = hash(alive.get(i).getName() + "#" + node);
+                    ring[i * VIRTUAL_NODES + node] = ((long) position << 32) | i;
+                }
+            }
+            Arrays.sort(ring);
+
+            int[] hashes = new int[ring.length];
+            AuditLogEndpoint[] nodes = new AuditLogEndpoint[ring.length];
+            for (int i = 0; i < ring.length; i++) {
+                hashes[i] = (int) (ring[i] >> 32);
+                nodes[i] = alive.get((int) ring[i]);
+            }
+            return new Routing(alive.toArray(new AuditLogEndpoint[0]), hashes, nodes);
+        }
+
+        /**
+         * erster virtueller Knoten im Uhrzeigersinn ab einem Hashwert
+         *
+         * @param hash Hashwert des Schlüssels
+         * @return Endpunkt
+         */
+        AuditLogEndpoint lookup(int hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) index = -index - 1;
+            return nodes[index == nodes.length ? 0 : index];
+        }
+    }
+}
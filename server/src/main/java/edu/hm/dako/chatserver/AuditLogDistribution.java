@@ -0,0 +1,30 @@
+package edu.hm.dako.chatserver;
+
+/**
+ * Verteilung der AuditLog-Sätze auf mehrere AuditLog-Server
+ *
+ * @author Lerngruppe
+ */
+public enum AuditLogDistribution {
+    /**
+     * Sätze werden reihum auf die erreichbaren AuditLog-Server verteilt
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Sätze werden über konsistentes Hashing des User-Namens verteilt, die Sätze eines Users bleiben in ihrer
+     * Reihenfolge, solange sein AuditLog-Server erreichbar ist
+     */
+    HASH;
+
+    /**
+     * Verteilung aus einem Startparameter ermitteln
+     *
+     * @param value roundrobin oder hash
+     * @return Verteilung, HASH bei unbekanntem Wert
+     */
+    public static AuditLogDistribution fromString(String value) {
+        if ("roundrobin".equalsIgnoreCase(value) || "round_robin".equalsIgnoreCase(value)) return ROUND_ROBIN;
+        return HASH;
+    }
+}
@@ -0,0 +1,450 @@
+package edu.hm.dako.chatserver;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import edu.hm.dako.common.AuditLogRMIInterface;
+import edu.hm.dako.common.ExceptionHandler;
+import edu.hm.dako.connection.tcp.TCPConnection;
+import edu.hm.dako.connection.tcp.TCPConnectionFactory;
+import edu.hm.dako.connection.udp.UDPClientConnection;
+import edu.hm.dako.connection.udp.UDPClientConnectionFactory;
+import java.rmi.Naming;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Verbindung zu einem AuditLog-Server über UDP, TCP oder RMI mit eigener Warteschlange und eigenem Sende-Thread<br/>
+ * Schlägt das Senden fehl, meldet der Endpunkt sich bei der {@link AuditLogConnection} ab und gibt die nicht
+ * gesendeten Sätze zur Verteilung an die übrigen Endpunkte zurück. Danach baut er die Verbindung mit exponentiell
+ * wachsendem Abstand neu auf und meldet sich wieder an.<br/>
+ * Über RMI wird ein Batch mit einem Aufruf von {@link AuditLogRMIInterface#auditBatch(List)} gesendet. Der Aufruf
+ * läuft in einem eigenen Thread, der Sende-Thread entnimmt währenddessen bereits den nächsten Batch. Pro Endpunkt
+ * ist höchstens ein Aufruf unterwegs, damit die Batches in ihrer Reihenfolge ankommen und der FINISH-Satz erst nach
+ * der Bestätigung aller vorherigen Batches gesendet wird.
+ *
+ * @author Lerngruppe
+ */
+class AuditLogEndpoint {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(AuditLogEndpoint.class);
+
+    /**
+     * AuditLog-Verbindung, an die Zustandswechsel und nicht gesendete Sätze gemeldet werden
+     */
+    private final AuditLogConnection owner;
+
+    /**
+     * Verbindungstyp (UDP, TCP oder RMI)
+     */
+    private final int connectionType;
+
+    /**
+     * Hostname und Port des AuditLog-Servers
+     */
+    private final String host;
+    private final int port;
+
+    /**
+     * UDP-, TCP- bzw. RMI-Verbindung zum AuditLog-Server
+     */
+    private UDPClientConnection udpConnection = null;
+    private TCPConnection tcpConnection = null;
+    private volatile AuditLogRMIInterface remoteObject = null;
+
+    /**
+     * Thread für den laufenden RMI-Aufruf und Erlaubnis für einen Aufruf, nur bei RMI
+     */
+    private final ExecutorService rmiCallExecutor;
+    private final Semaphore outstandingCall = new Semaphore(1);
+
+    /**
+     * Warteschlange zum Sende-Thread
+     */
+    private final AuditLogQueue queue;
+
+    /**
+     * Zählt gesendete Sätze und erfolgreiche Wiederverbindungen
+     */
+    private final LongAdder sentCounter = new LongAdder();
+    private final LongAdder reconnectCounter = new LongAdder();
+
+    /**
+     * Verbindung besteht
+     */
+    private volatile boolean connected = false;
+
+    /**
+     * Kennzeichen, dass der Sende-Thread nach dem Leeren der Warteschlange endet
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * aktueller Abstand und Zeitpunkt des nächsten Verbindungsversuchs, nur in disconnect und reconnect geändert
+     */
+    private long reconnectDelayMillis = AuditLogConnection.INITIAL_RECONNECT_DELAY_MILLIS;
+    private long nextReconnectTime = 0;
+
+    /**
+     * Sende-Thread
+     */
+    private Thread sender;
+
+    /**
+     * Konstruktor
+     *
+     * @param owner          AuditLog-Verbindung
+     * @param connectionType Verbindungstyp (UDP, TCP, RMI)
+     * @param host           Host des AuditLog-Servers
+     * @param port           Port des AuditLog-Servers
+     * @param queueCapacity  max. Anzahl noch nicht gesendeter Sätze
+     */
+    AuditLogEndpoint(AuditLogConnection owner, int connectionType, String host, int port, int queueCapacity) {
+        this.owner = owner;
+        this.connectionType = connectionType;
+        this.host = host;
+        this.port = port;
+        this.queue = new AuditLogQueue(queueCapacity);
+
+        if (connectionType == AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_RMI) {
+            rmiCallExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "AuditLogRmiCall-" + getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            rmiCallExecutor = null;
+        }
+    }
+
+    /**
+     * Verbindung aufbauen und Sende-Thread starten, der Sende-Thread läuft auch ohne Verbindung und versucht sie
+     * dann im Hintergrund aufzubauen
+     *
+     * @return true, wenn die Verbindung aufgebaut wurde
+     */
+    boolean start() {
+        try {
+            openConnection();
+            connected = true;
+        } catch (Exception e) {
+            LOG.error("Verbindung zum AuditLog-Server " + getName() + " konnte nicht aufgebaut werden");
+            ExceptionHandler.logException(e);
+            nextReconnectTime = System.currentTimeMillis() + reconnectDelayMillis;
+        }
+        sender = new Thread(this::sendLoop, "AuditLogSender-" + getName());
+        sender.setDaemon(true);
+        sender.start();
+        return connected;
+    }
+
+    /**
+     * Satz einstellen, falls Platz frei ist
+     *
+     * @param pdu AuditLog-Satz
+     * @return false, wenn die Warteschlange voll ist
+     */
+    boolean offer(AuditLogPDU pdu) {
+        return queue.offer(pdu);
+    }
+
+    /**
+     * Satz einstellen, bei voller Warteschlange warten
+     *
+     * @param pdu AuditLog-Satz
+     * @throws InterruptedException beim Warten unterbrochen
+     */
+    void put(AuditLogPDU pdu) throws InterruptedException {
+        queue.put(pdu);
+    }
+
+    /**
+     * Warteschlange leeren, bei bestehender Verbindung FINISH-Satz senden und Verbindung schließen
+     *
+     * @param timeoutMillis max. Wartezeit auf den Sende-Thread
+     * @throws Exception Fehler beim Senden des FINISH-Satzes
+     */
+    void close(long timeoutMillis) throws Exception {
+        closed = true;
+        boolean drained = true;
+        if (sender != null) {
+            sender.join(timeoutMillis);
+            if (sender.isAlive()) {
+                LOG.error("Warteschlange zu " + getName() + " konnte nicht geleert werden");
+                drained = false;
+            }
+        }
+        if (rmiCallExecutor != null) {
+            // auf die Bestätigung des letzten RMI-Aufrufs warten, danach wird keiner mehr gestartet
+            if (drained && !outstandingCall.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOG.error("Letzter AuditLog-Batch an " + getName() + " wurde nicht rechtzeitig bestätigt");
+                drained = false;
+            }
+            rmiCallExecutor.shutdown();
+        }
+        if (!connected) return;
+        if (!drained) {
+            // FINISH darf noch nicht bestätigte Sätze nicht überholen
+            LOG.error("FINISH-Satz an " + getName() + " wird nicht gesendet");
+            connected = false;
+            closeConnection();
+            return;
+        }
+
+        try {
+            AuditLogPDU closePdu = new AuditLogPDU();
+            closePdu.setUserName("Chat-Server");
+            closePdu.setPduType(AuditLogPDUType.FINISH_AUDIT_REQUEST);
+            send(closePdu);
+        } finally {
+            connected = false;
+            closeConnection();
+        }
+        LOG.debug("Verbindung zu " + getName() + " beendet, Gesendete AuditLog-Sätze: " + sentCounter);
+    }
+
+    /**
+     * getter
+     *
+     * @return Host:Port des AuditLog-Servers
+     */
+    String getName() {
+        return host + ":" + port;
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn die Verbindung besteht
+     */
+    boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl gesendeter Sätze
+     */
+    long getNumberOfSentRecords() {
+        return sentCounter.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl erfolgreicher Wiederverbindungen
+     */
+    long getNumberOfReconnects() {
+        return reconnectCounter.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl wartender Sätze
+     */
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * getter
+     *
+     * @return Kapazität der Warteschlange
+     */
+    int getQueueCapacity() {
+        return queue.getCapacity();
+    }
+
+    /**
+     * Sende-Thread: Sätze in Batches entnehmen und senden, ohne Verbindung werden sie an die AuditLog-Verbindung
+     * zurückgegeben
+     */
+    private void sendLoop() {
+        List<AuditLogPDU> batch = new ArrayList<>(AuditLogConnection.MAX_BATCH_SIZE);
+        while (!closed || !queue.isEmpty()) {
+            queue.drainTo(batch, AuditLogConnection.MAX_BATCH_SIZE,
+                    TimeUnit.MILLISECONDS.toNanos(AuditLogConnection.IDLE_WAIT_MILLIS));
+            if (connected) {
+                if (rmiCallExecutor != null) {
+                    if (!batch.isEmpty()) sendBatchAsync(batch);
+                } else {
+                    if (!batch.isEmpty()) sendBatch(batch);
+                }
+            } else {
+                // Sätze, die vor dem Abmelden noch zugeteilt wurden
+                if (!batch.isEmpty()) owner.redistribute(batch, this);
+                if (!closed) reconnect();
+            }
+            batch.clear();
+        }
+        LOG.debug("Sende-Thread zu " + getName() + " beendet");
+    }
+
+    /**
+     * Batch senden, nach einem Fehler wird die Verbindung abgebaut und der Rest neu verteilt
+     *
+     * @param batch AuditLog-Sätze
+     */
+    private void sendBatch(List<AuditLogPDU> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                send(batch.get(i));
+                sentCounter.increment();
+            } catch (Exception e) {
+                LOG.error("Fehler beim Senden eines AuditLog-Satzes an " + getName());
+                ExceptionHandler.logException(e);
+                disconnect();
+                owner.redistribute(batch.subList(i, batch.size()), this);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Batch mit einem RMI-Aufruf senden, der Aufruf läuft in einem eigenen Thread, sobald der vorherige bestätigt
+     * ist. Nach einem Fehler wird die Verbindung abgebaut und der Batch neu verteilt.
+     *
+     * @param batch AuditLog-Sätze, werden für den Aufruf kopiert
+     */
+    private void sendBatchAsync(List<AuditLogPDU> batch) {
+        List<AuditLogPDU> pdus = new ArrayList<>(batch);
+        try {
+            outstandingCall.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            owner.redistribute(pdus, this);
+            return;
+        }
+        if (!connected) {
+            // der vorherige Aufruf ist fehlgeschlagen
+            outstandingCall.release();
+            owner.redistribute(pdus, this);
+            return;
+        }
+
+        AuditLogRMIInterface target = remoteObject;
+        rmiCallExecutor.execute(() -> {
+            try {
+                target.auditBatch(pdus);
+                sentCounter.add(pdus.size());
+            } catch (Exception e) {
+                LOG.error("Fehler beim Senden eines AuditLog-Batches an " + getName());
+                ExceptionHandler.logException(e);
+                disconnect();
+                owner.redistribute(pdus, this);
+            } finally {
+                outstandingCall.release();
+            }
+        });
+    }
+
+    /**
+     * Verbindung nach einem Sendefehler abbauen und abmelden, bei mehreren gleichzeitigen Fehlern nur einmal
+     */
+    private synchronized void disconnect() {
+        if (!connected) return;
+        connected = false;
+        closeConnection();
+        reconnectDelayMillis = AuditLogConnection.INITIAL_RECONNECT_DELAY_MILLIS;
+        nextReconnectTime = System.currentTimeMillis() + reconnectDelayMillis;
+        owner.endpointStateChanged(this);
+    }
+
+    /**
+     * Verbindung erneut aufbauen, falls der Zeitpunkt des nächsten Versuchs erreicht ist, nach jedem Fehlversuch
+     * verdoppelt sich der Abstand bis zum Maximum
+     */
+    private synchronized void reconnect() {
+        if (System.currentTimeMillis() < nextReconnectTime) return;
+        try {
+            openConnection();
+            connected = true;
+            reconnectCounter.increment();
+            reconnectDelayMillis = AuditLogConnection.INITIAL_RECONNECT_DELAY_MILLIS;
+            LOG.info("Verbindung zum AuditLog-Server " + getName() + " wieder aufgebaut");
+            owner.endpointStateChanged(this);
+        } catch (Exception e) {
+            reconnectDelayMillis = Math.min(reconnectDelayMillis * 2, AuditLogConnection.MAX_RECONNECT_DELAY_MILLIS);
+            nextReconnectTime = System.currentTimeMillis() + reconnectDelayMillis;
+            LOG.debug("AuditLog-Server {} nicht erreichbar, nächster Versuch in {} ms", getName(),
+                    reconnectDelayMillis);
+        }
+    }
+
+    /**
+     * Verbindung je nach Verbindungstyp aufbauen
+     *
+     * @throws Exception Verbindung kann nicht aufgebaut werden
+     */
+    private void openConnection() throws Exception {
+        switch (connectionType) {
+            case AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_UDP -> {
+                // Verbindung zum AuditLog-Server und Verbindungsparameter
+                UDPClientConnectionFactory udpFactory = new UDPClientConnectionFactory();
+                udpConnection = (UDPClientConnection) udpFactory.connectToServer(host, port, 0,
+                        AuditLogConnection.DEFAULT_SEND_BUFFER_AUDIT_LOG_SIZE,
+                        AuditLogConnection.DEFAULT_RECEIVE_BUFFER_AUDIT_LOG_SIZE);
+                LOG.debug("Verbindung zum AuditLog-UDP-Server " + getName() + " steht");
+            }
+            case AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_TCP -> {
+                TCPConnectionFactory tcpFactory = new TCPConnectionFactory();
+                tcpConnection = (TCPConnection) tcpFactory.connectToServer(host, port, 0,
+                        AuditLogConnection.DEFAULT_SEND_BUFFER_AUDIT_LOG_SIZE,
+                        AuditLogConnection.DEFAULT_RECEIVE_BUFFER_AUDIT_LOG_SIZE);
+                LOG.debug("Verbindung zum AuditLog-TCP-Server " + getName() + " steht");
+            }
+            case AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_RMI -> {
+                String rmiAddress = "rmi://" + host + ":" + port + "/" + "AuditLogRmiServer";
+                LOG.debug("Adresse des AuditLogRmiServers: {}", rmiAddress);
+
+                // RMI-Objekt-Referenz besorgen
+                remoteObject = (AuditLogRMIInterface) Naming.lookup(rmiAddress);
+                LOG.debug("Verbindung zum AuditLog-RMI-Server " + getName() + " steht");
+            }
+            default -> throw new Exception("Verbindungstyp nicht korrekt");
+        }
+    }
+
+    /**
+     * einen AuditLog-Satz über die Verbindung senden
+     *
+     * @param auditLogPdu AuditLog-Satz
+     * @throws Exception Fehler beim Senden
+     */
+    private void send(AuditLogPDU auditLogPdu) throws Exception {
+        if (connectionType == AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_UDP) {
+            udpConnection.send(auditLogPdu);
+        } else if (connectionType == AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_TCP) {
+            tcpConnection.send(auditLogPdu);
+        } else if (connectionType == AuditLogConnection.AUDIT_LOG_CONNECTION_TYPE_RMI) {
+            remoteObject.audit(auditLogPdu);
+        }
+    }
+
+    /**
+     * UDP- bzw. TCP-Verbindung schließen, Fehler werden nur protokolliert
+     */
+    private void closeConnection() {
+        try {
+            if (udpConnection != null) {
+                udpConnection.close();
+                udpConnection = null;
+            } else if (tcpConnection != null) {
+                tcpConnection.close();
+                tcpConnection = null;
+            }
+        } catch (Exception e) {
+            LOG.debug("Fehler beim Schliessen der Verbindung zu " + getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package edu.hm.dako.chatserver;
+
+/**
+ * Verhalten der AuditLog-Verbindung, wenn die Warteschlange zum AuditLog-Server voll ist
+ *
+ * @author Lerngruppe
+ */
+public enum AuditLogOverflowPolicy {
+    /**
+     * Worker-Thread wartet, bis wieder Platz in der Warteschlange ist, es geht kein AuditLog-Satz verloren
+     */
+    BLOCK,
+
+    /**
+     * AuditLog-Satz wird verworfen und gezählt
+     */
+    DROP,
+
+    /**
+     * AuditLog-Satz wird in eine lokale Datei ausgelagert
+     */
+    SPILL;
+
+    /**
+     * Policy aus einem Startparameter ermitteln
+     *
+     * @param value block, drop oder spill
+     * @return Policy, BLOCK bei unbekanntem Wert
+     */
+    public static AuditLogOverflowPolicy fromString(String value) {
+        for (AuditLogOverflowPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(value)) return policy;
+        }
+        return BLOCK;
+    }
+}
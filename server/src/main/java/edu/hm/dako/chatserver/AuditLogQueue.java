@@ -0,0 +1,147 @@
+package edu.hm.dako.chatserver;
+
+import edu.hm.dako.common.AuditLogPDU;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Begrenzte Warteschlange für AuditLog-Sätze zwischen den Worker-Threads (viele Erzeuger) und dem
+ * Sende-Thread der AuditLog-Verbindung (ein Verbraucher)<br/>
+ * Die Sätze liegen in einer lock-freien {@link ConcurrentLinkedQueue}, die Kapazität wird über Permits
+ * begrenzt. Ein freier Platz wird per CAS belegt, nur bei voller Warteschlange und Policy BLOCK wartet ein
+ * Worker-Thread. Der Sende-Thread parkt bei leerer Warteschlange und wird vom nächsten Erzeuger geweckt.
+ *
+ * @author Lerngruppe
+ */
+class AuditLogQueue {
+    /**
+     * max. Wartezeit des Sende-Threads, falls ein Wecken verpasst wird
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * AuditLog-Sätze
+     */
+    private final ConcurrentLinkedQueue<AuditLogPDU> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * freie Plätze
+     */
+    private final Semaphore freeSlots;
+
+    /**
+     * Kapazität
+     */
+    private final int capacity;
+
+    /**
+     * Sende-Thread, der auf Sätze wartet, null wenn er gerade arbeitet
+     */
+    private volatile Thread waitingConsumer;
+
+    /**
+     * Konstruktor
+     *
+     * @param capacity max. Anzahl wartender AuditLog-Sätze
+     */
+    AuditLogQueue(int capacity) {
+        this.capacity = capacity;
+        this.freeSlots = new Semaphore(capacity);
+    }
+
+    /**
+     * Satz einstellen, falls Platz frei ist
+     *
+     * @param pdu AuditLog-Satz
+     * @return false, wenn die Warteschlange voll ist
+     */
+    boolean offer(AuditLogPDU pdu) {
+        if (!freeSlots.tryAcquire()) return false;
+        enqueue(pdu);
+        return true;
+    }
+
+    /**
+     * Satz einstellen, bei voller Warteschlange warten
+     *
+     * @param pdu AuditLog-Satz
+     * @throws InterruptedException Worker-Thread wurde beim Warten unterbrochen
+     */
+    void put(AuditLogPDU pdu) throws InterruptedException {
+        freeSlots.acquire();
+        enqueue(pdu);
+    }
+
+    /**
+     * bis zu max Sätze entnehmen, wartet höchstens timeoutNanos, falls die Warteschlange leer ist
+     *
+     * @param batch        Liste, an die die Sätze angehängt werden
+     * @param max          max. Anzahl zu entnehmender Sätze
+     * @param timeoutNanos max. Wartezeit
+     * @return Anzahl entnommener Sätze
+     */
+    int drainTo(List<AuditLogPDU> batch, int max, long timeoutNanos) {
+        int count = poll(batch, max);
+        if (count > 0 || timeoutNanos <= 0) return count;
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            // nach dem Anmelden nochmals prüfen, damit kein Wecken verloren geht
+            count = poll(batch, max);
+            if (count == 0) {
+                LockSupport.parkNanos(this, Math.min(timeoutNanos, MAX_PARK_NANOS));
+                count = poll(batch, max);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        return count;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl wartender Sätze
+     */
+    int size() {
+        return capacity - freeSlots.availablePermits();
+    }
+
+    /**
+     * getter
+     *
+     * @return Kapazität
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn kein Satz wartet
+     */
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    private void enqueue(AuditLogPDU pdu) {
+        queue.offer(pdu);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) LockSupport.unpark(consumer);
+    }
+
+    private int poll(List<AuditLogPDU> batch, int max) {
+        int count = 0;
+        AuditLogPDU pdu;
+        while (count < max && (pdu = queue.poll()) != null) {
+            batch.add(pdu);
+            count++;
+        }
+        if (count > 0) freeSlots.release(count);
+        return count;
+    }
+}
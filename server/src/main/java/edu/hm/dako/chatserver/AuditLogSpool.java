@@ -0,0 +1,444 @@
+package edu.hm.dako.chatserver;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import edu.hm.dako.common.ExceptionHandler;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lokaler, dauerhafter Zwischenspeicher für AuditLog-Sätze, die (noch) nicht an den AuditLog-Server gesendet
+ * werden können<br/>
+ * Die Sätze werden kompakt binär (Format siehe {@link #write(DataOutputStream, AuditLogPDU)}) an Segment-Dateien
+ * angehängt, die ab {@link #SEGMENT_SIZE} Byte gewechselt werden. Der Sende-Thread liest die Sätze in der
+ * Reihenfolge des Schreibens wieder aus ({@link #readBatch(List, int)}) und bestätigt sie nach dem Senden
+ * ({@link #commit(int)}). Ein Segment wird erst gelöscht, wenn alle seine Sätze bestätigt sind, nach einem Absturz
+ * werden die verbliebenen Segmente beim nächsten Start erneut gesendet (mindestens einmal).
+ *
+ * @author Lerngruppe
+ */
+class AuditLogSpool {
+    /**
+     * referencing the logger
+     */
+    private static final Logger LOG = LogManager.getLogger(AuditLogSpool.class);
+
+    /**
+     * Standard-Verzeichnis der Segment-Dateien
+     */
+    static final String DEFAULT_DIRECTORY = "ChatAuditLogSpool";
+
+    /**
+     * Größe, ab der ein neues Segment begonnen wird
+     */
+    static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Dateien werden höchstens so oft auf die Platte synchronisiert, geschrieben wird bei jedem Anhängen
+     */
+    static final long SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * max. Länge eines Textes in Byte, längere Angaben stammen aus einem beschädigten Segment
+     */
+    private static final int MAX_STRING_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Präfix und Suffix der Segment-Dateien
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    /**
+     * Verzeichnis der Segment-Dateien
+     */
+    private final File directory;
+
+    /**
+     * alle Segmente, ältestes zuerst, das letzte ist ggf. das Schreib-Segment
+     */
+    private final Deque<File> segments = new ArrayDeque<>();
+
+    /**
+     * Nummer des nächsten Segments
+     */
+    private long nextSegmentNumber = 0;
+
+    /**
+     * Schreib-Segment, null wenn beim nächsten Anhängen ein neues begonnen wird
+     */
+    private File writeSegment;
+    private FileOutputStream writeFile;
+    private DataOutputStream out;
+    private long lastSync = 0;
+
+    /**
+     * Lese-Segment, null wenn beim nächsten Lesen das älteste Segment geöffnet wird
+     */
+    private File readSegment;
+    private DataInputStream in;
+
+    /**
+     * Lese-Segment vollständig gelesen
+     */
+    private boolean readSegmentExhausted = false;
+
+    /**
+     * gelesene, aber noch nicht bestätigte Sätze des Lese-Segments
+     */
+    private int uncommitted = 0;
+
+    /**
+     * Anzahl angehängter Sätze seit dem Start
+     */
+    private final LongAdder records = new LongAdder();
+
+    /**
+     * Anzahl noch nicht bestätigter Sätze und Größe aller Segmente in Byte
+     */
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Zeitstempel des ältesten noch nicht bestätigten Satzes (ungefähr, auf einen Batch genau)
+     */
+    private volatile long oldestPendingAuditTime = 0;
+
+    /**
+     * Konstruktor, im Verzeichnis vorhandene Segmente eines früheren Laufs werden übernommen
+     *
+     * @param directory Verzeichnis der Segment-Dateien
+     */
+    AuditLogSpool(File directory) {
+        this.directory = directory;
+        recover();
+    }
+
+    /**
+     * Satz anhängen
+     *
+     * @param pdu AuditLog-Satz
+     * @throws IOException Fehler beim Schreiben
+     */
+    void append(AuditLogPDU pdu) throws IOException {
+        append(List.of(pdu));
+    }
+
+    /**
+     * Sätze anhängen, der Puffer wird danach in die Datei geschrieben
+     *
+     * @param pdus AuditLog-Sätze
+     * @throws IOException Fehler beim Schreiben
+     */
+    synchronized void append(List<AuditLogPDU> pdus) throws IOException {
+        if (pdus.isEmpty()) return;
+        if (out == null) openWriteSegment();
+
+        int sizeBefore = out.size();
+        try {
+            for (AuditLogPDU pdu : pdus) {
+                write(out, pdu);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // unvollständigen Satz nicht fortsetzen, das nächste Anhängen beginnt ein neues Segment
+            out = null;
+            writeFile.close();
+            writeSegment = null;
+            throw e;
+        }
+        bytes.addAndGet(out.size() - sizeBefore);
+        records.add(pdus.size());
+        if (pending.getAndAdd(pdus.size()) == 0) oldestPendingAuditTime = pdus.get(0).getAuditTime();
+
+        long now = System.nanoTime();
+        if (now - lastSync >= SYNC_INTERVAL_NANOS) {
+            writeFile.getFD().sync();
+            lastSync = now;
+        }
+        if (out.size() >= SEGMENT_SIZE) closeWriteSegment();
+    }
+
+    /**
+     * bis zu max Sätze in der Reihenfolge des Anhängens lesen, die Sätze stammen immer aus einem Segment
+     *
+     * @param batch Liste, an die die Sätze angehängt werden
+     * @param max   max. Anzahl zu lesender Sätze
+     * @return Anzahl gelesener Sätze, 0 wenn keine unbestätigten Sätze mehr vorliegen
+     */
+    synchronized int readBatch(List<AuditLogPDU> batch, int max) {
+        while (true) {
+            if (in == null && !openReadSegment()) {
+                // keine Segmente mehr, der Zähler darf nicht auf Sätze warten, die nie gelesen werden
+                pending.set(0);
+                return 0;
+            }
+
+            int count = 0;
+            while (count < max && !readSegmentExhausted) {
+                try {
+                    AuditLogPDU pdu = read(in);
+                    if (uncommitted == 0 && count == 0) oldestPendingAuditTime = pdu.getAuditTime();
+                    batch.add(pdu);
+                    count++;
+                } catch (EOFException e) {
+                    readSegmentExhausted = true;
+                } catch (IOException | RuntimeException e) {
+                    LOG.error("Segment " + readSegment.getName() + " ist beschädigt, Rest wird übersprungen");
+                    ExceptionHandler.logException(e);
+                    readSegmentExhausted = true;
+                }
+            }
+            uncommitted += count;
+            if (count > 0) return count;
+
+            // Segment leer oder nur noch ein unvollständiger Satz am Ende
+            if (uncommitted > 0) return 0;
+            deleteReadSegment();
+        }
+    }
+
+    /**
+     * gesendete Sätze bestätigen, ein vollständig bestätigtes Segment wird gelöscht
+     *
+     * @param count Anzahl der zuerst gelesenen, noch unbestätigten Sätze, die gesendet wurden
+     */
+    synchronized void commit(int count) {
+        if (count <= 0) return;
+        uncommitted -= count;
+        // Sätze aus einem beschädigten Segmentende wurden nie gezählt, daher nicht unter 0
+        pending.updateAndGet(p -> Math.max(0, p - count));
+        if (readSegmentExhausted && uncommitted == 0) deleteReadSegment();
+    }
+
+    /**
+     * getter
+     *
+     * @return true, wenn noch nicht bestätigte Sätze vorliegen
+     */
+    boolean hasBacklog() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl angehängter Sätze seit dem Start
+     */
+    long getNumberOfRecords() {
+        return records.sum();
+    }
+
+    /**
+     * getter
+     *
+     * @return Anzahl noch nicht bestätigter Sätze
+     */
+    long getPendingRecords() {
+        return pending.get();
+    }
+
+    /**
+     * getter
+     *
+     * @return Größe aller Segmente in Byte
+     */
+    long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * getter
+     *
+     * @return Alter des ältesten noch nicht bestätigten Satzes in ms, 0 wenn keiner vorliegt
+     */
+    long getLagMillis() {
+        if (pending.get() == 0) return 0;
+        return Math.max(0, System.currentTimeMillis() - oldestPendingAuditTime);
+    }
+
+    /**
+     * Dateien schließen, noch nicht bestätigte Sätze bleiben für den nächsten Start erhalten
+     *
+     * @throws IOException Fehler beim Schließen
+     */
+    synchronized void close() throws IOException {
+        closeReadSegment();
+        closeWriteSegment();
+        if (pending.get() > 0) {
+            LOG.info(pending.get() + " AuditLog-Sätze bleiben in " + directory.getAbsolutePath()
+                    + " und werden beim nächsten Start gesendet");
+        }
+    }
+
+    /**
+     * Segmente eines früheren Laufs einlesen und ihre Sätze zählen
+     */
+    private void recover() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return;
+        Arrays.sort(files);
+
+        for (File file : files) {
+            segments.addLast(file);
+            bytes.addAndGet(file.length());
+            try (DataInputStream recoverIn = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    AuditLogPDU pdu = read(recoverIn);
+                    if (pending.getAndIncrement() == 0) oldestPendingAuditTime = pdu.getAuditTime();
+                }
+            } catch (EOFException e) {
+                // Segmentende
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Segment " + file.getName() + " ist beschädigt, Rest wird übersprungen");
+            }
+            String number = file.getName().substring(SEGMENT_PREFIX.length(),
+                    file.getName().length() - SEGMENT_SUFFIX.length());
+            try {
+                nextSegmentNumber = Math.max(nextSegmentNumber, Long.parseLong(number) + 1);
+            } catch (NumberFormatException e) {
+                LOG.error("Unerwarteter Segment-Name " + file.getName());
+            }
+        }
+        if (pending.get() > 0) {
+            LOG.info(pending.get() + " AuditLog-Sätze aus " + directory.getAbsolutePath() + " werden nachgesendet");
+        }
+    }
+
+    private void openWriteSegment() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Verzeichnis " + directory.getAbsolutePath() + " kann nicht angelegt werden");
+        }
+        writeSegment = new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, nextSegmentNumber++,
+                SEGMENT_SUFFIX));
+        writeFile = new FileOutputStream(writeSegment, true);
+        out = new DataOutputStream(new BufferedOutputStream(writeFile));
+        segments.addLast(writeSegment);
+        LOG.debug("AuditLog-Sätze werden nach " + writeSegment.getAbsolutePath() + " ausgelagert");
+    }
+
+    private void closeWriteSegment() throws IOException {
+        if (out == null) return;
+        out.flush();
+        writeFile.getFD().sync();
+        out.close();
+        out = null;
+        writeFile = null;
+        writeSegment = null;
+    }
+
+    private boolean openReadSegment() {
+        File oldest;
+        while ((oldest = segments.peekFirst()) != null) {
+            try {
+                // in das Schreib-Segment wird noch geschrieben, daher zuerst ein neues beginnen
+                if (oldest.equals(writeSegment)) closeWriteSegment();
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(oldest)));
+                readSegment = oldest;
+                readSegmentExhausted = false;
+                uncommitted = 0;
+                return true;
+            } catch (IOException e) {
+                LOG.error("Segment " + oldest.getName() + " kann nicht gelesen werden und wird übersprungen");
+                ExceptionHandler.logException(e);
+                segments.removeFirst();
+                bytes.addAndGet(-oldest.length());
+            }
+        }
+        return false;
+    }
+
+    private void closeReadSegment() throws IOException {
+        if (in == null) return;
+        in.close();
+        in = null;
+        readSegment = null;
+    }
+
+    private void deleteReadSegment() {
+        File segment = readSegment;
+        try {
+            closeReadSegment();
+        } catch (IOException e) {
+            ExceptionHandler.logException(e);
+        }
+        segments.remove(segment);
+        long length = segment.length();
+        if (segment.delete()) {
+            bytes.addAndGet(-length);
+        } else {
+            LOG.error("Segment " + segment.getName() + " konnte nicht gelöscht werden");
+        }
+    }
+
+    /**
+     * AuditLog-Satz binär schreiben: Typ, Zeitstempel, User, Client-Thread, Server-Thread, Nachricht
+     *
+     * @param out Ausgabestrom
+     * @param pdu AuditLog-Satz
+     * @throws IOException Fehler beim Schreiben
+     */
+    static void write(DataOutputStream out, AuditLogPDU pdu) throws IOException {
+        out.writeByte(pdu.getPduType().ordinal());
+        out.writeLong(pdu.getAuditTime());
+        writeString(out, pdu.getUserName());
+        writeString(out, pdu.getClientThreadName());
+        writeString(out, pdu.getServerThreadName());
+        writeString(out, pdu.getMessage());
+    }
+
+    /**
+     * AuditLog-Satz binär lesen
+     *
+     * @param in Eingabestrom
+     * @return AuditLog-Satz
+     * @throws IOException Fehler beim Lesen, EOFException am Dateiende
+     */
+    static AuditLogPDU read(DataInputStream in) throws IOException {
+        AuditLogPDU pdu = new AuditLogPDU();
+        pdu.setPduType(AuditLogPDUType.values()[in.readUnsignedByte()]);
+        pdu.setAuditTime(in.readLong());
+        pdu.setUserName(readString(in));
+        pdu.setClientThreadName(readString(in));
+        pdu.setServerThreadName(readString(in));
+        pdu.setMessage(readString(in));
+        return pdu;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        if (length > MAX_STRING_LENGTH) throw new IOException("Ungültige Länge " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
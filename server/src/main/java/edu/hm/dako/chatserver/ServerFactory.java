@@ -89,6 +89,37 @@ public final class ServerFactory {
                                                         AuditLogImplementationType auditLogImplementationType,
                                                         String auditLogServerHostnameOrIP, int auditLogServerPort)
             throws Exception {
+        return getServerWithAuditLog(implType, serverPort, sendBufferSize, receiveBufferSize, serverGuiInterface,
+                auditLogImplementationType, auditLogServerHostnameOrIP, auditLogServerPort,
+                AuditLogConnection.DEFAULT_QUEUE_CAPACITY, AuditLogOverflowPolicy.BLOCK, AuditLogDistribution.HASH);
+    }
+
+    /**
+     * Erzeugt einen Chat-Server mit Verbindung zum AuditLog-Server
+     *
+     * @param implType                   Implementierungstyp des Servers
+     * @param serverPort                 Listenport
+     * @param sendBufferSize             Größe des Sendepuffers in Byte
+     * @param receiveBufferSize          Größe des Empfangspuffers in Byte
+     * @param serverGuiInterface         Referenz auf GUI für Callback
+     * @param auditLogImplementationType AuditLog-Server-Tyo UDP oder TCP
+     * @param auditLogServerHostnameOrIP AuditLog-Server, durch Komma getrennt als host oder host:port
+     * @param auditLogServerPort         Port der AuditLog-Server ohne eigene Portangabe
+     * @param auditLogQueueCapacity      max. Anzahl noch nicht gesendeter AuditLog-Sätze pro AuditLog-Server
+     * @param auditLogOverflowPolicy     Verhalten bei voller AuditLog-Warteschlange
+     * @param auditLogDistribution       Verteilung der AuditLog-Sätze auf mehrere AuditLog-Server
+     * @return Referenz auf ChatServer-Interface
+     * @throws Exception - Fehler beim Erzeugen eines Sockets
+     */
+    public static ServerInterface getServerWithAuditLog(ChatServerImplementationType implType, int serverPort,
+                                                        int sendBufferSize, int receiveBufferSize,
+                                                        ServerGUIInterface serverGuiInterface,
+                                                        AuditLogImplementationType auditLogImplementationType,
+                                                        String auditLogServerHostnameOrIP, int auditLogServerPort,
+                                                        int auditLogQueueCapacity,
+                                                        AuditLogOverflowPolicy auditLogOverflowPolicy,
+                                                        AuditLogDistribution auditLogDistribution)
+            throws Exception {
         // Zunächst Verbindung zum AuditLog-Server aufbauen
         LOG.debug("ChatServer wird mit AuditLogServer gestartet, ChatServer Port: " + serverPort + ", Sendepuffer: "
                 + sendBufferSize + ", Empfangspuffer: " + receiveBufferSize + ", AuditLogServer Port: "
@@ -105,16 +136,13 @@ public final class ServerFactory {
 
         try {
             auditLogConnection = new AuditLogConnection(typeOfAuditLogConnection, auditLogServerHostnameOrIP,
-                    auditLogServerPort);
+                    auditLogServerPort, auditLogQueueCapacity, auditLogOverflowPolicy, auditLogDistribution);
             auditLogConnection.connectToAuditLogServer();
             LOG.debug("Verbindung zum AuditLog Server aufgebaut");
         } catch (Exception e) {
-            // AuditLogServer nicht ordentlich initialisiert
-            auditLogConnection = null;
-            //ExceptionHandler.logException(e);
-            LOG.debug("Verbindung zum AuditLog-Server konnte nicht aufgebaut werden");
-
-            // Server arbeitet ohne AuditLog-Server
+            // AuditLog-Server nicht erreichbar, die Verbindung wird im Hintergrund erneut aufgebaut und die
+            // AuditLog-Sätze bis dahin lokal ausgelagert
+            LOG.debug("Verbindung zum AuditLog-Server konnte nicht aufgebaut werden, Sätze werden ausgelagert");
         }
 
         // Dann Chat-Server mit Verbindungsendpunkt erzeugen
@@ -150,7 +178,7 @@ public final class ServerFactory {
      * @return Verbindung aufgebaut = true
      */
     public static boolean isAuditLogServerConnected() {
-        return (auditLogConnection != null);
+        return (auditLogConnection != null) && auditLogConnection.isConnected();
     }
 
     /**
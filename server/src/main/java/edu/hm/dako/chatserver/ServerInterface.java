@@ -1,5 +1,7 @@
 package edu.hm.dako.chatserver;
 
+import edu.hm.dako.common.metrics.MetricsRegistry;
+
 /**
  * Einheitliche Schnittstelle aller Server
  *
@@ -17,4 +19,11 @@ public interface ServerInterface {
      * @throws Exception - Fehler beim Beenden aller Threads des Chat-Servers
      */
     void stop() throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * registers the counters of the server for the metrics endpoint
+     *
+     * @param metrics registry of the metrics endpoint
+     */
+    void registerMetrics(MetricsRegistry metrics);
+}
@@ -6,6 +6,9 @@ import edu.hm.dako.common.ChatServerImplementationType;
 import edu.hm.dako.common.ExceptionHandler;
 import edu.hm.dako.common.SystemConstants;
 import edu.hm.dako.common.Tupel;
+import edu.hm.dako.common.metrics.JvmMetrics;
+import edu.hm.dako.common.metrics.MetricsRegistry;
+import edu.hm.dako.common.metrics.MetricsServer;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
@@ -30,6 +33,11 @@ public class ServerStarter {
      */
     private ServerInterface chatServer;
 
+    /**
+     * HTTP endpoint for metrics, null if disabled
+     */
+    private MetricsServer metricsServer;
+
     /**
      * Flag, das angibt, ob der Server gestartet werden kann (alle Plausibilitätsprüfungen erfüllt)
      */
@@ -51,8 +59,14 @@ public class ServerStarter {
      *             --receive-buffer=300000 (default)
      *             --auditlog=true | false (default true)
      *             --auditlog-protocol=tcp | udp | rmi (default tcp)
-     *             --auditlog-host=localhost (default)
+     *             --auditlog-host=localhost (default) one or more audit log servers, comma separated as
+     *             host or host:port, e.g. --auditlog-host=host1,host2:40002
      *             --auditlog-port=40001 (default)
+     *             --auditlog-queue=10000 (default) max. audit log records waiting to be sent per audit log server
+     *             --auditlog-overflow=block | drop | spill (default block) behaviour if the audit log queue is full
+     *             --auditlog-distribution=hash | roundrobin (default hash) distribution of the audit log records
+     *             to several audit log servers, hash keeps the records of a user in order
+     *             --metrics-port=9100 enables the metrics endpoint, only with --nogui (default disabled)
      */
     public static void main(String[] args) {
         // Log4j2-Logging aus Datei konfigurieren
@@ -93,8 +107,14 @@ public class ServerStarter {
      *             --receive-buffer=300000 (default)
      *             --auditlog=true | false (default true)
      *             --auditlog-protocol=tcp | udp | rmi (default tcp)
-     *             --auditlog-host=localhost (default)
+     *             --auditlog-host=localhost (default) one or more audit log servers, comma separated as
+     *             host or host:port, e.g. --auditlog-host=host1,host2:40002
      *             --auditlog-port=40001 (default)
+     *             --auditlog-queue=10000 (default) max. audit log records waiting to be sent per audit log server
+     *             --auditlog-overflow=block | drop | spill (default block) behaviour if the audit log queue is full
+     *             --auditlog-distribution=hash | roundrobin (default hash) distribution of the audit log records
+     *             to several audit log servers, hash keeps the records of a user in order
+     *             --metrics-port=9100 enables the metrics endpoint, only with --nogui (default disabled)
      */
     public ServerStarter(String[] args) {
         String implType = SystemConstants.IMPL_TCP_SIMPLE;
@@ -105,6 +125,10 @@ public class ServerStarter {
         String auditlog_protocol = SystemConstants.AUDIT_LOG_SERVER_TCP_IMPL;
         String auditlog_host = "localhost";
         int auditlog_port = 40001;
+        int metrics_port = 0;
+        int auditlog_queue = AuditLogConnection.DEFAULT_QUEUE_CAPACITY;
+        AuditLogOverflowPolicy auditlog_overflow = AuditLogOverflowPolicy.BLOCK;
+        AuditLogDistribution auditlog_distribution = AuditLogDistribution.HASH;
 
         for(String s: args) {
             String[] values = s.split("=");
@@ -148,6 +172,21 @@ public class ServerStarter {
                     auditlog_port = result.getX();
                     startable = result.getY();
                 }
+                case "--auditlog-queue" -> {
+                    if (values[1].matches("[0-9]{1,9}") && Integer.parseInt(values[1]) > 0) {
+                        auditlog_queue = Integer.parseInt(values[1]);
+                    } else {
+                        startable = false;
+                    }
+                }
+                case "--auditlog-overflow" -> auditlog_overflow = AuditLogOverflowPolicy.fromString(values[1]);
+                case "--auditlog-distribution" ->
+                        auditlog_distribution = AuditLogDistribution.fromString(values[1]);
+                case "--metrics-port" -> {
+                    Tupel<Integer, Boolean> result = validateServerPort(values[1]);
+                    metrics_port = result.getX();
+                    startable = result.getY();
+                }
             }
         }
 
@@ -155,12 +194,15 @@ public class ServerStarter {
             ServerFxGUI.main(args);
         } else {
             try {
+                boolean started;
                 if (auditlog) {
-                    startChatServer(implType, port, sendBuffer, receiveBuffer,
-                            auditlog_host, auditlog_port, auditlog_protocol);
+                    started = startChatServer(implType, port, sendBuffer, receiveBuffer,
+                            auditlog_host, auditlog_port, auditlog_protocol, auditlog_queue, auditlog_overflow,
+                            auditlog_distribution);
                 } else {
-                    startChatServer(implType, port, sendBuffer, receiveBuffer);
+                    started = startChatServer(implType, port, sendBuffer, receiveBuffer);
                 }
+                if (started && metrics_port > 0) startMetricsServer(metrics_port);
             } catch (Exception e) {
                 LOG.error("Server konnte nicht gestartet werden: " + e.getMessage());
             }
@@ -211,9 +253,14 @@ public class ServerStarter {
      * @param auditLogServerHostname address of the audit log server
      * @param auditLogServerPort port of the audit log server
      * @param auditLogServerImplType implementation of the audit log server
+     * @param auditLogQueueCapacity max. audit log records waiting to be sent
+     * @param auditLogOverflowPolicy behaviour if the audit log queue is full
+     * @param auditLogDistribution distribution of the records to several audit log servers
      */
     private boolean startChatServer(String implType, int serverPort, int sendBufferSize, int receiveBufferSize,
-                                 String auditLogServerHostname, int auditLogServerPort, String auditLogServerImplType)
+                                 String auditLogServerHostname, int auditLogServerPort, String auditLogServerImplType,
+                                 int auditLogQueueCapacity, AuditLogOverflowPolicy auditLogOverflowPolicy,
+                                 AuditLogDistribution auditLogDistribution)
             throws Exception {
         ChatServerImplementationType serverImpl;
         if (implType.equals(SystemConstants.IMPL_TCP_ADVANCED)) {
@@ -233,7 +280,8 @@ public class ServerStarter {
         try {
             LOG.debug("ChatServer soll mit AuditLog gestartet werden");
             chatServer = ServerFactory.getServerWithAuditLog(serverImpl, serverPort, sendBufferSize, receiveBufferSize,
-                    null, auditLogImplementationType, auditLogServerHostname, auditLogServerPort);
+                    null, auditLogImplementationType, auditLogServerHostname, auditLogServerPort,
+                    auditLogQueueCapacity, auditLogOverflowPolicy, auditLogDistribution);
         } catch (Exception e) {
             LOG.error("Fehler beim Starten des Chat-Servers: {}", e.getMessage());
             ExceptionHandler.logException(e);
@@ -245,8 +293,9 @@ public class ServerStarter {
             return false;
         } else {
             if (!ServerFactory.isAuditLogServerConnected()) {
-                // AuditLog-Server Verbindung nicht vorhanden
-                LOG.error("Verbindung zum AuditLog-Server konnte nicht hergestellt werden");
+                // AuditLog-Server Verbindung nicht vorhanden, wird im Hintergrund erneut aufgebaut
+                LOG.error("Verbindung zum AuditLog-Server konnte nicht hergestellt werden, "
+                        + "AuditLog-Sätze werden bis zum Wiederverbinden ausgelagert");
             }
 
             // Server starten
@@ -255,7 +304,22 @@ public class ServerStarter {
         }
     }
 
+    /**
+     * starts the HTTP endpoint with the metrics of the chat server and the JVM
+     *
+     * @param port port of the endpoint
+     * @throws IOException if the port can't be bound
+     */
+    private void startMetricsServer(int port) throws IOException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        chatServer.registerMetrics(metrics);
+        JvmMetrics.register(metrics);
+        metricsServer = new MetricsServer(port, metrics);
+        metricsServer.start();
+    }
+
     private void stopChatServer() {
+        if (metricsServer != null) metricsServer.stop();
         try {
             chatServer.stop();
         } catch (Exception e) {
@@ -437,6 +437,32 @@ public class SharedChatClientList {
         return 0;
     }
 
+    /**
+     * Summe der Wartelisten aller Clients, d.h. aller noch ausstehenden Confirms
+     *
+     * @return Anzahl der Einträge in allen Wartelisten
+     */
+    public synchronized int getTotalWaitListSize() {
+        int size = 0;
+        for (ClientListEntry client : clients.values()) {
+            size += client.getWaitList().size();
+        }
+        return size;
+    }
+
+    /**
+     * Länge der längsten Warteliste eines Clients
+     *
+     * @return maximale Anzahl der Einträge in einer Warteliste
+     */
+    public synchronized int getMaxWaitListSize() {
+        int max = 0;
+        for (ClientListEntry client : clients.values()) {
+            max = Math.max(max, client.getWaitList().size());
+        }
+        return max;
+    }
+
     /**
      * Setzt Kennzeichen, dass die Arbeit für einen User eingestellt werden kann
      *
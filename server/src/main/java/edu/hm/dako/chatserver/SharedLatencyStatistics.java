@@ -0,0 +1,144 @@
+package edu.hm.dako.chatserver;
+
+import edu.hm.dako.common.PDUType;
+import edu.hm.dako.common.metrics.LatencyHistogram;
+import edu.hm.dako.common.metrics.MetricsRegistry;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Latenz-Histogramme des Chat-Servers pro PDU-Typ, gemeinsam für alle Worker-Threads<br/>
+ * processing: Bearbeitungszeit eines Requests vom Empfang bis zum Ende der Bearbeitung (Request-Typ),
+ * fanout: Zeit für das Senden eines Events an alle Clients (Event-Typ),
+ * send: Sendezeit eines Events an einen einzelnen Client (Event-Typ)
+ *
+ * @author Lerngruppe
+ */
+public class SharedLatencyStatistics {
+    /**
+     * Art der gemessenen Zeit
+     */
+    public enum Kind {
+        PROCESSING, FANOUT, SEND
+    }
+
+    /**
+     * Perzentile, die als Metriken ausgegeben werden, und ihre Namen
+     */
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    /**
+     * Histogramme pro Art und PDU-Typ, Zeiten in Nanosekunden
+     */
+    private final Map<Kind, Map<PDUType, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * letzte Intervall-Snapshots pro Art und PDU-Typ
+     */
+    private volatile Map<Kind, Map<PDUType, LatencyHistogram.Snapshot>> intervalSnapshots = Collections.emptyMap();
+
+    /**
+     * Konstruktor
+     */
+    public SharedLatencyStatistics() {
+        for (Kind kind : Kind.values()) {
+            histograms.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Zeit aufzeichnen
+     *
+     * @param kind  Art der Zeit
+     * @param type  PDU-Typ
+     * @param nanos Zeit in Nanosekunden
+     */
+    public void record(Kind kind, PDUType type, long nanos) {
+        Map<PDUType, LatencyHistogram> byType = histograms.get(kind);
+        LatencyHistogram histogram = byType.get(type);
+        if (histogram == null) histogram = byType.computeIfAbsent(type, t -> new LatencyHistogram());
+        histogram.record(nanos);
+    }
+
+    /**
+     * Verteilung seit dem Start
+     *
+     * @param kind Art der Zeit
+     * @param type PDU-Typ
+     * @return Snapshot, null falls noch nichts aufgezeichnet wurde
+     */
+    public LatencyHistogram.Snapshot getSnapshot(Kind kind, PDUType type) {
+        LatencyHistogram histogram = histograms.get(kind).get(type);
+        return (histogram == null) ? null : histogram.snapshot();
+    }
+
+    /**
+     * Intervall-Snapshots aller Histogramme erstellen, danach über die Metriken abrufbar
+     */
+    public void takeIntervalSnapshots() {
+        Map<Kind, Map<PDUType, LatencyHistogram.Snapshot>> snapshots = new LinkedHashMap<>();
+        histograms.forEach((kind, byType) -> {
+            Map<PDUType, LatencyHistogram.Snapshot> byTypeSnapshots = new LinkedHashMap<>();
+            byType.forEach((type, histogram) -> byTypeSnapshots.put(type, histogram.intervalSnapshot()));
+            snapshots.put(kind, byTypeSnapshots);
+        });
+        intervalSnapshots = snapshots;
+    }
+
+    /**
+     * Perzentile und Maximum der Intervall-Snapshots als Metriken in Mikrosekunden registrieren, Label ist der PDU-Typ
+     *
+     * @param metrics Registry des Metrik-Endpunkts
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.onSample(this::takeIntervalSnapshots);
+        for (Kind kind : Kind.values()) {
+            String prefix = "chat_" + kind.name().toLowerCase() + "_latency_";
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                double percentile = PERCENTILES[i];
+                metrics.labelled(prefix + PERCENTILE_NAMES[i] + "_microseconds",
+                        kind.name().toLowerCase() + " latency percentile " + percentile + " of the last interval",
+                        MetricsRegistry.Type.GAUGE, "pdutype",
+                        () -> intervalValues(kind, s -> s.getValueAtPercentile(percentile)));
+            }
+            metrics.labelled(prefix + "max_microseconds",
+                    kind.name().toLowerCase() + " latency max of the last interval",
+                    MetricsRegistry.Type.GAUGE, "pdutype",
+                    () -> intervalValues(kind, LatencyHistogram.Snapshot::getMax));
+        }
+    }
+
+    /**
+     * Zusammenfassung aller Verteilungen seit dem Start für das Log
+     *
+     * @return eine Zeile pro Art und PDU-Typ mit Anzahl, p50, p99, p99.9 und Maximum in Mikrosekunden
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        histograms.forEach((kind, byType) -> byType.forEach((type, histogram) -> {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            sb.append(String.format("%-10s %-22s n=%d p50=%dus p99=%dus p99.9=%dus max=%dus%n", kind, type,
+                    s.getTotalCount(), s.getValueAtPercentile(50) / 1000, s.getValueAtPercentile(99) / 1000,
+                    s.getValueAtPercentile(99.9) / 1000, s.getMax() / 1000));
+        }));
+        return sb.toString();
+    }
+
+    /**
+     * Werte der Intervall-Snapshots einer Art in Mikrosekunden
+     *
+     * @param kind  Art der Zeit
+     * @param value Wert eines Snapshots in Nanosekunden
+     * @return Werte nach PDU-Typ
+     */
+    private Map<String, Number> intervalValues(Kind kind, ToLongFunction<LatencyHistogram.Snapshot> value) {
+        Map<String, Number> values = new LinkedHashMap<>();
+        intervalSnapshots.getOrDefault(kind, Collections.emptyMap())
+                .forEach((type, snapshot) -> values.put(type.name(), value.applyAsLong(snapshot) / 1000.0));
+        return values;
+    }
+}
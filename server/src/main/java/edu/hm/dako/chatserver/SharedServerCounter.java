@@ -1,6 +1,7 @@
 package edu.hm.dako.chatserver;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Globale Zähler für Logouts, gesendete Events und empfangene Confirms. Diese Zähler dienen nur zum Test
@@ -29,4 +30,19 @@ public class SharedServerCounter {
      * global counter for confirmations
      */
     public AtomicInteger confirmCounter;
-}
\ No newline at end of file
+
+    /**
+     * global counter for received requests of all types
+     */
+    public final LongAdder requestCounter = new LongAdder();
+
+    /**
+     * global counter for logins
+     */
+    public final LongAdder loginCounter = new LongAdder();
+
+    /**
+     * global latency histograms per PDU type
+     */
+    public final SharedLatencyStatistics latencies = new SharedLatencyStatistics();
+}
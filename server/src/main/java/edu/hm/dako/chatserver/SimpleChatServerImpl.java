@@ -2,6 +2,7 @@ package edu.hm.dako.chatserver;
 
 import edu.hm.dako.chatserver.gui.ServerGUIInterface;
 import edu.hm.dako.common.ExceptionHandler;
+import edu.hm.dako.common.metrics.MetricsRegistry;
 import edu.hm.dako.connection.Connection;
 import edu.hm.dako.connection.ServerSocketInterface;
 import org.apache.logging.log4j.LogManager;
@@ -118,6 +119,43 @@ public class SimpleChatServerImpl extends AbstractChatServer {
         thread.start();
     }
 
+    @Override
+    public void registerMetrics(MetricsRegistry metrics) {
+        super.registerMetrics(metrics);
+        if (auditLogConnection != null) {
+            metrics.counter("chat_audit_records", "audit log records sent to the audit log server",
+                    auditLogConnection::getNumberOfSentRecords);
+            metrics.counter("chat_audit_records_failed", "audit log records that could not be sent",
+                    auditLogConnection::getNumberOfFailedRecords);
+            metrics.counter("chat_audit_records_dropped", "audit log records dropped because the queue was full",
+                    auditLogConnection::getNumberOfDroppedRecords);
+            metrics.counter("chat_audit_records_spilled", "audit log records written to the local spool",
+                    auditLogConnection::getNumberOfSpilledRecords);
+            metrics.counter("chat_audit_records_replayed", "audit log records replayed from the local spool",
+                    auditLogConnection::getNumberOfReplayedRecords);
+            metrics.counter("chat_audit_reconnects", "reconnects to the audit log server",
+                    auditLogConnection::getNumberOfReconnects);
+            metrics.gauge("chat_audit_connected", "1 if connected to at least one audit log server, else 0",
+                    () -> auditLogConnection.isConnected() ? 1 : 0);
+            metrics.gauge("chat_audit_spool_records", "audit log records in the local spool not yet replayed",
+                    auditLogConnection::getSpoolSize);
+            metrics.gauge("chat_audit_spool_bytes", "size of the local spool segments",
+                    auditLogConnection::getSpoolBytes);
+            metrics.gauge("chat_audit_spool_lag_milliseconds", "age of the oldest audit log record in the spool",
+                    auditLogConnection::getSpoolLagMillis);
+            metrics.gauge("chat_audit_queue_size", "audit log records waiting to be sent",
+                    auditLogConnection::getQueueSize);
+            metrics.gauge("chat_audit_queue_capacity", "capacity of the audit log queues",
+                    auditLogConnection::getQueueCapacity);
+            metrics.labelled("chat_audit_endpoint_connected", "1 if connected to the audit log server, else 0",
+                    MetricsRegistry.Type.GAUGE, "endpoint", auditLogConnection::getEndpointsConnected);
+            metrics.labelled("chat_audit_endpoint_records", "audit log records sent to the audit log server",
+                    MetricsRegistry.Type.COUNTER, "endpoint", auditLogConnection::getSentRecordsByEndpoint);
+            metrics.labelled("chat_audit_endpoint_queue_size", "audit log records waiting for the audit log server",
+                    MetricsRegistry.Type.GAUGE, "endpoint", auditLogConnection::getQueueSizeByEndpoint);
+        }
+    }
+
     @Override
     public void stop() throws Exception {
         // Alle Verbindungen zu aktiven Clients abbauen
@@ -153,6 +191,7 @@ public class SimpleChatServerImpl extends AbstractChatServer {
         executorService.shutdown();
         LOG.debug("ThreadPool freigegeben");
 
+        LOG.info("Latenzen seit dem Start:" + System.lineSeparator() + counter.latencies.summary());
         System.out.println("SimpleChatServer beendet sich");
     }
 }
\ No newline at end of file
@@ -96,21 +96,30 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
      * @param pdu Zu sendende PDU
      */
     protected void sendLoginListUpdateEvent(ChatPDU pdu) {
-        // Liste der eingeloggten bzw. sich einloggenden User ermitteln
-        Vector<String> clientList = clients.getRegisteredClientNameList();
+        // Liste der eingeloggten bzw. sich einloggenden User und Empfänger aus demselben Stand der Client-Liste
+        // ermitteln, ohne sich abmeldende Clients ist die Länge der Liste im Event genau die Anzahl der Empfänger
+        Vector<String> clientList;
+        Vector<String> recipients;
+        synchronized (clients) {
+            clientList = clients.getRegisteredClientNameList();
+            recipients = clients.getClientNameList();
+        }
 
         LOG.debug("Aktuelle ClientListe, die an die Clients übertragen wird: " + clientList);
 
         pdu.setClients(clientList);
 
-        Vector<String> clientList2 = clients.getClientNameList();
-        new Vector<>(clientList2).forEach(s -> {
+        long fanOutStart = System.nanoTime();
+        recipients.forEach(s -> {
             LOG.debug("Für " + s + " wird Login- oder Logout-Event-PDU an alle aktiven Clients gesendet");
             ClientListEntry client = clients.getClient(s);
             try {
                 if (client != null) {
                     String userName = client.getUserName();
+                    long sendStart = System.nanoTime();
                     client.getConnection().send(pdu);
+                    latencies.record(SharedLatencyStatistics.Kind.SEND, pdu.getPduType(),
+                            System.nanoTime() - sendStart);
                     LOG.debug("Login- oder Logout-Event-PDU an " + userName + " gesendet");
                     clients.increaseNumberOfSentChatEvents(userName);
                     eventCounter.getAndIncrement();
@@ -120,6 +129,7 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
                 ExceptionHandler.logException(e);
             }
         });
+        latencies.record(SharedLatencyStatistics.Kind.FANOUT, pdu.getPduType(), System.nanoTime() - fanOutStart);
     }
 
     @Override
@@ -133,14 +143,16 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
             LOG.debug("User nicht in ClientListe: " + userName);
             ClientListEntry client = new ClientListEntry(userName, connection);
             client.setLoginTime(System.nanoTime());
+            // Status vor dem Eintragen setzen, damit der Client nie als UNREGISTERED in der Liste steht
+            client.setStatus(ClientConversationStatus.REGISTERING);
             clients.createClient(userName, client);
-            clients.changeClientStatus(userName, ClientConversationStatus.REGISTERING);
             LOG.debug("User " + userName + " nun in ClientListe");
 
             this.userName = receivedPdu.getUserName();
             clientThreadName = receivedPdu.getClientThreadName();
             Thread.currentThread().setName(userName);
             LOG.debug("Länge der ClientListe: " + clients.size());
+            loginCounter.increment();
             if (serverGuiInterface != null) serverGuiInterface.increaseNumberOfLoggedInClients();
 
             // Login-Event an alle Clients (auch an den gerade aktuell anfragenden) senden
@@ -235,13 +247,17 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
             ChatPDU pdu = ChatPDU.createChatMessageEventPdu(this.userName, receivedPdu);
 
             // Event an Clients senden
+            long fanOutStart = System.nanoTime();
             for (String s : new Vector<>(sendList)) {
                 client = clients.getClient(s);
                 try {
                     if ((client != null) && (client.getStatus() != ClientConversationStatus.UNREGISTERED)) {
                         String clientUserName = client.getUserName();//current client in the loop
                         pdu.setUserName(clientUserName);
+                        long sendStart = System.nanoTime();
                         client.getConnection().send(pdu);
+                        latencies.record(SharedLatencyStatistics.Kind.SEND, pdu.getPduType(),
+                                System.nanoTime() - sendStart);
                         LOG.debug("Chat-Event-PDU an " + clientUserName + " gesendet");
                         clients.increaseNumberOfSentChatEvents(clientUserName);
                         eventCounter.getAndIncrement();
@@ -255,6 +271,7 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
                     ExceptionHandler.logException(e);
                 }
             }
+            latencies.record(SharedLatencyStatistics.Kind.FANOUT, pdu.getPduType(), System.nanoTime() - fanOutStart);
 
             client = clients.getClient(userName);
             if (client != null) {
@@ -384,6 +401,7 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
 
             // Nachricht empfangen. Zeitmessung für Serverbearbeitungszeit starten
             startTime = System.nanoTime();
+            requestCounter.increment();
         } catch (ConnectionTimeoutException e) {
             // Wartezeit beim Empfang abgelaufen, prüfen, ob der Client überhaupt noch etwas sendet
             LOG.debug("Timeout beim Empfangen, " + RECEIVE_TIMEOUT + " ms ohne Nachricht vom Client");
@@ -457,6 +475,8 @@ public class SimpleChatWorkerThreadImpl extends AbstractWorkerThread {
                 default -> LOG.debug("Falsche PDU empfangen von Client: " + receivedPdu.getUserName() + ", PduType: "
                         + receivedPdu.getPduType());
             }
+            latencies.record(SharedLatencyStatistics.Kind.PROCESSING, receivedPdu.getPduType(),
+                    System.nanoTime() - startTime);
         } catch (Exception e) {
             LOG.error("Exception bei der Nachrichtenverarbeitung");
             ExceptionHandler.logExceptionAndTerminate(e);
@@ -9,8 +9,8 @@ import edu.hm.dako.common.ChatServerImplementationType;
 import edu.hm.dako.common.ExceptionHandler;
 import edu.hm.dako.common.SystemConstants;
 import edu.hm.dako.common.Tupel;
+import edu.hm.dako.common.gui.CounterDisplay;
 import edu.hm.dako.common.gui.FxGUI;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -30,7 +30,6 @@ import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Benutzeroberfläche zum Starten des Chat-Servers
@@ -54,9 +53,9 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
     private static ServerInterface chatServer;
 
     /**
-     * Zähler für die eingeloggten Clients und die empfangenen Request
+     * Zähler für die eingeloggten Clients und die empfangenen Requests, periodisch in der GUI angezeigt
      */
-    private static AtomicInteger loggedInClientCounter, requestCounter;
+    private final CounterDisplay counters;
 
     /**
      * Daten, die beim Start der GUI übergeben werden
@@ -103,7 +102,7 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
     private TextField serverPort, sendBufferSize, receiveBufferSize, auditLogServerHostnameOrIp, auditLogServerPort;
     private CheckBox enableAuditLogServerCheckbox;
     private Button startButton, stopButton, finishButton;
-    private final TextField startTimeField, receivedRequests, loggedInClients;
+    private final TextField startTimeField, receivedRequests, requestRate, loggedInClients, loginRate;
 
     /**
      * saving args for further processing
@@ -139,13 +138,14 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
      * Konstruktion der ServerGUI
      */
     public ServerFxGUI() {
-        super("ChatServerGUI", 400, 540);
+        super("ChatServerGUI", 400, 600);
 
-        loggedInClientCounter = new AtomicInteger(0);
-        requestCounter = new AtomicInteger(0);
         startTimeField = createNotEditableTextField();
         receivedRequests = createNotEditableTextField();
+        requestRate = createNotEditableTextField();
         loggedInClients = createNotEditableTextField();
+        loginRate = createNotEditableTextField();
+        counters = new CounterDisplay(receivedRequests, requestRate, loggedInClients, loginRate);
     }
 
     @Override
@@ -317,8 +317,14 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
         infoPane.add(createLabel("Empfangene Requests"), 1, 5);
         infoPane.add(receivedRequests, 3, 5);
 
-        infoPane.add(createLabel("Angemeldete Clients"), 1, 7);
-        infoPane.add(loggedInClients, 3, 7);
+        infoPane.add(createLabel("Requests/s"), 1, 7);
+        infoPane.add(requestRate, 3, 7);
+
+        infoPane.add(createLabel("Angemeldete Clients"), 1, 9);
+        infoPane.add(loggedInClients, 3, 9);
+
+        infoPane.add(createLabel("Logins/s"), 1, 11);
+        infoPane.add(loginRate, 3, 11);
         return infoPane;
     }
 
@@ -369,10 +375,6 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
             // CHat-Server-Port aus GUI lesen
             int serverPortInt = readServerPort();
 
-            // Zähler in der GUI initialisieren
-            receivedRequests.setText("0");
-            loggedInClients.setText("0");
-
             // Puffergrößen für Verbindung zu Chat-Clients aus GUI lesen
             int sendBufferSizeInt = readSendBufferSize();
             int receiveBufferSizeInt = readReceiveBufferSize();
@@ -421,6 +423,9 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
                 stopButton.setDisable(false);
                 finishButton.setDisable(true);
 
+                // periodische Anzeige starten, die Zähler laufen bereits seit dem Start des Servers
+                counters.start();
+
                 // Startzeit ermitteln
                 cal = Calendar.getInstance();
                 startTimeAsString = getCurrentTime(cal);
@@ -443,9 +448,8 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
                 ExceptionHandler.logException(e);
             }
 
-            // Zähler für Clients und Requests auf 0 stellen
-            requestCounter.set(0);
-            loggedInClientCounter.set(0);
+            // Anzeige anhalten, Zähler für Clients und Requests auf 0 stellen
+            counters.stop();
 
             startButton.setDisable(false);
             stopButton.setDisable(true);
@@ -454,8 +458,6 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
 
             // GUI-Einstellungen wieder auf Standard setzen
             startTimeField.setText("");
-            receivedRequests.setText("");
-            loggedInClients.setText("");
             auditLogServerPort.setText(SystemConstants.DEFAULT_AUDIT_LOG_SERVER_PORT);
             sendBufferSize.setText(SystemConstants.DEFAULT_SEND_BUFFER_SIZE);
             receiveBufferSize.setText(SystemConstants.DEFAULT_RECEIVE_BUFFER_SIZE);
@@ -639,28 +641,6 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
         return new SimpleDateFormat("dd.MM.yy HH:mm:ss:SSS").format(cal.getTime());
     }
 
-    /**
-     * GUI-Feld für eingeloggte Clients über Event-Liste des JavaFX-GUI-Threads aktualisieren
-     */
-    private void updateLoggedInClients() {
-        Platform.runLater(() -> {
-            LOG.debug("runLater: run-Methode wird ausgeführt");
-            LOG.debug("runLater: Logged in Clients: {}", loggedInClientCounter.get());
-            loggedInClients.setText(String.valueOf(loggedInClientCounter.get()));
-        });
-    }
-
-    /**
-     * GUI-Feld für Anzahl empfangener Requests über Event-Liste des JavaFX-GUI-Threads aktualisieren
-     */
-    private void updateNumberOfRequests() {
-        Platform.runLater(() -> {
-            LOG.debug("runLater: run-Methode wird ausgeführt");
-            LOG.debug("runLater: Received Requests: " + requestCounter.get());
-            receivedRequests.setText(String.valueOf(requestCounter.get()));
-        });
-    }
-
     @Override
     public void showStartData(ServerStartData data) {
         startTimeField.setText(startTimeAsString);
@@ -668,22 +648,16 @@ public class ServerFxGUI extends FxGUI implements ServerGUIInterface {
 
     @Override
     public void increaseNumberOfLoggedInClients() {
-        loggedInClientCounter.getAndIncrement();
-        LOG.debug("Eingeloggte Clients: " + loggedInClientCounter.get());
-        updateLoggedInClients();
+        counters.increaseLoggedInClients();
     }
 
     @Override
     public void decreaseNumberOfLoggedInClients() {
-        loggedInClientCounter.getAndDecrement();
-        LOG.debug("Eingeloggte Clients: " + loggedInClientCounter.get());
-        updateLoggedInClients();
+        counters.decreaseLoggedInClients();
     }
 
     @Override
     public void increaseNumberOfRequests() {
-        requestCounter.getAndIncrement();
-        LOG.debug(requestCounter.get() + " empfangene Message Requests");
-        updateNumberOfRequests();
+        counters.increaseRequests();
     }
-}
\ No newline at end of file
+}
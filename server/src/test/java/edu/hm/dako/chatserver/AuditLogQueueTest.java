@@ -0,0 +1,91 @@
+package edu.hm.dako.chatserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.hm.dako.common.AuditLogPDU;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AuditLogQueueTest {
+    @Test
+    public void offerFailsWhenFull() {
+        AuditLogQueue queue = new AuditLogQueue(2);
+        assertTrue(queue.offer(new AuditLogPDU()));
+        assertTrue(queue.offer(new AuditLogPDU()));
+        assertFalse(queue.offer(new AuditLogPDU()));
+        assertEquals(2, queue.size());
+
+        assertEquals(1, queue.drainTo(new ArrayList<>(), 1, 0));
+        assertTrue(queue.offer(new AuditLogPDU()));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void putWaitsForFreeSlot() throws InterruptedException {
+        AuditLogQueue queue = new AuditLogQueue(1);
+        AuditLogPDU first = new AuditLogPDU();
+        AuditLogPDU second = new AuditLogPDU();
+        queue.put(first);
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(second);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        // Policy BLOCK: der Erzeuger wartet, bis der Sende-Thread Platz schafft
+        long deadline = System.currentTimeMillis() + 5000;
+        while (producer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, producer.getState());
+        assertEquals(1, queue.size());
+
+        List<AuditLogPDU> batch = new ArrayList<>();
+        assertEquals(1, queue.drainTo(batch, 10, 0));
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertEquals(1, queue.drainTo(batch, 10, 0));
+        assertSame(first, batch.get(0));
+        assertSame(second, batch.get(1));
+    }
+
+    @Test
+    public void drainToWakesUpOnOffer() throws InterruptedException {
+        AuditLogQueue queue = new AuditLogQueue(10);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.offer(new AuditLogPDU());
+        });
+        producer.start();
+        List<AuditLogPDU> batch = new ArrayList<>();
+        int count = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count == 0 && System.nanoTime() < deadline) {
+            count = queue.drainTo(batch, 10, TimeUnit.SECONDS.toNanos(1));
+        }
+        producer.join();
+        assertEquals(1, count);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void overflowPolicyFromString() {
+        assertEquals(AuditLogOverflowPolicy.DROP, AuditLogOverflowPolicy.fromString("drop"));
+        assertEquals(AuditLogOverflowPolicy.SPILL, AuditLogOverflowPolicy.fromString("SPILL"));
+        assertEquals(AuditLogOverflowPolicy.BLOCK, AuditLogOverflowPolicy.fromString("block"));
+        assertEquals(AuditLogOverflowPolicy.BLOCK, AuditLogOverflowPolicy.fromString("unbekannt"));
+        assertEquals(AuditLogOverflowPolicy.BLOCK, AuditLogOverflowPolicy.fromString(null));
+    }
+}
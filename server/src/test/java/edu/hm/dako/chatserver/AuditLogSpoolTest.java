@@ -0,0 +1,156 @@
+package edu.hm.dako.chatserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.hm.dako.common.AuditLogPDU;
+import edu.hm.dako.common.AuditLogPDUType;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AuditLogSpoolTest {
+    @TempDir
+    File directory;
+
+    @Test
+    public void roundTripKeepsAllFields() throws IOException {
+        AuditLogSpool spool = new AuditLogSpool(directory);
+        AuditLogPDU pdu = pdu(42);
+        pdu.setPduType(AuditLogPDUType.CHAT_MESSAGE_REQUEST);
+        pdu.setMessage("Grüße");
+        AuditLogPDU withoutMessage = pdu(43);
+        withoutMessage.setMessage(null);
+        spool.append(List.of(pdu, withoutMessage));
+
+        List<AuditLogPDU> batch = new ArrayList<>();
+        assertEquals(2, spool.readBatch(batch, 10));
+        assertEquals(AuditLogPDUType.CHAT_MESSAGE_REQUEST, batch.get(0).getPduType());
+        assertEquals(42, batch.get(0).getAuditTime());
+        assertEquals("user42", batch.get(0).getUserName());
+        assertEquals("client42", batch.get(0).getClientThreadName());
+        assertEquals("server42", batch.get(0).getServerThreadName());
+        assertEquals("Grüße", batch.get(0).getMessage());
+        assertNull(batch.get(1).getMessage());
+        spool.close();
+    }
+
+    @Test
+    public void replayKeepsOrderWhileAppending() throws IOException {
+        AuditLogSpool spool = new AuditLogSpool(directory);
+        for (int i = 0; i < 10; i++) {
+            spool.append(pdu(i));
+        }
+
+        // Verbindung wieder da: der Replay liest in Batches, Worker-Threads hängen weiter an
+        List<AuditLogPDU> replayed = new ArrayList<>();
+        List<AuditLogPDU> batch = new ArrayList<>();
+        int count = spool.readBatch(batch, 4);
+        spool.commit(count);
+        replayed.addAll(batch);
+        spool.append(List.of(pdu(10), pdu(11)));
+        while (true) {
+            batch.clear();
+            count = spool.readBatch(batch, 100);
+            if (count == 0) break;
+            spool.commit(count);
+            replayed.addAll(batch);
+        }
+
+        assertAuditTimes(replayed, 12);
+        assertFalse(spool.hasBacklog());
+        assertEquals(12, spool.getNumberOfRecords());
+        assertEquals(0, segments().length);
+        spool.close();
+    }
+
+    @Test
+    public void replayAfterRestart() throws IOException {
+        AuditLogSpool spool = new AuditLogSpool(directory);
+        for (int i = 0; i < 5; i++) {
+            spool.append(pdu(i));
+        }
+        spool.close();
+
+        // nächster Start: die Sätze des früheren Laufs werden nachgesendet
+        spool = new AuditLogSpool(directory);
+        assertTrue(spool.hasBacklog());
+        assertEquals(5, spool.getPendingRecords());
+        List<AuditLogPDU> batch = new ArrayList<>();
+        spool.commit(spool.readBatch(batch, 100));
+        assertAuditTimes(batch, 5);
+        assertEquals(0, spool.readBatch(batch, 100));
+        spool.close();
+
+        assertFalse(new AuditLogSpool(directory).hasBacklog());
+        assertEquals(0, segments().length);
+    }
+
+    @Test
+    public void uncommittedRecordsAreReplayedAgain() throws IOException {
+        AuditLogSpool spool = new AuditLogSpool(directory);
+        for (int i = 0; i < 3; i++) {
+            spool.append(pdu(i));
+        }
+        // gelesen, aber vor der Bestätigung abgebrochen
+        assertEquals(3, spool.readBatch(new ArrayList<>(), 100));
+        spool.close();
+
+        spool = new AuditLogSpool(directory);
+        assertEquals(3, spool.getPendingRecords());
+        List<AuditLogPDU> batch = new ArrayList<>();
+        spool.commit(spool.readBatch(batch, 100));
+        assertAuditTimes(batch, 3);
+        spool.close();
+    }
+
+    @Test
+    public void damagedSegmentEndIsSkipped() throws IOException {
+        AuditLogSpool spool = new AuditLogSpool(directory);
+        spool.append(List.of(pdu(0), pdu(1)));
+        spool.close();
+        // unvollständiger Satz am Ende, z.B. nach einem Absturz beim Schreiben
+        try (FileOutputStream out = new FileOutputStream(segments()[0], true)) {
+            out.write(new byte[]{(byte) AuditLogPDUType.LOGIN_REQUEST.ordinal(), 0, 0});
+        }
+
+        spool = new AuditLogSpool(directory);
+        assertEquals(2, spool.getPendingRecords());
+        List<AuditLogPDU> batch = new ArrayList<>();
+        spool.commit(spool.readBatch(batch, 100));
+        assertAuditTimes(batch, 2);
+        assertEquals(0, spool.readBatch(batch, 100));
+        assertFalse(spool.hasBacklog());
+        assertEquals(0, segments().length);
+        spool.close();
+    }
+
+    private File[] segments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("segment-"));
+        return files == null ? new File[0] : files;
+    }
+
+    private static void assertAuditTimes(List<AuditLogPDU> pdus, int count) {
+        assertEquals(count, pdus.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, pdus.get(i).getAuditTime());
+        }
+    }
+
+    private static AuditLogPDU pdu(long auditTime) {
+        AuditLogPDU pdu = new AuditLogPDU();
+        pdu.setPduType(AuditLogPDUType.LOGIN_REQUEST);
+        pdu.setAuditTime(auditTime);
+        pdu.setUserName("user" + auditTime);
+        pdu.setClientThreadName("client" + auditTime);
+        pdu.setServerThreadName("server" + auditTime);
+        pdu.setMessage("");
+        return pdu;
+    }
+}